@@ -5,6 +5,7 @@
 
 package ch.svenstoll.similarityfinder;
 
+import ch.svenstoll.similarityfinder.domain.ExecutorRegistry;
 import ch.svenstoll.similarityfinder.domain.Settings;
 import ch.svenstoll.similarityfinder.ui.AppController;
 import ch.svenstoll.similarityfinder.ui.StageUtil;
@@ -73,7 +74,7 @@ public final class App extends Application {
 
     /**
      * This method is called when the application should stop and tries to shutdown ongoing
-     * background tasks.
+     * background tasks and the thread pools of the {@code ExecutorRegistry}.
      * <p>
      * NOTE: This method is called on the JavaFX Application Thread.
      * </p>
@@ -81,5 +82,6 @@ public final class App extends Application {
     @Override
     public void stop() {
         appController.stopOngoingBackgroundTasks();
+        injector.getInstance(ExecutorRegistry.class).shutdown();
     }
 }
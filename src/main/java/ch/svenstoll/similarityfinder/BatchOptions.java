@@ -0,0 +1,154 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static ch.svenstoll.similarityfinder.CliOptions.parseEnum;
+import static ch.svenstoll.similarityfinder.CliOptions.value;
+
+/**
+ * The parsed command line options of the {@link BatchScheduler}.
+ */
+final class BatchOptions {
+    @NotNull
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp similarity-finder.jar "
+                    + "ch.svenstoll.similarityfinder.BatchScheduler [options]",
+            "",
+            "  --output DIRECTORY     directory the results of every run are written to",
+            "  --configs NAME[,NAME]  names of the saved filter configs to be run",
+            "                         (default: all saved filter configs)",
+            "  --at TIME              run every day at the specified time, e.g. 02:30",
+            "                         (default: run once)",
+            "  --format FORMAT        jsonl (default) or csv",
+            "  --db-address ADDRESS   address of the database, e.g. localhost:5432/articles",
+            "  --db-user USER         user of the database. The password is read from the",
+            "                         environment variable " + Cli.DB_PASSWORD_VARIABLE + ".",
+            "  --help                 print this message");
+
+    private boolean help = false;
+    @Nullable
+    private String output = null;
+    @Nullable
+    private List<String> configNames = null;
+    @Nullable
+    private LocalTime time = null;
+    @NotNull
+    private CliOptions.Format format = CliOptions.Format.JSONL;
+    @Nullable
+    private String dbAddress = null;
+    @Nullable
+    private String dbUser = null;
+
+    private BatchOptions() {}
+
+    /**
+     * Parses command line arguments.
+     *
+     * @param args the command line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException if {@code args} was {@code null}, contained an unknown
+     *                                  option, an option without its value or an invalid value
+     *                                  or if no output directory was specified
+     */
+    static @NotNull BatchOptions parse(@NotNull String[] args) {
+        Validate.notNull(args, "Args must not be null.");
+
+        BatchOptions options = new BatchOptions();
+        Iterator<String> iterator = Arrays.asList(args).iterator();
+        while (iterator.hasNext()) {
+            String option = iterator.next();
+            switch (option) {
+                case "--help":
+                    options.help = true;
+                    break;
+                case "--output":
+                    options.output = value(option, iterator);
+                    break;
+                case "--configs":
+                    options.configNames = new ArrayList<>();
+                    for (String name : value(option, iterator).split(",")) {
+                        if (!name.trim().isEmpty()) {
+                            options.configNames.add(name.trim());
+                        }
+                    }
+                    break;
+                case "--at":
+                    try {
+                        options.time = LocalTime.parse(value(option, iterator));
+                    } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException(option
+                                + " must be a time like 02:30.", e);
+                    }
+                    break;
+                case "--format":
+                    options.format = parseEnum(CliOptions.Format.class, option,
+                            value(option, iterator));
+                    break;
+                case "--db-address":
+                    options.dbAddress = value(option, iterator);
+                    break;
+                case "--db-user":
+                    options.dbUser = value(option, iterator);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option + ".");
+            }
+        }
+
+        Validate.isTrue(options.help || options.output != null, "--output is required.");
+        return options;
+    }
+
+    boolean isHelp() {
+        return help;
+    }
+
+    @Nullable String getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns the names of the filter configs to be run.
+     *
+     * @return the names of the filter configs or {@code null} if all saved filter configs
+     *         should be run
+     */
+    @Nullable List<String> getConfigNames() {
+        return configNames;
+    }
+
+    /**
+     * Returns the time of day the batch should be run at.
+     *
+     * @return the time of the daily run or {@code null} if the batch should be run once
+     */
+    @Nullable LocalTime getTime() {
+        return time;
+    }
+
+    @NotNull CliOptions.Format getFormat() {
+        return format;
+    }
+
+    @Nullable String getDbAddress() {
+        return dbAddress;
+    }
+
+    @Nullable String getDbUser() {
+        return dbUser;
+    }
+}
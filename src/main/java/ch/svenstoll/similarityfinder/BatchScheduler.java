@@ -0,0 +1,298 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
+import ch.svenstoll.similarityfinder.dao.FilterConfigsAccess;
+import ch.svenstoll.similarityfinder.dao.FilterConfigsAccessException;
+import ch.svenstoll.similarityfinder.domain.*;
+import com.google.gson.stream.JsonWriter;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The main class of the batch mode, which runs a group of saved filter configs together with a
+ * {@link BatchDetector}, either once or every day at a specified time (see {@link
+ * BatchOptions#USAGE}). Every run writes the clusters of each filter config and a report with
+ * the timing of the run into a directory of its own.
+ */
+public final class BatchScheduler {
+    @NotNull
+    static final String REPORT_FILE = "report.json";
+    @NotNull
+    private static final DateTimeFormatter RUN_DIRECTORY_FORMAT
+            = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH-mm-ss");
+
+    @NotNull
+    private final BatchDetector batchDetector;
+    @NotNull
+    private final FilterConfigsAccess filterConfigsAccess;
+    @NotNull
+    private final CancellationSignal signal = new CancellationSignal();
+    @NotNull
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Constructs a {@code BatchScheduler}.
+     *
+     * @param batchDetector a {@code BatchDetector} used to run the filter configs
+     * @param filterConfigsAccess an instance of {@code FilterConfigsAccess} used to retrieve
+     *                            saved filter configs
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    @Inject
+    public BatchScheduler(@NotNull BatchDetector batchDetector,
+                          @NotNull FilterConfigsAccess filterConfigsAccess) {
+        this.batchDetector = Validate.notNull(batchDetector, "BatchDetector must not be null.");
+        this.filterConfigsAccess
+                = Validate.notNull(filterConfigsAccess, "FilterConfigsAccess must not be null.");
+    }
+
+    public static void main(String[] args) {
+        BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BatchOptions.USAGE);
+            System.exit(Cli.EXIT_USAGE);
+            return;
+        }
+        if (options.isHelp()) {
+            System.out.println(BatchOptions.USAGE);
+            return;
+        }
+
+        // Only the data access and domain classes are created, so no JavaFX class is loaded.
+        Injector injector = Guice.createInjector(new ProductionModule());
+        Settings settings = injector.getInstance(Settings.class);
+        if (options.getDbAddress() != null) {
+            settings.setDbAddress(options.getDbAddress());
+        }
+        if (options.getDbUser() != null) {
+            settings.setDbUser(options.getDbUser());
+        }
+        String dbPassword = System.getenv(Cli.DB_PASSWORD_VARIABLE);
+        if (dbPassword != null) {
+            settings.setDbPassword(dbPassword);
+        }
+
+        BatchScheduler scheduler = injector.getInstance(BatchScheduler.class);
+        Runtime.getRuntime().addShutdownHook(new Thread(scheduler::cancel));
+        LocalTime time = options.getTime();
+        if (time == null) {
+            System.exit(scheduler.run(options, LocalDateTime.now(), System.err));
+            return;
+        }
+        scheduler.scheduleDaily(time, () -> scheduler.run(options, LocalDateTime.now(),
+                System.err));
+        System.err.println("The batch is run every day at " + time + ".");
+    }
+
+    /**
+     * Runs the filter configs of the {@code options} and writes their results into a new
+     * directory within the output directory, which is named after the {@code startTime}.
+     * Every cluster file is named after the position and name of its filter config.
+     *
+     * @param options the parsed command line options
+     * @param startTime the time the run has been started at
+     * @param err the stream messages are written to
+     * @return the exit code of the run
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    int run(@NotNull BatchOptions options, @NotNull LocalDateTime startTime,
+            @NotNull PrintStream err) {
+        Validate.notNull(options, "Options must not be null.");
+        Validate.notNull(startTime, "StartTime must not be null.");
+        Validate.notNull(err, "Err must not be null.");
+        long startNanos = System.nanoTime();
+
+        try {
+            List<FilterConfig> configs = findFilterConfigs(options.getConfigNames());
+            if (configs == null) {
+                err.println("There is no filter config with each of the names "
+                        + options.getConfigNames() + ".");
+                return Cli.EXIT_USAGE;
+            }
+            BatchReport report = batchDetector.detect(configs, signal);
+
+            File directory = new File(options.getOutput(), RUN_DIRECTORY_FORMAT.format(startTime));
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("The directory " + directory + " could not be created.");
+            }
+            List<String> fileNames = new ArrayList<>();
+            for (int i = 0; i < report.getResults().size(); i++) {
+                String fileName = String.format("%02d-%s.%s", i + 1,
+                        toFileName(report.getResults().get(i).getConfig().getName()),
+                        options.getFormat().name().toLowerCase(Locale.ROOT));
+                writeClusters(new File(directory, fileName), options.getFormat(),
+                        report.getResults().get(i).getClusters());
+                fileNames.add(fileName);
+            }
+            writeReport(new File(directory, REPORT_FILE), startTime, report, fileNames);
+
+            err.printf("%d filter configs run in %d ms. The results have been written to %s.%n",
+                    configs.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                    directory);
+            return Cli.EXIT_SUCCESS;
+        } catch (DetectionAbortedException e) {
+            err.println("The batch run has been cancelled.");
+            return Cli.EXIT_CANCELLED;
+        } catch (DatabaseAccessException | FilterConfigsAccessException
+                | IllegalArgumentException e) {
+            err.println(signal.isCancelled() ? "The batch run has been cancelled."
+                    : e.getMessage());
+            return signal.isCancelled() ? Cli.EXIT_CANCELLED : Cli.EXIT_FAILURE;
+        } catch (IOException e) {
+            err.println("The results could not be written: " + e.getMessage());
+            return Cli.EXIT_FAILURE;
+        }
+    }
+
+    /**
+     * Retrieves the saved filter configs with the specified names in the order of the names.
+     *
+     * @return the filter configs, all saved filter configs if {@code names} was {@code null} or
+     *         {@code null} if there is no filter config with one of the names
+     */
+    private @Nullable List<FilterConfig> findFilterConfigs(@Nullable List<String> names) {
+        List<FilterConfig> savedConfigs = filterConfigsAccess.retrieveFilterConfigsFromFile();
+        if (names == null) {
+            return savedConfigs;
+        }
+
+        List<FilterConfig> configs = new ArrayList<>();
+        for (String name : names) {
+            FilterConfig config = savedConfigs.stream()
+                    .filter(savedConfig -> name.equals(savedConfig.getName()))
+                    .findFirst()
+                    .orElse(null);
+            if (config == null) {
+                return null;
+            }
+            configs.add(config);
+        }
+        return configs;
+    }
+
+    /**
+     * Replaces every character of a filter config name that might not be allowed in a file
+     * name.
+     */
+    private static @NotNull String toFileName(@Nullable String name) {
+        return name != null ? name.replaceAll("[^\\w.-]", "_") : "unnamed";
+    }
+
+    private static void writeClusters(@NotNull File file, @NotNull CliOptions.Format format,
+                                      @NotNull List<Set<Article>> clusters) throws IOException {
+        List<Set<Article>> sortedClusters = new ArrayList<>(clusters);
+        sortedClusters.sort(Comparator.comparingInt((Set<Article> cluster) -> cluster.size())
+                .reversed());
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), UTF_8))) {
+            ClusterWriter clusterWriter = new ClusterWriter(writer, format);
+            for (Set<Article> cluster : sortedClusters) {
+                clusterWriter.write(cluster);
+            }
+        }
+    }
+
+    private static void writeReport(@NotNull File file, @NotNull LocalDateTime startTime,
+                                    @NotNull BatchReport report,
+                                    @NotNull List<String> fileNames) throws IOException {
+        try (JsonWriter json = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), UTF_8)))) {
+            json.setIndent("  ");
+            json.beginObject();
+            json.name("startTime").value(startTime.toString());
+            json.name("articles").value(report.getArticleCount());
+            json.name("queryMillis").value(TimeUnit.NANOSECONDS.toMillis(report.getQueryNanos()));
+            json.name("indexMillis").value(TimeUnit.NANOSECONDS.toMillis(report.getIndexNanos()));
+            json.name("configs").beginArray();
+            for (int i = 0; i < report.getResults().size(); i++) {
+                BatchResult result = report.getResults().get(i);
+                json.beginObject();
+                json.name("name").value(result.getConfig().getName());
+                json.name("similarityThreshold")
+                        .value(result.getConfig().getSimilarityThreshold());
+                json.name("articles").value(result.getArticleCount());
+                json.name("clusters").value(result.getClusters().size());
+                json.name("detectionMillis")
+                        .value(TimeUnit.NANOSECONDS.toMillis(result.getDetectionNanos()));
+                json.name("file").value(fileNames.get(i));
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    /**
+     * Runs a job every day at the specified time, starting with the next occurrence of the
+     * time. The next run is scheduled after the job has finished, so runs never overlap and a
+     * change of the UTC offset of the time zone, e.g. due to daylight saving time, is taken
+     * into account.
+     *
+     * @param time the local time of day the job should be run at
+     * @param job the job to be run
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    void scheduleDaily(@NotNull LocalTime time, @NotNull Runnable job) {
+        Validate.notNull(time, "Time must not be null.");
+        Validate.notNull(job, "Job must not be null.");
+
+        executor.schedule(() -> {
+            try {
+                job.run();
+            } finally {
+                if (!signal.isCancelled()) {
+                    scheduleDaily(time, job);
+                }
+            }
+        }, delayUntil(time, ZonedDateTime.now()), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Calculates the time until the next occurrence of a time of day.
+     *
+     * @param time a local time of day
+     * @param now the current time
+     * @return the milliseconds until the next occurrence of the {@code time} after {@code now}
+     */
+    static long delayUntil(@NotNull LocalTime time, @NotNull ZonedDateTime now) {
+        ZonedDateTime next = now.with(time);
+        if (!next.isAfter(now)) {
+            next = now.plusDays(1).with(time);
+        }
+        return Duration.between(now, next).toMillis();
+    }
+
+    /**
+     * Cancels the running batch run and stops scheduling further runs. This method is thread
+     * safe.
+     */
+    void cancel() {
+        signal.cancel();
+        executor.shutdownNow();
+    }
+}
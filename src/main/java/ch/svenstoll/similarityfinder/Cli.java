@@ -0,0 +1,308 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.dao.DatabaseAccess;
+import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
+import ch.svenstoll.similarityfinder.dao.DetectionCheckpointAccessException;
+import ch.svenstoll.similarityfinder.dao.FilterConfigsAccess;
+import ch.svenstoll.similarityfinder.dao.FilterConfigsAccessException;
+import ch.svenstoll.similarityfinder.domain.*;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The main class of the command line interface, which detects similar contents without the
+ * JavaFX user interface, e.g. on a headless server. The clusters are written to the standard
+ * output or a file (see {@link CliOptions#USAGE}). The settings of the application are used to
+ * connect to the database unless they are overridden by options.
+ * <p>
+ * An interrupt, e.g. by pressing Ctrl+C, cancels the running database query and detection. A
+ * detection of the checkpoint engine stores a checkpoint before it stops, so that it can be
+ * resumed with {@code --resume}.
+ * </p>
+ */
+public final class Cli {
+    /**
+     * The environment variable that contains the password of the database, so that it does
+     * not have to be passed as a visible argument.
+     */
+    @NotNull
+    static final String DB_PASSWORD_VARIABLE = "SIMILARITY_FINDER_DB_PASSWORD";
+    static final int EXIT_SUCCESS = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+    static final int EXIT_CANCELLED = 130;
+
+    /**
+     * The time an interrupted detection is given to stop, e.g. to store a checkpoint.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    /**
+     * The time the worker processes of the sharded engine are given to start and connect.
+     */
+    private static final long WORKER_START_TIMEOUT_SECONDS = 30;
+
+    @NotNull
+    private final DatabaseAccess databaseAccess;
+    @NotNull
+    private final SimilarityDetector similarityDetector;
+    @NotNull
+    private final CheckpointingDetector checkpointingDetector;
+    @NotNull
+    private final FilterConfigsAccess filterConfigsAccess;
+    @NotNull
+    private final Settings settings;
+    @NotNull
+    private final CancellationSignal signal = new CancellationSignal();
+
+    /**
+     * Constructs a {@code Cli}.
+     *
+     * @param databaseAccess an instance of {@code DatabaseAccess} used to query the database
+     * @param similarityDetector a {@code SimilarityDetector} used by the index and pairwise
+     *                           engines
+     * @param checkpointingDetector a {@code CheckpointingDetector} used by the checkpoint engine
+     * @param filterConfigsAccess an instance of {@code FilterConfigsAccess} used to retrieve
+     *                            saved filter configs
+     * @param settings the {@code Settings} instance used throughout the application
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    @Inject
+    public Cli(@NotNull DatabaseAccess databaseAccess,
+               @NotNull SimilarityDetector similarityDetector,
+               @NotNull CheckpointingDetector checkpointingDetector,
+               @NotNull FilterConfigsAccess filterConfigsAccess,
+               @NotNull Settings settings) {
+        this.databaseAccess = Validate.notNull(databaseAccess, "DatabaseAccess must not be null.");
+        this.similarityDetector
+                = Validate.notNull(similarityDetector, "SimilarityDetector must not be null.");
+        this.checkpointingDetector = Validate.notNull(checkpointingDetector,
+                "CheckpointingDetector must not be null.");
+        this.filterConfigsAccess
+                = Validate.notNull(filterConfigsAccess, "FilterConfigsAccess must not be null.");
+        this.settings = Validate.notNull(settings, "Settings must not be null.");
+    }
+
+    public static void main(String[] args) {
+        CliOptions options;
+        try {
+            options = CliOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CliOptions.USAGE);
+            System.exit(EXIT_USAGE);
+            return;
+        }
+        if (options.isHelp()) {
+            System.out.println(CliOptions.USAGE);
+            return;
+        }
+
+        // Only the data access and domain classes are created, so no JavaFX class is loaded.
+        Cli cli = Guice.createInjector(new ProductionModule()).getInstance(Cli.class);
+        CountDownLatch finished = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            cli.cancel();
+            try {
+                finished.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        int exitCode = cli.run(options, System.getenv(DB_PASSWORD_VARIABLE), System.out,
+                System.err);
+        finished.countDown();
+        System.exit(exitCode);
+    }
+
+    /**
+     * Runs a detection and writes its clusters, the largest first.
+     *
+     * @param options the parsed command line options
+     * @param dbPassword the password of the database or {@code null} to use the settings
+     * @param out the stream the clusters are written to if no output file is specified. It is
+     *            flushed but not closed.
+     * @param err the stream messages are written to
+     * @return the exit code of the command line interface
+     * @throws IllegalArgumentException if {@code options}, {@code out} or {@code err} was
+     *                                  {@code null}
+     */
+    int run(@NotNull CliOptions options, @Nullable String dbPassword, @NotNull OutputStream out,
+            @NotNull PrintStream err) {
+        Validate.notNull(options, "Options must not be null.");
+        Validate.notNull(out, "Out must not be null.");
+        Validate.notNull(err, "Err must not be null.");
+        long startNanos = System.nanoTime();
+
+        if (options.getDbAddress() != null) {
+            settings.setDbAddress(options.getDbAddress());
+        }
+        if (options.getDbUser() != null) {
+            settings.setDbUser(options.getDbUser());
+        }
+        if (dbPassword != null) {
+            settings.setDbPassword(dbPassword);
+        }
+
+        Writer writer = null;
+        try {
+            FilterConfig config = null;
+            if (options.getConfigName() != null) {
+                config = findFilterConfig(options.getConfigName());
+                if (config == null) {
+                    err.println("There is no filter config named \"" + options.getConfigName()
+                            + "\".");
+                    return EXIT_USAGE;
+                }
+            }
+            FilterCriteria criteria = options.toCriteria(config);
+            double threshold = options.getSimilarityThreshold(config);
+
+            writer = options.getOutput() != null
+                    ? new OutputStreamWriter(new FileOutputStream(options.getOutput()), UTF_8)
+                    : new OutputStreamWriter(out, UTF_8);
+            writer = new BufferedWriter(writer);
+            ClusterWriter clusterWriter = new ClusterWriter(writer, options.getFormat());
+
+            List<Set<Article>> clusters = new ArrayList<>(detect(options, criteria, threshold,
+                    err));
+            clusters.sort(Comparator.comparingInt((Set<Article> cluster) -> cluster.size())
+                    .reversed());
+            for (Set<Article> cluster : clusters) {
+                clusterWriter.write(cluster);
+            }
+
+            err.printf("%d clusters written in %d ms.%n", clusterWriter.getClusterCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return EXIT_SUCCESS;
+        } catch (DetectionAbortedException e) {
+            err.println(options.getEngine() == CliOptions.Engine.CHECKPOINT
+                    ? "The detection has been cancelled. Run it again with --resume to continue."
+                    : "The detection has been cancelled.");
+            return EXIT_CANCELLED;
+        } catch (DatabaseAccessException | FilterConfigsAccessException
+                | DetectionCheckpointAccessException | CheckpointMismatchException e) {
+            err.println(signal.isCancelled() ? "The detection has been cancelled."
+                    : e.getMessage());
+            return signal.isCancelled() ? EXIT_CANCELLED : EXIT_FAILURE;
+        } catch (UncheckedIOException e) {
+            err.println(e.getMessage() + " " + e.getCause().getMessage());
+            return EXIT_FAILURE;
+        } catch (IOException e) {
+            err.println("The clusters could not be written: " + e.getMessage());
+            return EXIT_FAILURE;
+        } finally {
+            closeOutput(writer, options.getOutput() != null);
+        }
+    }
+
+    /**
+     * Detects the clusters with the engine of the {@code options}.
+     */
+    private @NotNull List<Set<Article>> detect(@NotNull CliOptions options,
+                                               @NotNull FilterCriteria criteria,
+                                               double threshold, @NotNull PrintStream err) {
+        switch (options.getEngine()) {
+            case PAIRWISE:
+                return similarityDetector.detectArticlesWithSimilarContents(
+                        databaseAccess.queryArticlesByCriteria(criteria, signal), threshold,
+                        options.getThreads(), signal);
+            case CHECKPOINT:
+                List<Article> articles = databaseAccess.queryArticlesByCriteria(criteria, signal);
+                return options.isResume() ? checkpointingDetector.resume(articles, signal)
+                        : checkpointingDetector.detect(articles, threshold, signal);
+            case ANYTIME:
+                PartialDetectionResult result = new AnytimeSimilarityDetector(
+                        databaseAccess.queryArticlesByCriteria(criteria, signal), threshold)
+                        .runFor(TimeUnit.SECONDS.toNanos(options.getTimeBudget()), signal);
+                if (!result.isComplete()) {
+                    err.printf("The time budget has run out after %.0f%% of all pairs of "
+                            + "articles have been compared.%n", result.getCoverage() * 100);
+                }
+                return result.getClusters();
+            case SHARDED:
+                return detectSharded(options, criteria, threshold);
+            default:
+                PipelineMetrics metrics = new PipelineMetrics();
+                return similarityDetector.detectArticlesWithSimilarContents(
+                        consumer -> databaseAccess.streamArticlesByCriteria(criteria, signal,
+                                metrics, consumer), threshold, signal);
+        }
+    }
+
+    /**
+     * Detects the clusters with local worker processes, which are stopped afterwards.
+     *
+     * @throws UncheckedIOException if the worker processes could not be started or all of them
+     *                              have failed
+     */
+    private @NotNull List<Set<Article>> detectSharded(@NotNull CliOptions options,
+                                                      @NotNull FilterCriteria criteria,
+                                                      double threshold) {
+        List<Article> articles = databaseAccess.queryArticlesByCriteria(criteria, signal);
+        try (ShardCoordinator coordinator = new ShardCoordinator()) {
+            coordinator.startWorkerProcesses(options.getWorkers(),
+                    options.getWorkerHeap() != null
+                            ? Collections.singletonList("-Xmx" + options.getWorkerHeap())
+                            : Collections.emptyList());
+            coordinator.awaitWorkers(options.getWorkers(),
+                    TimeUnit.SECONDS.toMillis(WORKER_START_TIMEOUT_SECONDS));
+            return coordinator.detect(articles, threshold, options.getShardSize(), signal);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The worker processes could not be started.", e);
+        }
+    }
+
+    private @Nullable FilterConfig findFilterConfig(@NotNull String name) {
+        for (FilterConfig config : filterConfigsAccess.retrieveFilterConfigsFromFile()) {
+            if (name.equals(config.getName())) {
+                return config;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes an output file or flushes the standard output, which must stay open.
+     */
+    private static void closeOutput(@Nullable Writer writer, boolean file) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            if (file) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Cancels the running database query and detection. This method is thread safe.
+     */
+    void cancel() {
+        signal.cancel();
+    }
+}
@@ -0,0 +1,352 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.FilterConfig;
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * The parsed command line options of the {@link Cli}. Filter parameters that are specified
+ * explicitly take precedence over the values of a saved {@code FilterConfig}.
+ */
+final class CliOptions {
+    @NotNull
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp similarity-finder.jar ch.svenstoll.similarityfinder.Cli [options]",
+            "",
+            "Filter:",
+            "  --config NAME          use the values of a saved filter config",
+            "  --threshold NUMBER     similarity threshold between 0 and 1 (default: 1)",
+            "  --media NAME[,NAME]    names of the media (default: all media)",
+            "  --from DATE            earliest publication date, e.g. 2017-01-31",
+            "  --to DATE              latest publication date",
+            "  --title TEXT           text the titles must contain",
+            "  --min-letters NUMBER   minimum number of letters of the contents",
+            "  --relevant-only        select relevant articles only",
+            "",
+            "Detection:",
+            "  --engine ENGINE        index (default), pairwise, checkpoint, anytime or sharded",
+            "  --threads NUMBER       worker threads of the pairwise engine",
+            "                         (default: available processors)",
+            "  --workers NUMBER       worker processes of the sharded engine",
+            "                         (default: available processors)",
+            "  --shard-size NUMBER    articles per shard of the sharded engine (default: "
+                    + ShardCoordinator.DEFAULT_SHARD_SIZE + ")",
+            "  --worker-heap SIZE     maximum heap of every worker process, e.g. 2g",
+            "  --time-budget SECONDS  time budget of the anytime engine",
+            "  --resume               resume the stored checkpoint of the checkpoint engine",
+            "",
+            "Output:",
+            "  --format FORMAT        jsonl (default) or csv",
+            "  --output FILE          file the clusters are written to (default: stdout)",
+            "",
+            "Database (default: the settings of the application):",
+            "  --db-address ADDRESS   address of the database, e.g. localhost:5432/articles",
+            "  --db-user USER         user of the database. The password is read from the",
+            "                         environment variable " + Cli.DB_PASSWORD_VARIABLE + ".",
+            "",
+            "  --help                 print this message");
+
+    /**
+     * The engines that can be used to detect similar contents.
+     */
+    enum Engine {
+        /** The streaming detection of a {@code SimilarityIndex}. */
+        INDEX,
+        /** The comparison of all pairs by multiple threads. */
+        PAIRWISE,
+        /** The detection of a {@code CheckpointingDetector} that can be resumed. */
+        CHECKPOINT,
+        /** The detection of an {@code AnytimeSimilarityDetector} within a time budget. */
+        ANYTIME,
+        /** The detection of a {@code ShardCoordinator} with local worker processes. */
+        SHARDED
+    }
+
+    /**
+     * The formats the clusters can be written in.
+     */
+    enum Format {
+        /** One JSON object per cluster and line. */
+        JSONL,
+        /** One row per article with the number of its cluster. */
+        CSV
+    }
+
+    private boolean help = false;
+    @Nullable
+    private String configName = null;
+    @Nullable
+    private Double similarityThreshold = null;
+    @Nullable
+    private List<String> media = null;
+    @Nullable
+    private LocalDate fromDate = null;
+    @Nullable
+    private LocalDate toDate = null;
+    @Nullable
+    private String title = null;
+    @Nullable
+    private Integer minLetters = null;
+    private boolean relevantOnly = false;
+    @NotNull
+    private Engine engine = Engine.INDEX;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int timeBudget = 0;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int shardSize = ShardCoordinator.DEFAULT_SHARD_SIZE;
+    @Nullable
+    private String workerHeap = null;
+    private boolean resume = false;
+    @NotNull
+    private Format format = Format.JSONL;
+    @Nullable
+    private String output = null;
+    @Nullable
+    private String dbAddress = null;
+    @Nullable
+    private String dbUser = null;
+
+    private CliOptions() {}
+
+    /**
+     * Parses command line arguments.
+     *
+     * @param args the command line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException if {@code args} was {@code null} or contained an unknown
+     *                                  option, an option without its value or an invalid value
+     */
+    static @NotNull CliOptions parse(@NotNull String[] args) {
+        Validate.notNull(args, "Args must not be null.");
+
+        CliOptions options = new CliOptions();
+        Iterator<String> iterator = Arrays.asList(args).iterator();
+        while (iterator.hasNext()) {
+            String option = iterator.next();
+            switch (option) {
+                case "--help":
+                    options.help = true;
+                    break;
+                case "--config":
+                    options.configName = value(option, iterator);
+                    break;
+                case "--threshold":
+                    double threshold = parseDouble(option, value(option, iterator));
+                    Validate.isTrue(threshold >= MIN_SIMILARITY_INDEX
+                                    && threshold <= MAX_SIMILARITY_INDEX,
+                            "%s must be between %d and %d.", option, MIN_SIMILARITY_INDEX,
+                            MAX_SIMILARITY_INDEX);
+                    options.similarityThreshold = threshold;
+                    break;
+                case "--media":
+                    options.media = new ArrayList<>();
+                    for (String medium : value(option, iterator).split(",")) {
+                        if (!medium.trim().isEmpty()) {
+                            options.media.add(medium.trim());
+                        }
+                    }
+                    break;
+                case "--from":
+                    options.fromDate = parseDate(option, value(option, iterator));
+                    break;
+                case "--to":
+                    options.toDate = parseDate(option, value(option, iterator));
+                    break;
+                case "--title":
+                    options.title = value(option, iterator);
+                    break;
+                case "--min-letters":
+                    options.minLetters = parseInt(option, value(option, iterator), 0);
+                    break;
+                case "--relevant-only":
+                    options.relevantOnly = true;
+                    break;
+                case "--engine":
+                    options.engine = parseEnum(Engine.class, option, value(option, iterator));
+                    break;
+                case "--threads":
+                    options.threads = parseInt(option, value(option, iterator), 1);
+                    break;
+                case "--time-budget":
+                    options.timeBudget = parseInt(option, value(option, iterator), 1);
+                    break;
+                case "--workers":
+                    options.workers = parseInt(option, value(option, iterator), 1);
+                    break;
+                case "--shard-size":
+                    options.shardSize = parseInt(option, value(option, iterator), 1);
+                    break;
+                case "--worker-heap":
+                    options.workerHeap = value(option, iterator);
+                    Validate.isTrue(options.workerHeap.matches("\\d+[kKmMgG]?"),
+                            "%s must be a size like 2g.", option);
+                    break;
+                case "--resume":
+                    options.resume = true;
+                    break;
+                case "--format":
+                    options.format = parseEnum(Format.class, option, value(option, iterator));
+                    break;
+                case "--output":
+                    options.output = value(option, iterator);
+                    break;
+                case "--db-address":
+                    options.dbAddress = value(option, iterator);
+                    break;
+                case "--db-user":
+                    options.dbUser = value(option, iterator);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option + ".");
+            }
+        }
+
+        Validate.isTrue(options.engine != Engine.ANYTIME || options.timeBudget > 0,
+                "The anytime engine requires a --time-budget.");
+        Validate.isTrue(!options.resume || options.engine == Engine.CHECKPOINT,
+                "Only the checkpoint engine can --resume.");
+        return options;
+    }
+
+    static @NotNull String value(@NotNull String option, @NotNull Iterator<String> iterator) {
+        Validate.isTrue(iterator.hasNext(), "%s requires a value.", option);
+        return iterator.next();
+    }
+
+    static double parseDouble(@NotNull String option, @NotNull String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " must be a number.", e);
+        }
+    }
+
+    static int parseInt(@NotNull String option, @NotNull String value, int min) {
+        try {
+            int number = Integer.parseInt(value);
+            Validate.isTrue(number >= min, "%s must be at least %d.", option, min);
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " must be a whole number.", e);
+        }
+    }
+
+    private static @NotNull LocalDate parseDate(@NotNull String option, @NotNull String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(option + " must be a date like 2017-01-31.", e);
+        }
+    }
+
+    static <E extends Enum<E>> E parseEnum(@NotNull Class<E> type, @NotNull String option,
+                                           @NotNull String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(option + " must be one of "
+                    + Arrays.toString(type.getEnumConstants()).toLowerCase(Locale.ROOT) + ".",
+                    e);
+        }
+    }
+
+    /**
+     * Creates the criteria of the detection from the explicitly specified filter parameters
+     * and a saved {@code FilterConfig}.
+     *
+     * @param config the saved {@code FilterConfig} named by {@code --config} or {@code null}
+     * @return the criteria of the detection
+     */
+    @NotNull FilterCriteria toCriteria(@Nullable FilterConfig config) {
+        FilterCriteria base = config != null ? FilterCriteria.of(config)
+                : new FilterCriteria(Collections.emptyList(), FilterCriteria.DEFAULT_FROM_DATE,
+                FilterCriteria.DEFAULT_TO_DATE, FilterCriteria.DEFAULT_TITLE,
+                FilterCriteria.DEFAULT_MIN_LETTERS, FilterCriteria.DEFAULT_RELEVANT_ONLY);
+        return new FilterCriteria(media != null ? media : base.getMedia(),
+                fromDate != null ? fromDate : base.getFromDate(),
+                toDate != null ? toDate : base.getToDate(),
+                title != null ? title : base.getTitle(),
+                minLetters != null ? minLetters : base.getMinLetters(),
+                relevantOnly || base.isRelevantOnly());
+    }
+
+    /**
+     * Returns the similarity threshold of the detection.
+     *
+     * @param config the saved {@code FilterConfig} named by {@code --config} or {@code null}
+     * @return the explicitly specified threshold, the threshold of the {@code config} or
+     *         {@link ch.svenstoll.similarityfinder.domain.SimilarityDetector#MAX_SIMILARITY_INDEX}
+     */
+    double getSimilarityThreshold(@Nullable FilterConfig config) {
+        if (similarityThreshold != null) {
+            return similarityThreshold;
+        }
+        return config != null ? config.getSimilarityThreshold() : MAX_SIMILARITY_INDEX;
+    }
+
+    boolean isHelp() {
+        return help;
+    }
+
+    @Nullable String getConfigName() {
+        return configName;
+    }
+
+    @NotNull Engine getEngine() {
+        return engine;
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    int getTimeBudget() {
+        return timeBudget;
+    }
+
+    int getWorkers() {
+        return workers;
+    }
+
+    int getShardSize() {
+        return shardSize;
+    }
+
+    @Nullable String getWorkerHeap() {
+        return workerHeap;
+    }
+
+    boolean isResume() {
+        return resume;
+    }
+
+    @NotNull Format getFormat() {
+        return format;
+    }
+
+    @Nullable String getOutput() {
+        return output;
+    }
+
+    @Nullable String getDbAddress() {
+        return dbAddress;
+    }
+
+    @Nullable String getDbUser() {
+        return dbUser;
+    }
+}
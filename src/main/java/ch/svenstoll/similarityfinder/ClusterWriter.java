@@ -0,0 +1,132 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes clusters of articles with similar contents one after another, either as JSON Lines
+ * (one object per cluster) or as CSV (one row per article). Every cluster is flushed as soon as
+ * it has been written, so that the output can be processed while it is being written. The
+ * articles of a cluster are written in the order of their ids.
+ */
+final class ClusterWriter {
+    @NotNull
+    static final String CSV_HEADER = "cluster,id,medium,publication_date,title";
+
+    @NotNull
+    private final Writer writer;
+    @NotNull
+    private final CliOptions.Format format;
+    private int clusterCount = 0;
+
+    /**
+     * Constructs a {@code ClusterWriter}. The CSV header is written immediately.
+     *
+     * @param writer the {@code Writer} the clusters are written to
+     * @param format the format of the clusters
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws IOException if the CSV header could not be written
+     */
+    ClusterWriter(@NotNull Writer writer, @NotNull CliOptions.Format format) throws IOException {
+        this.writer = Validate.notNull(writer, "Writer must not be null.");
+        this.format = Validate.notNull(format, "Format must not be null.");
+        if (format == CliOptions.Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes a cluster and flushes the {@code Writer}. The clusters are numbered in the order
+     * they are written, starting with 1.
+     *
+     * @param cluster the articles of the cluster
+     * @throws IllegalArgumentException if {@code cluster} was {@code null}
+     * @throws IOException if the cluster could not be written
+     */
+    void write(@NotNull Set<Article> cluster) throws IOException {
+        Validate.notNull(cluster, "Cluster must not be null.");
+
+        clusterCount++;
+        List<Article> articles = new ArrayList<>(cluster);
+        articles.sort(Comparator.comparingInt(Article::getId));
+        if (format == CliOptions.Format.JSONL) {
+            writeJson(articles);
+        } else {
+            writeCsv(articles);
+        }
+        writer.flush();
+    }
+
+    private void writeJson(@NotNull List<Article> articles) throws IOException {
+        // The JsonWriter must not close the underlying writer, so it is not closed itself.
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name("cluster").value(clusterCount);
+        json.name("articles").beginArray();
+        for (Article article : articles) {
+            json.beginObject();
+            json.name("id").value(article.getId());
+            json.name("medium").value(article.getMedium() != null
+                    ? article.getMedium().getName() : null);
+            json.name("publicationDate").value(article.getPublicationDate() != null
+                    ? article.getPublicationDate().toString() : null);
+            json.name("title").value(article.getTitle());
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+        writer.write('\n');
+    }
+
+    private void writeCsv(@NotNull List<Article> articles) throws IOException {
+        for (Article article : articles) {
+            writer.write(clusterCount + "," + article.getId() + ","
+                    + escapeCsv(article.getMedium() != null ? article.getMedium().getName() : null)
+                    + "," + (article.getPublicationDate() != null
+                    ? article.getPublicationDate().toString() : "")
+                    + "," + escapeCsv(article.getTitle()));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Escapes a CSV value as described in RFC 4180.
+     */
+    private static @NotNull String escapeCsv(@Nullable String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Returns the number of clusters that have been written.
+     *
+     * @return the number of written clusters
+     */
+    int getClusterCount() {
+        return clusterCount;
+    }
+}
@@ -21,7 +21,16 @@ final class ProductionModule extends AbstractModule {
     @NotNull
     private static final String FILTER_CONFIGS_LOCATION = "filterConfigs.json";
     @NotNull
-    private static final Preferences PREFERENCES = Preferences.userNodeForPackage(App.class);
+    private static final String ARTICLE_SNAPSHOT_LOCATION = "articleSnapshot.bin";
+    @NotNull
+    private static final String RESULT_CACHE_LOCATION = "resultCache.json";
+    @NotNull
+    private static final String DETECTION_CHECKPOINT_LOCATION = "detectionCheckpoint.json";
+    // The node of the package is looked up by this class instead of the JavaFX App class, so
+    // that the command line interface does not depend on JavaFX.
+    @NotNull
+    private static final Preferences PREFERENCES
+            = Preferences.userNodeForPackage(ProductionModule.class);
 
     /**
      * Configures a {@code Binder} to be used in a production environment.
@@ -31,10 +40,18 @@ final class ProductionModule extends AbstractModule {
         bind(DatabaseAccess.class).to(DatabaseAccessImpl.class);
         bind(SettingsAccess.class).to(SettingsAccessImpl.class);
         bind(FilterConfigsAccess.class).to(FilterConfigsAccessImpl.class);
+        bind(ResultCacheAccess.class).to(ResultCacheAccessImpl.class);
+        bind(DetectionCheckpointAccess.class).to(DetectionCheckpointAccessImpl.class);
         bind(Preferences.class).toInstance(PREFERENCES);
 
         bindConstant().annotatedWith(Names.named("JDBC_DRIVER")).to(JDBC_DRIVER);
         bindConstant().annotatedWith(Names.named("FILTER_CONFIGS_LOCATION"))
                 .to(FILTER_CONFIGS_LOCATION);
+        bindConstant().annotatedWith(Names.named("ARTICLE_SNAPSHOT_LOCATION"))
+                .to(ARTICLE_SNAPSHOT_LOCATION);
+        bindConstant().annotatedWith(Names.named("RESULT_CACHE_LOCATION"))
+                .to(RESULT_CACHE_LOCATION);
+        bindConstant().annotatedWith(Names.named("DETECTION_CHECKPOINT_LOCATION"))
+                .to(DETECTION_CHECKPOINT_LOCATION);
     }
 }
@@ -0,0 +1,137 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static ch.svenstoll.similarityfinder.CliOptions.parseDouble;
+import static ch.svenstoll.similarityfinder.CliOptions.parseInt;
+import static ch.svenstoll.similarityfinder.CliOptions.value;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * The parsed command line options of the {@link SimilarityServer}.
+ */
+final class ServerOptions {
+    static final int DEFAULT_PORT = 8080;
+    static final int DEFAULT_QUEUE_CAPACITY = 64;
+    static final double DEFAULT_FLOOR_THRESHOLD = 0.5;
+
+    @NotNull
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp similarity-finder.jar "
+                    + "ch.svenstoll.similarityfinder.SimilarityServer [options]",
+            "",
+            "  --port NUMBER             port to listen on (default: " + DEFAULT_PORT + ")",
+            "  --workers NUMBER          worker threads (default: available processors)",
+            "  --queue-capacity NUMBER   requests that may wait for a worker before further",
+            "                            requests are rejected (default: "
+                    + DEFAULT_QUEUE_CAPACITY + ")",
+            "  --floor-threshold NUMBER  lowest similarity threshold of the queries",
+            "                            (default: " + DEFAULT_FLOOR_THRESHOLD + ")",
+            "  --db-address ADDRESS      address of the database, e.g. "
+                    + "localhost:5432/articles",
+            "  --db-user USER            user of the database. The password is read from the",
+            "                            environment variable " + Cli.DB_PASSWORD_VARIABLE
+                    + ".",
+            "  --help                    print this message");
+
+    private boolean help = false;
+    private int port = DEFAULT_PORT;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private double floorThreshold = DEFAULT_FLOOR_THRESHOLD;
+    @Nullable
+    private String dbAddress = null;
+    @Nullable
+    private String dbUser = null;
+
+    private ServerOptions() {}
+
+    /**
+     * Parses command line arguments.
+     *
+     * @param args the command line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException if {@code args} was {@code null} or contained an unknown
+     *                                  option, an option without its value or an invalid value
+     */
+    static @NotNull ServerOptions parse(@NotNull String[] args) {
+        Validate.notNull(args, "Args must not be null.");
+
+        ServerOptions options = new ServerOptions();
+        Iterator<String> iterator = Arrays.asList(args).iterator();
+        while (iterator.hasNext()) {
+            String option = iterator.next();
+            switch (option) {
+                case "--help":
+                    options.help = true;
+                    break;
+                case "--port":
+                    options.port = parseInt(option, value(option, iterator), 0);
+                    Validate.isTrue(options.port <= 65535, "%s must be at most 65535.", option);
+                    break;
+                case "--workers":
+                    options.workers = parseInt(option, value(option, iterator), 1);
+                    break;
+                case "--queue-capacity":
+                    options.queueCapacity = parseInt(option, value(option, iterator), 1);
+                    break;
+                case "--floor-threshold":
+                    double threshold = parseDouble(option, value(option, iterator));
+                    Validate.isTrue(threshold >= MIN_SIMILARITY_INDEX
+                                    && threshold <= MAX_SIMILARITY_INDEX,
+                            "%s must be between %d and %d.", option, MIN_SIMILARITY_INDEX,
+                            MAX_SIMILARITY_INDEX);
+                    options.floorThreshold = threshold;
+                    break;
+                case "--db-address":
+                    options.dbAddress = value(option, iterator);
+                    break;
+                case "--db-user":
+                    options.dbUser = value(option, iterator);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option + ".");
+            }
+        }
+        return options;
+    }
+
+    boolean isHelp() {
+        return help;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    int getWorkers() {
+        return workers;
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    double getFloorThreshold() {
+        return floorThreshold;
+    }
+
+    @Nullable String getDbAddress() {
+        return dbAddress;
+    }
+
+    @Nullable String getDbUser() {
+        return dbUser;
+    }
+}
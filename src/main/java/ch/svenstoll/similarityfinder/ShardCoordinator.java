@@ -0,0 +1,404 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.*;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static ch.svenstoll.similarityfinder.ShardProtocol.*;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * Detects articles with similar contents with the help of {@link ShardWorker} processes, so
+ * that the comparisons are not limited by the heap of a single JVM. The articles are split into
+ * shards and every pair of shards is assigned to one of the workers, which are connected over
+ * TCP on the loopback interface (see {@link ShardProtocol}). The workers return the similar
+ * pairs, which the coordinator merges into clusters.
+ * <p>
+ * An assignment of a worker that fails is reassigned to another worker, so a detection only
+ * fails if all workers have failed. The worker processes are stopped when the coordinator is
+ * closed.
+ * </p>
+ */
+public final class ShardCoordinator implements Closeable {
+    public static final int DEFAULT_SHARD_SIZE = 2000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10000;
+
+    @NotNull
+    private final ServerSocket serverSocket;
+    @NotNull
+    private final List<Connection> connections = new ArrayList<>();
+    @NotNull
+    private final List<Process> processes = new ArrayList<>();
+
+    /**
+     * Constructs a {@code ShardCoordinator} that accepts workers on a free port of the loopback
+     * interface.
+     *
+     * @throws IOException if no port could be opened
+     */
+    public ShardCoordinator() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts worker processes with the Java runtime and class path of this process. The
+     * processes connect on their own, so {@link #awaitWorkers(int, long)} should be called
+     * before the first detection.
+     *
+     * @param count the number of worker processes to be started
+     * @param jvmOptions options of the worker JVMs, e.g. {@code -Xmx2g}
+     * @throws IllegalArgumentException if {@code count} was not positive or {@code jvmOptions}
+     *                                  was {@code null}
+     * @throws IOException if a process could not be started
+     */
+    public void startWorkerProcesses(int count, @NotNull List<String> jvmOptions)
+            throws IOException {
+        Validate.isTrue(count > 0, "Count must be positive.");
+        Validate.notNull(jvmOptions, "JvmOptions must not be null.");
+
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java")
+                .getPath());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add("--coordinator");
+        command.add(serverSocket.getInetAddress().getHostAddress() + ":" + getPort());
+        for (int i = 0; i < count; i++) {
+            processes.add(new ProcessBuilder(command).inheritIO().start());
+        }
+    }
+
+    /**
+     * Accepts workers until the specified number of workers is connected.
+     *
+     * @param count the number of workers that should be connected
+     * @param timeoutMillis the maximum time to wait for the workers in milliseconds
+     * @throws IOException if the workers did not connect in time or violated the protocol
+     */
+    public void awaitWorkers(int count, long timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (getWorkerCount() < count) {
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                throw new SocketTimeoutException("Only " + getWorkerCount() + " of " + count
+                        + " workers have connected.");
+            }
+            serverSocket.setSoTimeout((int) Math.min(remainingMillis, Integer.MAX_VALUE));
+            Socket socket = serverSocket.accept();
+            Connection connection;
+            try {
+                connection = new Connection(socket);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            synchronized (connections) {
+                connections.add(connection);
+            }
+        }
+    }
+
+    /**
+     * Detects articles with similar contents and returns them as a list of sets. The result is
+     * the same as that of {@link SimilarityDetector#detectArticlesWithSimilarContents(List,
+     * double)}.
+     *
+     * @param articles a list of articles used to detect similar contents
+     * @param similarityThreshold a number between (inclusive) {@link
+     *                            SimilarityDetector#MIN_SIMILARITY_INDEX} and {@link
+     *                            SimilarityDetector#MAX_SIMILARITY_INDEX}
+     * @param shardSize the maximum number of articles of a shard
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection
+     * @return a list of sets that contain all articles that are similar to each other
+     * @throws IllegalArgumentException if {@code articles} or {@code signal} was {@code null},
+     *                                  {@code articles} contained {@code null} elements, {@code
+     *                                  shardSize} was not positive or {@code
+     *                                  similarityThreshold} was out of bounds
+     * @throws IllegalStateException if no worker is connected
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws UncheckedIOException if all workers have failed
+     */
+    public @NotNull List<Set<Article>> detect(@NotNull List<Article> articles,
+                                              double similarityThreshold, int shardSize,
+                                              @NotNull CancellationSignal signal) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+        Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX,
+                similarityThreshold, "SimilarityThreshold must be between "
+                        + MIN_SIMILARITY_INDEX + " and " + MAX_SIMILARITY_INDEX
+                        + " (inclusive).");
+        Validate.isTrue(shardSize > 0, "ShardSize must be positive.");
+        Validate.notNull(signal, "Signal must not be null.");
+
+        Map<Integer, Article> articlesById = new LinkedHashMap<>();
+        for (Article article : articles) {
+            if (article.getContent() != null) {
+                articlesById.putIfAbsent(article.getId(), article);
+            }
+        }
+
+        // If the similarityThreshold is equal to its min value, all articles are similar.
+        if (Double.compare(similarityThreshold, MIN_SIMILARITY_INDEX) <= 0) {
+            List<Set<Article>> clusters = new ArrayList<>();
+            if (articlesById.size() > 1) {
+                clusters.add(new HashSet<>(articlesById.values()));
+            }
+            return clusters;
+        }
+
+        // Equal contents are always similar, even if they are too short to have any n-grams,
+        // so they are merged here instead of being sent to the workers.
+        ArticleClusters clusters = new ArticleClusters();
+        Map<String, Article> articlesByContent = new HashMap<>();
+        List<Article> distinctArticles = new ArrayList<>();
+        for (Article article : articlesById.values()) {
+            Article original = articlesByContent.putIfAbsent(article.getContent(), article);
+            if (original != null) {
+                clusters.union(original, article);
+            } else {
+                distinctArticles.add(article);
+            }
+        }
+        List<List<Article>> shards = new ArrayList<>();
+        for (int i = 0; i < distinctArticles.size(); i += shardSize) {
+            shards.add(distinctArticles.subList(i, Math.min(i + shardSize,
+                    distinctArticles.size())));
+        }
+        Queue<int[]> assignments = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < shards.size(); i++) {
+            for (int j = i; j < shards.size(); j++) {
+                assignments.add(new int[]{i, j});
+            }
+        }
+
+        runAssignments(assignments, shards, similarityThreshold, articlesById, clusters, signal);
+        return clusters.getClusters();
+    }
+
+    /**
+     * Runs the assignments on all connected workers in parallel. Every worker takes the next
+     * assignment as soon as it has finished its previous one. The assignments of failed
+     * workers are run again by the remaining workers.
+     */
+    private void runAssignments(@NotNull Queue<int[]> assignments,
+                                @NotNull List<List<Article>> shards, double similarityThreshold,
+                                @NotNull Map<Integer, Article> articlesById,
+                                @NotNull ArticleClusters clusters,
+                                @NotNull CancellationSignal signal) {
+        IOException failure = null;
+        while (!assignments.isEmpty()) {
+            List<Connection> workers = new ArrayList<>();
+            synchronized (connections) {
+                connections.removeIf(Connection::isFailed);
+                workers.addAll(connections);
+            }
+            if (workers.isEmpty()) {
+                if (failure != null) {
+                    throw new UncheckedIOException("All workers have failed.", failure);
+                }
+                throw new IllegalStateException("No worker is connected.");
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+            List<Future<IOException>> futures = new ArrayList<>();
+            for (Connection worker : workers) {
+                futures.add(executor.submit(() -> {
+                    int[] assignment;
+                    while (!signal.isCancelled() && (assignment = assignments.poll()) != null) {
+                        try {
+                            worker.compare(shards, assignment[0], assignment[1],
+                                    similarityThreshold, (id1, id2) -> {
+                                        synchronized (clusters) {
+                                            clusters.union(articlesById.get(id1),
+                                                    articlesById.get(id2));
+                                        }
+                                    });
+                        } catch (IOException e) {
+                            assignments.add(assignment);
+                            return e;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            executor.shutdown();
+
+            try {
+                for (Future<IOException> future : futures) {
+                    IOException e = future.get();
+                    failure = e != null ? e : failure;
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new DetectionAbortedException(e.getMessage(), e.getCause());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            if (signal.isCancelled()) {
+                throw new DetectionAbortedException("The detection has been cancelled.", null);
+            }
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of connected workers that have not failed.
+     *
+     * @return the number of available workers
+     */
+    public int getWorkerCount() {
+        synchronized (connections) {
+            return (int) connections.stream().filter(connection -> !connection.isFailed())
+                    .count();
+        }
+    }
+
+    /**
+     * Stops the workers and closes the port of this coordinator.
+     */
+    @Override
+    public void close() {
+        synchronized (connections) {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            connections.clear();
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+        processes.clear();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A consumer of the ids of two articles with similar contents.
+     */
+    @FunctionalInterface
+    private interface PairConsumer {
+        void accept(int id1, int id2);
+    }
+
+    /**
+     * The connection to a worker, which keeps track of the shards the worker holds.
+     */
+    private static final class Connection {
+        @NotNull
+        private final Socket socket;
+        @NotNull
+        private final DataInputStream in;
+        @NotNull
+        private final DataOutputStream out;
+        @NotNull
+        private final Set<Integer> heldShards = new HashSet<>();
+        private volatile boolean failed = false;
+
+        Connection(@NotNull Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("The worker uses an unsupported protocol.");
+            }
+            // Comparing a pair of large shards may take a while, so replies are awaited
+            // without a timeout. A worker process that dies closes its connection.
+            socket.setSoTimeout(0);
+        }
+
+        /**
+         * Sends the shards the worker does not hold, yet, and lets it compare them.
+         */
+        void compare(@NotNull List<List<Article>> shards, int index1, int index2,
+                     double similarityThreshold, @NotNull PairConsumer consumer)
+                throws IOException {
+            try {
+                for (int index : new int[]{index1, index2}) {
+                    if (heldShards.add(index)) {
+                        writeShard(index, shards.get(index));
+                    }
+                }
+                out.writeByte(COMPARE);
+                out.writeInt(index1);
+                out.writeInt(index2);
+                out.writeDouble(similarityThreshold);
+                out.flush();
+
+                int edgeCount = in.readInt();
+                for (int i = 0; i < edgeCount; i++) {
+                    int id1 = in.readInt();
+                    int id2 = in.readInt();
+                    in.readDouble();
+                    consumer.accept(id1, id2);
+                }
+                heldShards.removeIf(index -> index != index1 && index != index2);
+            } catch (IOException e) {
+                failed = true;
+                close();
+                throw e;
+            }
+        }
+
+        private void writeShard(int index, @NotNull List<Article> shard) throws IOException {
+            out.writeByte(SHARD);
+            out.writeInt(index);
+            out.writeInt(shard.size());
+            for (Article article : shard) {
+                out.writeInt(article.getId());
+                writeVector(out, article.getContentVector());
+            }
+        }
+
+        boolean isFailed() {
+            return failed;
+        }
+
+        void close() {
+            try {
+                if (!failed) {
+                    out.writeByte(CLOSE);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // The worker is gone already.
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
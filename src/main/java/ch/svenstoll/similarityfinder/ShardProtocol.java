@@ -0,0 +1,61 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The binary protocol between a {@link ShardCoordinator} and its {@link ShardWorker}
+ * processes. All numbers are written in the big-endian format of {@code DataOutputStream}.
+ * <ol>
+ * <li>After connecting, the worker sends {@link #MAGIC} and {@link #VERSION}.</li>
+ * <li>The coordinator sends the shards the worker needs for its next assignment, each as
+ * {@link #SHARD}, the index of the shard, the number of articles and for every article its id,
+ * the length of its content vector bytes and the bytes (see {@link NGramVector#toBytes()}).
+ * </li>
+ * <li>The coordinator sends {@link #COMPARE}, the indexes of two shards and the similarity
+ * threshold. The worker compares every pair of articles of the two shards, or every pair within
+ * the shard if both indexes are the same, and replies with the number of similar pairs followed
+ * by the ids of both articles and the similarity index of every pair. Afterwards, the worker
+ * keeps only the two shards of the assignment.</li>
+ * <li>The coordinator sends {@link #CLOSE} or closes the connection to stop the worker.</li>
+ * </ol>
+ */
+final class ShardProtocol {
+    static final int MAGIC = 0x53464e44;
+    static final int VERSION = 1;
+    static final byte SHARD = 1;
+    static final byte COMPARE = 2;
+    static final byte CLOSE = 3;
+
+    private ShardProtocol() {}
+
+    static void writeVector(@NotNull DataOutputStream out, @NotNull NGramVector vector)
+            throws IOException {
+        byte[] bytes = vector.toBytes();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static @NotNull NGramVector readVector(@NotNull DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0) {
+            throw new IOException("Invalid vector length " + length + ".");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        try {
+            return NGramVector.fromBytes(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid vector bytes.", e);
+        }
+    }
+}
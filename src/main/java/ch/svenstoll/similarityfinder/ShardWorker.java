@@ -0,0 +1,159 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ch.svenstoll.similarityfinder.ShardProtocol.*;
+
+/**
+ * The main class of a worker process of a {@link ShardCoordinator}. A worker connects to the
+ * coordinator, receives shards of content vectors and compares the pairs of articles it is
+ * assigned (see {@link ShardProtocol}). Since a worker keeps no more than the two shards of its
+ * current assignment, its heap only has to fit two shards regardless of the number of articles.
+ * <p>
+ * The worker does not access the database or the settings of the application and stops as soon
+ * as the coordinator closes the connection.
+ * </p>
+ */
+public final class ShardWorker {
+    @NotNull
+    static final String USAGE = "Usage: java -cp similarity-finder.jar "
+            + "ch.svenstoll.similarityfinder.ShardWorker --coordinator HOST:PORT";
+
+    @NotNull
+    private final Map<Integer, Shard> shards = new HashMap<>();
+
+    public static void main(String[] args) {
+        String host;
+        int port;
+        try {
+            Validate.isTrue(args.length == 2 && "--coordinator".equals(args[0]),
+                    "--coordinator is required.");
+            int separator = args[1].lastIndexOf(':');
+            Validate.isTrue(separator > 0, "--coordinator must be like localhost:9000.");
+            host = args[1].substring(0, separator);
+            port = CliOptions.parseInt("--coordinator", args[1].substring(separator + 1), 1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(Cli.EXIT_USAGE);
+            return;
+        }
+
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            new ShardWorker().serve(socket.getInputStream(), socket.getOutputStream());
+        } catch (IOException e) {
+            System.err.println("The worker has stopped: " + e.getMessage());
+            System.exit(Cli.EXIT_FAILURE);
+        }
+    }
+
+    /**
+     * Answers the requests of a coordinator until it closes the connection.
+     *
+     * @param input the stream the requests are read from
+     * @param output the stream the replies are written to
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws IOException if the connection failed or the coordinator violated the protocol
+     */
+    void serve(@NotNull InputStream input, @NotNull OutputStream output) throws IOException {
+        Validate.notNull(input, "Input must not be null.");
+        Validate.notNull(output, "Output must not be null.");
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.flush();
+
+        while (true) {
+            int type = in.read();
+            if (type < 0 || type == CLOSE) {
+                return;
+            }
+            if (type == SHARD) {
+                readShard(in);
+            } else if (type == COMPARE) {
+                compare(in, out);
+            } else {
+                throw new IOException("Unknown message type " + type + ".");
+            }
+        }
+    }
+
+    private void readShard(@NotNull DataInputStream in) throws IOException {
+        int index = in.readInt();
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid shard size " + size + ".");
+        }
+        int[] ids = new int[size];
+        NGramVector[] vectors = new NGramVector[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = in.readInt();
+            vectors[i] = readVector(in);
+        }
+        shards.put(index, new Shard(ids, vectors));
+    }
+
+    private void compare(@NotNull DataInputStream in, @NotNull DataOutputStream out)
+            throws IOException {
+        int index1 = in.readInt();
+        int index2 = in.readInt();
+        double similarityThreshold = in.readDouble();
+        Shard shard1 = shards.get(index1);
+        Shard shard2 = shards.get(index2);
+        if (shard1 == null || shard2 == null) {
+            throw new IOException("The shards " + index1 + " and " + index2
+                    + " have not been sent.");
+        }
+
+        // The number of similar pairs is only known once all pairs have been compared.
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream edges = new DataOutputStream(buffer);
+        int edgeCount = 0;
+        for (int i = 0; i < shard1.ids.length; i++) {
+            for (int j = index1 == index2 ? i + 1 : 0; j < shard2.ids.length; j++) {
+                double score = shard1.vectors[i].cosineSimilarity(shard2.vectors[j]);
+                if (score >= similarityThreshold) {
+                    edges.writeInt(shard1.ids[i]);
+                    edges.writeInt(shard2.ids[j]);
+                    edges.writeDouble(score);
+                    edgeCount++;
+                }
+            }
+        }
+        out.writeInt(edgeCount);
+        buffer.writeTo(out);
+        out.flush();
+
+        shards.keySet().removeIf(index -> index != index1 && index != index2);
+    }
+
+    /**
+     * The ids and content vectors of the articles of a shard.
+     */
+    private static final class Shard {
+        @NotNull
+        private final int[] ids;
+        @NotNull
+        private final NGramVector[] vectors;
+
+        Shard(@NotNull int[] ids, @NotNull NGramVector[] vectors) {
+            this.ids = ids;
+            this.vectors = vectors;
+        }
+    }
+}
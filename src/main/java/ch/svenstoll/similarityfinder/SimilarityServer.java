@@ -0,0 +1,512 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.dao.DatabaseAccess;
+import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
+import ch.svenstoll.similarityfinder.domain.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A long-running HTTP service that answers similarity queries without the JavaFX user
+ * interface. All articles are queried from the database once at startup and kept in a
+ * {@link SimilarityService}, so queries neither wait for the database nor tokenize the
+ * articles again. The following endpoints return JSON:
+ * <ul>
+ * <li>{@code POST /similar/text?threshold=0.8}: the articles that are similar to the text in
+ * the request body (encoded with UTF-8).</li>
+ * <li>{@code GET /similar/article?id=42&threshold=0.8}: the articles that are similar to the
+ * article with the specified id.</li>
+ * <li>{@code GET /clusters?threshold=0.8&media=A,B&from=2017-01-01}: the clusters of similar
+ * articles among the articles that meet the filter parameters. The parameters are named like
+ * the filter options of the {@link Cli}: {@code threshold}, {@code media}, {@code from},
+ * {@code to}, {@code title}, {@code min-letters} and {@code relevant-only}.</li>
+ * <li>{@code GET /stats}: the latency percentiles of every endpoint and the state of the worker
+ * pool.</li>
+ * </ul>
+ * The threshold defaults to {@link SimilarityDetector#MAX_SIMILARITY_INDEX} and must not be
+ * lower than the floor threshold of the server.
+ * <p>
+ * The requests are processed by a bounded pool of workers. If all workers are busy and the
+ * queue of waiting requests is full, further requests are rejected with status 503 instead of
+ * piling up. The recorded latencies include the time a request waited for a worker.
+ * </p>
+ * <p>
+ * The queries for similar articles are run as {@link WorkPriority#INTERACTIVE} work of a
+ * {@link PriorityScheduler}. Cluster detections are run as {@link WorkPriority#BATCH} work
+ * and pause between their chunks while queries for similar articles are answered, so a few
+ * large detections do not delay the short queries.
+ * </p>
+ */
+public final class SimilarityServer {
+    @NotNull
+    static final String TEXT_PATH = "/similar/text";
+    @NotNull
+    static final String ARTICLE_PATH = "/similar/article";
+    @NotNull
+    static final String CLUSTERS_PATH = "/clusters";
+    @NotNull
+    static final String STATS_PATH = "/stats";
+    /**
+     * The maximum size of the text of a query in bytes.
+     */
+    static final int MAX_TEXT_BYTES = 1024 * 1024;
+
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    @NotNull
+    private static final Set<String> FILTER_PARAMETERS = new HashSet<>(Arrays.asList(
+            "threshold", "media", "from", "to", "title", "min-letters", "relevant-only"));
+
+    @NotNull
+    private final SimilarityService service;
+    @NotNull
+    private final PriorityScheduler scheduler;
+    @NotNull
+    private final HttpServer httpServer;
+    @NotNull
+    private final ThreadPoolExecutor workers;
+    @NotNull
+    private final Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+    @NotNull
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    @NotNull
+    private final Gson gson = new Gson();
+
+    /**
+     * Constructs a {@code SimilarityServer} that is bound to the specified address but does not
+     * accept requests before it is started.
+     *
+     * @param service the {@code SimilarityService} that answers the queries
+     * @param scheduler the {@code PriorityScheduler} the requests are run by
+     * @param address the address to listen on. Port 0 selects a free port.
+     * @param workerCount the number of threads that process requests
+     * @param queueCapacity the number of requests that may wait for a worker
+     * @throws IllegalArgumentException if {@code service}, {@code scheduler} or {@code address}
+     *                                  was {@code null} or {@code workerCount} or {@code
+     *                                  queueCapacity} was not positive
+     * @throws IOException if the server could not be bound to the {@code address}
+     */
+    SimilarityServer(@NotNull SimilarityService service, @NotNull PriorityScheduler scheduler,
+                     @NotNull InetSocketAddress address, int workerCount, int queueCapacity)
+            throws IOException {
+        this.service = Validate.notNull(service, "Service must not be null.");
+        this.scheduler = Validate.notNull(scheduler, "Scheduler must not be null.");
+        Validate.notNull(address, "Address must not be null.");
+        Validate.isTrue(workerCount > 0, "WorkerCount must be positive.");
+        Validate.isTrue(queueCapacity > 0, "QueueCapacity must be positive.");
+
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+        this.httpServer = HttpServer.create(address, 0);
+        register(TEXT_PATH, "POST", this::findSimilarToText);
+        register(ARTICLE_PATH, "GET", this::findSimilarToArticle);
+        register(CLUSTERS_PATH, "GET", this::detectClusters);
+        register(STATS_PATH, "GET", exchange -> getStatistics());
+    }
+
+    public static void main(String[] args) {
+        ServerOptions options;
+        try {
+            options = ServerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(ServerOptions.USAGE);
+            System.exit(Cli.EXIT_USAGE);
+            return;
+        }
+        if (options.isHelp()) {
+            System.out.println(ServerOptions.USAGE);
+            return;
+        }
+
+        // Only the data access and domain classes are created, so no JavaFX class is loaded.
+        Injector injector = Guice.createInjector(new ProductionModule());
+        Settings settings = injector.getInstance(Settings.class);
+        if (options.getDbAddress() != null) {
+            settings.setDbAddress(options.getDbAddress());
+        }
+        if (options.getDbUser() != null) {
+            settings.setDbUser(options.getDbUser());
+        }
+        String dbPassword = System.getenv(Cli.DB_PASSWORD_VARIABLE);
+        if (dbPassword != null) {
+            settings.setDbPassword(dbPassword);
+        }
+
+        long startNanos = System.nanoTime();
+        SimilarityServer server;
+        try {
+            List<Article> articles = injector.getInstance(DatabaseAccess.class)
+                    .queryArticlesByCriteria(new FilterCriteria(Collections.emptyList(),
+                            FilterCriteria.DEFAULT_FROM_DATE, FilterCriteria.DEFAULT_TO_DATE,
+                            FilterCriteria.DEFAULT_TITLE, FilterCriteria.DEFAULT_MIN_LETTERS,
+                            FilterCriteria.DEFAULT_RELEVANT_ONLY));
+            SimilarityService service
+                    = new SimilarityService(articles, options.getFloorThreshold());
+            server = new SimilarityServer(service, injector.getInstance(PriorityScheduler.class),
+                    new InetSocketAddress(options.getPort()), options.getWorkers(),
+                    options.getQueueCapacity());
+        } catch (DatabaseAccessException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(Cli.EXIT_FAILURE);
+            return;
+        }
+
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.err.printf("%d articles indexed in %d ms. Listening on port %d.%n",
+                server.service.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), server.getPort());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Stops accepting requests and waits for the requests in progress to finish.
+     */
+    void stop() {
+        httpServer.stop(STOP_DELAY_SECONDS);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the port the server listens on, e.g. the free port that has been selected.
+     *
+     * @return the port of the server
+     */
+    int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Registers an endpoint. The dispatcher thread of the HTTP server only hands the requests
+     * over to the workers, so a slow query never delays the rejection of excess requests.
+     */
+    private void register(@NotNull String path, @NotNull String method,
+                          @NotNull Endpoint endpoint) {
+        LatencyRecorder latency = new LatencyRecorder();
+        latencies.put(path, latency);
+        httpServer.createContext(path, exchange -> {
+            long startNanos = System.nanoTime();
+            try {
+                workers.execute(() -> respond(exchange, path, method, endpoint, latency,
+                        startNanos));
+            } catch (RejectedExecutionException e) {
+                rejectedRequests.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(1));
+                send(exchange, 503, error("The server is busy. Try again later."));
+            }
+        });
+    }
+
+    /**
+     * Processes a request, records its latency and sends its response.
+     */
+    private void respond(@NotNull HttpExchange exchange, @NotNull String path,
+                         @NotNull String method, @NotNull Endpoint endpoint,
+                         @NotNull LatencyRecorder latency, long startNanos) {
+        int status;
+        JsonElement body;
+        try {
+            if (!path.equals(exchange.getRequestURI().getPath())) {
+                throw new HttpException(404, "There is no endpoint "
+                        + exchange.getRequestURI().getPath() + ".");
+            }
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                throw new HttpException(405, path + " only supports " + method + ".");
+            }
+            body = endpoint.respond(exchange);
+            status = 200;
+        } catch (HttpException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (IOException e) {
+            status = 400;
+            body = error("The request could not be read: " + e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            status = 500;
+            body = error("The request could not be processed.");
+        }
+        latency.record(System.nanoTime() - startNanos);
+        send(exchange, status, body);
+    }
+
+    private void send(@NotNull HttpExchange exchange, int status, @NotNull JsonElement body) {
+        try {
+            byte[] bytes = gson.toJson(body).getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // The client has most likely closed the connection.
+            e.printStackTrace();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private @NotNull JsonElement findSimilarToText(@NotNull HttpExchange exchange)
+            throws IOException {
+        CliOptions options = parseFilter(exchange, Collections.singleton("threshold"));
+        double threshold = options.getSimilarityThreshold(null);
+        String text = new String(readBody(exchange.getRequestBody()), UTF_8);
+
+        JsonObject response = new JsonObject();
+        response.addProperty("threshold", threshold);
+        response.add("matches", toJson(scheduler.run(WorkPriority.INTERACTIVE,
+                () -> service.findSimilarToText(text, threshold))));
+        return response;
+    }
+
+    private @NotNull JsonElement findSimilarToArticle(@NotNull HttpExchange exchange) {
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        String id = parameters.remove("id");
+        Validate.isTrue(id != null, "The parameter id is required.");
+        int articleId;
+        try {
+            articleId = Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The parameter id must be a whole number.", e);
+        }
+        double threshold = toOptions(parameters, Collections.singleton("threshold"))
+                .getSimilarityThreshold(null);
+
+        List<SimilarityEdge> matches = scheduler.run(WorkPriority.INTERACTIVE,
+                () -> service.findSimilarToArticle(articleId, threshold));
+        if (matches == null) {
+            throw new HttpException(404, "There is no article with the id " + articleId
+                    + " and a content.");
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("id", articleId);
+        response.addProperty("threshold", threshold);
+        response.add("matches", toJson(matches));
+        return response;
+    }
+
+    private @NotNull JsonElement detectClusters(@NotNull HttpExchange exchange) {
+        CliOptions options = parseFilter(exchange, FILTER_PARAMETERS);
+        double threshold = options.getSimilarityThreshold(null);
+        FilterCriteria criteria = options.toCriteria(null);
+
+        CancellationSignal signal = new CancellationSignal();
+        List<Set<Article>> clusters = new ArrayList<>(scheduler.run(WorkPriority.BATCH,
+                () -> service.detectClusters(criteria, threshold,
+                        () -> scheduler.yieldPoint(signal))));
+        clusters.sort(Comparator.comparingInt((Set<Article> cluster) -> cluster.size())
+                .reversed());
+        JsonArray clustersJson = new JsonArray();
+        for (Set<Article> cluster : clusters) {
+            List<Article> articles = new ArrayList<>(cluster);
+            articles.sort(Comparator.comparingInt(Article::getId));
+            JsonArray clusterJson = new JsonArray();
+            articles.forEach(article -> clusterJson.add(toJson(article)));
+            clustersJson.add(clusterJson);
+        }
+
+        JsonObject response = new JsonObject();
+        response.addProperty("threshold", threshold);
+        response.add("clusters", clustersJson);
+        return response;
+    }
+
+    /**
+     * Returns the number of articles, the state of the worker pool, the number of pauses of
+     * the cluster detections and the latency percentiles of every endpoint in milliseconds.
+     */
+    @NotNull JsonObject getStatistics() {
+        JsonObject latenciesJson = new JsonObject();
+        latencies.forEach((path, latency) -> {
+            JsonObject latencyJson = new JsonObject();
+            latencyJson.addProperty("count", latency.getCount());
+            latencyJson.addProperty("meanMillis", toMillis(latency.getMeanNanos()));
+            latencyJson.addProperty("p50Millis", toMillis(latency.getPercentileNanos(50)));
+            latencyJson.addProperty("p95Millis", toMillis(latency.getPercentileNanos(95)));
+            latencyJson.addProperty("p99Millis", toMillis(latency.getPercentileNanos(99)));
+            latencyJson.addProperty("maxMillis", toMillis(latency.getMaxNanos()));
+            latenciesJson.add(path, latencyJson);
+        });
+
+        JsonObject statistics = new JsonObject();
+        statistics.addProperty("articles", service.size());
+        statistics.addProperty("floorThreshold", service.getFloorThreshold());
+        statistics.addProperty("workers", workers.getMaximumPoolSize());
+        statistics.addProperty("activeWorkers", workers.getActiveCount());
+        statistics.addProperty("queuedRequests", workers.getQueue().size());
+        statistics.addProperty("rejectedRequests", rejectedRequests.get());
+        statistics.addProperty("pausedDetections", scheduler.getPauseCount());
+        statistics.add("latencies", latenciesJson);
+        return statistics;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Parses the filter parameters of the query of a request.
+     */
+    private static @NotNull CliOptions parseFilter(@NotNull HttpExchange exchange,
+                                                   @NotNull Set<String> allowedParameters) {
+        return toOptions(parseQuery(exchange.getRequestURI().getRawQuery()), allowedParameters);
+    }
+
+    /**
+     * Parses filter parameters in the same way as the filter options of the {@link Cli}, so
+     * both validate and default the values in the same way.
+     */
+    private static @NotNull CliOptions toOptions(@NotNull Map<String, String> parameters,
+                                                 @NotNull Set<String> allowedParameters) {
+        List<String> args = new ArrayList<>();
+        parameters.forEach((name, value) -> {
+            Validate.isTrue(allowedParameters.contains(name), "Unknown parameter %s.", name);
+            if (!name.equals("relevant-only")) {
+                args.add("--" + name);
+                args.add(value);
+            } else if (Boolean.parseBoolean(value)) {
+                args.add("--" + name);
+            }
+        });
+        return CliOptions.parse(args.toArray(new String[args.size()]));
+    }
+
+    /**
+     * Parses the URL encoded parameters of a query.
+     *
+     * @param rawQuery the raw query of a request URI or {@code null}
+     * @return the values of the parameters by their names
+     * @throws IllegalArgumentException if the query was not encoded correctly
+     */
+    static @NotNull Map<String, String> parseQuery(@Nullable String rawQuery) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int separator = parameter.indexOf('=');
+            parameters.put(decode(separator >= 0 ? parameter.substring(0, separator) : parameter),
+                    separator >= 0 ? decode(parameter.substring(separator + 1)) : "");
+        }
+        return parameters;
+    }
+
+    private static @NotNull String decode(@NotNull String value) {
+        try {
+            return URLDecoder.decode(value, UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            // Every Java platform is required to support UTF-8.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads a request body of at most {@link #MAX_TEXT_BYTES}.
+     */
+    private static @NotNull byte[] readBody(@NotNull InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (body.size() + read > MAX_TEXT_BYTES) {
+                throw new HttpException(413, "The text must not exceed " + MAX_TEXT_BYTES
+                        + " bytes.");
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static @NotNull JsonArray toJson(@NotNull List<SimilarityEdge> matches) {
+        JsonArray matchesJson = new JsonArray();
+        for (SimilarityEdge match : matches) {
+            JsonObject matchJson = toJson(match.getArticle2());
+            matchJson.addProperty("score", match.getScore());
+            matchesJson.add(matchJson);
+        }
+        return matchesJson;
+    }
+
+    private static @NotNull JsonObject toJson(@NotNull Article article) {
+        JsonObject articleJson = new JsonObject();
+        articleJson.addProperty("id", article.getId());
+        articleJson.addProperty("medium", article.getMedium() != null
+                ? article.getMedium().getName() : null);
+        articleJson.addProperty("publicationDate", article.getPublicationDate() != null
+                ? article.getPublicationDate().toString() : null);
+        articleJson.addProperty("title", article.getTitle());
+        return articleJson;
+    }
+
+    private static @NotNull JsonObject error(@NotNull String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error;
+    }
+
+    /**
+     * Answers the requests of an endpoint.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        @NotNull JsonElement respond(@NotNull HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Stops processing a request and responds with a specific status code.
+     */
+    private static final class HttpException extends RuntimeException {
+        private final int status;
+
+        HttpException(int status, @NotNull String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyOut;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static ch.svenstoll.similarityfinder.dao.DatabaseAccessImpl.*;
+
+/**
+ * Loads articles in bulk using the binary format of the PostgreSQL {@code COPY} command. This
+ * avoids the overhead of decoding a {@code ResultSet} row by row and is used when a filter
+ * selects a large fraction of the article relation.
+ * <p>
+ * Since {@code COPY} does not support query parameters, the criteria are inlined as escaped
+ * literals using the escaping of the driver.
+ * </p>
+ */
+final class ArticleBulkLoader {
+    /**
+     * The minimum fraction of the article relation that must be selected by the criteria.
+     */
+    static final double MIN_SELECTED_FRACTION = 0.5;
+    /**
+     * The minimum number of rows of the article relation. For smaller relations, the regular
+     * query is fast enough.
+     */
+    static final long MIN_RELATION_SIZE = 10_000;
+
+    @NotNull
+    static final String COPY_COLUMNS
+            = ARTICLE_ID_COLUMN + "::int4, " +
+              ARTICLE_TITLE_COLUMN + "::text, " +
+              ARTICLE_CONTENT_COLUMN + "::text, " +
+              ARTICLE_MEDIUM_COLUMN + "::text, " +
+              ARTICLE_PUBLICATION_DATE_COLUMN + "::date, " +
+              ARTICLE_RELEVANT_COLUMN + "::bool";
+
+    @NotNull
+    private static final String COPY_QUERY
+            = "COPY (SELECT " + COPY_COLUMNS + " FROM " + ARTICLE_RELATION + " WHERE %s) " +
+              "TO STDOUT (FORMAT binary)";
+    @NotNull
+    private static final String ESTIMATE_QUERY
+            = "EXPLAIN SELECT * FROM " + ARTICLE_RELATION + " WHERE %s";
+    @NotNull
+    private static final String RELATION_SIZE_QUERY
+            = "SELECT reltuples::bigint FROM pg_class WHERE relname = '" + ARTICLE_RELATION + "'";
+    @NotNull
+    private static final Pattern ESTIMATED_ROWS_PATTERN = Pattern.compile("rows=(\\d+)");
+
+    /**
+     * Loads the records of all articles that meet the specified {@code criteria} if the
+     * connection supports the {@code COPY} command and the criteria select a large fraction of
+     * the article relation.
+     *
+     * @param connection an open database connection
+     * @param criteria the criteria the loaded articles must meet
+     * @param context the {@code QueryContext} used to execute the statements
+     * @return the records of the articles or {@code null} if the bulk load is not applicable
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws SQLException if an error occurred while loading the articles
+     */
+    @Nullable List<ArticleRecord> loadRecords(@NotNull Connection connection,
+                                              @NotNull FilterCriteria criteria,
+                                              @NotNull QueryContext context)
+            throws SQLException {
+        List<ArticleRecord> records = new ArrayList<>();
+        return streamRecords(connection, criteria, context, records::add) ? records : null;
+    }
+
+    /**
+     * Loads the records of all articles that meet the specified {@code criteria} like
+     * {@link #loadRecords(Connection, FilterCriteria, QueryContext)}, but passes every record
+     * to the {@code sink} as soon as it has been parsed.
+     *
+     * @param connection an open database connection
+     * @param criteria the criteria the loaded articles must meet
+     * @param context the {@code QueryContext} used to execute the statements
+     * @param sink a {@code Consumer} of the records
+     * @return {@code true} if the records have been loaded or {@code false} if the bulk load
+     *         is not applicable
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws SQLException if an error occurred while loading the articles
+     */
+    boolean streamRecords(@NotNull Connection connection, @NotNull FilterCriteria criteria,
+                          @NotNull QueryContext context, @NotNull Consumer<ArticleRecord> sink)
+            throws SQLException {
+        Validate.notNull(connection, "Connection must not be null.");
+        Validate.notNull(criteria, "Criteria must not be null.");
+        Validate.notNull(context, "Context must not be null.");
+        Validate.notNull(sink, "Sink must not be null.");
+
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            return false;
+        }
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        String condition = buildCondition(pgConnection, criteria);
+
+        // Cancelling any statement of a connection cancels the command that is currently
+        // executed by the server, so the statement also serves to cancel the COPY command.
+        try (Statement statement = connection.createStatement()) {
+            return context.execute(statement, () -> {
+                if (!selectsLargeFraction(statement, condition)) {
+                    return false;
+                }
+                copyRecords(pgConnection, statement, condition, context, sink);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Runs the {@code COPY} command. The query timeout of the {@code context} is applied using
+     * the {@code statement_timeout} of the session, since the driver does not apply query
+     * timeouts to {@code COPY} commands.
+     */
+    private void copyRecords(@NotNull PGConnection connection, @NotNull Statement statement,
+                             @NotNull String condition, @NotNull QueryContext context,
+                             @NotNull Consumer<ArticleRecord> sink) throws SQLException {
+        int timeoutSeconds = context.getTimeoutSeconds();
+        if (timeoutSeconds > 0) {
+            statement.execute("SET statement_timeout = " + timeoutSeconds * 1000L);
+        }
+        try {
+            CopyOut copyOut = connection.getCopyAPI().copyOut(String.format(COPY_QUERY, condition));
+            readRecords(new CopyOutInputStream(copyOut), sink);
+        } finally {
+            if (timeoutSeconds > 0) {
+                statement.execute("RESET statement_timeout");
+            }
+        }
+    }
+
+    /**
+     * Reads all records of a binary {@code COPY} stream.
+     *
+     * @param in the stream that provides the output of a binary {@code COPY ... TO STDOUT}
+     * @return the records of the stream
+     * @throws SQLException if the stream could not be read or is not in the expected format
+     */
+    static @NotNull List<ArticleRecord> readRecords(@NotNull InputStream in) throws SQLException {
+        List<ArticleRecord> records = new ArrayList<>();
+        readRecords(in, records::add);
+        return records;
+    }
+
+    /**
+     * Reads all records of a binary {@code COPY} stream and passes them to the {@code sink}.
+     * If the {@code sink} throws an exception, the stream is closed, which cancels a running
+     * {@code COPY} command.
+     *
+     * @param in the stream that provides the output of a binary {@code COPY ... TO STDOUT}
+     * @param sink a {@code Consumer} of the records
+     * @throws SQLException if the stream could not be read or is not in the expected format
+     */
+    static void readRecords(@NotNull InputStream in, @NotNull Consumer<ArticleRecord> sink)
+            throws SQLException {
+        try (BinaryCopyParser parser = new BinaryCopyParser(in)) {
+            ArticleRecord record;
+            while ((record = parser.readRecord()) != null) {
+                sink.accept(record);
+            }
+            // Reading the end of the stream completes the COPY command on the server side.
+            if (in.read() != -1) {
+                throw new IOException("Unexpected data after the trailer of the COPY stream.");
+            }
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Determines whether a condition selects a large fraction of the article relation based on
+     * the estimates of the query planner. Estimating does not execute the query, so the check
+     * is cheap compared to loading the articles.
+     *
+     * @param statement a statement used to query the estimates
+     * @param condition the condition of the article query
+     * @return {@code true} if the bulk load should be used
+     * @throws SQLException if an error occurred while querying the estimates
+     */
+    private boolean selectsLargeFraction(@NotNull Statement statement,
+                                         @NotNull String condition) throws SQLException {
+        long relationSize = 0;
+        ResultSet sizeResult = statement.executeQuery(RELATION_SIZE_QUERY);
+        if (sizeResult.next()) {
+            relationSize = sizeResult.getLong(1);
+        }
+        if (relationSize < MIN_RELATION_SIZE) {
+            return false;
+        }
+
+        ResultSet planResult = statement.executeQuery(String.format(ESTIMATE_QUERY, condition));
+        if (!planResult.next()) {
+            return false;
+        }
+        Matcher matcher = ESTIMATED_ROWS_PATTERN.matcher(planResult.getString(1));
+        return matcher.find()
+                && Long.parseLong(matcher.group(1)) >= MIN_SELECTED_FRACTION * relationSize;
+    }
+
+    /**
+     * Builds the {@code WHERE} condition of the article query with inlined literals. The
+     * condition is equivalent to the one of the parameterized article query.
+     *
+     * @param connection a connection used to escape the literals
+     * @param criteria the criteria the selected articles must meet
+     * @return the condition of the article query
+     * @throws SQLException if a literal could not be escaped
+     */
+    static @NotNull String buildCondition(@NotNull PGConnection connection,
+                                          @NotNull FilterCriteria criteria) throws SQLException {
+        List<String> conditions = new ArrayList<>();
+
+        if (!criteria.getMedia().isEmpty()) {
+            List<String> media = new ArrayList<>();
+            for (String medium : criteria.getMedia()) {
+                media.add(literal(connection, medium));
+            }
+            conditions.add(ARTICLE_MEDIUM_COLUMN + " IN (" + String.join(", ", media) + ")");
+        }
+        if (criteria.getFromDate() != null) {
+            conditions.add("COALESCE(" + ARTICLE_PUBLICATION_DATE_COLUMN + " >= DATE "
+                    + literal(connection, criteria.getFromDate().toString()) + ", TRUE)");
+        }
+        if (criteria.getToDate() != null) {
+            conditions.add("COALESCE(" + ARTICLE_PUBLICATION_DATE_COLUMN + " <= DATE "
+                    + literal(connection, criteria.getToDate().toString()) + ", TRUE)");
+        }
+        conditions.add("LOWER(" + ARTICLE_TITLE_COLUMN + ") LIKE LOWER("
+                + literal(connection, "%" + criteria.getTitle() + "%") + ")");
+        conditions.add("LENGTH(" + ARTICLE_CONTENT_COLUMN + ") >= " + criteria.getMinLetters());
+        if (criteria.isRelevantOnly()) {
+            conditions.add(ARTICLE_RELEVANT_COLUMN + " = TRUE");
+        }
+
+        return String.join(" AND ", conditions);
+    }
+
+    private static @NotNull String literal(@NotNull PGConnection connection,
+                                           @NotNull String value) throws SQLException {
+        return "'" + connection.escapeLiteral(value) + "'";
+    }
+
+    /**
+     * An {@code InputStream} that reads the chunks of a running {@code COPY ... TO STDOUT}. If
+     * the stream is closed before the end has been reached, the command is cancelled.
+     */
+    private static final class CopyOutInputStream extends InputStream {
+        @NotNull
+        private final CopyOut copyOut;
+        @Nullable
+        private byte[] chunk;
+        private int position;
+        private boolean finished = false;
+
+        CopyOutInputStream(@NotNull CopyOut copyOut) {
+            this.copyOut = copyOut;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? chunk[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(@NotNull byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            while (!finished && (chunk == null || position >= chunk.length)) {
+                try {
+                    chunk = copyOut.readFromCopy();
+                } catch (SQLException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                position = 0;
+                finished = chunk == null;
+            }
+            return !finished;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (copyOut.isActive()) {
+                try {
+                    copyOut.cancelCopy();
+                } catch (SQLException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+        }
+    }
+}
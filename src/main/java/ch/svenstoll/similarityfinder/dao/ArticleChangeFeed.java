@@ -0,0 +1,358 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.IngestionResult;
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import ch.svenstoll.similarityfinder.domain.SlidingWindowMonitor;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static ch.svenstoll.similarityfinder.dao.DatabaseAccessImpl.*;
+
+/**
+ * Keeps a {@link SlidingWindowMonitor} up to date with the article relation by polling it for
+ * changes. Every poll fetches the articles whose id is greater than the highest id seen so far
+ * (inserts) or whose modification marker is greater than the highest marker seen so far
+ * (updates). The changed articles are ingested into the monitor, which replaces older versions
+ * of updated articles, and every ingestion that has found similar articles is published to the
+ * registered listeners.
+ * <p>
+ * Ids and transaction ids are assigned when a transaction writes a row, not when it commits,
+ * so a transaction that commits after a younger one makes rows visible below the watermarks.
+ * Every poll therefore re-reads a trailing overlap below both watermarks and skips the rows
+ * whose id and marker have already been ingested. A row is only missed if more than the
+ * overlap of ids or transactions have been assigned between its write and its commit.
+ * </p>
+ * <p>
+ * The first poll fills the window of the monitor with the articles published within it and
+ * only records the current watermarks, so nothing is published for articles that existed
+ * before the feed was started. Deleted articles are not detected, since they leave no row to
+ * poll, and remain in the monitor until they age out of the window.
+ * </p>
+ * <p>
+ * All methods of this class are thread safe. Listeners are called on the polling thread.
+ * </p>
+ */
+public final class ArticleChangeFeed {
+    @NotNull
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+    /**
+     * The default number of ids and modification markers below the watermarks that are polled
+     * again to pick up rows of transactions that committed out of order.
+     */
+    public static final long DEFAULT_OVERLAP = 10_000;
+    @NotNull
+    static final String CHANGE_MARKER_COLUMN = "change_marker";
+
+    @NotNull
+    private static final String WATERMARKS_QUERY
+            = "SELECT MAX(" + ARTICLE_ID_COLUMN + "), MAX(%s) " +
+              "FROM " + ARTICLE_RELATION + ";";
+    @NotNull
+    private static final String WINDOW_QUERY
+            = "SELECT *, %s AS " + CHANGE_MARKER_COLUMN + " " +
+              "FROM " + ARTICLE_RELATION + " " +
+              "WHERE " + ARTICLE_PUBLICATION_DATE_COLUMN + " >= ?;";
+    @NotNull
+    private static final String CHANGES_QUERY
+            = "SELECT *, %1$s AS " + CHANGE_MARKER_COLUMN + " " +
+              "FROM " + ARTICLE_RELATION + " " +
+              "WHERE " + ARTICLE_ID_COLUMN + " > ? OR %1$s > ? " +
+              "ORDER BY " + ARTICLE_ID_COLUMN + ";";
+    @NotNull
+    private static final String OVERLAP_QUERY
+            = "SELECT " + ARTICLE_ID_COLUMN + ", %1$s AS " + CHANGE_MARKER_COLUMN + " " +
+              "FROM " + ARTICLE_RELATION + " " +
+              "WHERE " + ARTICLE_ID_COLUMN + " > ? OR %1$s > ?;";
+
+    @NotNull
+    private final DatabaseConnectionProvider connectionProvider;
+    @NotNull
+    private final SlidingWindowMonitor monitor;
+    @NotNull
+    private final String markerExpression;
+    @NotNull
+    private final Supplier<LocalDate> today;
+    private final long overlap;
+    @NotNull
+    private final List<Consumer<IngestionResult>> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * The modification markers of the rows within the overlap that have already been seen,
+     * indexed by article id.
+     */
+    @NotNull
+    private final Map<Integer, Long> seenMarkers = new HashMap<>();
+
+    private boolean seeded = false;
+    private long idWatermark = Long.MIN_VALUE;
+    private long markerWatermark = Long.MIN_VALUE;
+    @Nullable
+    private ScheduledExecutorService executor = null;
+
+    /**
+     * Constructs an {@code ArticleChangeFeed} that uses the PostgreSQL {@code xmin} system
+     * column as modification marker (see {@link ArticleSnapshotCache}).
+     *
+     * @param connectionProvider a {@code DatabaseConnectionProvider} used to open a connection
+     *                           for every poll
+     * @param monitor the {@code SlidingWindowMonitor} that is kept up to date
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    public ArticleChangeFeed(@NotNull DatabaseConnectionProvider connectionProvider,
+                             @NotNull SlidingWindowMonitor monitor) {
+        this(connectionProvider, monitor, ArticleSnapshotCache.MODIFICATION_MARKER_EXPRESSION,
+                LocalDate::now, DEFAULT_OVERLAP);
+    }
+
+    /**
+     * Constructs an {@code ArticleChangeFeed}.
+     *
+     * @param connectionProvider a {@code DatabaseConnectionProvider} used to open a connection
+     *                           for every poll
+     * @param monitor the {@code SlidingWindowMonitor} that is kept up to date
+     * @param markerExpression a SQL expression of the type {@code BIGINT} that increases
+     *                         whenever a row of the article relation is updated
+     * @param today a supplier of the current date, which ends the window of the monitor
+     * @param overlap the number of ids and modification markers below the watermarks that
+     *                are polled again, e.g. {@link #DEFAULT_OVERLAP}
+     * @throws IllegalArgumentException if any parameter was {@code null} or {@code overlap}
+     *                                  was negative
+     */
+    ArticleChangeFeed(@NotNull DatabaseConnectionProvider connectionProvider,
+                      @NotNull SlidingWindowMonitor monitor, @NotNull String markerExpression,
+                      @NotNull Supplier<LocalDate> today, long overlap) {
+        this.connectionProvider
+                = Validate.notNull(connectionProvider, "ConnectionProvider must not be null.");
+        this.monitor = Validate.notNull(monitor, "Monitor must not be null.");
+        this.markerExpression
+                = Validate.notNull(markerExpression, "MarkerExpression must not be null.");
+        this.today = Validate.notNull(today, "Today must not be null.");
+        Validate.isTrue(overlap >= 0, "Overlap must not be negative.");
+        this.overlap = overlap;
+    }
+
+    /**
+     * Registers a listener that is called with every ingested article that has found similar
+     * articles in the window.
+     *
+     * @param listener the listener to be registered
+     * @throws IllegalArgumentException if {@code listener} was {@code null}
+     */
+    public void addListener(@NotNull Consumer<IngestionResult> listener) {
+        listeners.add(Validate.notNull(listener, "Listener must not be null."));
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener the listener to be removed
+     */
+    public void removeListener(@Nullable Consumer<IngestionResult> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Polls the article relation once and ingests all articles that have been inserted or
+     * updated since the previous poll. The window of the monitor is advanced to the current
+     * date first, so articles age out even if nothing has changed.
+     *
+     * @return the number of ingested articles. The first poll returns 0, since it only fills
+     *         the window.
+     * @throws DatabaseAccessException if an error occurred while querying the database
+     */
+    public synchronized int poll() {
+        try (Connection connection = connectionProvider.getDbConnection()) {
+            if (!seeded) {
+                seed(connection);
+                seeded = true;
+                return 0;
+            }
+            monitor.advanceTo(today.get());
+
+            List<ArticleRecord> records = new ArrayList<>();
+            String query = String.format(CHANGES_QUERY, markerExpression);
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                setOverlapBounds(statement);
+                readRecords(statement.executeQuery(), records);
+            }
+            pruneSeenMarkers();
+
+            for (ArticleRecord record : records) {
+                IngestionResult result = monitor.ingest(
+                        record.toArticle(NGramVector.fromText(record.content)));
+                if (!result.getMatches().isEmpty()) {
+                    listeners.forEach(listener -> listener.accept(result));
+                }
+            }
+            return records.size();
+        } catch (SQLException e) {
+            throw new DatabaseAccessException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Starts polling the article relation in the background. A failed poll is reported and
+     * retried after the next interval.
+     *
+     * @param interval the delay between the end of a poll and the start of the next one, e.g.
+     *                 {@link #DEFAULT_POLL_INTERVAL}
+     * @throws IllegalArgumentException if {@code interval} was {@code null} or not positive
+     * @throws IllegalStateException if the feed is already running
+     */
+    public synchronized void start(@NotNull Duration interval) {
+        Validate.notNull(interval, "Interval must not be null.");
+        Validate.isTrue(!interval.isNegative() && !interval.isZero(),
+                "Interval must be positive.");
+        Validate.validState(executor == null, "The change feed is already running.");
+
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "article-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(() -> pollInBackground(started), 0, interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        executor = started;
+    }
+
+    /**
+     * Stops polling the article relation. A running poll is completed.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Returns whether the feed is polling the article relation in the background.
+     *
+     * @return {@code true} if the feed has been started and not stopped
+     */
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Polls the article relation unless the {@code owner} has been stopped while the poll was
+     * waiting for a running call of {@link #stop()}.
+     */
+    private synchronized void pollInBackground(@NotNull ScheduledExecutorService owner) {
+        if (executor != owner) {
+            return;
+        }
+        try {
+            poll();
+        } catch (DatabaseAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Records the current watermarks and ingests the articles that have been published within
+     * the window ending today. The watermarks are queried first, so articles that change while
+     * the window is read are fetched again by the next poll. The rows within the overlap are
+     * marked as seen, so the next poll does not report them as changes.
+     */
+    private void seed(@NotNull Connection connection) throws SQLException {
+        String watermarksQuery = String.format(WATERMARKS_QUERY, markerExpression);
+        try (Statement statement = connection.createStatement()) {
+            ResultSet resultSet = statement.executeQuery(watermarksQuery);
+            if (resultSet.next()) {
+                long maxId = resultSet.getLong(1);
+                if (!resultSet.wasNull()) {
+                    idWatermark = maxId;
+                }
+                long maxMarker = resultSet.getLong(2);
+                if (!resultSet.wasNull()) {
+                    markerWatermark = maxMarker;
+                }
+            }
+        }
+
+        String overlapQuery = String.format(OVERLAP_QUERY, markerExpression);
+        try (PreparedStatement statement = connection.prepareStatement(overlapQuery)) {
+            setOverlapBounds(statement);
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                seenMarkers.put(resultSet.getInt(ARTICLE_ID_COLUMN),
+                        resultSet.getLong(CHANGE_MARKER_COLUMN));
+            }
+        }
+
+        monitor.advanceTo(today.get());
+        String windowQuery = String.format(WINDOW_QUERY, markerExpression);
+        try (PreparedStatement statement = connection.prepareStatement(windowQuery)) {
+            statement.setDate(1, Date.valueOf(monitor.getWindowStart()));
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                ArticleRecord record = ArticleRecord.readFrom(resultSet);
+                monitor.ingest(record.toArticle(NGramVector.fromText(record.content)));
+            }
+        }
+    }
+
+    /**
+     * Reads all records of the {@code resultSet} that have not been seen with the same
+     * modification marker before and raises the watermarks to the highest id and modification
+     * marker among them.
+     */
+    private void readRecords(@NotNull ResultSet resultSet, @NotNull List<ArticleRecord> records)
+            throws SQLException {
+        while (resultSet.next()) {
+            ArticleRecord record = ArticleRecord.readFrom(resultSet);
+            long marker = resultSet.getLong(CHANGE_MARKER_COLUMN);
+            Long seenMarker = seenMarkers.put(record.id, marker);
+            if (seenMarker != null && seenMarker == marker) {
+                continue;
+            }
+            records.add(record);
+            idWatermark = Math.max(idWatermark, record.id);
+            markerWatermark = Math.max(markerWatermark, marker);
+        }
+    }
+
+    /**
+     * Sets the lower bounds of the id and the modification marker of the rows to be polled to
+     * the watermarks minus the overlap.
+     */
+    private void setOverlapBounds(@NotNull PreparedStatement statement) throws SQLException {
+        statement.setLong(1, lowerBound(idWatermark));
+        statement.setLong(2, lowerBound(markerWatermark));
+    }
+
+    /**
+     * Forgets the markers of the rows that are below the overlap of both watermarks and are
+     * therefore not polled again.
+     */
+    private void pruneSeenMarkers() {
+        long idBound = lowerBound(idWatermark);
+        long markerBound = lowerBound(markerWatermark);
+        seenMarkers.entrySet().removeIf(
+                entry -> entry.getKey() <= idBound && entry.getValue() <= markerBound);
+    }
+
+    private long lowerBound(long watermark) {
+        return watermark < Long.MIN_VALUE + overlap ? Long.MIN_VALUE : watermark - overlap;
+    }
+}
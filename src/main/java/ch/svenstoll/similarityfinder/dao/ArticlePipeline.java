@@ -0,0 +1,429 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import ch.svenstoll.similarityfinder.domain.PipelineMetrics;
+import ch.svenstoll.similarityfinder.domain.PriorityScheduler;
+import ch.svenstoll.similarityfinder.domain.StageMetrics;
+import ch.svenstoll.similarityfinder.domain.WorkPriority;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A pipeline that turns article records into articles in three overlapping stages:
+ * <ol>
+ *     <li>A reader thread fetches the records, looks up their stored vectors in batches and
+ *     puts the batches into a bounded queue.</li>
+ *     <li>Tokenizer threads take the batches from the queue, generate the missing content
+ *     vectors and put the articles into a second bounded queue.</li>
+ *     <li>The calling thread takes the articles from the second queue and passes them to a
+ *     consumer, e.g. a similarity detector.</li>
+ * </ol>
+ * If a stage is slower than the previous one, its queue fills up and the previous stage blocks
+ * until there is space again. This limits the memory used by records that have been fetched
+ * but not yet processed. The {@link StageMetrics} of every stage are added to a
+ * {@link PipelineMetrics} instance.
+ * <p>
+ * The reader and tokenizer threads run with the {@link WorkPriority} of the thread that runs
+ * the pipeline and yield to more urgent work of the {@link PriorityScheduler} between the
+ * batches.
+ * </p>
+ * <p>
+ * An instance can only be run once.
+ * </p>
+ */
+final class ArticlePipeline {
+    static final int BATCH_SIZE = 256;
+    static final int QUEUE_CAPACITY = 8;
+    @NotNull
+    static final String FETCH_STAGE = "fetch";
+    @NotNull
+    static final String TOKENIZE_STAGE = "tokenize";
+    @NotNull
+    static final String CONSUME_STAGE = "consume";
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    @NotNull
+    private static final RecordBatch END_OF_RECORDS
+            = new RecordBatch(Collections.emptyList(), Collections.emptyMap());
+    @NotNull
+    private static final List<Article> END_OF_ARTICLES = Collections.unmodifiableList(
+            new ArrayList<>());
+
+    /**
+     * A functional interface for a source of records that is read by the reader thread.
+     */
+    @FunctionalInterface
+    interface RecordSource {
+        /**
+         * Passes all records of the source to the {@code sink}.
+         *
+         * @param sink the sink of the records. It blocks while the queue of the pipeline is
+         *             full and throws a {@code CancellationException} if the pipeline has been
+         *             stopped.
+         * @throws SQLException if an error occurred while reading the records
+         */
+        void readRecords(@NotNull Consumer<ArticleRecord> sink) throws SQLException;
+    }
+
+    /**
+     * A functional interface for the lookup of stored vectors that is executed by the reader
+     * thread for every batch. Errors must not be propagated, since the stored vectors are
+     * only used to improve performance. The lookup must not use the connection the records are
+     * read from, since that connection may still be streaming a {@code COPY} command.
+     */
+    @FunctionalInterface
+    interface VectorLookup {
+        /**
+         * Loads the stored vectors of the articles whose content has not changed.
+         *
+         * @param contentHashes a map from article ids to the hashes of their current contents
+         * @return a map from article ids to their up-to-date stored vectors
+         */
+        @NotNull Map<Integer, NGramVector> loadVectors(@NotNull Map<Integer, Long> contentHashes);
+    }
+
+    @NotNull
+    private final QueryContext context;
+    @NotNull
+    private final PipelineMetrics metrics;
+    @NotNull
+    private final PriorityScheduler scheduler;
+    private final int tokenizerCount;
+    @NotNull
+    private final BlockingQueue<RecordBatch> recordQueue
+            = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    @NotNull
+    private final BlockingQueue<List<Article>> articleQueue
+            = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    @NotNull
+    private final Map<Integer, NGramVector> generatedVectors = new ConcurrentHashMap<>();
+    @NotNull
+    private final Map<Integer, Long> generatedContentHashes = new ConcurrentHashMap<>();
+    @NotNull
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    /**
+     * Constructs an {@code ArticlePipeline} with one tokenizer thread per available processor
+     * and its own {@code PriorityScheduler}, so its stages are never paused.
+     *
+     * @param context the {@code QueryContext} of the query. If the query is cancelled, all
+     *                stages are stopped immediately.
+     * @param metrics the {@code PipelineMetrics} the metrics of the stages are added to
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    ArticlePipeline(@NotNull QueryContext context, @NotNull PipelineMetrics metrics) {
+        this(context, metrics, new PriorityScheduler());
+    }
+
+    /**
+     * Constructs an {@code ArticlePipeline} with one tokenizer thread per available processor.
+     *
+     * @param context the {@code QueryContext} of the query. If the query is cancelled, all
+     *                stages are stopped immediately.
+     * @param metrics the {@code PipelineMetrics} the metrics of the stages are added to
+     * @param scheduler the {@code PriorityScheduler} of the application
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    ArticlePipeline(@NotNull QueryContext context, @NotNull PipelineMetrics metrics,
+                    @NotNull PriorityScheduler scheduler) {
+        this(context, metrics, scheduler, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an {@code ArticlePipeline} with its own {@code PriorityScheduler}.
+     *
+     * @param context the {@code QueryContext} of the query
+     * @param metrics the {@code PipelineMetrics} the metrics of the stages are added to
+     * @param tokenizerCount the number of tokenizer threads
+     * @throws IllegalArgumentException if any object parameter was {@code null} or {@code
+     *                                  tokenizerCount} was not positive
+     */
+    ArticlePipeline(@NotNull QueryContext context, @NotNull PipelineMetrics metrics,
+                    int tokenizerCount) {
+        this(context, metrics, new PriorityScheduler(), tokenizerCount);
+    }
+
+    /**
+     * Constructs an {@code ArticlePipeline}.
+     *
+     * @param context the {@code QueryContext} of the query
+     * @param metrics the {@code PipelineMetrics} the metrics of the stages are added to
+     * @param scheduler the {@code PriorityScheduler} of the application
+     * @param tokenizerCount the number of tokenizer threads
+     * @throws IllegalArgumentException if any object parameter was {@code null} or {@code
+     *                                  tokenizerCount} was not positive
+     */
+    ArticlePipeline(@NotNull QueryContext context, @NotNull PipelineMetrics metrics,
+                    @NotNull PriorityScheduler scheduler, int tokenizerCount) {
+        this.context = Validate.notNull(context, "Context must not be null.");
+        this.metrics = Validate.notNull(metrics, "Metrics must not be null.");
+        this.scheduler = Validate.notNull(scheduler, "Scheduler must not be null.");
+        Validate.isTrue(tokenizerCount > 0, "TokenizerCount must be positive.");
+        this.tokenizerCount = tokenizerCount;
+    }
+
+    /**
+     * Runs the pipeline and blocks until all articles of the {@code source} have been passed to
+     * the {@code consumer}, which is called by the calling thread.
+     *
+     * @param source the {@code RecordSource} read by the reader thread
+     * @param lookup the {@code VectorLookup} used to find the stored vectors of the records
+     * @param consumer a {@code Consumer} of the article batches
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws SQLException if an error occurred while reading the records
+     * @throws InterruptedException if the thread executing this method was interrupted
+     */
+    void run(@NotNull RecordSource source, @NotNull VectorLookup lookup,
+             @NotNull Consumer<List<Article>> consumer)
+            throws SQLException, InterruptedException {
+        Validate.notNull(source, "Source must not be null.");
+        Validate.notNull(lookup, "Lookup must not be null.");
+        Validate.notNull(consumer, "Consumer must not be null.");
+
+        StageMetrics fetchStage = metrics.addStage(FETCH_STAGE);
+        StageMetrics tokenizeStage = metrics.addStage(TOKENIZE_STAGE, recordQueue::size,
+                QUEUE_CAPACITY);
+        StageMetrics consumeStage = metrics.addStage(CONSUME_STAGE, articleQueue::size,
+                QUEUE_CAPACITY);
+
+        WorkPriority priority = scheduler.getCurrentPriority();
+        ExecutorService executorService = Executors.newFixedThreadPool(tokenizerCount + 1);
+        Runnable stopStages = executorService::shutdownNow;
+        context.getSignal().onCancel(stopStages);
+        try {
+            executorService.execute(() -> runStage(priority, () -> read(source, lookup,
+                    fetchStage)));
+            for (int i = 0; i < tokenizerCount; i++) {
+                executorService.execute(() -> runStage(priority, () -> tokenize(tokenizeStage)));
+            }
+            consume(consumer, consumeStage);
+        } catch (RejectedExecutionException e) {
+            // The executor service has been shut down due to a cancellation.
+            context.checkCancelled();
+            throw e;
+        } finally {
+            context.getSignal().removeOnCancel(stopStages);
+            executorService.shutdownNow();
+            try {
+                // The reader thread must not use the connection after the pipeline has
+                // returned. Stopping it takes at most one round trip to the database.
+                executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } finally {
+                fetchStage.finish();
+                tokenizeStage.finish();
+                consumeStage.finish();
+            }
+        }
+    }
+
+    /**
+     * Passes the articles of a list to the {@code consumer} in batches, e.g. the articles of
+     * a local snapshot that do not need to be fetched or tokenized. Only the consume stage is
+     * added to the metrics.
+     *
+     * @param articles the articles to be passed on
+     * @param consumer a {@code Consumer} of the article batches
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if the query has been cancelled
+     */
+    void deliver(@NotNull List<Article> articles, @NotNull Consumer<List<Article>> consumer) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.notNull(consumer, "Consumer must not be null.");
+
+        StageMetrics consumeStage = metrics.addStage(CONSUME_STAGE);
+        try {
+            for (int start = 0; start < articles.size(); start += BATCH_SIZE) {
+                context.checkCancelled();
+                List<Article> batch = articles.subList(start,
+                        Math.min(articles.size(), start + BATCH_SIZE));
+                consumer.accept(new ArrayList<>(batch));
+                consumeStage.recordProcessed(batch.size());
+            }
+        } finally {
+            consumeStage.finish();
+        }
+    }
+
+    /**
+     * Runs a stage as work of the specified priority class of the {@code PriorityScheduler}.
+     */
+    private void runStage(@NotNull WorkPriority priority, @NotNull Runnable stage) {
+        scheduler.run(priority, () -> {
+            stage.run();
+            return null;
+        });
+    }
+
+    /**
+     * The reader stage. It reads the records of the {@code source} and passes them on in
+     * batches together with their stored vectors. At the end, one end marker per tokenizer is
+     * put into the queue.
+     */
+    private void read(@NotNull RecordSource source, @NotNull VectorLookup lookup,
+                      @NotNull StageMetrics stage) {
+        List<ArticleRecord> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            source.readRecords(record -> {
+                batch.add(record);
+                if (batch.size() == BATCH_SIZE) {
+                    putBatch(batch, lookup, stage);
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                putBatch(batch, lookup, stage);
+            }
+            for (int i = 0; i < tokenizerCount; i++) {
+                put(recordQueue, END_OF_RECORDS);
+            }
+        } catch (CancellationException e) {
+            // The pipeline has been stopped.
+        } catch (SQLException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void putBatch(@NotNull List<ArticleRecord> records, @NotNull VectorLookup lookup,
+                          @NotNull StageMetrics stage) {
+        scheduler.yieldPoint(context.getSignal());
+        Map<Integer, Long> contentHashes = new HashMap<>();
+        for (ArticleRecord record : records) {
+            if (record.content != null) {
+                contentHashes.put(record.id, ArticleVectorStore.hashContent(record.content));
+            }
+        }
+        RecordBatch batch = new RecordBatch(new ArrayList<>(records), contentHashes);
+        batch.storedVectors.putAll(lookup.loadVectors(contentHashes));
+        stage.recordProcessed(records.size());
+        put(recordQueue, batch);
+    }
+
+    /**
+     * The tokenizer stage. It takes batches of records and generates the missing content
+     * vectors until it receives an end marker, which it passes on to the consume stage.
+     */
+    private void tokenize(@NotNull StageMetrics stage) {
+        try {
+            RecordBatch batch;
+            while ((batch = recordQueue.take()) != END_OF_RECORDS) {
+                scheduler.yieldPoint(context.getSignal());
+                List<Article> articles = new ArrayList<>(batch.records.size());
+                for (ArticleRecord record : batch.records) {
+                    NGramVector vector = batch.storedVectors.get(record.id);
+                    if (vector == null) {
+                        vector = NGramVector.fromText(record.content);
+                        if (record.content != null) {
+                            generatedVectors.put(record.id, vector);
+                            generatedContentHashes.put(record.id,
+                                    batch.contentHashes.get(record.id));
+                        }
+                    }
+                    articles.add(record.toArticle(vector));
+                }
+                stage.recordProcessed(articles.size());
+                put(articleQueue, articles);
+            }
+            put(articleQueue, END_OF_ARTICLES);
+        } catch (InterruptedException | CancellationException e) {
+            // The pipeline has been stopped.
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * The consume stage. It passes the article batches to the {@code consumer} until every
+     * tokenizer has finished. The queue is polled, so that a failure of another stage is
+     * noticed even though no more batches arrive.
+     */
+    private void consume(@NotNull Consumer<List<Article>> consumer, @NotNull StageMetrics stage)
+            throws SQLException, InterruptedException {
+        int finishedTokenizers = 0;
+        while (finishedTokenizers < tokenizerCount) {
+            List<Article> articles = articleQueue.poll(POLL_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+            context.checkCancelled();
+            rethrowFailure();
+            if (articles == END_OF_ARTICLES) {
+                finishedTokenizers++;
+            } else if (articles != null) {
+                consumer.accept(articles);
+                stage.recordProcessed(articles.size());
+            }
+        }
+    }
+
+    private void rethrowFailure() throws SQLException {
+        Exception e = failure.get();
+        if (e instanceof SQLException) {
+            throw (SQLException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * Puts an element into a queue and blocks while the queue is full.
+     *
+     * @throws CancellationException if the thread has been interrupted, because the pipeline
+     *                               has been stopped
+     */
+    private static <T> void put(@NotNull BlockingQueue<T> queue, @NotNull T element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The pipeline has been stopped.");
+        }
+    }
+
+    /**
+     * Returns the vectors that have been generated by the tokenizers, because no up-to-date
+     * vector has been stored.
+     *
+     * @return a map from article ids to the generated vectors
+     */
+    @NotNull Map<Integer, NGramVector> getGeneratedVectors() {
+        return generatedVectors;
+    }
+
+    /**
+     * Returns the content hashes of the articles whose vectors have been generated.
+     *
+     * @return a map from article ids to the hashes of their contents
+     */
+    @NotNull Map<Integer, Long> getGeneratedContentHashes() {
+        return generatedContentHashes;
+    }
+
+    /**
+     * A batch of records with the hashes of their contents and their stored vectors.
+     */
+    private static final class RecordBatch {
+        @NotNull
+        final List<ArticleRecord> records;
+        @NotNull
+        final Map<Integer, Long> contentHashes;
+        @NotNull
+        final Map<Integer, NGramVector> storedVectors = new HashMap<>();
+
+        RecordBatch(@NotNull List<ArticleRecord> records,
+                    @NotNull Map<Integer, Long> contentHashes) {
+            this.records = records;
+            this.contentHashes = contentHashes;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.Medium;
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static ch.svenstoll.similarityfinder.dao.DatabaseAccessImpl.*;
+
+/**
+ * The raw column values of a row of the article relation. In opposite to an {@code Article},
+ * the content of an {@code ArticleRecord} has not been tokenized, yet.
+ */
+final class ArticleRecord {
+    final int id;
+    @Nullable
+    final String title;
+    @Nullable
+    final String content;
+    @Nullable
+    final String mediumName;
+    @Nullable
+    final LocalDate publicationDate;
+    final boolean relevant;
+
+    /**
+     * Constructs an {@code ArticleRecord}.
+     *
+     * @param id the id of the article
+     * @param title the title of the article
+     * @param content the content of the article
+     * @param mediumName the name of the medium that published the article
+     * @param publicationDate the date the article was published
+     * @param relevant whether the article is marked as relevant
+     */
+    ArticleRecord(int id, @Nullable String title, @Nullable String content,
+                  @Nullable String mediumName, @Nullable LocalDate publicationDate,
+                  boolean relevant) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.mediumName = mediumName;
+        this.publicationDate = publicationDate;
+        this.relevant = relevant;
+    }
+
+    /**
+     * Reads an {@code ArticleRecord} from the current row of a {@code ResultSet} that contains
+     * all columns of the article relation.
+     *
+     * @param resultSet a {@code ResultSet} positioned on a row of the article relation
+     * @return the record of the current row
+     * @throws IllegalArgumentException if {@code resultSet} was {@code null}
+     * @throws SQLException if an error occurred while accessing the {@code resultSet}
+     */
+    static @NotNull ArticleRecord readFrom(@NotNull ResultSet resultSet) throws SQLException {
+        Validate.notNull(resultSet, "ResultSet must not be null.");
+
+        Date date = resultSet.getDate(ARTICLE_PUBLICATION_DATE_COLUMN);
+        return new ArticleRecord(
+                resultSet.getInt(ARTICLE_ID_COLUMN),
+                resultSet.getString(ARTICLE_TITLE_COLUMN),
+                resultSet.getString(ARTICLE_CONTENT_COLUMN),
+                resultSet.getString(ARTICLE_MEDIUM_COLUMN),
+                date != null ? date.toLocalDate() : null,
+                resultSet.getBoolean(ARTICLE_RELEVANT_COLUMN));
+    }
+
+    /**
+     * Creates an {@code Article} from this record using an already generated content vector.
+     *
+     * @param contentVector the n-gram vector of the {@link #content}
+     * @return the created {@code Article}
+     * @throws IllegalArgumentException if {@code contentVector} was {@code null}
+     */
+    @NotNull Article toArticle(@NotNull NGramVector contentVector) {
+        Validate.notNull(contentVector, "ContentVector must not be null.");
+
+        Article article = new Article(id);
+        article.setTitle(title);
+        article.setContent(content, contentVector);
+        if (mediumName != null && !mediumName.isEmpty()) {
+            article.setMedium(new Medium(mediumName));
+        }
+        article.setPublicationDate(publicationDate);
+        article.setRelevant(relevant);
+        return article;
+    }
+}
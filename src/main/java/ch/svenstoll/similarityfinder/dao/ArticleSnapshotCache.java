@@ -0,0 +1,610 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
+import ch.svenstoll.similarityfinder.domain.Medium;
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import com.google.common.collect.Iterables;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+import static ch.svenstoll.similarityfinder.dao.DatabaseAccessImpl.ARTICLE_ID_COLUMN;
+import static ch.svenstoll.similarityfinder.dao.DatabaseAccessImpl.ARTICLE_RELATION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * A local snapshot of all articles of the database which is kept in memory and stored in a
+ * compact binary file, so that it survives restarts of the application. Queries are answered
+ * locally after the snapshot has been synchronized with the database. The synchronization only
+ * transfers articles whose id is greater than the highest id of the snapshot (the watermark) or
+ * whose modification marker has changed. Articles that have been deleted from the database will
+ * also be removed from the snapshot.
+ * <p>
+ * The file is organized in columns. The metadata that is needed to evaluate
+ * {@code FilterCriteria} is decoded when the file is loaded, while contents and n-gram vectors are
+ * only decoded for articles that are actually selected by a query.
+ * </p>
+ * <p>
+ * The snapshot is only used if it has been enabled in the {@code Settings}. It mirrors the whole
+ * article relation, every synchronization scans the ids and modification markers of all
+ * articles, and queries that are answered from it bypass the bulk load of the
+ * {@code ArticlePipeline}. It therefore only pays off for clients that query a large share of
+ * the articles repeatedly over a slow connection.
+ * </p>
+ */
+@Singleton
+public final class ArticleSnapshotCache {
+    /**
+     * The PostgreSQL system column {@code xmin} contains the id of the transaction that inserted
+     * the current version of a row and therefore changes whenever a row is updated.
+     */
+    @NotNull
+    static final String MODIFICATION_MARKER_EXPRESSION = "xmin::text::bigint";
+    @NotNull
+    static final String MARKER_COLUMN = "snapshot_marker";
+
+    private static final int FILE_MAGIC = 0x53464153;
+    private static final int FILE_VERSION = 1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NO_MEDIUM = -1;
+    private static final int NO_VALUE = -1;
+    private static final byte RELEVANT_FLAG = 1;
+
+    @NotNull
+    private static final String MARKERS_QUERY
+            = "SELECT " + ARTICLE_ID_COLUMN + ", %s AS " + MARKER_COLUMN + " " +
+              "FROM " + ARTICLE_RELATION + ";";
+    @NotNull
+    private static final String ROWS_ABOVE_WATERMARK_QUERY
+            = "SELECT *, %s AS " + MARKER_COLUMN + " " +
+              "FROM " + ARTICLE_RELATION + " " +
+              "WHERE " + ARTICLE_ID_COLUMN + " > ?;";
+    @NotNull
+    private static final String ROWS_BY_ID_QUERY
+            = "SELECT *, %s AS " + MARKER_COLUMN + " " +
+              "FROM " + ARTICLE_RELATION + " " +
+              "WHERE " + ARTICLE_ID_COLUMN + " IN (%s);";
+
+    @NotNull
+    private final Path location;
+    @NotNull
+    private final String markerExpression;
+    @NotNull
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    @Nullable
+    private String sourceKey;
+    private int watermark = Integer.MIN_VALUE;
+
+    /**
+     * A functional interface that is used to turn the fetched records into articles, so that
+     * the snapshot does not need to know how content vectors are generated. The generator is
+     * called while the monitor of the snapshot is held, so it must not pause for other work,
+     * e.g. at a yield point of a {@code PriorityScheduler}.
+     */
+    @FunctionalInterface
+    interface ArticleGenerator {
+        /**
+         * Generates the articles of the specified records.
+         *
+         * @param records the fetched records
+         * @return the generated articles
+         * @throws InterruptedException if the generating thread was interrupted
+         */
+        @NotNull List<Article> generateArticles(@NotNull List<ArticleRecord> records)
+                throws InterruptedException;
+    }
+
+    /**
+     * Constructs an {@code ArticleSnapshotCache} that uses the PostgreSQL {@code xmin} system
+     * column as modification marker.
+     *
+     * @param location the location of the snapshot file
+     * @throws IllegalArgumentException if {@code location} was {@code null}
+     */
+    @Inject
+    public ArticleSnapshotCache(@NotNull @Named("ARTICLE_SNAPSHOT_LOCATION") String location) {
+        this(location, MODIFICATION_MARKER_EXPRESSION);
+    }
+
+    /**
+     * Constructs an {@code ArticleSnapshotCache}.
+     *
+     * @param location the location of the snapshot file
+     * @param markerExpression a SQL expression of the type {@code BIGINT} that changes whenever
+     *                         a row of the article relation is updated
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    ArticleSnapshotCache(@NotNull String location, @NotNull String markerExpression) {
+        Validate.notNull(location, "Location must not be null.");
+        this.location = Paths.get(location);
+        this.markerExpression
+                = Validate.notNull(markerExpression, "MarkerExpression must not be null.");
+    }
+
+    /**
+     * Synchronizes the snapshot with the database and returns all articles of the snapshot
+     * that meet the specified {@code criteria}, ordered by id.
+     *
+     * @param connection an open database connection
+     * @param sourceKey a key that identifies the database. If it differs from the key of the
+     *                  current snapshot, the snapshot is discarded.
+     * @param criteria the criteria the returned articles must meet
+     * @param generator an {@code ArticleGenerator} used to generate the articles of fetched rows
+     * @param context the {@code QueryContext} used to execute the statements
+     * @return the articles that meet the {@code criteria}
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws SQLException if an error occurred while synchronizing the snapshot
+     * @throws InterruptedException if the thread executing this method was interrupted
+     */
+    synchronized @NotNull List<Article> queryArticles(@NotNull Connection connection,
+                                                      @NotNull String sourceKey,
+                                                      @NotNull FilterCriteria criteria,
+                                                      @NotNull ArticleGenerator generator,
+                                                      @NotNull QueryContext context)
+            throws SQLException, InterruptedException {
+        Validate.notNull(connection, "Connection must not be null.");
+        Validate.notNull(sourceKey, "SourceKey must not be null.");
+        Validate.notNull(criteria, "Criteria must not be null.");
+        Validate.notNull(generator, "Generator must not be null.");
+        Validate.notNull(context, "Context must not be null.");
+
+        load(sourceKey);
+        synchronize(connection, generator, context);
+
+        List<Article> articles = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.matches(criteria)) {
+                articles.add(entry.getArticle());
+            }
+        }
+        articles.sort(Comparator.comparingInt(Article::getId));
+        return articles;
+    }
+
+    /**
+     * Discards the snapshot in memory and on disk.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        watermark = Integer.MIN_VALUE;
+        sourceKey = null;
+        try {
+            Files.deleteIfExists(location);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the number of articles in the snapshot.
+     *
+     * @return the number of articles in the snapshot
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Loads the snapshot file if the snapshot of the specified source has not been loaded, yet.
+     * A missing or corrupted file results in an empty snapshot.
+     *
+     * @param sourceKey a key that identifies the database
+     */
+    private void load(@NotNull String sourceKey) {
+        if (sourceKey.equals(this.sourceKey)) {
+            return;
+        }
+
+        entries.clear();
+        watermark = Integer.MIN_VALUE;
+        this.sourceKey = sourceKey;
+
+        if (!Files.exists(location)) {
+            return;
+        }
+        try {
+            readFile(sourceKey, ByteBuffer.wrap(Files.readAllBytes(location)));
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            e.printStackTrace();
+            entries.clear();
+            watermark = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Fetches new and changed articles from the database and removes deleted articles from the
+     * snapshot. The snapshot file is rewritten if anything has changed.
+     *
+     * @param connection an open database connection
+     * @param generator an {@code ArticleGenerator} used to generate the articles of fetched rows
+     * @param context the {@code QueryContext} used to execute the statements
+     * @throws SQLException if an error occurred while querying the database
+     * @throws InterruptedException if the thread executing this method was interrupted
+     */
+    private void synchronize(@NotNull Connection connection, @NotNull ArticleGenerator generator,
+                             @NotNull QueryContext context)
+            throws SQLException, InterruptedException {
+        Map<Integer, Long> markers = queryMarkers(connection, context);
+
+        boolean modified = entries.keySet().retainAll(markers.keySet());
+
+        List<Integer> changedIds = new ArrayList<>();
+        markers.forEach((id, marker) -> {
+            Entry entry = entries.get(id);
+            if (entry == null ? id <= watermark : entry.marker != marker) {
+                changedIds.add(id);
+            }
+        });
+
+        Map<Integer, Long> fetchedMarkers = new HashMap<>();
+        List<ArticleRecord> records = new ArrayList<>();
+        String aboveWatermarkQuery = String.format(ROWS_ABOVE_WATERMARK_QUERY, markerExpression);
+        try (PreparedStatement statement = connection.prepareStatement(aboveWatermarkQuery)) {
+            statement.setInt(1, watermark);
+            context.execute(statement, () ->
+                    readRecords(statement.executeQuery(), records, fetchedMarkers));
+        }
+        for (List<Integer> ids : Iterables.partition(changedIds,
+                ArticleVectorStore.MAX_IDS_PER_STATEMENT)) {
+            String byIdQuery = String.format(ROWS_BY_ID_QUERY, markerExpression,
+                    String.join(", ", Collections.nCopies(ids.size(), "?")));
+            try (PreparedStatement statement = connection.prepareStatement(byIdQuery)) {
+                for (int i = 0; i < ids.size(); i++) {
+                    statement.setInt(i + 1, ids.get(i));
+                }
+                context.execute(statement, () ->
+                        readRecords(statement.executeQuery(), records, fetchedMarkers));
+            }
+        }
+
+        if (!records.isEmpty()) {
+            for (Article article : generator.generateArticles(records)) {
+                entries.put(article.getId(),
+                        new Entry(article, fetchedMarkers.get(article.getId())));
+                watermark = Math.max(watermark, article.getId());
+            }
+            modified = true;
+        }
+
+        if (modified) {
+            writeFile();
+        }
+    }
+
+    /**
+     * Queries the modification markers of all articles.
+     *
+     * @param connection an open database connection
+     * @param context the {@code QueryContext} used to execute the statement
+     * @return a map from article ids to their modification markers
+     * @throws SQLException if an error occurred while querying the database
+     */
+    private @NotNull Map<Integer, Long> queryMarkers(@NotNull Connection connection,
+                                                     @NotNull QueryContext context)
+            throws SQLException {
+        Map<Integer, Long> markers = new HashMap<>();
+        String query = String.format(MARKERS_QUERY, markerExpression);
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            return context.execute(statement, () -> {
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    markers.put(resultSet.getInt(ARTICLE_ID_COLUMN),
+                            resultSet.getLong(MARKER_COLUMN));
+                }
+                return markers;
+            });
+        }
+    }
+
+    private @NotNull List<ArticleRecord> readRecords(@NotNull ResultSet resultSet,
+                                                     @NotNull List<ArticleRecord> records,
+                                                     @NotNull Map<Integer, Long> markers)
+            throws SQLException {
+        while (resultSet.next()) {
+            ArticleRecord record = ArticleRecord.readFrom(resultSet);
+            records.add(record);
+            markers.put(record.id, resultSet.getLong(MARKER_COLUMN));
+        }
+        return records;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file which then atomically replaces the snapshot file.
+     * Since the snapshot is only used to improve performance, errors are not propagated.
+     */
+    private void writeFile() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingInt(entry -> entry.id));
+
+        Map<String, Integer> mediumIndices = new LinkedHashMap<>();
+        for (Entry entry : sorted) {
+            if (entry.mediumName != null) {
+                mediumIndices.putIfAbsent(entry.mediumName, mediumIndices.size());
+            }
+        }
+
+        Path temporary = location.resolveSibling(location.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                writeBytes(out, Objects.requireNonNull(sourceKey).getBytes(UTF_8));
+                out.writeInt(watermark);
+                out.writeInt(sorted.size());
+
+                for (Entry entry : sorted) {
+                    out.writeInt(entry.id);
+                }
+                for (Entry entry : sorted) {
+                    out.writeLong(entry.marker);
+                }
+                for (Entry entry : sorted) {
+                    out.writeInt(entry.publicationDate != null
+                            ? (int) entry.publicationDate.toEpochDay() : NO_DATE);
+                }
+                for (Entry entry : sorted) {
+                    out.writeByte(entry.relevant ? RELEVANT_FLAG : 0);
+                }
+                for (Entry entry : sorted) {
+                    out.writeInt(entry.contentLength);
+                }
+                out.writeInt(mediumIndices.size());
+                for (String mediumName : mediumIndices.keySet()) {
+                    writeBytes(out, mediumName.getBytes(UTF_8));
+                }
+                for (Entry entry : sorted) {
+                    out.writeInt(entry.mediumName != null
+                            ? mediumIndices.get(entry.mediumName) : NO_MEDIUM);
+                }
+                for (Entry entry : sorted) {
+                    writeBytes(out, entry.title != null ? entry.title.getBytes(UTF_8) : null);
+                }
+                for (Entry entry : sorted) {
+                    writeBytes(out, entry.getContentBytes());
+                }
+                for (Entry entry : sorted) {
+                    writeBytes(out, entry.getVectorBytes());
+                }
+            }
+
+            try {
+                Files.move(temporary, location, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, location, REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the entries of a snapshot file. The entries are only accepted if the file belongs
+     * to the specified source.
+     *
+     * @param sourceKey a key that identifies the database
+     * @param buffer a buffer that contains the whole snapshot file
+     * @throws IllegalArgumentException if the file is not a valid snapshot file
+     * @throws BufferUnderflowException if the file is truncated
+     */
+    private void readFile(@NotNull String sourceKey, @NotNull ByteBuffer buffer) {
+        Validate.isTrue(buffer.getInt() == FILE_MAGIC, "Invalid snapshot file.");
+        if (buffer.getInt() != FILE_VERSION
+                || !sourceKey.equals(new String(readBytes(buffer), UTF_8))) {
+            return;
+        }
+
+        int fileWatermark = buffer.getInt();
+        int count = buffer.getInt();
+        Validate.isTrue(count >= 0, "Invalid number of snapshot entries.");
+
+        int[] ids = new int[count];
+        long[] markers = new long[count];
+        int[] dates = new int[count];
+        byte[] flags = new byte[count];
+        int[] contentLengths = new int[count];
+        int[] mediumIndices = new int[count];
+        String[] titles = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            ids[i] = buffer.getInt();
+        }
+        for (int i = 0; i < count; i++) {
+            markers[i] = buffer.getLong();
+        }
+        for (int i = 0; i < count; i++) {
+            dates[i] = buffer.getInt();
+        }
+        buffer.get(flags);
+        for (int i = 0; i < count; i++) {
+            contentLengths[i] = buffer.getInt();
+        }
+        String[] mediumNames = new String[buffer.getInt()];
+        for (int i = 0; i < mediumNames.length; i++) {
+            mediumNames[i] = new String(readBytes(buffer), UTF_8);
+        }
+        for (int i = 0; i < count; i++) {
+            mediumIndices[i] = buffer.getInt();
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] title = readBytes(buffer);
+            titles[i] = title != null ? new String(title, UTF_8) : null;
+        }
+        int[] contentOffsets = skipBytesColumn(buffer, count);
+        int[] vectorOffsets = skipBytesColumn(buffer, count);
+
+        byte[] data = buffer.array();
+        for (int i = 0; i < count; i++) {
+            String mediumName = mediumIndices[i] != NO_MEDIUM ? mediumNames[mediumIndices[i]] : null;
+            LocalDate date = dates[i] != NO_DATE ? LocalDate.ofEpochDay(dates[i]) : null;
+            entries.put(ids[i], new Entry(ids[i], markers[i], mediumName, date, titles[i],
+                    contentLengths[i], flags[i] == RELEVANT_FLAG, data, contentOffsets[i],
+                    vectorOffsets[i]));
+        }
+        watermark = fileWatermark;
+    }
+
+    /**
+     * Skips a column of length-prefixed byte arrays and returns the offsets of the length
+     * prefixes, so that the values can be decoded later on.
+     */
+    private static @NotNull int[] skipBytesColumn(@NotNull ByteBuffer buffer, int count) {
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = buffer.position();
+            int length = buffer.getInt();
+            if (length > 0) {
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return offsets;
+    }
+
+    private static void writeBytes(@NotNull DataOutputStream out, @Nullable byte[] bytes)
+            throws IOException {
+        if (bytes == null) {
+            out.writeInt(NO_VALUE);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static @Nullable byte[] readBytes(@NotNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NO_VALUE) {
+            return null;
+        }
+        Validate.isTrue(length >= 0, "Invalid length of a snapshot value.");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static @Nullable byte[] readBytesAt(@NotNull byte[] data, int offset) {
+        return readBytes(ByteBuffer.wrap(data, offset, data.length - offset));
+    }
+
+    /**
+     * An article of the snapshot. Entries that have been loaded from the snapshot file only
+     * decode their content and vector when the article is requested for the first time.
+     */
+    private static final class Entry {
+        final int id;
+        final long marker;
+        @Nullable
+        final String mediumName;
+        @Nullable
+        final LocalDate publicationDate;
+        @Nullable
+        final String title;
+        final int contentLength;
+        final boolean relevant;
+
+        @Nullable
+        private Article article;
+        @Nullable
+        private final byte[] data;
+        private final int contentOffset;
+        private final int vectorOffset;
+
+        Entry(@NotNull Article article, long marker) {
+            String content = article.getContent();
+            Medium medium = article.getMedium();
+
+            this.id = article.getId();
+            this.marker = marker;
+            this.mediumName = medium != null ? medium.getName() : null;
+            this.publicationDate = article.getPublicationDate();
+            this.title = article.getTitle();
+            this.contentLength
+                    = content != null ? content.codePointCount(0, content.length()) : NO_VALUE;
+            this.relevant = article.isRelevant();
+            this.article = article;
+            this.data = null;
+            this.contentOffset = NO_VALUE;
+            this.vectorOffset = NO_VALUE;
+        }
+
+        Entry(int id, long marker, @Nullable String mediumName,
+              @Nullable LocalDate publicationDate, @Nullable String title, int contentLength,
+              boolean relevant, @NotNull byte[] data, int contentOffset, int vectorOffset) {
+            this.id = id;
+            this.marker = marker;
+            this.mediumName = mediumName;
+            this.publicationDate = publicationDate;
+            this.title = title;
+            this.contentLength = contentLength;
+            this.relevant = relevant;
+            this.data = data;
+            this.contentOffset = contentOffset;
+            this.vectorOffset = vectorOffset;
+        }
+
+        boolean matches(@NotNull FilterCriteria criteria) {
+            return criteria.matches(mediumName, publicationDate, title, contentLength, relevant);
+        }
+
+        @NotNull Article getArticle() {
+            if (article == null) {
+                byte[] content = readBytesAt(Objects.requireNonNull(data), contentOffset);
+                byte[] vector = readBytesAt(data, vectorOffset);
+
+                Article article = new Article(id);
+                article.setTitle(title);
+                article.setContent(content != null ? new String(content, UTF_8) : null,
+                        vector != null ? NGramVector.fromBytes(vector) : NGramVector.EMPTY);
+                if (mediumName != null) {
+                    article.setMedium(new Medium(mediumName));
+                }
+                article.setPublicationDate(publicationDate);
+                article.setRelevant(relevant);
+                this.article = article;
+            }
+            return article;
+        }
+
+        @Nullable byte[] getContentBytes() {
+            if (data != null) {
+                return readBytesAt(data, contentOffset);
+            }
+            String content = Objects.requireNonNull(article).getContent();
+            return content != null ? content.getBytes(UTF_8) : null;
+        }
+
+        @NotNull byte[] getVectorBytes() {
+            if (data != null) {
+                byte[] vector = readBytesAt(data, vectorOffset);
+                return vector != null ? vector : NGramVector.EMPTY.toBytes();
+            }
+            return Objects.requireNonNull(article).getContentVector().toBytes();
+        }
+    }
+}
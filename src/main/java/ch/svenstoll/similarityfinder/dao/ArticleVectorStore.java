@@ -0,0 +1,227 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.*;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Stores the n-gram vectors of article contents in a side table of the database, so that
+ * articles whose content has not changed do not have to be tokenized again. Every vector is
+ * stored together with a hash of the content it was generated from. A stored vector is only
+ * used if the hash of the current content matches the stored hash.
+ */
+final class ArticleVectorStore {
+    @NotNull
+    static final String VECTOR_RELATION = "article_vector";
+    @NotNull
+    static final String VECTOR_ARTICLE_ID_COLUMN = "article_id";
+    @NotNull
+    static final String VECTOR_CONTENT_HASH_COLUMN = "content_hash";
+    @NotNull
+    static final String VECTOR_DATA_COLUMN = "vector";
+
+    /**
+     * The maximum number of ids that are bound to a single statement.
+     */
+    static final int MAX_IDS_PER_STATEMENT = 500;
+
+    @NotNull
+    private static final String CREATE_TABLE_STATEMENT
+            = "CREATE TABLE IF NOT EXISTS " + VECTOR_RELATION + " (" +
+              "  " + VECTOR_ARTICLE_ID_COLUMN + " INTEGER PRIMARY KEY, " +
+              "  " + VECTOR_CONTENT_HASH_COLUMN + " BIGINT NOT NULL, " +
+              "  " + VECTOR_DATA_COLUMN + " BYTEA NOT NULL);";
+    @NotNull
+    private static final String SELECT_VECTORS_QUERY
+            = "SELECT " + VECTOR_ARTICLE_ID_COLUMN + ", " + VECTOR_CONTENT_HASH_COLUMN + ", " +
+              VECTOR_DATA_COLUMN + " " +
+              "FROM " + VECTOR_RELATION + " " +
+              "WHERE " + VECTOR_ARTICLE_ID_COLUMN + " IN (%s);";
+    @NotNull
+    private static final String DELETE_VECTORS_STATEMENT
+            = "DELETE FROM " + VECTOR_RELATION + " " +
+              "WHERE " + VECTOR_ARTICLE_ID_COLUMN + " IN (%s);";
+    @NotNull
+    private static final String INSERT_VECTOR_STATEMENT
+            = "INSERT INTO " + VECTOR_RELATION + " (" + VECTOR_ARTICLE_ID_COLUMN + ", " +
+              VECTOR_CONTENT_HASH_COLUMN + ", " + VECTOR_DATA_COLUMN + ") " +
+              "VALUES (?, ?, ?);";
+
+    @Nullable
+    private Connection preparedConnection;
+
+    /**
+     * Calculates the hash of an article content that is stored along with its n-gram vector.
+     *
+     * @param content the content of an article
+     * @return a 64 bit hash of {@code content}
+     * @throws IllegalArgumentException if {@code content} was {@code null}
+     */
+    static long hashContent(@NotNull String content) {
+        Validate.notNull(content, "Content must not be null.");
+        return Hashing.murmur3_128().hashString(content, UTF_8).asLong();
+    }
+
+    /**
+     * Creates the side table of the vectors if it does not exist, yet. This is only done once
+     * per {@code connection}.
+     *
+     * @param connection an open database connection
+     * @throws IllegalArgumentException if {@code connection} was {@code null}
+     * @throws SQLException if the side table could not be created
+     */
+    synchronized void prepareTable(@NotNull Connection connection) throws SQLException {
+        Validate.notNull(connection, "Connection must not be null.");
+
+        if (connection != preparedConnection) {
+            try (PreparedStatement statement = connection.prepareStatement(CREATE_TABLE_STATEMENT)) {
+                statement.execute();
+            }
+            preparedConnection = connection;
+        }
+    }
+
+    /**
+     * Loads the stored vectors of the articles whose ids are the keys of the specified {@code
+     * contentHashes} map. Vectors whose stored content hash does not match the current content
+     * hash are omitted, because they are outdated.
+     *
+     * @param connection an open database connection
+     * @param contentHashes a map from article ids to the hashes of their current contents
+     * @return a map from article ids to their up-to-date stored vectors
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws SQLException if an error occurred while querying the vectors
+     */
+    @NotNull Map<Integer, NGramVector> loadVectors(@NotNull Connection connection,
+                                                   @NotNull Map<Integer, Long> contentHashes)
+            throws SQLException {
+        Validate.notNull(connection, "Connection must not be null.");
+        Validate.notNull(contentHashes, "ContentHashes must not be null.");
+
+        Map<Integer, NGramVector> vectors = new HashMap<>();
+        prepareTable(connection);
+
+        for (List<Integer> ids : Iterables.partition(contentHashes.keySet(),
+                MAX_IDS_PER_STATEMENT)) {
+            String query = String.format(SELECT_VECTORS_QUERY, placeholders(ids.size()));
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                for (int i = 0; i < ids.size(); i++) {
+                    statement.setInt(i + 1, ids.get(i));
+                }
+
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    int id = resultSet.getInt(VECTOR_ARTICLE_ID_COLUMN);
+                    long storedHash = resultSet.getLong(VECTOR_CONTENT_HASH_COLUMN);
+                    Long currentHash = contentHashes.get(id);
+                    if (currentHash != null && currentHash == storedHash) {
+                        NGramVector vector = decodeVector(resultSet.getBytes(VECTOR_DATA_COLUMN));
+                        if (vector != null) {
+                            vectors.put(id, vector);
+                        }
+                    }
+                }
+            }
+        }
+
+        return vectors;
+    }
+
+    /**
+     * Decodes a stored vector. Vectors of an unknown binary format are treated as outdated.
+     *
+     * @param bytes the stored bytes of a vector
+     * @return the decoded vector or {@code null} if the vector could not be decoded
+     */
+    private @Nullable NGramVector decodeVector(@Nullable byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return NGramVector.fromBytes(bytes);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the specified vectors together with the hash of the content they were generated
+     * from. Previously stored vectors of the same articles will be replaced. All changes are
+     * written in a single transaction.
+     *
+     * @param connection an open database connection
+     * @param vectors a map from article ids to the vectors to be stored
+     * @param contentHashes a map from article ids to the hashes of their current contents
+     * @throws IllegalArgumentException if any parameter was {@code null} or a content hash is
+     *                                  missing for one of the vectors
+     * @throws SQLException if an error occurred while storing the vectors
+     */
+    void storeVectors(@NotNull Connection connection, @NotNull Map<Integer, NGramVector> vectors,
+                      @NotNull Map<Integer, Long> contentHashes) throws SQLException {
+        Validate.notNull(connection, "Connection must not be null.");
+        Validate.notNull(vectors, "Vectors must not be null.");
+        Validate.notNull(contentHashes, "ContentHashes must not be null.");
+
+        if (vectors.isEmpty()) {
+            return;
+        }
+        prepareTable(connection);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (List<Integer> ids : Iterables.partition(vectors.keySet(),
+                    MAX_IDS_PER_STATEMENT)) {
+                String delete = String.format(DELETE_VECTORS_STATEMENT, placeholders(ids.size()));
+                try (PreparedStatement statement = connection.prepareStatement(delete)) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        statement.setInt(i + 1, ids.get(i));
+                    }
+                    statement.executeUpdate();
+                }
+
+                try (PreparedStatement statement
+                             = connection.prepareStatement(INSERT_VECTOR_STATEMENT)) {
+                    for (int id : ids) {
+                        Long hash = contentHashes.get(id);
+                        Validate.notNull(hash, "ContentHashes must contain every vector id.");
+                        statement.setInt(1, id);
+                        statement.setLong(2, hash);
+                        statement.setBytes(3, vectors.get(id).toBytes());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Creates a comma separated list of {@code count} parameter placeholders.
+     *
+     * @param count the number of placeholders
+     * @return the placeholders (e.g. {@code "?, ?, ?"})
+     */
+    private static @NotNull String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
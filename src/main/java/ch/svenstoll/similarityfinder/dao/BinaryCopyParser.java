@@ -0,0 +1,175 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A parser for the binary format of the PostgreSQL {@code COPY} command. The parser expects
+ * tuples whose fields are in the order of {@link ArticleBulkLoader#COPY_COLUMNS}, i.e. {@code
+ * id int4, title text, content text, medium text, publicationDate date, relevant bool}.
+ * <p>
+ * The binary format consists of a header followed by the tuples and a trailer. Each tuple
+ * starts with its number of fields (int16) and each field with its length in bytes (int32),
+ * where a length of {@code -1} indicates {@code NULL}. The trailer is a field count of {@code -1}.
+ * All numbers are in network byte order, which is the byte order of {@code DataInputStream}.
+ * </p>
+ */
+final class BinaryCopyParser implements Closeable {
+    @NotNull
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF,
+            '\r', '\n', 0};
+    private static final int OIDS_FLAG = 1 << 16;
+    private static final int FIELD_COUNT = 6;
+    private static final int NULL_LENGTH = -1;
+    private static final short TRAILER = -1;
+    private static final int POSTGRES_EPOCH_DAY = (int) LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final int INFINITY_DATE = Integer.MAX_VALUE;
+    private static final int NEGATIVE_INFINITY_DATE = Integer.MIN_VALUE;
+
+    @NotNull
+    private final DataInputStream in;
+    private boolean headerRead = false;
+    private boolean trailerRead = false;
+
+    /**
+     * Constructs a {@code BinaryCopyParser}.
+     *
+     * @param in the stream that provides the output of a binary {@code COPY ... TO STDOUT}
+     * @throws IllegalArgumentException if {@code in} was {@code null}
+     */
+    BinaryCopyParser(@NotNull InputStream in) {
+        Validate.notNull(in, "In must not be null.");
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    /**
+     * Reads the next tuple of the stream.
+     *
+     * @return the record of the next tuple or {@code null} if the trailer has been reached
+     * @throws IOException if the stream could not be read or is not in the expected format
+     */
+    @Nullable ArticleRecord readRecord() throws IOException {
+        if (!headerRead) {
+            readHeader();
+            headerRead = true;
+        }
+        if (trailerRead) {
+            return null;
+        }
+
+        try {
+            short fieldCount = in.readShort();
+            if (fieldCount == TRAILER) {
+                trailerRead = true;
+                return null;
+            }
+            if (fieldCount != FIELD_COUNT) {
+                throw new IOException("Unexpected number of fields: " + fieldCount);
+            }
+
+            Integer id = readInt4();
+            if (id == null) {
+                throw new IOException("Article without id.");
+            }
+            String title = readText();
+            String content = readText();
+            String mediumName = readText();
+            LocalDate publicationDate = readDate();
+            Boolean relevant = readBool();
+            return new ArticleRecord(id, title, content, mediumName, publicationDate,
+                    relevant != null && relevant);
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of the COPY stream.", e);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        byte[] signature = new byte[SIGNATURE.length];
+        try {
+            in.readFully(signature);
+            if (!Arrays.equals(signature, SIGNATURE)) {
+                throw new IOException("Invalid signature of the COPY stream.");
+            }
+            int flags = in.readInt();
+            if ((flags & OIDS_FLAG) != 0) {
+                throw new IOException("COPY streams containing OIDs are not supported.");
+            }
+            int extensionLength = in.readInt();
+            if (extensionLength < 0) {
+                throw new IOException("Invalid header extension length: " + extensionLength);
+            }
+            in.readFully(new byte[extensionLength]);
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of the COPY header.", e);
+        }
+    }
+
+    /**
+     * Reads the length of the next field and validates it.
+     *
+     * @param expectedLength the expected length of a non-{@code NULL} value or {@code -1} if
+     *                       the length is variable
+     * @return the length of the field or {@code -1} if the field is {@code NULL}
+     */
+    private int readLength(int expectedLength) throws IOException {
+        int length = in.readInt();
+        if (length != NULL_LENGTH
+                && (length < 0 || (expectedLength != NULL_LENGTH && length != expectedLength))) {
+            throw new IOException("Invalid field length: " + length);
+        }
+        return length;
+    }
+
+    private @Nullable Integer readInt4() throws IOException {
+        return readLength(Integer.BYTES) == NULL_LENGTH ? null : in.readInt();
+    }
+
+    private @Nullable String readText() throws IOException {
+        int length = readLength(NULL_LENGTH);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private @Nullable LocalDate readDate() throws IOException {
+        if (readLength(Integer.BYTES) == NULL_LENGTH) {
+            return null;
+        }
+        int days = in.readInt();
+        if (days == INFINITY_DATE) {
+            return LocalDate.MAX;
+        } else if (days == NEGATIVE_INFINITY_DATE) {
+            return LocalDate.MIN;
+        }
+        return LocalDate.ofEpochDay((long) POSTGRES_EPOCH_DAY + days);
+    }
+
+    private @Nullable Boolean readBool() throws IOException {
+        return readLength(1) == NULL_LENGTH ? null : in.readByte() != 0;
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException if the stream could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -6,11 +6,15 @@
 package ch.svenstoll.similarityfinder.dao;
 
 import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.CancellationSignal;
 import ch.svenstoll.similarityfinder.domain.Filter;
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
 import ch.svenstoll.similarityfinder.domain.Medium;
+import ch.svenstoll.similarityfinder.domain.PipelineMetrics;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * An interface that should be implemented by classes that provide the possibility to query the
@@ -25,6 +29,17 @@ public interface DatabaseAccess {
      */
     @NotNull List<Medium> queryAllMedia();
 
+    /**
+     * Queries a marker of the current version of the articles in the database. The marker
+     * changes whenever an article is inserted, updated or deleted, so results that have been
+     * computed from the articles can be reused as long as the marker remains the same. An
+     * implementation may reflect a change with a short delay.
+     *
+     * @return the current data version
+     * @throws DatabaseAccessException if an error occurred while querying the database
+     */
+    @NotNull String queryDataVersion();
+
     /**
      * Queries the database for articles that meet the requirements specified by the provided
      * {@code filter}.
@@ -35,4 +50,49 @@ public interface DatabaseAccess {
      * @throws DatabaseAccessException if an error occurred while querying the database
      */
     @NotNull List<Article> queryArticles(@NotNull Filter filter);
+
+    /**
+     * Queries the database for articles that meet the specified {@code criteria}.
+     *
+     * @param criteria the {@code FilterCriteria} the returned articles must meet
+     * @return a list of {@code Article} instances that meet the {@code criteria}
+     * @throws IllegalArgumentException if {@code criteria} was {@code null}
+     * @throws DatabaseAccessException if an error occurred while querying the database
+     */
+    @NotNull List<Article> queryArticlesByCriteria(@NotNull FilterCriteria criteria);
+
+    /**
+     * Queries the database for articles that meet the specified {@code criteria}. The query
+     * releases its database and CPU resources as soon as the {@code signal} is cancelled.
+     *
+     * @param criteria the {@code FilterCriteria} the returned articles must meet
+     * @param signal a {@code CancellationSignal} that can be used to cancel the query
+     * @return a list of {@code Article} instances that meet the {@code criteria}
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if an error occurred while querying the database or the
+     *                                 query has been cancelled
+     */
+    @NotNull List<Article> queryArticlesByCriteria(@NotNull FilterCriteria criteria,
+                                                   @NotNull CancellationSignal signal);
+
+    /**
+     * Queries the database for articles that meet the specified {@code criteria} and passes
+     * them to the {@code consumer} in batches while the query is still running. This allows
+     * the consumer to process the first articles while the remaining articles are still being
+     * fetched and prepared. The consumer is called by the thread executing this method.
+     *
+     * @param criteria the {@code FilterCriteria} the articles must meet
+     * @param signal a {@code CancellationSignal} that can be used to cancel the query
+     * @param metrics a {@code PipelineMetrics} instance the metrics of the query stages are
+     *                added to
+     * @param consumer a {@code Consumer} of the article batches. Exceptions thrown by the
+     *                 consumer stop the query and are propagated.
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if an error occurred while querying the database or the
+     *                                 query has been cancelled
+     */
+    void streamArticlesByCriteria(@NotNull FilterCriteria criteria,
+                                  @NotNull CancellationSignal signal,
+                                  @NotNull PipelineMetrics metrics,
+                                  @NotNull Consumer<List<Article>> consumer);
 }
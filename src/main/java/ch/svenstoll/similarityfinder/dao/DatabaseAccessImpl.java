@@ -6,8 +6,14 @@
 package ch.svenstoll.similarityfinder.dao;
 
 import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.CancellationSignal;
 import ch.svenstoll.similarityfinder.domain.Filter;
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
 import ch.svenstoll.similarityfinder.domain.Medium;
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import ch.svenstoll.similarityfinder.domain.PipelineMetrics;
+import ch.svenstoll.similarityfinder.domain.PriorityScheduler;
+import ch.svenstoll.similarityfinder.domain.Settings;
 import com.google.inject.Inject;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.lang3.Validate;
@@ -15,13 +21,15 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.sql.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 /**
  * An implementation of {@code DatabaseAccess} that allows the processing of database queries.
@@ -34,6 +42,8 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
     @NotNull
     static final String ARTICLE_RELATION = "article";
     @NotNull
+    static final String ARTICLE_ID_COLUMN = "id";
+    @NotNull
     static final String ARTICLE_TITLE_COLUMN = "title";
     @NotNull
     static final String ARTICLE_CONTENT_COLUMN = "content";
@@ -49,6 +59,14 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
             = "SELECT " + MEDIUM_NAME_COLUMN + " " +
               "FROM " + MEDIUM_RELATION + ";";
     @NotNull
+    private static final String DATA_VERSION_QUERY
+            = "SELECT pg_postmaster_start_time(), d.stats_reset, s.relid, " +
+              "  s.n_tup_ins, s.n_tup_upd, s.n_tup_del " +
+              "FROM pg_stat_user_tables s, pg_stat_database d " +
+              "WHERE s.relid = '" + ARTICLE_RELATION + "'::regclass " +
+              "  AND d.datname = current_database();";
+    private static final int DATA_VERSION_COLUMN_COUNT = 6;
+    @NotNull
     private static final String ARTICLES_QUERY
             = "SELECT * " +
               "FROM " + ARTICLE_RELATION + " " +
@@ -62,9 +80,41 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
 
     @NotNull
     private final DatabaseConnectionProvider connectionProvider;
+    @NotNull
+    private final Settings settings;
+    @NotNull
+    private final ArticleSnapshotCache snapshotCache;
+    @NotNull
+    private final PriorityScheduler scheduler;
+    @NotNull
+    private final ArticleVectorStore vectorStore = new ArticleVectorStore();
+    @NotNull
+    private final ArticleBulkLoader bulkLoader = new ArticleBulkLoader();
+    @NotNull
+    private final Object vectorLock = new Object();
+    /**
+     * The open connections that are not used by a query for articles at the moment. Every
+     * query for articles takes a connection of its own, since concurrent queries would
+     * otherwise interfere with each other's transactions and a {@code COPY} command blocks its
+     * connection until it is complete.
+     */
+    @NotNull
+    private final Deque<Connection> idleQueryConnections = new ArrayDeque<>();
 
+    /**
+     * The connection used for the media and the data version. It is guarded by the lock of
+     * this instance.
+     */
     @Nullable
     private Connection connection;
+    /**
+     * The connection used to access the stored vectors. It is separate from the query
+     * connections, because the vectors are looked up while the records are read, and a
+     * connection that streams the output of a {@code COPY} command blocks all other statements
+     * until the command is complete.
+     */
+    @Nullable
+    private Connection vectorConnection;
 
     /**
      * Creates a {@code DatabaseAccessImpl}. A shutdown hook will be added that tries to close
@@ -72,16 +122,33 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
      *
      * @param connectionProvider An instance of {@code IConnectionProvider} that provides
      *                           connections to the database.
-     * @throws IllegalArgumentException if {@code connectionProvider} was {@code null}
+     * @param settings the {@code Settings} used throughout the application
+     * @param snapshotCache the local {@code ArticleSnapshotCache} used if it is enabled in the
+     *                      {@code settings}
+     * @param scheduler the {@code PriorityScheduler} of the application. The stages of an
+     *                  {@link ArticlePipeline} run with the priority class of the caller.
+     * @throws IllegalArgumentException if any parameter was {@code null}
      */
     @Inject
-    public DatabaseAccessImpl(@NotNull DatabaseConnectionProvider connectionProvider) {
+    public DatabaseAccessImpl(@NotNull DatabaseConnectionProvider connectionProvider,
+                              @NotNull Settings settings,
+                              @NotNull ArticleSnapshotCache snapshotCache,
+                              @NotNull PriorityScheduler scheduler) {
         this.connectionProvider
                 = Validate.notNull(connectionProvider, "ConnectionProvider must not be null.");
+        this.settings = Validate.notNull(settings, "Settings must not be null.");
+        this.snapshotCache = Validate.notNull(snapshotCache, "SnapshotCache must not be null.");
+        this.scheduler = Validate.notNull(scheduler, "Scheduler must not be null.");
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             try {
                 DbUtils.close(connection);
+                DbUtils.close(vectorConnection);
+                synchronized (idleQueryConnections) {
+                    for (Connection idleConnection : idleQueryConnections) {
+                        DbUtils.close(idleConnection);
+                    }
+                }
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -105,10 +172,56 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
         }
     }
 
+    /**
+     * Takes an idle query connection or opens a new one if there is none. The connection must
+     * be returned using {@link #releaseQueryConnection(Connection, boolean)}.
+     *
+     * @return an open database connection that is not used by any other query
+     * @throws DatabaseAccessException if a new connection could not be opened
+     */
+    private @NotNull Connection acquireQueryConnection() {
+        synchronized (idleQueryConnections) {
+            Connection idleConnection;
+            while ((idleConnection = idleQueryConnections.pollFirst()) != null) {
+                try {
+                    if (!idleConnection.isClosed()) {
+                        return idleConnection;
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        try {
+            return connectionProvider.getDbConnection();
+        } catch (SQLException e) {
+            throw new DatabaseAccessException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a query connection taken by {@link #acquireQueryConnection()}. A connection whose
+     * query has failed is closed instead of being reused, since it may still be in an
+     * unfinished transaction or {@code COPY} command.
+     *
+     * @param connection the connection to be returned
+     * @param reusable {@code true} if the query of the connection has completed normally
+     */
+    private void releaseQueryConnection(@NotNull Connection connection, boolean reusable) {
+        if (reusable) {
+            synchronized (idleQueryConnections) {
+                idleQueryConnections.addFirst(connection);
+            }
+        } else {
+            DbUtils.closeQuietly(connection);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
-    public @NotNull List<Medium> queryAllMedia() {
+    public synchronized @NotNull List<Medium> queryAllMedia() {
         List<Medium> mediumList = new ArrayList<>();
 
         checkConnection();
@@ -127,12 +240,43 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
     }
 
     /**
-     * Queries the database for articles that meet the requirements that can be specified by
-     * the provided {@code filter}.
-     *
+     * {@inheritDoc}
+     * <p>
+     * The version consists of the numbers of rows that have been inserted, updated and deleted
+     * in the article relation according to the PostgreSQL statistics collector. These counters
+     * are raised by every committed change, regardless of the order in which transactions
+     * commit, and reading them does not scan the relation. The start time of the server, the
+     * time of the last statistics reset and the oid of the relation are included, since the
+     * counters start from zero again after a restart, a reset or if the relation is recreated.
+     * </p>
      * <p>
-     * To prevent SQL injections, a {@code PreparedStatement} is used.
+     * The statistics are only reported when a transaction ends and are then published with a
+     * delay of up to a few seconds, so a change may not be reflected by the version right
+     * away. Rolled back changes are counted as well and merely cause a spurious change of the
+     * version. The version never changes if {@code track_counts} has been disabled.
      * </p>
+     */
+    public synchronized @NotNull String queryDataVersion() {
+        checkConnection();
+
+        try (Statement statement = Objects.requireNonNull(connection).createStatement()) {
+            ResultSet resultSet = statement.executeQuery(DATA_VERSION_QUERY);
+            if (!resultSet.next()) {
+                return "";
+            }
+            StringJoiner version = new StringJoiner(":");
+            for (int column = 1; column <= DATA_VERSION_COLUMN_COUNT; column++) {
+                version.add(String.valueOf(resultSet.getString(column)));
+            }
+            return version.toString();
+        } catch (SQLException e) {
+            throw new DatabaseAccessException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queries the database for articles that meet the requirements that can be specified by
+     * the provided {@code filter}.
      *
      * @param filter a {@code Filter} that specifies the contributions to be returned
      * @return a list of {@code Article} instances that meet the requirements of the {@code filter}
@@ -142,23 +286,219 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
      */
     public @NotNull List<Article> queryArticles(@NotNull Filter filter) {
         Validate.notNull(filter, "Filter must not be null.");
+        return queryArticlesByCriteria(FilterCriteria.of(filter));
+    }
 
-        checkConnection();
+    /**
+     * Queries the database for articles that meet the specified {@code criteria}.
+     * <p>
+     * If the local snapshot is enabled in the settings, the snapshot is synchronized with the
+     * database and the {@code criteria} are evaluated locally. If the snapshot can not be
+     * synchronized, the articles are queried directly. If the {@code criteria} select a large
+     * fraction of all articles, they are loaded in bulk using the binary {@code COPY} command.
+     * Otherwise, a {@code PreparedStatement} is used to prevent SQL injections.
+     * </p>
+     *
+     * @param criteria the {@code FilterCriteria} the returned articles must meet
+     * @return a list of {@code Article} instances that meet the {@code criteria}
+     * @throws IllegalArgumentException if {@code criteria} was {@code null}
+     * @throws DatabaseAccessException if an error occurred while querying the database or the
+     *                                 thread executing this method was interrupted
+     */
+    public @NotNull List<Article> queryArticlesByCriteria(@NotNull FilterCriteria criteria) {
+        return queryArticlesByCriteria(criteria, new CancellationSignal());
+    }
+
+    /**
+     * Queries the database for articles that meet the specified {@code criteria}. The
+     * statements that are executed on behalf of the query are cancelled on the server as soon
+     * as the {@code signal} is cancelled and time out after the query timeout of the settings.
+     *
+     * @param criteria the {@code FilterCriteria} the returned articles must meet
+     * @param signal a {@code CancellationSignal} that can be used to cancel the query
+     * @return a list of {@code Article} instances that meet the {@code criteria}
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if an error occurred while querying the database, the
+     *                                 query has been cancelled or the thread executing this
+     *                                 method was interrupted
+     */
+    public @NotNull List<Article> queryArticlesByCriteria(@NotNull FilterCriteria criteria,
+                                                          @NotNull CancellationSignal signal) {
+        List<Article> articles = new ArrayList<>();
+        streamArticlesByCriteria(criteria, signal, new PipelineMetrics(), articles::addAll);
+        return articles;
+    }
+
+    /**
+     * Queries the database for articles that meet the specified {@code criteria} and passes
+     * them to the {@code consumer} in batches. The articles are queried like in {@link
+     * #queryArticlesByCriteria(FilterCriteria)}. Articles that are fetched from the database
+     * run through an {@link ArticlePipeline}, so that fetching, generating the content vectors
+     * and consuming the articles overlap.
+     * <p>
+     * This method may be called concurrently. Every call uses a database connection of its
+     * own.
+     * </p>
+     *
+     * @param criteria the {@code FilterCriteria} the articles must meet
+     * @param signal a {@code CancellationSignal} that can be used to cancel the query
+     * @param metrics a {@code PipelineMetrics} instance the metrics of the query stages are
+     *                added to
+     * @param consumer a {@code Consumer} of the article batches
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if an error occurred while querying the database, the
+     *                                 query has been cancelled or the thread executing this
+     *                                 method was interrupted
+     */
+    public void streamArticlesByCriteria(@NotNull FilterCriteria criteria,
+                                         @NotNull CancellationSignal signal,
+                                         @NotNull PipelineMetrics metrics,
+                                         @NotNull Consumer<List<Article>> consumer) {
+        Validate.notNull(criteria, "Criteria must not be null.");
+        Validate.notNull(signal, "Signal must not be null.");
+        Validate.notNull(metrics, "Metrics must not be null.");
+        Validate.notNull(consumer, "Consumer must not be null.");
 
-        List<Article> articles;
-        try (PreparedStatement statement
-                     = Objects.requireNonNull(connection).prepareStatement(ARTICLES_QUERY)) {
-            setArticlesQueryParameters(connection, statement, filter);
-            ResultSet resultSet = statement.executeQuery();
-            articles = generateArticlesFromResultSet(resultSet);
+        QueryContext context = new QueryContext(signal, settings.getQueryTimeoutSeconds());
+        context.checkCancelled();
+        Connection connection = acquireQueryConnection();
+        boolean completed = false;
+
+        try {
+            if (settings.isLocalSnapshotEnabled()) {
+                List<Article> articles = querySnapshot(connection, criteria, context);
+                if (articles != null) {
+                    new ArticlePipeline(context, metrics, scheduler).deliver(articles, consumer);
+                    completed = true;
+                    return;
+                }
+            }
+
+            prepareVectorStore();
+            ArticlePipeline pipeline = new ArticlePipeline(context, metrics, scheduler);
+            pipeline.run(sink -> readRecords(connection, criteria, context, sink),
+                    this::loadStoredVectors, consumer);
+            storeGeneratedVectors(pipeline.getGeneratedVectors(),
+                    pipeline.getGeneratedContentHashes());
+            completed = true;
         } catch (SQLException e) {
             throw new DatabaseAccessException(e.getMessage(), e);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new DatabaseAccessException(e.getMessage(), e);
+        } finally {
+            releaseQueryConnection(connection, completed);
         }
+    }
 
-        return articles;
+    /**
+     * Queries the articles that meet the specified {@code criteria} from the local snapshot.
+     * Since the snapshot is only used to improve performance, errors are not propagated.
+     *
+     * @param connection the query connection used to synchronize the snapshot
+     * @param criteria the {@code FilterCriteria} the returned articles must meet
+     * @param context the {@code QueryContext} of the query
+     * @return a list of {@code Article} instances that meet the {@code criteria} or {@code
+     *         null} if the snapshot could not be synchronized with the database
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws InterruptedException if the thread executing this method was interrupted
+     */
+    private @Nullable List<Article> querySnapshot(@NotNull Connection connection,
+                                                  @NotNull FilterCriteria criteria,
+                                                  @NotNull QueryContext context)
+            throws InterruptedException {
+        String sourceKey = settings.getDbAddress() + "|" + settings.getDbUser();
+        try {
+            return snapshotCache.queryArticles(connection, sourceKey, criteria,
+                    records -> generateArticlesFromRecords(records, context), context);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Reads the records of the articles that meet the specified {@code criteria}. This method
+     * is executed by the reader thread of an {@link ArticlePipeline}.
+     * <p>
+     * If the {@code criteria} select a large fraction of all articles, the records are loaded
+     * in bulk. Since the bulk load is only used to improve performance, its errors are not
+     * propagated as long as no record has been passed on, yet. Otherwise, the records are
+     * queried using a {@code PreparedStatement} within a transaction, so that the driver
+     * fetches the rows in batches instead of all at once.
+     * </p>
+     *
+     * @param connection an open database connection that is not used by any other query
+     * @param criteria the {@code FilterCriteria} the records must meet
+     * @param context the {@code QueryContext} of the query
+     * @param sink a {@code Consumer} of the records
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws SQLException if an error occurred while querying the records
+     */
+    private void readRecords(@NotNull Connection connection, @NotNull FilterCriteria criteria,
+                             @NotNull QueryContext context,
+                             @NotNull Consumer<ArticleRecord> sink) throws SQLException {
+        int[] bulkRecordCount = {0};
+        try {
+            if (bulkLoader.streamRecords(connection, criteria, context, record -> {
+                bulkRecordCount[0]++;
+                sink.accept(record);
+            })) {
+                return;
+            }
+        } catch (SQLException e) {
+            if (bulkRecordCount[0] > 0) {
+                throw e;
+            }
+            e.printStackTrace();
+        }
+
+        if (!connection.getAutoCommit()) {
+            readRecordsFromQuery(connection, criteria, context, sink);
+            return;
+        }
+        connection.setAutoCommit(false);
+        try {
+            readRecordsFromQuery(connection, criteria, context, sink);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Executes an {@link #ARTICLES_QUERY} and passes the records of its result to the {@code
+     * sink}.
+     *
+     * @param connection an open database connection
+     * @param criteria the {@code FilterCriteria} the records must meet
+     * @param context the {@code QueryContext} of the query
+     * @param sink a {@code Consumer} of the records
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws SQLException if an error occurred while querying the records
+     */
+    private void readRecordsFromQuery(@NotNull Connection connection,
+                                      @NotNull FilterCriteria criteria,
+                                      @NotNull QueryContext context,
+                                      @NotNull Consumer<ArticleRecord> sink) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(ARTICLES_QUERY)) {
+            setArticlesQueryParameters(connection, statement, criteria);
+            statement.setFetchSize(ArticlePipeline.BATCH_SIZE);
+            context.execute(statement, () -> {
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    sink.accept(ArticleRecord.readFrom(resultSet));
+                }
+                return null;
+            });
+        }
     }
 
     /**
@@ -168,79 +508,134 @@ public final class DatabaseAccessImpl implements DatabaseAccess {
      * @param connection a {@code Connection} that was used to prepare the {@code statement}
      * @param statement a {@code PreparedStatement} that was created using an
      *                  {@link #ARTICLES_QUERY}
-     * @param filter a {@code Filter} that provides the parameter data
+     * @param criteria a {@code FilterCriteria} that provides the parameter data
      * @throws IllegalArgumentException if any parameter was {@code null}
      * @throws SQLException if the query parameters could not be set
      */
     private void setArticlesQueryParameters(@NotNull Connection connection,
                                             @NotNull PreparedStatement statement,
-                                            @NotNull Filter filter) throws SQLException {
+                                            @NotNull FilterCriteria criteria) throws SQLException {
         Validate.notNull(statement, "Statement must not be null.");
-        Validate.notNull(filter, "Filter must not be null.");
+        Validate.notNull(criteria, "Criteria must not be null.");
 
         Array selectedMedia
-                = connection.createArrayOf("varchar", filter.getNamesOfSelectedMedia().toArray());
+                = connection.createArrayOf("varchar", criteria.getMedia().toArray());
         statement.setArray(1, selectedMedia);
         statement.setArray(2, selectedMedia);
-        Date start = filter.getFromDate() != null ? Date.valueOf(filter.getFromDate()) : null;
+        Date start = criteria.getFromDate() != null ? Date.valueOf(criteria.getFromDate()) : null;
         statement.setDate(3, start);
-        Date end = filter.getToDate() != null ? Date.valueOf(filter.getToDate()) : null;
+        Date end = criteria.getToDate() != null ? Date.valueOf(criteria.getToDate()) : null;
         statement.setDate(4, end);
-        statement.setString(5, "%" + filter.getTitle() + "%");
-        statement.setInt(6, filter.getMinLetters());
-        statement.setBoolean(7, filter.isRelevantOnly());
+        statement.setString(5, "%" + criteria.getTitle() + "%");
+        statement.setInt(6, criteria.getMinLetters());
+        statement.setBoolean(7, criteria.isRelevantOnly());
     }
 
     /**
-     * Generates a list of {@code Article} instances from a {@code ResultSet} that was
-     * received using an {@link #ARTICLES_QUERY}. Multithreading is used to improve performance
-     * while generating the content n-grams of the articles.
+     * Generates a list of {@code Article} instances from the records of the article relation
+     * using an {@link ArticlePipeline}, so that multiple threads generate the content n-gram
+     * vectors of the articles.
+     * <p>
+     * Vectors that have been stored in the database by a previous query are reused if the
+     * content of the article has not changed since. Only the vectors of new or changed articles
+     * are generated and written back. If the stored vectors can not be accessed, all vectors are
+     * generated.
+     * </p>
      *
-     * @param resultSet a {@code ResultSet} that was received from an {@code #ARTICLES_QUERY}
-     * @return a list of {@code Article} instances generated from the {@code resultSet}
-     * @throws IllegalArgumentException if the {@code resultSet} was {@code null}
-     * @throws SQLException if an error occurred while accessing the {@code resultSet}
+     * @param records the records of the article relation
+     * @param context the {@code QueryContext} of the query. If the query is cancelled, the
+     *                generation is stopped immediately.
+     * @return a list of {@code Article} instances generated from the {@code records}
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws DatabaseAccessException if the query has been cancelled or an error occurred
+     *                                 while generating the articles
      * @throws InterruptedException if the thread executing this method was interrupted
      */
-    private @NotNull List<Article> generateArticlesFromResultSet(
-            @NotNull ResultSet resultSet) throws SQLException, InterruptedException {
-        Validate.notNull(resultSet, "Result must not be null.");
-
-        List<Article> articles = Collections.synchronizedList(new ArrayList<>());
+    private @NotNull List<Article> generateArticlesFromRecords(
+            @NotNull List<ArticleRecord> records, @NotNull QueryContext context)
+            throws InterruptedException {
+        Validate.notNull(records, "Records must not be null.");
+        Validate.notNull(context, "Context must not be null.");
 
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-        ExecutorService executorService = Executors.newFixedThreadPool(availableProcessors);
+        // The snapshot generates the articles while holding its monitor, which more urgent
+        // queries may be waiting for, so the stages must not pause (see
+        // PriorityScheduler#yieldPoint(CancellationSignal)).
+        List<Article> articles = new ArrayList<>();
+        ArticlePipeline pipeline = new ArticlePipeline(context, new PipelineMetrics());
+        try {
+            pipeline.run(sink -> records.forEach(sink), this::loadStoredVectors, articles::addAll);
+        } catch (SQLException e) {
+            throw new DatabaseAccessException(e.getMessage(), e);
+        }
 
-        while (resultSet.next()) {
-            int id = resultSet.getInt("id");
-            String title = resultSet.getString(ARTICLE_TITLE_COLUMN);
-            String content = resultSet.getString(ARTICLE_CONTENT_COLUMN);
-            String mediaName = resultSet.getString(ARTICLE_MEDIUM_COLUMN);
-            Date date = resultSet.getDate(ARTICLE_PUBLICATION_DATE_COLUMN);
+        storeGeneratedVectors(pipeline.getGeneratedVectors(),
+                pipeline.getGeneratedContentHashes());
 
-            Runnable worker = () -> {
-                // The worker is executed with minimal thread priority to keep the JavaFX thread
-                // from starving which would result in UI freezes.
-                Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+        return articles;
+    }
 
-                Article article = new Article(id);
-                article.setTitle(title);
-                article.setContent(content);
-                if (mediaName != null && !mediaName.isEmpty()) {
-                    article.setMedium(new Medium(mediaName));
-                }
-                if (date != null) {
-                    article.setPublicationDate(date.toLocalDate());
-                }
-                articles.add(article);
-            };
+    /**
+     * Returns the connection used to access the stored vectors and opens it if it does not
+     * exist or has been closed. The caller must hold the {@link #vectorLock}.
+     *
+     * @return an open database connection
+     * @throws SQLException if a new connection could not be opened
+     */
+    private @NotNull Connection getVectorConnection() throws SQLException {
+        if (vectorConnection == null || vectorConnection.isClosed()) {
+            vectorConnection = connectionProvider.getDbConnection();
+        }
+        return vectorConnection;
+    }
 
-            executorService.submit(worker);
+    /**
+     * Creates the side table of the stored vectors if it does not exist. Since the stored
+     * vectors are only used to improve performance, errors are not propagated.
+     */
+    private void prepareVectorStore() {
+        synchronized (vectorLock) {
+            try {
+                vectorStore.prepareTable(getVectorConnection());
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
+    }
 
-        executorService.shutdown();
-        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    /**
+     * Loads the stored vectors of articles whose content has not changed. Since the stored
+     * vectors are only used to improve performance, errors are not propagated.
+     *
+     * @param contentHashes a map from article ids to the hashes of their current contents
+     * @return a map from article ids to their up-to-date stored vectors
+     */
+    private @NotNull Map<Integer, NGramVector> loadStoredVectors(
+            @NotNull Map<Integer, Long> contentHashes) {
+        synchronized (vectorLock) {
+            try {
+                return vectorStore.loadVectors(getVectorConnection(), contentHashes);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return Collections.emptyMap();
+            }
+        }
+    }
 
-        return articles;
+    /**
+     * Writes newly generated vectors back to the database. Since the stored vectors are only
+     * used to improve performance, errors are not propagated.
+     *
+     * @param vectors a map from article ids to the generated vectors
+     * @param contentHashes a map from article ids to the hashes of their current contents
+     */
+    private void storeGeneratedVectors(@NotNull Map<Integer, NGramVector> vectors,
+                                       @NotNull Map<Integer, Long> contentHashes) {
+        synchronized (vectorLock) {
+            try {
+                vectorStore.storeVectors(getVectorConnection(), vectors, contentHashes);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
     }
 }
@@ -0,0 +1,44 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.DetectionCheckpoint;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An interface that should be implemented by classes that allow the storing and retrieval of
+ * the checkpoint of a long-running detection.
+ */
+public interface DetectionCheckpointAccess {
+    /**
+     * Retrieves the checkpoint from the checkpoint file of the application.
+     *
+     * @return the stored checkpoint or {@code null} if no checkpoint has been stored
+     * @throws DetectionCheckpointAccessException if an error occurred while parsing the
+     *                                            checkpoint file
+     */
+    @Nullable DetectionCheckpoint retrieveCheckpoint();
+
+    /**
+     * Saves a checkpoint to the checkpoint file of the application. The previous checkpoint is
+     * replaced atomically, so the file always contains a complete checkpoint, even if the
+     * application is terminated while saving.
+     *
+     * @param checkpoint the checkpoint to be saved
+     * @throws IllegalArgumentException if {@code checkpoint} was {@code null}
+     * @throws DetectionCheckpointAccessException if an error occurred while writing the
+     *                                            checkpoint file
+     */
+    void saveCheckpoint(@NotNull DetectionCheckpoint checkpoint);
+
+    /**
+     * Deletes the checkpoint file of the application if it exists.
+     *
+     * @throws DetectionCheckpointAccessException if the checkpoint file could not be deleted
+     */
+    void deleteCheckpoint();
+}
@@ -0,0 +1,31 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A runtime exception that can be thrown if an error occurred while storing or retrieving a
+ * detection checkpoint.
+ */
+public class DetectionCheckpointAccessException extends RuntimeException {
+    /**
+     * Constructs a {@code DetectionCheckpointAccessException}.
+     */
+    public DetectionCheckpointAccessException() {}
+
+    /**
+     * Constructs a {@code DetectionCheckpointAccessException} instance.
+     *
+     * @param  message the detail message (which is saved for later retrieval
+     *                 by the {@link #getMessage()} method)
+     * @param  cause the cause (which is saved for later retrieval by the
+     *               {@link #getCause()} method)
+     */
+    public DetectionCheckpointAccessException(@Nullable String message, @Nullable Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,132 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.DetectionCheckpoint;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * An implementation of {@code DetectionCheckpointAccess} that stores the checkpoint of a
+ * long-running detection in a JSON file. A checkpoint is written to a temporary file next to
+ * the checkpoint file first, which is then moved over the checkpoint file.
+ */
+@Singleton
+public final class DetectionCheckpointAccessImpl implements DetectionCheckpointAccess {
+    @NotNull
+    static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    @NotNull
+    private final Path checkpointPath;
+    @NotNull
+    private final Path temporaryPath;
+    @NotNull
+    private final Gson gson = new Gson();
+
+    /**
+     * Creates a {@code DetectionCheckpointAccessImpl}.
+     *
+     * @param checkpointLocation the location of the JSON file that contains the checkpoint
+     * @throws IllegalArgumentException if {@code checkpointLocation} was {@code null}
+     */
+    @Inject
+    public DetectionCheckpointAccessImpl(
+            @NotNull @Named("DETECTION_CHECKPOINT_LOCATION") String checkpointLocation) {
+        Validate.notNull(checkpointLocation, "CheckpointLocation must not be null.");
+        this.checkpointPath = Paths.get(checkpointLocation);
+        this.temporaryPath = Paths.get(checkpointLocation + TEMPORARY_FILE_SUFFIX);
+    }
+
+    /**
+     * Retrieves the checkpoint from the checkpoint file (encoded with UTF-8).
+     *
+     * @return the stored checkpoint or {@code null} if the checkpoint file does not exist
+     * @throws DetectionCheckpointAccessException if an error occurred while parsing the
+     *                                            checkpoint file or the checkpoint is invalid
+     */
+    @Override
+    public synchronized @Nullable DetectionCheckpoint retrieveCheckpoint() {
+        if (!Files.exists(checkpointPath)) {
+            return null;
+        }
+
+        try (Reader reader = new InputStreamReader(Files.newInputStream(checkpointPath), UTF_8)) {
+            DetectionCheckpoint checkpoint = gson.fromJson(reader, DetectionCheckpoint.class);
+            if (checkpoint == null || !checkpoint.isValid()) {
+                throw new JsonParseException("The checkpoint file contains an invalid "
+                        + "checkpoint.");
+            }
+            return checkpoint;
+        } catch (IOException | JsonParseException e) {
+            throw new DetectionCheckpointAccessException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Saves a checkpoint to the checkpoint file (encoded with UTF-8). The previous checkpoint
+     * is replaced atomically if the file system supports it.
+     *
+     * @param checkpoint the checkpoint to be saved
+     * @throws IllegalArgumentException if {@code checkpoint} was {@code null}
+     * @throws DetectionCheckpointAccessException if an error occurred while writing the
+     *                                            checkpoint file
+     */
+    @Override
+    public synchronized void saveCheckpoint(@NotNull DetectionCheckpoint checkpoint) {
+        Validate.notNull(checkpoint, "Checkpoint must not be null.");
+
+        try (FileOutputStream out = new FileOutputStream(temporaryPath.toFile());
+             Writer writer = new OutputStreamWriter(out, UTF_8)) {
+            gson.toJson(checkpoint, DetectionCheckpoint.class, writer);
+            writer.flush();
+            // The checkpoint must be on the disk before it replaces the previous one.
+            out.getFD().sync();
+        } catch (IOException | JsonParseException e) {
+            throw new DetectionCheckpointAccessException(e.getMessage(), e);
+        }
+
+        try {
+            try {
+                Files.move(temporaryPath, checkpointPath, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, checkpointPath, REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new DetectionCheckpointAccessException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes the checkpoint file and a temporary file of an interrupted save if they exist.
+     *
+     * @throws DetectionCheckpointAccessException if a file could not be deleted
+     */
+    @Override
+    public synchronized void deleteCheckpoint() {
+        try {
+            Files.deleteIfExists(checkpointPath);
+            Files.deleteIfExists(temporaryPath);
+        } catch (IOException e) {
+            throw new DetectionCheckpointAccessException(e.getMessage(), e);
+        }
+    }
+}
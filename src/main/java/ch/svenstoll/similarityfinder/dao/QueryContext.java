@@ -0,0 +1,117 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.CancellationSignal;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The context of a single article query. It provides the {@code CancellationSignal} of the
+ * query and the timeout that is applied to every statement executed on behalf of the query.
+ */
+final class QueryContext {
+    @NotNull
+    static final String CANCELLED_MESSAGE = "The query has been cancelled.";
+
+    @NotNull
+    private final CancellationSignal signal;
+    private final int timeoutSeconds;
+
+    /**
+     * A functional interface for the work that is done with a statement.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    interface StatementCall<T> {
+        T call() throws SQLException;
+    }
+
+    /**
+     * Constructs a {@code QueryContext}.
+     *
+     * @param signal the {@code CancellationSignal} of the query
+     * @param timeoutSeconds the timeout of each statement in seconds or {@code 0} if the
+     *                       statements should not time out
+     * @throws IllegalArgumentException if {@code signal} was {@code null} or {@code
+     *                                  timeoutSeconds} was negative
+     */
+    QueryContext(@NotNull CancellationSignal signal, int timeoutSeconds) {
+        this.signal = Validate.notNull(signal, "Signal must not be null.");
+        Validate.isTrue(timeoutSeconds >= 0, "TimeoutSeconds must not be negative.");
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Creates a {@code QueryContext} that is never cancelled and does not time out.
+     *
+     * @return a new {@code QueryContext}
+     */
+    static @NotNull QueryContext uncancellable() {
+        return new QueryContext(new CancellationSignal(), 0);
+    }
+
+    @NotNull CancellationSignal getSignal() {
+        return signal;
+    }
+
+    int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /**
+     * Executes work with a statement, so that the statement is cancelled on the server as soon
+     * as the query is cancelled. The timeout of this context is applied to the statement.
+     *
+     * @param statement the statement used by the {@code call}
+     * @param call the work to be done
+     * @param <T> the type of the result
+     * @return the result of the {@code call}
+     * @throws DatabaseAccessException if the query has been cancelled
+     * @throws SQLException if an error occurred while executing the {@code call}
+     */
+    <T> T execute(@NotNull Statement statement, @NotNull StatementCall<T> call)
+            throws SQLException {
+        if (timeoutSeconds > 0) {
+            statement.setQueryTimeout(timeoutSeconds);
+        }
+
+        Runnable cancelStatement = () -> {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        };
+        signal.onCancel(cancelStatement);
+        try {
+            checkCancelled();
+            return call.call();
+        } catch (SQLException e) {
+            if (signal.isCancelled()) {
+                throw new DatabaseAccessException(CANCELLED_MESSAGE, e);
+            }
+            throw e;
+        } finally {
+            signal.removeOnCancel(cancelStatement);
+        }
+    }
+
+    /**
+     * Checks whether the query has been cancelled.
+     *
+     * @throws DatabaseAccessException if the query has been cancelled
+     */
+    void checkCancelled() {
+        if (signal.isCancelled()) {
+            throw new DatabaseAccessException(CANCELLED_MESSAGE, null);
+        }
+    }
+}
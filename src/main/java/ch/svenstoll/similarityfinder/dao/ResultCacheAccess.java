@@ -0,0 +1,38 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An interface that should be implemented by classes that allow the storing and retrieval of
+ * cached search results.
+ */
+public interface ResultCacheAccess {
+    /**
+     * Retrieves the cached search results from the result cache file of the application.
+     *
+     * @return the search results by their cache key in the order they have been saved
+     * @throws ResultCacheAccessException if an error occurred while parsing the result cache
+     *                                    file
+     */
+    @NotNull LinkedHashMap<String, List<Set<Article>>> retrieveResultsFromFile();
+
+    /**
+     * Saves search results to the result cache file of the application.
+     *
+     * @param results the search results by their cache key
+     * @throws IllegalArgumentException if {@code results} was {@code null}
+     * @throws ResultCacheAccessException if an error occurred while writing the {@code results}
+     *                                    to the result cache file
+     */
+    void saveResultsToFile(@NotNull LinkedHashMap<String, List<Set<Article>>> results);
+}
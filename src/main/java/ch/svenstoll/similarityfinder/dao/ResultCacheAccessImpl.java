@@ -0,0 +1,186 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.Medium;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An implementation of {@code ResultCacheAccess} that stores cached search results in a JSON
+ * file. Only the properties of the articles are stored. Their content vectors are generated
+ * again when the results are retrieved.
+ */
+@Singleton
+public final class ResultCacheAccessImpl implements ResultCacheAccess {
+    @NotNull
+    private final String cacheLocation;
+    @NotNull
+    private final Gson gson = new Gson();
+
+    /**
+     * Creates a {@code ResultCacheAccessImpl}.
+     *
+     * @param cacheLocation the location of the JSON file that contains the cached results
+     * @throws IllegalArgumentException if {@code cacheLocation} was {@code null}
+     */
+    @Inject
+    public ResultCacheAccessImpl(@NotNull @Named("RESULT_CACHE_LOCATION") String cacheLocation) {
+        this.cacheLocation = Validate.notNull(cacheLocation, "CacheLocation must not be null.");
+    }
+
+    /**
+     * Retrieves the cached search results from the result cache file (encoded with UTF-8). If
+     * the file does not exist, no results are returned.
+     *
+     * @return the search results by their cache key in the order they have been saved
+     * @throws ResultCacheAccessException if an error occurred while parsing the result cache
+     *                                    file
+     */
+    @Override
+    public synchronized @NotNull LinkedHashMap<String, List<Set<Article>>>
+    retrieveResultsFromFile() {
+        LinkedHashMap<String, List<Set<Article>>> results = new LinkedHashMap<>();
+
+        File file = new File(cacheLocation);
+        if (!file.exists()) {
+            return results;
+        }
+
+        try (InputStream in = new FileInputStream(file);
+             JsonReader jsonReader = new JsonReader(new InputStreamReader(in, UTF_8))) {
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                StoredResult result = gson.fromJson(jsonReader, StoredResult.class);
+                if (result == null || result.key == null || result.clusters == null) {
+                    throw new JsonParseException("The result cache file contains an invalid "
+                            + "result.");
+                }
+                results.put(result.key, toClusters(result.clusters));
+            }
+            jsonReader.endArray();
+        } catch (IOException | JsonParseException | DateTimeParseException e) {
+            throw new ResultCacheAccessException(e.getMessage(), e);
+        }
+
+        return results;
+    }
+
+    /**
+     * Saves search results to the result cache file (encoded with UTF-8). Existing results in
+     * the file are replaced.
+     *
+     * @param results the search results by their cache key
+     * @throws IllegalArgumentException if {@code results} was {@code null}
+     * @throws ResultCacheAccessException if an error occurred while writing the {@code results}
+     *                                    to the result cache file
+     */
+    @Override
+    public synchronized void saveResultsToFile(
+            @NotNull LinkedHashMap<String, List<Set<Article>>> results) {
+        Validate.notNull(results, "Results must not be null.");
+
+        try (OutputStream out = new FileOutputStream(new File(cacheLocation));
+             JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(out, UTF_8))) {
+            jsonWriter.beginArray();
+            for (Map.Entry<String, List<Set<Article>>> entry : results.entrySet()) {
+                StoredResult result = new StoredResult();
+                result.key = entry.getKey();
+                result.clusters = toStoredClusters(entry.getValue());
+                gson.toJson(result, StoredResult.class, jsonWriter);
+            }
+            jsonWriter.endArray();
+        } catch (IOException | JsonParseException e) {
+            throw new ResultCacheAccessException(e.getMessage(), e);
+        }
+    }
+
+    private static @NotNull List<List<StoredArticle>> toStoredClusters(
+            @NotNull List<Set<Article>> clusters) {
+        List<List<StoredArticle>> storedClusters = new ArrayList<>();
+        for (Set<Article> cluster : clusters) {
+            List<StoredArticle> storedCluster = new ArrayList<>();
+            for (Article article : cluster) {
+                StoredArticle stored = new StoredArticle();
+                stored.id = article.getId();
+                stored.title = article.getTitle();
+                stored.content = article.getContent();
+                stored.medium = article.getMedium() != null
+                        ? article.getMedium().getName() : null;
+                stored.publicationDate = article.getPublicationDate() != null
+                        ? article.getPublicationDate().toString() : null;
+                stored.author = article.getAuthor();
+                stored.relevant = article.isRelevant();
+                storedCluster.add(stored);
+            }
+            storedClusters.add(storedCluster);
+        }
+        return storedClusters;
+    }
+
+    private static @NotNull List<Set<Article>> toClusters(
+            @NotNull List<List<StoredArticle>> storedClusters) {
+        List<Set<Article>> clusters = new ArrayList<>();
+        for (List<StoredArticle> storedCluster : storedClusters) {
+            Set<Article> cluster = new HashSet<>();
+            for (StoredArticle stored : storedCluster) {
+                Article article = new Article(stored.id);
+                article.setTitle(stored.title);
+                article.setContent(stored.content);
+                article.setMedium(stored.medium != null ? new Medium(stored.medium) : null);
+                article.setPublicationDate(stored.publicationDate != null
+                        ? LocalDate.parse(stored.publicationDate) : null);
+                article.setAuthor(stored.author);
+                article.setRelevant(stored.relevant);
+                cluster.add(article);
+            }
+            clusters.add(cluster);
+        }
+        return clusters;
+    }
+
+    /**
+     * The JSON representation of a cached search result.
+     */
+    private static final class StoredResult {
+        private String key;
+        private List<List<StoredArticle>> clusters;
+    }
+
+    /**
+     * The JSON representation of an article of a cached search result.
+     */
+    private static final class StoredArticle {
+        private int id;
+        @Nullable
+        private String title;
+        @Nullable
+        private String content;
+        @Nullable
+        private String medium;
+        @Nullable
+        private String publicationDate;
+        @Nullable
+        private String author;
+        private boolean relevant;
+    }
+}
@@ -31,6 +31,16 @@ public final class SettingsAccessImpl implements SettingsAccess {
     static final String MAX_CONTRIBUTIONS_KEY = "MAX_CONTRIBUTIONS";
     @NotNull
     static final String FIRST_LAUNCH_KEY = "FIRST_LAUNCH";
+    /**
+     * The local snapshot used to be enabled by default and the default was stored with the
+     * other settings, so a new key is used to make sure that it is only enabled on request.
+     */
+    @NotNull
+    static final String LOCAL_SNAPSHOT_ENABLED_KEY = "LOCAL_SNAPSHOT_OPTED_IN";
+    @NotNull
+    static final String QUERY_TIMEOUT_KEY = "QUERY_TIMEOUT_SECONDS";
+    @NotNull
+    static final String RESULT_CACHE_PERSISTENT_KEY = "RESULT_CACHE_PERSISTENT";
 
     @NotNull
     private final Preferences preferences;
@@ -74,12 +84,21 @@ public final class SettingsAccessImpl implements SettingsAccess {
             String dbPassword = preferences.get(DB_PASSWORD_KEY, DEFAULT_DB_PASSWORD);
             int maxContributions
                     = preferences.getInt(MAX_CONTRIBUTIONS_KEY, DEFAULT_MAX_ARTICLES);
+            boolean localSnapshotEnabled = preferences.getBoolean(LOCAL_SNAPSHOT_ENABLED_KEY,
+                    DEFAULT_LOCAL_SNAPSHOT_ENABLED);
+            int queryTimeoutSeconds
+                    = preferences.getInt(QUERY_TIMEOUT_KEY, DEFAULT_QUERY_TIMEOUT_SECONDS);
+            boolean resultCachePersistent = preferences.getBoolean(RESULT_CACHE_PERSISTENT_KEY,
+                    DEFAULT_RESULT_CACHE_PERSISTENT);
 
             settings.setFirstLaunch(firstLaunch);
             settings.setDbAddress(dbAddress);
             settings.setDbUser(dbUser);
             settings.setDbPassword(dbPassword);
             settings.setMaxArticles(maxContributions);
+            settings.setLocalSnapshotEnabled(localSnapshotEnabled);
+            settings.setQueryTimeoutSeconds(Math.max(0, queryTimeoutSeconds));
+            settings.setResultCachePersistent(resultCachePersistent);
 
             if (firstLaunch) {
                 preferences.putBoolean(FIRST_LAUNCH_KEY, false);
@@ -108,6 +127,10 @@ public final class SettingsAccessImpl implements SettingsAccess {
             preferences.put(DB_USER_KEY, settings.getDbUser());
             preferences.put(DB_PASSWORD_KEY, settings.getDbPassword());
             preferences.putInt(MAX_CONTRIBUTIONS_KEY, settings.getMaxArticles());
+            preferences.putBoolean(LOCAL_SNAPSHOT_ENABLED_KEY, settings.isLocalSnapshotEnabled());
+            preferences.putInt(QUERY_TIMEOUT_KEY, settings.getQueryTimeoutSeconds());
+            preferences.putBoolean(RESULT_CACHE_PERSISTENT_KEY,
+                    settings.isResultCachePersistent());
         } catch (IllegalStateException e) {
             throw new SettingsAccessException(e.getMessage(), e);
         }
@@ -0,0 +1,291 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * Detects articles with similar contents within a time budget. When the budget runs out, the
+ * clusters found so far are returned together with the fraction of the pairs of articles
+ * that have been covered. The detection can be continued with another budget at any time
+ * and eventually returns the same clusters as {@link
+ * SimilarityDetector#detectArticlesWithSimilarContents(List, double)}.
+ * <p>
+ * To find as many similar articles as possible early, the detection works in two phases:
+ * </p>
+ * <ol>
+ *     <li>The pairs with the highest yield are compared first: articles with equal contents
+ *     and articles that share one of the rarest n-grams of their contents. The rarest n-grams
+ *     act as a fingerprint of a content, so similar contents are likely to share them. Pairs
+ *     of articles that are already in the same cluster are skipped.</li>
+ *     <li>All articles are passed through a {@link SimilarityIndex} in ascending order of
+ *     their ids, which takes every remaining pair into account. Once the first {@code k}
+ *     articles have been passed through the index, all pairs among them are covered.</li>
+ * </ol>
+ * <p>
+ * All methods of this class are thread safe.
+ * </p>
+ */
+public final class AnytimeSimilarityDetector {
+    /**
+     * The number of rarest n-grams of every content that are used as its fingerprint.
+     */
+    static final int FINGERPRINT_SIZE = 4;
+    /**
+     * N-grams that are shared by more articles are too common to indicate similar contents.
+     */
+    static final int MAX_BUCKET_SIZE = 64;
+
+    private final double similarityThreshold;
+    @NotNull
+    private final LongSupplier nanoTime;
+    @NotNull
+    private final List<Article> articles = new ArrayList<>();
+    @NotNull
+    private final ArticleClusters clusters = new ArticleClusters();
+    @NotNull
+    private final SimilarityIndex index;
+    private final double totalPairs;
+
+    // The articles of every bucket share an equal content or a fingerprint n-gram. The buckets
+    // are prepared by the first run.
+    private List<int[]> buckets = null;
+    private int bucketPosition = 0;
+    private Set<Long> comparedPairs = new HashSet<>();
+    private int indexedArticles = 0;
+
+    /**
+     * Constructs an {@code AnytimeSimilarityDetector}. Articles without content are ignored.
+     *
+     * @param articles the articles used to detect similar contents
+     * @param similarityThreshold a number between (inclusive) {@link
+     *                            SimilarityDetector#MIN_SIMILARITY_INDEX} (total inequality) and
+     *                            {@link SimilarityDetector#MAX_SIMILARITY_INDEX} (total
+     *                            equality)
+     * @throws IllegalArgumentException if {@code articles} was {@code null} or contained
+     *                                  {@code null} elements or if {@code similarityThreshold}
+     *                                  was out of bounds
+     */
+    public AnytimeSimilarityDetector(@NotNull Collection<Article> articles,
+                                     double similarityThreshold) {
+        this(articles, similarityThreshold, System::nanoTime);
+    }
+
+    /**
+     * Constructs an {@code AnytimeSimilarityDetector} that uses the specified time source to
+     * measure the time budget.
+     *
+     * @param articles the articles used to detect similar contents
+     * @param similarityThreshold the similarity threshold
+     * @param nanoTime a time source in nanoseconds
+     * @throws IllegalArgumentException if any object parameter was {@code null}, {@code
+     *                                  articles} contained {@code null} elements or if {@code
+     *                                  similarityThreshold} was out of bounds
+     */
+    AnytimeSimilarityDetector(@NotNull Collection<Article> articles, double similarityThreshold,
+                              @NotNull LongSupplier nanoTime) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+        Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX, similarityThreshold,
+                "SimilarityThreshold must be between " + MIN_SIMILARITY_INDEX + " and "
+                        + MAX_SIMILARITY_INDEX + " (inclusive).");
+
+        this.similarityThreshold = similarityThreshold;
+        this.nanoTime = Validate.notNull(nanoTime, "NanoTime must not be null.");
+        this.index = new SimilarityIndex(similarityThreshold);
+        for (Article article : articles) {
+            if (article.getContent() != null) {
+                this.articles.add(article);
+            }
+        }
+        this.articles.sort(Comparator.comparingInt(Article::getId));
+        this.totalPairs = (double) this.articles.size() * (this.articles.size() - 1) / 2;
+    }
+
+    /**
+     * Continues the detection until it is complete or the specified time budget has run out.
+     * At least one step of the detection is executed, so repeated calls always make progress.
+     *
+     * @param budgetNanos the time budget in nanoseconds
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection. The
+     *               progress made until the cancellation is kept.
+     * @return the clusters found so far and the covered fraction of all pairs of articles
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if {@code budgetNanos} was not positive or {@code
+     *                                  signal} was {@code null}
+     */
+    public synchronized @NotNull PartialDetectionResult runFor(long budgetNanos,
+                                                               @NotNull CancellationSignal signal) {
+        Validate.isTrue(budgetNanos > 0, "BudgetNanos must be positive.");
+        Validate.notNull(signal, "Signal must not be null.");
+
+        long startNanos = nanoTime.getAsLong();
+        // If the similarityThreshold is equal to its min value, all articles form one cluster.
+        if (Double.compare(similarityThreshold, MIN_SIMILARITY_INDEX) <= 0) {
+            for (int i = 1; i < articles.size(); i++) {
+                clusters.union(articles.get(0), articles.get(i));
+            }
+            indexedArticles = articles.size();
+            return createResult();
+        }
+
+        if (buckets == null) {
+            buckets = createBuckets();
+        }
+        boolean expired = false;
+        while (!expired && bucketPosition < buckets.size()) {
+            checkCancelled(signal);
+            compareBucket(buckets.get(bucketPosition++));
+            expired = nanoTime.getAsLong() - startNanos >= budgetNanos;
+        }
+        while (!expired && indexedArticles < articles.size()) {
+            checkCancelled(signal);
+            Article article = articles.get(indexedArticles++);
+            for (SimilarityEdge edge : index.findSimilar(article)) {
+                clusters.union(edge.getArticle1(), edge.getArticle2());
+            }
+            index.add(article);
+            expired = nanoTime.getAsLong() - startNanos >= budgetNanos;
+        }
+        return createResult();
+    }
+
+    /**
+     * Groups the articles into buckets of equal contents and of shared fingerprint n-grams.
+     * The buckets of equal contents come first, followed by the buckets of the rarest n-grams.
+     */
+    private @NotNull List<int[]> createBuckets() {
+        Map<String, List<Integer>> ordinalsByContent = new HashMap<>();
+        Map<Long, Integer> documentFrequencies = new HashMap<>();
+        for (int i = 0; i < articles.size(); i++) {
+            Article article = articles.get(i);
+            ordinalsByContent.computeIfAbsent(article.getContent(), key -> new ArrayList<>())
+                    .add(i);
+            NGramVector vector = article.getContentVector();
+            for (int j = 0; j < vector.size(); j++) {
+                documentFrequencies.merge(vector.getGram(j), 1, Integer::sum);
+            }
+        }
+
+        Comparator<Long> byRarity = Comparator.<Long>comparingInt(documentFrequencies::get)
+                .thenComparing(Comparator.naturalOrder());
+        Map<Long, List<Integer>> ordinalsByGram = new HashMap<>();
+        for (int i = 0; i < articles.size(); i++) {
+            NGramVector vector = articles.get(i).getContentVector();
+            // N-grams that only occur in this article can not pair it with another article.
+            List<Long> grams = new ArrayList<>();
+            for (int j = 0; j < vector.size(); j++) {
+                int frequency = documentFrequencies.get(vector.getGram(j));
+                if (frequency > 1 && frequency <= MAX_BUCKET_SIZE) {
+                    grams.add(vector.getGram(j));
+                }
+            }
+            grams.sort(byRarity);
+            for (long gram : grams.subList(0, Math.min(FINGERPRINT_SIZE, grams.size()))) {
+                ordinalsByGram.computeIfAbsent(gram, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<int[]> contentBuckets = new ArrayList<>();
+        for (List<Integer> ordinals : ordinalsByContent.values()) {
+            if (ordinals.size() > 1) {
+                contentBuckets.add(ordinals.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        List<Long> gramsOfBuckets = new ArrayList<>(ordinalsByGram.keySet());
+        gramsOfBuckets.sort(byRarity);
+        List<int[]> result = new ArrayList<>(contentBuckets);
+        for (long gram : gramsOfBuckets) {
+            List<Integer> ordinals = ordinalsByGram.get(gram);
+            if (ordinals.size() > 1) {
+                result.add(ordinals.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares all pairs of a bucket that are not in the same cluster, yet.
+     */
+    private void compareBucket(@NotNull int[] ordinals) {
+        for (int i = 0; i < ordinals.length; i++) {
+            Article article1 = articles.get(ordinals[i]);
+            for (int j = i + 1; j < ordinals.length; j++) {
+                Article article2 = articles.get(ordinals[j]);
+                if (clusters.isSameCluster(article1, article2)
+                        || !comparedPairs.add(pairKey(ordinals[i], ordinals[j]))) {
+                    continue;
+                }
+                if (score(article1, article2) >= similarityThreshold) {
+                    clusters.union(article1, article2);
+                }
+            }
+        }
+    }
+
+    private static long pairKey(int ordinal1, int ordinal2) {
+        return ((long) Math.min(ordinal1, ordinal2) << 32) | Math.max(ordinal1, ordinal2);
+    }
+
+    /**
+     * Calculates the similarity index of the contents of two articles the same way as the
+     * {@link SimilarityIndex}.
+     */
+    private static double score(@NotNull Article article1, @NotNull Article article2) {
+        if (Objects.equals(article1.getContent(), article2.getContent())) {
+            return MAX_SIMILARITY_INDEX;
+        }
+        return article1.getContentVector().cosineSimilarity(article2.getContentVector());
+    }
+
+    /**
+     * Creates the result of the current state. Once the detection is complete, the compared
+     * pairs of the first phase are not needed anymore.
+     */
+    private @NotNull PartialDetectionResult createResult() {
+        if (isComplete()) {
+            comparedPairs = Collections.emptySet();
+            return new PartialDetectionResult(clusters.getClusters(), 1, true);
+        }
+
+        // All pairs among the indexed articles are covered. Of the pairs compared in the
+        // first phase, only those with an article that has not been indexed, yet, add to it.
+        long coveredPairs = (long) indexedArticles * (indexedArticles - 1) / 2;
+        for (long key : comparedPairs) {
+            if ((int) key >= indexedArticles) {
+                coveredPairs++;
+            }
+        }
+        return new PartialDetectionResult(clusters.getClusters(),
+                Math.min(1, coveredPairs / totalPairs), false);
+    }
+
+    private static void checkCancelled(@NotNull CancellationSignal signal) {
+        if (signal.isCancelled()) {
+            throw new DetectionAbortedException("The detection has been cancelled.", null);
+        }
+    }
+
+    /**
+     * Returns whether all pairs of articles have been taken into account.
+     *
+     * @return {@code true} if the detection is complete, otherwise {@code false}
+     */
+    public synchronized boolean isComplete() {
+        return indexedArticles == articles.size();
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+}
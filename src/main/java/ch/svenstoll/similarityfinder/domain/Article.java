@@ -5,24 +5,17 @@
 
 package ch.svenstoll.similarityfinder.domain;
 
-import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
-import org.apache.lucene.analysis.ngram.NGramTokenizer;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
 import java.time.LocalDate;
 
 /**
  * Represents articles that have been published in a medium.
  */
 public final class Article {
-    private static final int N_GRAM_SIZE = 3;
-
     private final int id;
     @Nullable
     private String title = "";
@@ -34,9 +27,10 @@ public final class Article {
     private LocalDate publicationDate = null;
     @Nullable
     private String author = "";
+    private boolean relevant = false;
 
     @NotNull
-    private final Multiset<String> contentNGrams = HashMultiset.create();
+    private NGramVector contentVector = NGramVector.EMPTY;
 
     /**
      * Constructs an {@code Article} instance.
@@ -47,30 +41,6 @@ public final class Article {
         this.id = id;
     }
 
-    /**
-     * Generates n-grams of the size specified by {@link Article#N_GRAM_SIZE} from the
-     * {@link Article#content}.
-     */
-    private void generateContentNGrams() {
-        contentNGrams.clear();
-
-        if (content != null) {
-            Reader reader = new StringReader(content);
-            NGramTokenizer tokenizer = new NGramTokenizer(N_GRAM_SIZE, N_GRAM_SIZE);
-            tokenizer.setReader(reader);
-            try {
-                tokenizer.reset();
-                CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
-                while(tokenizer.incrementToken()) {
-                    String token = termAtt.toString();
-                    contentNGrams.add(token);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
     public int getId() {
         return id;
     }
@@ -88,15 +58,27 @@ public final class Article {
     }
 
     /**
-     * Sets the content property and generates the corresponding n-grams.
+     * Sets the content property and generates the corresponding n-gram vector.
      *
      * @param content the content to set
      */
     public void setContent(@Nullable String content) {
         this.content = content;
-        if (content != null) {
-            generateContentNGrams();
-        }
+        this.contentVector = NGramVector.fromText(content);
+    }
+
+    /**
+     * Sets the content property together with an n-gram vector that has already been generated
+     * from the same content (e.g. a vector that was stored in the database). This avoids the
+     * costs of tokenizing the content again.
+     *
+     * @param content the content to set
+     * @param contentVector the n-gram vector of {@code content}
+     * @throws IllegalArgumentException if {@code contentVector} was {@code null}
+     */
+    public void setContent(@Nullable String content, @NotNull NGramVector contentVector) {
+        this.contentVector = Validate.notNull(contentVector, "ContentVector must not be null.");
+        this.content = content;
     }
 
     public @Nullable Medium getMedium() {
@@ -123,11 +105,27 @@ public final class Article {
         this.author = author;
     }
 
+    public boolean isRelevant() {
+        return relevant;
+    }
+
+    public void setRelevant(boolean relevant) {
+        this.relevant = relevant;
+    }
+
     /**
      * Gets the n-grams of the content property whose size are specified by
-     * {@link Article#N_GRAM_SIZE}.
+     * {@link NGramVector#N_GRAM_SIZE}. The returned multiset is created from the
+     * {@link #getContentVector() content vector}, which should be preferred for calculations.
      */
     public @NotNull Multiset<String> getContentNGrams() {
-        return contentNGrams;
+        return contentVector.toMultiset();
+    }
+
+    /**
+     * Gets the n-gram frequency vector of the content property.
+     */
+    public @NotNull NGramVector getContentVector() {
+        return contentVector;
     }
 }
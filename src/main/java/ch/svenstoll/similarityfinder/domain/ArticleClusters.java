@@ -0,0 +1,165 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Groups articles with similar contents into clusters. Two articles are in the same cluster if
+ * they are similar or if there exists another article in the cluster that is similar to both of
+ * them. The clusters are maintained as a disjoint-set forest, so merging two clusters takes
+ * nearly constant time regardless of their size.
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public final class ArticleClusters {
+    @NotNull
+    private final Map<Integer, Article> articles = new HashMap<>();
+    @NotNull
+    private final Map<Integer, Integer> parents = new HashMap<>();
+    @NotNull
+    private final Map<Integer, Integer> sizes = new HashMap<>();
+
+    /**
+     * Adds an article as a cluster of its own if it has not been added, yet.
+     *
+     * @param article the {@code Article} to be added
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public void add(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+
+        if (articles.putIfAbsent(article.getId(), article) == null) {
+            parents.put(article.getId(), article.getId());
+            sizes.put(article.getId(), 1);
+        }
+    }
+
+    /**
+     * Replaces an added article by another instance with the same id without changing the
+     * clusters.
+     *
+     * @param article the new instance of the article
+     * @return {@code true} if the article has been replaced or {@code false} if no article with
+     *         the same id has been added
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public boolean replace(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+        return articles.replace(article.getId(), article) != null;
+    }
+
+    /**
+     * Merges the clusters of two similar articles. Articles that have not been added, yet, are
+     * added first.
+     *
+     * @param article1 an {@code Article} whose content is similar to {@code article2}
+     * @param article2 an {@code Article} whose content is similar to {@code article1}
+     * @return {@code true} if two different clusters have been merged, otherwise {@code false}
+     * @throws IllegalArgumentException if {@code article1} or {@code article2} was {@code null}
+     */
+    public boolean union(@NotNull Article article1, @NotNull Article article2) {
+        Validate.notNull(article1, "Article1 must not be null.");
+        Validate.notNull(article2, "Article2 must not be null.");
+
+        add(article1);
+        add(article2);
+        int root1 = findRoot(article1.getId());
+        int root2 = findRoot(article2.getId());
+        if (root1 == root2) {
+            return false;
+        }
+
+        // The smaller tree is attached to the root of the larger tree to keep the trees flat.
+        int size1 = sizes.get(root1);
+        int size2 = sizes.get(root2);
+        if (size1 < size2) {
+            int root = root1;
+            root1 = root2;
+            root2 = root;
+        }
+        parents.put(root2, root1);
+        sizes.put(root1, size1 + size2);
+        sizes.remove(root2);
+        return true;
+    }
+
+    /**
+     * Finds the root of the tree that contains the article with the specified id. The path to
+     * the root is halved on the way.
+     */
+    private int findRoot(int id) {
+        int current = id;
+        int parent = parents.get(current);
+        while (parent != current) {
+            int grandparent = parents.get(parent);
+            parents.put(current, grandparent);
+            current = grandparent;
+            parent = parents.get(current);
+        }
+        return current;
+    }
+
+    /**
+     * Returns whether two articles are in the same cluster.
+     *
+     * @param article1 an {@code Article}
+     * @param article2 another {@code Article}
+     * @return {@code true} if both articles have been added and are in the same cluster,
+     *         otherwise {@code false}
+     * @throws IllegalArgumentException if {@code article1} or {@code article2} was {@code null}
+     */
+    public boolean isSameCluster(@NotNull Article article1, @NotNull Article article2) {
+        Validate.notNull(article1, "Article1 must not be null.");
+        Validate.notNull(article2, "Article2 must not be null.");
+
+        return articles.containsKey(article1.getId()) && articles.containsKey(article2.getId())
+                && findRoot(article1.getId()) == findRoot(article2.getId());
+    }
+
+    /**
+     * Returns the number of articles of the cluster that contains the specified article.
+     *
+     * @param article an {@code Article}
+     * @return the size of the cluster of the {@code article} or {@code 0} if it has not been
+     *         added
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public int getClusterSize(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+
+        return articles.containsKey(article.getId()) ? sizes.get(findRoot(article.getId())) : 0;
+    }
+
+    /**
+     * Returns all clusters that contain at least two articles as a list of sets.
+     *
+     * @return a list of sets that contain articles with similar contents
+     */
+    public @NotNull List<Set<Article>> getClusters() {
+        Map<Integer, Set<Article>> clustersByRoot = new LinkedHashMap<>();
+        articles.forEach((id, article) -> {
+            int root = findRoot(id);
+            if (sizes.get(root) > 1) {
+                clustersByRoot.computeIfAbsent(root, key -> new HashSet<>()).add(article);
+            }
+        });
+        return new ArrayList<>(clustersByRoot.values());
+    }
+
+    /**
+     * Returns the number of added articles.
+     *
+     * @return the number of added articles
+     */
+    public int size() {
+        return articles.size();
+    }
+}
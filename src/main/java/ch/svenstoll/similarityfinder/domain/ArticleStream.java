@@ -0,0 +1,28 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A source of articles that are passed on in batches as soon as they are available, e.g. while
+ * they are still being queried from the database.
+ */
+@FunctionalInterface
+public interface ArticleStream {
+    /**
+     * Passes all articles of this stream in batches to the {@code consumer}. This method
+     * returns after the last batch has been consumed. Exceptions thrown by the {@code consumer}
+     * stop the stream and are propagated.
+     *
+     * @param consumer a {@code Consumer} of the batches
+     * @throws IllegalArgumentException if {@code consumer} was {@code null}
+     */
+    void forEachBatch(@NotNull Consumer<List<Article>> consumer);
+}
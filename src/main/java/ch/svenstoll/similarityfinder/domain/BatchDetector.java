@@ -0,0 +1,134 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import ch.svenstoll.similarityfinder.dao.DatabaseAccess;
+import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
+import com.google.inject.Inject;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * Detects articles with similar contents for a batch of filter configs at once. Running the
+ * filter configs one after another would query and tokenize the articles they have in common
+ * again for every config. Instead, the articles of all configs are queried with a single query
+ * (see {@link FilterCriteria#covering(java.util.Collection)}), their content vectors are
+ * calculated once and they are indexed once for the lowest threshold of the configs. The
+ * criteria and threshold of each config are then applied to the shared index.
+ */
+public final class BatchDetector {
+    @NotNull
+    private final DatabaseAccess databaseAccess;
+    @NotNull
+    private final PriorityScheduler scheduler;
+
+    /**
+     * Constructs a {@code BatchDetector}.
+     *
+     * @param databaseAccess an instance of {@code DatabaseAccess} used to query the database
+     * @param scheduler the {@code PriorityScheduler} of the application. Batch runs are run as
+     *                  {@link WorkPriority#BATCH} work, so they pause while more urgent work is
+     *                  running.
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    @Inject
+    public BatchDetector(@NotNull DatabaseAccess databaseAccess,
+                         @NotNull PriorityScheduler scheduler) {
+        this.databaseAccess = Validate.notNull(databaseAccess, "DatabaseAccess must not be null.");
+        this.scheduler = Validate.notNull(scheduler, "Scheduler must not be null.");
+    }
+
+    /**
+     * Detects the articles with similar contents of every filter config. The clusters of each
+     * config are the same as those of a separate detection with the criteria and similarity
+     * threshold of the config.
+     * <p>
+     * The detection yields to more urgent work of the {@code PriorityScheduler} between
+     * every {@link SimilarityService#CHECKPOINT_INTERVAL} articles.
+     * </p>
+     *
+     * @param configs the filter configs to be run
+     * @param signal a {@code CancellationSignal} that can be used to cancel the batch run
+     * @return the results of the {@code configs} in the same order and the timing of the run
+     * @throws IllegalArgumentException if {@code configs} or {@code signal} was {@code null},
+     *                                  {@code configs} contained {@code null} elements or the
+     *                                  similarity threshold of a config was out of bounds
+     * @throws DatabaseAccessException if an error occurred while querying the database or the
+     *                                 query has been cancelled
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     */
+    public @NotNull BatchReport detect(@NotNull List<FilterConfig> configs,
+                                       @NotNull CancellationSignal signal) {
+        Validate.notNull(configs, "Configs must not be null.");
+        Validate.noNullElements(configs, "Configs must not contain null elements.");
+        Validate.notNull(signal, "Signal must not be null.");
+        if (configs.isEmpty()) {
+            return new BatchReport(new ArrayList<>(), 0, 0, 0);
+        }
+        return scheduler.run(WorkPriority.BATCH, () -> detectConfigs(configs, signal));
+    }
+
+    private @NotNull BatchReport detectConfigs(@NotNull List<FilterConfig> configs,
+                                               @NotNull CancellationSignal signal) {
+
+        // Every threshold that is equal to its min value puts all articles into one cluster
+        // without any comparison, so only the other thresholds need to be supported by the index.
+        double floorThreshold = MAX_SIMILARITY_INDEX;
+        for (FilterConfig config : configs) {
+            double threshold = config.getSimilarityThreshold();
+            Validate.isTrue(threshold <= MAX_SIMILARITY_INDEX, "The similarity threshold of "
+                    + "%s must be at most %d.", config.getName(), MAX_SIMILARITY_INDEX);
+            if (threshold > MIN_SIMILARITY_INDEX) {
+                floorThreshold = Math.min(floorThreshold, threshold);
+            }
+        }
+
+        List<FilterCriteria> criteria = configs.stream()
+                .map(FilterCriteria::of)
+                .collect(Collectors.toList());
+        long startNanos = System.nanoTime();
+        List<Article> articles = databaseAccess.queryArticlesByCriteria(
+                FilterCriteria.covering(criteria), signal);
+        long queryNanos = System.nanoTime() - startNanos;
+        checkCancelled(signal);
+
+        startNanos = System.nanoTime();
+        SimilarityService service = new SimilarityService(articles, floorThreshold);
+        long indexNanos = System.nanoTime() - startNanos;
+
+        List<BatchResult> results = new ArrayList<>();
+        for (int i = 0; i < configs.size(); i++) {
+            checkCancelled(signal);
+            FilterCriteria configCriteria = criteria.get(i);
+            startNanos = System.nanoTime();
+            List<Set<Article>> clusters = service.detectClusters(configCriteria,
+                    Math.max(configs.get(i).getSimilarityThreshold(), MIN_SIMILARITY_INDEX),
+                    () -> {
+                        checkCancelled(signal);
+                        scheduler.yieldPoint(signal);
+                    });
+            long detectionNanos = System.nanoTime() - startNanos;
+            int articleCount = (int) articles.stream().filter(configCriteria::matches).count();
+            results.add(new BatchResult(configs.get(i), clusters, articleCount,
+                    detectionNanos));
+        }
+        return new BatchReport(results, articles.size(), queryNanos, indexNanos);
+    }
+
+    private static void checkCancelled(@NotNull CancellationSignal signal) {
+        if (signal.isCancelled()) {
+            throw new DetectionAbortedException("The batch run has been cancelled.", null);
+        }
+    }
+}
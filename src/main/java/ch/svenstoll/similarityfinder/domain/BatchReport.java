@@ -0,0 +1,67 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of a batch run of a {@link BatchDetector} together with the time spent on the
+ * stages that are shared by all filter configs of the batch.
+ */
+public final class BatchReport {
+    @NotNull
+    private final List<BatchResult> results;
+    private final int articleCount;
+    private final long queryNanos;
+    private final long indexNanos;
+
+    /**
+     * Constructs a {@code BatchReport}.
+     *
+     * @param results the results of the filter configs in the order of the configs
+     * @param articleCount the number of articles that have been queried for all filter configs
+     * @param queryNanos the time it took to query the articles in nanoseconds
+     * @param indexNanos the time it took to index the articles in nanoseconds
+     * @throws IllegalArgumentException if {@code results} was {@code null} or contained {@code
+     *                                  null} elements
+     */
+    public BatchReport(@NotNull List<BatchResult> results, int articleCount, long queryNanos,
+                       long indexNanos) {
+        Validate.notNull(results, "Results must not be null.");
+        Validate.noNullElements(results, "Results must not contain null elements.");
+
+        this.results = Collections.unmodifiableList(results);
+        this.articleCount = articleCount;
+        this.queryNanos = queryNanos;
+        this.indexNanos = indexNanos;
+    }
+
+    public @NotNull List<BatchResult> getResults() {
+        return results;
+    }
+
+    public int getArticleCount() {
+        return articleCount;
+    }
+
+    public long getQueryNanos() {
+        return queryNanos;
+    }
+
+    public long getIndexNanos() {
+        return indexNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReport{results=" + results.size() + ", articleCount=" + articleCount
+                + ", queryNanos=" + queryNanos + ", indexNanos=" + indexNanos + "}";
+    }
+}
@@ -0,0 +1,65 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The result of one {@code FilterConfig} of a batch run of a {@link BatchDetector}.
+ */
+public final class BatchResult {
+    @NotNull
+    private final FilterConfig config;
+    @NotNull
+    private final List<Set<Article>> clusters;
+    private final int articleCount;
+    private final long detectionNanos;
+
+    /**
+     * Constructs a {@code BatchResult}.
+     *
+     * @param config the {@code FilterConfig} the result belongs to
+     * @param clusters the clusters of articles with similar contents
+     * @param articleCount the number of articles that have been selected by the {@code config}
+     * @param detectionNanos the time it took to detect the {@code clusters} in nanoseconds
+     * @throws IllegalArgumentException if {@code config} or {@code clusters} was {@code null}
+     */
+    public BatchResult(@NotNull FilterConfig config, @NotNull List<Set<Article>> clusters,
+                       int articleCount, long detectionNanos) {
+        this.config = Validate.notNull(config, "Config must not be null.");
+        this.clusters = Collections.unmodifiableList(
+                Validate.notNull(clusters, "Clusters must not be null."));
+        this.articleCount = articleCount;
+        this.detectionNanos = detectionNanos;
+    }
+
+    public @NotNull FilterConfig getConfig() {
+        return config;
+    }
+
+    public @NotNull List<Set<Article>> getClusters() {
+        return clusters;
+    }
+
+    public int getArticleCount() {
+        return articleCount;
+    }
+
+    public long getDetectionNanos() {
+        return detectionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{config=" + config.getName() + ", clusters=" + clusters.size()
+                + ", articleCount=" + articleCount + ", detectionNanos=" + detectionNanos + "}";
+    }
+}
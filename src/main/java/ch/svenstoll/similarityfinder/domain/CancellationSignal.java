@@ -0,0 +1,86 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A signal that can be used to cancel a running operation from another thread. Long running
+ * operations either check the signal cooperatively or register callbacks that release their
+ * resources (e.g. cancel a database statement) as soon as the signal is cancelled. All methods of
+ * this class are thread safe.
+ */
+public final class CancellationSignal {
+    @NotNull
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private volatile boolean cancelled = false;
+
+    /**
+     * Cancels this signal and runs all registered callbacks. Subsequent calls have no effect.
+     */
+    public void cancel() {
+        List<Runnable> callbacksToRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            callbacksToRun = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+        callbacksToRun.forEach(CancellationSignal::runCallback);
+    }
+
+    /**
+     * Returns whether this signal has been cancelled.
+     *
+     * @return {@code true} if this signal has been cancelled, otherwise {@code false}
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a callback that will be run when this signal is cancelled. If the signal has
+     * already been cancelled, the callback is run immediately.
+     *
+     * @param callback the callback to be run
+     * @throws IllegalArgumentException if {@code callback} was {@code null}
+     */
+    public void onCancel(@NotNull Runnable callback) {
+        Validate.notNull(callback, "Callback must not be null.");
+
+        synchronized (this) {
+            if (!cancelled) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        runCallback(callback);
+    }
+
+    /**
+     * Removes a callback that has been registered using {@link #onCancel(Runnable)}. This should
+     * be done as soon as the resources released by the callback are no longer in use.
+     *
+     * @param callback the callback to be removed
+     */
+    public synchronized void removeOnCancel(@NotNull Runnable callback) {
+        callbacks.remove(callback);
+    }
+
+    private static void runCallback(@NotNull Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A runtime exception that can be thrown if a detection should be resumed, but there is no
+ * checkpoint or the checkpoint does not belong to the articles of the detection.
+ */
+public final class CheckpointMismatchException extends RuntimeException {
+    /**
+     * Constructs a {@code CheckpointMismatchException} instance.
+     *
+     * @param  message the detail message (which is saved for later retrieval
+     *         by the {@link #getMessage()} method)
+     */
+    public CheckpointMismatchException(@NotNull String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,305 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import ch.svenstoll.similarityfinder.dao.DetectionCheckpointAccess;
+import ch.svenstoll.similarityfinder.dao.DetectionCheckpointAccessException;
+import com.google.inject.Inject;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * Detects articles with similar contents in long-running jobs, e.g. overnight runs over
+ * hundreds of thousands of articles, and periodically stores a {@link DetectionCheckpoint}, so
+ * a job that died can be resumed instead of starting over.
+ * <p>
+ * The articles with content are processed in ascending order of their ids by an {@link
+ * IncrementalSimilarityDetector}, one tile of {@link #DEFAULT_TILE_SIZE} articles at a time.
+ * Every article of a tile is compared with the similar candidates of all previous articles,
+ * so once a tile is finished, the clusters of all articles up to the end of that tile are
+ * final until further articles are added. After a tile, a checkpoint with the finished
+ * articles and their clusters is stored if enough time has passed since the last one. The
+ * interval between checkpoints grows with the time it takes to store one, so that storing
+ * checkpoints takes at most {@link #MAX_CHECKPOINT_OVERHEAD} of the runtime.
+ * </p>
+ * <p>
+ * The checkpoint is deleted once a detection is complete. If a detection is cancelled, a
+ * checkpoint is stored at the end of the last finished tile.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public final class CheckpointingDetector {
+    public static final int DEFAULT_TILE_SIZE = 1000;
+    public static final long DEFAULT_MIN_CHECKPOINT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    /**
+     * The highest share of the runtime that may be spent storing checkpoints.
+     */
+    public static final double MAX_CHECKPOINT_OVERHEAD = 0.02;
+
+    private static final long FINGERPRINT_SEED = 1125899906842597L;
+
+    @NotNull
+    private final DetectionCheckpointAccess checkpointAccess;
+    private final int tileSize;
+    private final long minCheckpointIntervalNanos;
+    @NotNull
+    private final LongSupplier nanoTime;
+
+    /**
+     * Constructs a {@code CheckpointingDetector} with the default tile size and checkpoint
+     * interval.
+     *
+     * @param checkpointAccess the {@code DetectionCheckpointAccess} used to store checkpoints
+     * @throws IllegalArgumentException if {@code checkpointAccess} was {@code null}
+     */
+    @Inject
+    public CheckpointingDetector(@NotNull DetectionCheckpointAccess checkpointAccess) {
+        this(checkpointAccess, DEFAULT_TILE_SIZE, DEFAULT_MIN_CHECKPOINT_INTERVAL_NANOS,
+                System::nanoTime);
+    }
+
+    /**
+     * Constructs a {@code CheckpointingDetector}.
+     *
+     * @param checkpointAccess the {@code DetectionCheckpointAccess} used to store checkpoints
+     * @param tileSize the number of articles of a tile
+     * @param minCheckpointIntervalNanos the minimum time between two checkpoints in
+     *                                   nanoseconds
+     * @param nanoTime a time source in nanoseconds
+     * @throws IllegalArgumentException if any object parameter was {@code null}, {@code
+     *                                  tileSize} was not positive or {@code
+     *                                  minCheckpointIntervalNanos} was negative
+     */
+    CheckpointingDetector(@NotNull DetectionCheckpointAccess checkpointAccess, int tileSize,
+                          long minCheckpointIntervalNanos, @NotNull LongSupplier nanoTime) {
+        this.checkpointAccess
+                = Validate.notNull(checkpointAccess, "CheckpointAccess must not be null.");
+        Validate.isTrue(tileSize > 0, "TileSize must be positive.");
+        Validate.isTrue(minCheckpointIntervalNanos >= 0,
+                "MinCheckpointIntervalNanos must not be negative.");
+        this.tileSize = tileSize;
+        this.minCheckpointIntervalNanos = minCheckpointIntervalNanos;
+        this.nanoTime = Validate.notNull(nanoTime, "NanoTime must not be null.");
+    }
+
+    /**
+     * Starts a new detection. An existing checkpoint is discarded. The result is the same as
+     * that of {@link SimilarityDetector#detectArticlesWithSimilarContents(List, double)}.
+     *
+     * @param articles the articles used to detect similar contents
+     * @param similarityThreshold a number between (inclusive) {@link
+     *                            SimilarityDetector#MIN_SIMILARITY_INDEX} (total inequality) and
+     *                            {@link SimilarityDetector#MAX_SIMILARITY_INDEX} (total
+     *                            equality)
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection
+     * @return a list of sets that contain all articles that are similar to each other with
+     *         respect to the specified {@code similarityThreshold}
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws DetectionCheckpointAccessException if a checkpoint could not be stored or deleted
+     * @throws IllegalArgumentException if {@code articles} or {@code signal} was {@code null},
+     *                                  {@code articles} contained {@code null} elements or
+     *                                  several articles with the same id or if {@code
+     *                                  similarityThreshold} was out of bounds
+     */
+    public @NotNull List<Set<Article>> detect(@NotNull Collection<Article> articles,
+                                              double similarityThreshold,
+                                              @NotNull CancellationSignal signal) {
+        Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX, similarityThreshold,
+                "SimilarityThreshold must be between " + MIN_SIMILARITY_INDEX + " and "
+                        + MAX_SIMILARITY_INDEX + " (inclusive).");
+        List<Article> orderedArticles = orderArticles(articles);
+        Validate.notNull(signal, "Signal must not be null.");
+
+        checkpointAccess.deleteCheckpoint();
+        return run(orderedArticles, new IncrementalSimilarityDetector(similarityThreshold), 0,
+                FINGERPRINT_SEED, signal);
+    }
+
+    /**
+     * Resumes a detection from the stored checkpoint. The articles must be the same as those
+     * of the detection that stored the checkpoint, apart from articles with higher ids that
+     * have been added since. The finished articles are indexed again without comparing them
+     * and their clusters are restored from the checkpoint, so the detection continues with the
+     * first unfinished tile. The similarity threshold of the checkpoint is used.
+     *
+     * @param articles the articles used to detect similar contents
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection
+     * @return a list of sets that contain all articles that are similar to each other
+     * @throws CheckpointMismatchException if no checkpoint has been stored or the finished
+     *                                     articles of the checkpoint are not part of the
+     *                                     {@code articles} with the same contents
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws DetectionCheckpointAccessException if the checkpoint could not be retrieved,
+     *                                            stored or deleted
+     * @throws IllegalArgumentException if {@code articles} or {@code signal} was {@code null},
+     *                                  {@code articles} contained {@code null} elements or
+     *                                  several articles with the same id
+     */
+    public @NotNull List<Set<Article>> resume(@NotNull Collection<Article> articles,
+                                              @NotNull CancellationSignal signal) {
+        List<Article> orderedArticles = orderArticles(articles);
+        Validate.notNull(signal, "Signal must not be null.");
+
+        DetectionCheckpoint checkpoint = checkpointAccess.retrieveCheckpoint();
+        if (checkpoint == null) {
+            throw new CheckpointMismatchException("No checkpoint has been stored.");
+        }
+        int completedArticles = checkpoint.getCompletedArticles();
+        if (completedArticles > orderedArticles.size()) {
+            throw new CheckpointMismatchException("The checkpoint contains "
+                    + completedArticles + " articles, but only " + orderedArticles.size()
+                    + " articles have been provided.");
+        }
+
+        SimilarityIndex index = new SimilarityIndex(checkpoint.getSimilarityThreshold());
+        long fingerprint = FINGERPRINT_SEED;
+        for (int i = 0; i < completedArticles; i++) {
+            Article article = orderedArticles.get(i);
+            index.add(article);
+            fingerprint = updateFingerprint(fingerprint, article);
+        }
+        if (fingerprint != checkpoint.getFingerprint()) {
+            throw new CheckpointMismatchException("The articles of the checkpoint have been "
+                    + "changed.");
+        }
+
+        ArticleClusters clusters = new ArticleClusters();
+        int[] linkedOrdinals = checkpoint.getLinkedOrdinals();
+        int[] rootOrdinals = checkpoint.getRootOrdinals();
+        for (int i = 0; i < linkedOrdinals.length; i++) {
+            clusters.union(orderedArticles.get(linkedOrdinals[i]),
+                    orderedArticles.get(rootOrdinals[i]));
+        }
+
+        return run(orderedArticles, new IncrementalSimilarityDetector(index, clusters),
+                completedArticles, fingerprint, signal);
+    }
+
+    /**
+     * Returns the articles with content in ascending order of their ids.
+     */
+    private static @NotNull List<Article> orderArticles(@NotNull Collection<Article> articles) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+
+        List<Article> orderedArticles = new ArrayList<>();
+        for (Article article : articles) {
+            if (article.getContent() != null) {
+                orderedArticles.add(article);
+            }
+        }
+        orderedArticles.sort(Comparator.comparingInt(Article::getId));
+        for (int i = 1; i < orderedArticles.size(); i++) {
+            Validate.isTrue(orderedArticles.get(i - 1).getId() != orderedArticles.get(i).getId(),
+                    "Articles must not contain several articles with the same id.");
+        }
+        return orderedArticles;
+    }
+
+    /**
+     * Processes the tiles starting at the specified position and stores checkpoints in
+     * between.
+     */
+    private @NotNull List<Set<Article>> run(@NotNull List<Article> orderedArticles,
+                                            @NotNull IncrementalSimilarityDetector detection,
+                                            int completedArticles, long fingerprint,
+                                            @NotNull CancellationSignal signal) {
+        long lastCheckpointNanos = nanoTime.getAsLong();
+        long checkpointIntervalNanos = minCheckpointIntervalNanos;
+
+        while (completedArticles < orderedArticles.size()) {
+            if (signal.isCancelled()) {
+                saveCheckpoint(orderedArticles, detection, completedArticles, fingerprint);
+                throw new DetectionAbortedException("The detection has been cancelled after "
+                        + completedArticles + " articles.", null);
+            }
+
+            int tileEnd = Math.min(completedArticles + tileSize, orderedArticles.size());
+            for (int i = completedArticles; i < tileEnd; i++) {
+                Article article = orderedArticles.get(i);
+                detection.add(article);
+                fingerprint = updateFingerprint(fingerprint, article);
+            }
+            completedArticles = tileEnd;
+
+            long now = nanoTime.getAsLong();
+            if (completedArticles < orderedArticles.size()
+                    && now - lastCheckpointNanos >= checkpointIntervalNanos) {
+                saveCheckpoint(orderedArticles, detection, completedArticles, fingerprint);
+                lastCheckpointNanos = nanoTime.getAsLong();
+                // The next checkpoint is delayed until storing it takes at most the maximum
+                // overhead of the time in between.
+                long checkpointNanos = lastCheckpointNanos - now;
+                checkpointIntervalNanos = Math.max(minCheckpointIntervalNanos,
+                        (long) (checkpointNanos / MAX_CHECKPOINT_OVERHEAD));
+            }
+        }
+
+        checkpointAccess.deleteCheckpoint();
+        return detection.getClusters();
+    }
+
+    /**
+     * Stores a checkpoint of the finished articles. Every clustered article is linked to the
+     * first article of its cluster.
+     */
+    private void saveCheckpoint(@NotNull List<Article> orderedArticles,
+                                @NotNull IncrementalSimilarityDetector detection,
+                                int completedArticles, long fingerprint) {
+        Map<Integer, Integer> ordinalsById = new HashMap<>();
+        for (int i = 0; i < completedArticles; i++) {
+            ordinalsById.put(orderedArticles.get(i).getId(), i);
+        }
+
+        List<Set<Article>> clusters = detection.getClusters();
+        int links = 0;
+        for (Set<Article> cluster : clusters) {
+            links += cluster.size() - 1;
+        }
+        int[] linkedOrdinals = new int[links];
+        int[] rootOrdinals = new int[links];
+        int link = 0;
+        for (Set<Article> cluster : clusters) {
+            int[] ordinals = new int[cluster.size()];
+            int i = 0;
+            for (Article article : cluster) {
+                ordinals[i++] = ordinalsById.get(article.getId());
+            }
+            Arrays.sort(ordinals);
+            for (i = 1; i < ordinals.length; i++) {
+                linkedOrdinals[link] = ordinals[i];
+                rootOrdinals[link] = ordinals[0];
+                link++;
+            }
+        }
+
+        checkpointAccess.saveCheckpoint(new DetectionCheckpoint(
+                detection.getIndex().getSimilarityThreshold(), completedArticles, fingerprint,
+                linkedOrdinals, rootOrdinals));
+    }
+
+    /**
+     * Adds the id and the content of an article to a fingerprint of the finished articles.
+     */
+    private static long updateFingerprint(long fingerprint, @NotNull Article article) {
+        String content = article.getContent();
+        fingerprint = 31 * fingerprint + article.getId();
+        return 31 * fingerprint + (content != null ? content.hashCode() : 0);
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+}
@@ -0,0 +1,92 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * An immutable estimate of a quantity together with the bounds of its 95% confidence
+ * interval.
+ */
+public final class ConfidenceInterval {
+    private final double estimate;
+    private final double lower;
+    private final double upper;
+
+    /**
+     * Constructs a {@code ConfidenceInterval}.
+     *
+     * @param estimate the point estimate
+     * @param lower the lower bound of the interval
+     * @param upper the upper bound of the interval
+     * @throws IllegalArgumentException if the {@code estimate} was not within the bounds
+     */
+    public ConfidenceInterval(double estimate, double lower, double upper) {
+        Validate.isTrue(lower <= estimate && estimate <= upper,
+                "Estimate must be between lower and upper (inclusive).");
+        this.estimate = estimate;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Creates the Wilson score interval of a proportion, which remains meaningful for
+     * proportions close to 0 or 1 and for small samples.
+     *
+     * @param successes the number of successes in the sample
+     * @param trials the size of the sample
+     * @param z the quantile of the standard normal distribution, e.g. {@code 1.96} for a 95%
+     *          confidence interval
+     * @return the interval of the proportion or {@code [0, 1]} if the sample is empty
+     * @throws IllegalArgumentException if {@code successes} was negative or greater than
+     *                                  {@code trials}
+     */
+    public static ConfidenceInterval ofProportion(long successes, long trials, double z) {
+        Validate.isTrue(successes >= 0 && successes <= trials,
+                "Successes must be between 0 and trials (inclusive).");
+        if (trials == 0) {
+            return new ConfidenceInterval(0, 0, 1);
+        }
+
+        double proportion = (double) successes / trials;
+        double zSquared = z * z;
+        double denominator = 1 + zSquared / trials;
+        double center = (proportion + zSquared / (2 * trials)) / denominator;
+        double halfWidth = z / denominator * Math.sqrt(proportion * (1 - proportion) / trials
+                + zSquared / (4.0 * trials * trials));
+        return new ConfidenceInterval(proportion, Math.max(0, Math.min(proportion,
+                center - halfWidth)), Math.min(1, Math.max(proportion, center + halfWidth)));
+    }
+
+    /**
+     * Scales the estimate and both bounds by a non-negative factor.
+     *
+     * @param factor the factor
+     * @return the scaled interval
+     * @throws IllegalArgumentException if {@code factor} was negative
+     */
+    public ConfidenceInterval scale(double factor) {
+        Validate.isTrue(factor >= 0, "Factor must not be negative.");
+        return new ConfidenceInterval(estimate * factor, lower * factor, upper * factor);
+    }
+
+    public double getEstimate() {
+        return estimate;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    @Override
+    public String toString() {
+        return estimate + " [" + lower + ", " + upper + "]";
+    }
+}
@@ -0,0 +1,135 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a long-running detection of a {@link CheckpointingDetector}. The
+ * articles of the detection are processed in ascending order of their ids, so the finished
+ * tiles always form a prefix of the articles. The checkpoint contains the length of that
+ * prefix, a fingerprint of its articles and the clusters among them.
+ * <p>
+ * The clusters are stored as links from every clustered article to the first article of its
+ * cluster, both identified by their position in the order of the detection. Articles that are
+ * not linked are clusters of their own.
+ * </p>
+ */
+public final class DetectionCheckpoint {
+    private final double similarityThreshold;
+    private final int completedArticles;
+    private final long fingerprint;
+    @NotNull
+    private final int[] linkedOrdinals;
+    @NotNull
+    private final int[] rootOrdinals;
+
+    /**
+     * Constructs a {@code DetectionCheckpoint}.
+     *
+     * @param similarityThreshold the similarity threshold of the detection
+     * @param completedArticles the number of articles whose tiles have been finished
+     * @param fingerprint a fingerprint of the ids and contents of the finished articles
+     * @param linkedOrdinals the positions of all finished articles that are linked to another
+     *                       article of their cluster
+     * @param rootOrdinals the positions of the articles the {@code linkedOrdinals} are linked
+     *                     to, at the same index
+     * @throws IllegalArgumentException if {@code linkedOrdinals} or {@code rootOrdinals} was
+     *                                  {@code null}, their lengths differ, {@code
+     *                                  completedArticles} was negative or an ordinal was not
+     *                                  within the finished articles
+     */
+    public DetectionCheckpoint(double similarityThreshold, int completedArticles,
+                               long fingerprint, @NotNull int[] linkedOrdinals,
+                               @NotNull int[] rootOrdinals) {
+        Validate.notNull(linkedOrdinals, "LinkedOrdinals must not be null.");
+        Validate.notNull(rootOrdinals, "RootOrdinals must not be null.");
+        Validate.isTrue(linkedOrdinals.length == rootOrdinals.length,
+                "LinkedOrdinals and RootOrdinals must have the same length.");
+        Validate.isTrue(completedArticles >= 0, "CompletedArticles must not be negative.");
+
+        this.similarityThreshold = similarityThreshold;
+        this.completedArticles = completedArticles;
+        this.fingerprint = fingerprint;
+        this.linkedOrdinals = linkedOrdinals.clone();
+        this.rootOrdinals = rootOrdinals.clone();
+        Validate.isTrue(isValid(), "All ordinals must be within the completed articles.");
+    }
+
+    /**
+     * Determines whether all ordinals are within the finished articles. Since checkpoints are
+     * also created from files, this is checked again before a checkpoint is resumed.
+     *
+     * @return {@code true} if the checkpoint is consistent, otherwise {@code false}
+     */
+    public boolean isValid() {
+        if (linkedOrdinals == null || rootOrdinals == null
+                || linkedOrdinals.length != rootOrdinals.length || completedArticles < 0) {
+            return false;
+        }
+        for (int i = 0; i < linkedOrdinals.length; i++) {
+            if (linkedOrdinals[i] < 0 || linkedOrdinals[i] >= completedArticles
+                    || rootOrdinals[i] < 0 || rootOrdinals[i] >= completedArticles) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public int getCompletedArticles() {
+        return completedArticles;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public @NotNull int[] getLinkedOrdinals() {
+        return linkedOrdinals.clone();
+    }
+
+    public @NotNull int[] getRootOrdinals() {
+        return rootOrdinals.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DetectionCheckpoint that = (DetectionCheckpoint) o;
+        return Double.compare(that.similarityThreshold, similarityThreshold) == 0 &&
+                completedArticles == that.completedArticles &&
+                fingerprint == that.fingerprint &&
+                Arrays.equals(linkedOrdinals, that.linkedOrdinals) &&
+                Arrays.equals(rootOrdinals, that.rootOrdinals);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(linkedOrdinals);
+        result = 31 * result + Arrays.hashCode(rootOrdinals);
+        result = 31 * result + Long.hashCode(fingerprint);
+        return 31 * result + completedArticles;
+    }
+
+    @Override
+    public String toString() {
+        return "DetectionCheckpoint{similarityThreshold=" + similarityThreshold
+                + ", completedArticles=" + completedArticles + ", links="
+                + linkedOrdinals.length + "}";
+    }
+}
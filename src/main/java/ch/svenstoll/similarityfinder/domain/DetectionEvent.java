@@ -0,0 +1,61 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A pair of similar articles that has been found during a detection, together with its
+ * effect on the clusters found so far.
+ */
+public final class DetectionEvent {
+    @NotNull
+    private final SimilarityEdge edge;
+    private final boolean merge;
+    private final int clusterSize;
+
+    /**
+     * Constructs a {@code DetectionEvent}.
+     *
+     * @param edge the similar pair that has been found
+     * @param merge whether the pair has merged two different clusters
+     * @param clusterSize the size of the cluster that contains the pair after the merge
+     * @throws IllegalArgumentException if {@code edge} was {@code null}
+     */
+    public DetectionEvent(@NotNull SimilarityEdge edge, boolean merge, int clusterSize) {
+        this.edge = Validate.notNull(edge, "Edge must not be null.");
+        this.merge = merge;
+        this.clusterSize = clusterSize;
+    }
+
+    public @NotNull SimilarityEdge getEdge() {
+        return edge;
+    }
+
+    /**
+     * Returns whether the pair has merged two clusters. If not, both articles of the pair
+     * already were in the same cluster.
+     *
+     * @return {@code true} if two clusters have been merged, otherwise {@code false}
+     */
+    public boolean isMerge() {
+        return merge;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    @Override
+    public String toString() {
+        return "DetectionEvent{" +
+                "edge=" + edge +
+                ", merge=" + merge +
+                ", clusterSize=" + clusterSize +
+                '}';
+    }
+}
@@ -6,6 +6,7 @@
 package ch.svenstoll.similarityfinder.domain;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.EventObject;
 
@@ -15,6 +16,8 @@ import java.util.EventObject;
  */
 public final class DetectionProgressEvent extends EventObject {
     private final double progress;
+    @Nullable
+    private final transient CancellationSignal signal;
 
     /**
      * Constructs a {@code DetectionProgressEvent} instance.
@@ -26,11 +29,34 @@ public final class DetectionProgressEvent extends EventObject {
      * @throws IllegalArgumentException if source was {@code null}
      */
     public DetectionProgressEvent(@NotNull SimilarityDetector source, double progress) {
+        this(source, progress, null);
+    }
+
+    /**
+     * Constructs a {@code DetectionProgressEvent} instance of the detection that can be
+     * cancelled by the specified {@code signal}. Since a {@code SimilarityDetector} can run
+     * several detections at the same time, listeners can use the signal to tell them apart.
+     *
+     * @param source the {@code SimilarityDetector} instance on which the {@code
+     *               DetectionProgressEvent} initially occurred
+     * @param progress the current progress of a similarity detection process executed by the
+     *                 {@code SimilarityDetector} specified in {@code source}
+     * @param signal the {@code CancellationSignal} of the detection or {@code null} if it is
+     *               unknown
+     * @throws IllegalArgumentException if source was {@code null}
+     */
+    public DetectionProgressEvent(@NotNull SimilarityDetector source, double progress,
+                                  @Nullable CancellationSignal signal) {
         super(source);
         this.progress = progress;
+        this.signal = signal;
     }
 
     public double getProgress() {
         return progress;
     }
+
+    public @Nullable CancellationSignal getSignal() {
+        return signal;
+    }
 }
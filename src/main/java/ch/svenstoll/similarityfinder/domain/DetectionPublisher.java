@@ -0,0 +1,193 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * Publishes the similar pairs of a detection as {@link DetectionEvent}s as soon as they are
+ * found, rather than returning the clusters once all articles have been compared. Every
+ * subscription runs its own detection of the articles of an {@link ArticleStream} using an
+ * {@link IncrementalSimilarityDetector}.
+ * <p>
+ * The detection is driven by the demand of the subscriber: it pauses whenever all requested
+ * events have been delivered and continues as soon as more events are requested. Therefore, no
+ * events are buffered and a slow subscriber never causes the events to pile up in memory.
+ * </p>
+ */
+public final class DetectionPublisher {
+    @NotNull
+    private final ArticleStream stream;
+    private final double similarityThreshold;
+    @NotNull
+    private final Executor executor;
+
+    /**
+     * Constructs a {@code DetectionPublisher} that runs every detection on a new daemon thread.
+     *
+     * @param stream the {@code ArticleStream} that provides the articles of every detection. It
+     *               is consumed once per subscription.
+     * @param similarityThreshold a number between (inclusive)
+     *                            {@link SimilarityDetector#MIN_SIMILARITY_INDEX} (total
+     *                            inequality) and {@link SimilarityDetector#MAX_SIMILARITY_INDEX}
+     *                            (total equality)
+     * @throws IllegalArgumentException if {@code stream} was {@code null} or {@code
+     *                                  similarityThreshold} was out of bounds
+     */
+    public DetectionPublisher(@NotNull ArticleStream stream, double similarityThreshold) {
+        this(stream, similarityThreshold, runnable -> {
+            Thread thread = new Thread(runnable, "detection-publisher");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Constructs a {@code DetectionPublisher} (see {@link #DetectionPublisher(ArticleStream,
+     * double)}) that runs every detection using the {@code executor}.
+     *
+     * @param executor the {@code Executor} that runs the detections
+     * @throws IllegalArgumentException if any parameter was {@code null} or {@code
+     *                                  similarityThreshold} was out of bounds
+     */
+    public DetectionPublisher(@NotNull ArticleStream stream, double similarityThreshold,
+                              @NotNull Executor executor) {
+        Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX, similarityThreshold,
+                "SimilarityThreshold must be between " + MIN_SIMILARITY_INDEX + " and "
+                        + MAX_SIMILARITY_INDEX + " (inclusive).");
+        this.stream = Validate.notNull(stream, "Stream must not be null.");
+        this.similarityThreshold = similarityThreshold;
+        this.executor = Validate.notNull(executor, "Executor must not be null.");
+    }
+
+    /**
+     * Subscribes to a new detection. The {@code subscriber} receives its subscription before
+     * this method returns, while the detection runs on the executor of this publisher. No
+     * articles are compared before the first event has been requested.
+     *
+     * @param subscriber the {@code DetectionSubscriber} that receives the events
+     * @throws IllegalArgumentException if {@code subscriber} was {@code null}
+     */
+    public void subscribe(@NotNull DetectionSubscriber subscriber) {
+        Validate.notNull(subscriber, "Subscriber must not be null.");
+
+        Subscription subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        executor.execute(subscription::run);
+    }
+
+    /**
+     * The state of a single subscription. All signals to the subscriber are sent from the
+     * thread that runs the detection, so they never overlap.
+     */
+    private final class Subscription implements DetectionSubscription {
+        @NotNull
+        private final DetectionSubscriber subscriber;
+        private long demand = 0;
+        private boolean cancelled = false;
+        private boolean invalidRequest = false;
+
+        Subscription(@NotNull DetectionSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                invalidRequest = true;
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void run() {
+            try {
+                awaitDemand();
+                IncrementalSimilarityDetector detector
+                        = new IncrementalSimilarityDetector(similarityThreshold);
+                stream.forEachBatch(batch -> addAll(detector, batch));
+            } catch (Cancelled e) {
+                return;
+            } catch (RuntimeException e) {
+                if (!isCancelled()) {
+                    subscriber.onError(e);
+                }
+                return;
+            }
+            if (!isCancelled()) {
+                subscriber.onComplete();
+            }
+        }
+
+        private void addAll(@NotNull IncrementalSimilarityDetector detector,
+                            @NotNull List<Article> batch) {
+            for (Article article : batch) {
+                if (isCancelled()) {
+                    throw new Cancelled();
+                }
+                detector.add(article, this::emit);
+            }
+        }
+
+        private void emit(@NotNull DetectionEvent event) {
+            awaitDemand();
+            synchronized (this) {
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+            subscriber.onNext(event);
+        }
+
+        private synchronized void awaitDemand() {
+            while (demand == 0 && !cancelled && !invalidRequest) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DetectionAbortedException(
+                            "The detection thread has been interrupted.", e);
+                }
+            }
+            if (cancelled) {
+                throw new Cancelled();
+            }
+            if (invalidRequest) {
+                cancelled = true;
+                subscriber.onError(new IllegalArgumentException(
+                        "The number of requested events must be positive."));
+                throw new Cancelled();
+            }
+        }
+    }
+
+    /**
+     * Stops a detection whose subscription has been cancelled.
+     */
+    private static final class Cancelled extends RuntimeException {
+        Cancelled() {
+            super(null, null, false, false);
+        }
+    }
+}
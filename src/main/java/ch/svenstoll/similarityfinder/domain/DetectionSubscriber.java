@@ -0,0 +1,43 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A receiver of the events of a {@link DetectionPublisher}. The methods have the same contract
+ * as those of a reactive streams subscriber: {@link #onSubscribe(DetectionSubscription)} is
+ * called first, followed by at most as many {@link #onNext(DetectionEvent)} calls as have been
+ * requested and finally either {@link #onComplete()} or {@link #onError(Throwable)}. The calls
+ * never overlap.
+ */
+public interface DetectionSubscriber {
+    /**
+     * Called before any other method with the subscription that is used to request events.
+     *
+     * @param subscription the {@code DetectionSubscription} of this subscriber
+     */
+    void onSubscribe(@NotNull DetectionSubscription subscription);
+
+    /**
+     * Called for every similar pair as soon as it has been found.
+     *
+     * @param event the {@code DetectionEvent} of the pair
+     */
+    void onNext(@NotNull DetectionEvent event);
+
+    /**
+     * Called if the detection has failed. No further methods are called afterwards.
+     *
+     * @param throwable the cause of the failure
+     */
+    void onError(@NotNull Throwable throwable);
+
+    /**
+     * Called after all articles have been compared. No further methods are called afterwards.
+     */
+    void onComplete();
+}
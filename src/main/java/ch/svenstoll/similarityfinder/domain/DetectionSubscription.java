@@ -0,0 +1,28 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+/**
+ * The link between a {@link DetectionPublisher} and one of its {@link DetectionSubscriber}s.
+ * The methods of a subscription may be called from any thread.
+ */
+public interface DetectionSubscription {
+    /**
+     * Adds {@code n} events to the number of events the subscriber is ready to receive. The
+     * detection pauses as long as no events have been requested.
+     *
+     * @param n the number of additional events. If it is not positive, the subscriber receives
+     *          an {@code IllegalArgumentException} via {@link DetectionSubscriber#onError}.
+     */
+    void request(long n);
+
+    /**
+     * Stops the detection. The subscriber may still receive events that were already being
+     * delivered, but neither {@link DetectionSubscriber#onComplete()} nor {@link
+     * DetectionSubscriber#onError(Throwable)} will be called.
+     */
+    void cancel();
+}
@@ -0,0 +1,68 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The thread pools of an {@link ExecutorRegistry}. Every pool has a fixed maximum number of
+ * threads and a bounded queue, so the number of threads of the application does not grow with
+ * the number of submitted tasks.
+ */
+public enum ExecutorPool {
+    /**
+     * Loads data in the background, e.g. the media list or the stored filter configs. A newer
+     * load supersedes the oldest queued one if the queue is full.
+     */
+    LOADING("loading", 1, 32, RejectionPolicy.DISCARD_OLDEST),
+    /**
+     * Prefetches data that is likely to be needed next, e.g. the index of the articles of a
+     * completed search. Prefetches may run for a long time and pause while more urgent work is
+     * running, so they have their own pool and do not delay loads. A newer prefetch supersedes
+     * the oldest queued one if the queue is full.
+     */
+    PREFETCH("prefetch", 1, 4, RejectionPolicy.DISCARD_OLDEST),
+    /**
+     * Runs the searches, previews and queries of the user interface.
+     */
+    SEARCH("search", 4, 16, RejectionPolicy.ABORT);
+
+    @NotNull
+    private final String poolName;
+    private final int maxThreads;
+    private final int queueCapacity;
+    @NotNull
+    private final RejectionPolicy rejectionPolicy;
+
+    ExecutorPool(@NotNull String poolName, int maxThreads, int queueCapacity,
+                 @NotNull RejectionPolicy rejectionPolicy) {
+        this.poolName = poolName;
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    /**
+     * Returns the name of this pool, which is also the prefix of the names of its threads.
+     *
+     * @return the name of this pool
+     */
+    public @NotNull String getPoolName() {
+        return poolName;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public @NotNull RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+}
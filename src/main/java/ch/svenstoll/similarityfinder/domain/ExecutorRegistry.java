@@ -0,0 +1,170 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import com.google.inject.Singleton;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the thread pools of the application (see {@link ExecutorPool}), so background
+ * tasks share a bounded number of threads instead of starting new executors that are never
+ * shut down. Every pool is created when it is used for the first time. Its threads are daemon
+ * threads that stop after {@link #KEEP_ALIVE_SECONDS} without tasks.
+ * <p>
+ * The queue depth, the number of active threads and the number of rejected tasks of every pool
+ * are available to monitor the concurrency of the application. All pools are shut down by
+ * {@link #shutdown()} when the application stops. All methods of this class are thread safe.
+ * </p>
+ */
+@Singleton
+public final class ExecutorRegistry {
+    public static final long KEEP_ALIVE_SECONDS = 60;
+    public static final long SHUTDOWN_TIMEOUT_MILLIS = 1000;
+
+    @NotNull
+    private final Map<ExecutorPool, ThreadPoolExecutor> executors
+            = new EnumMap<>(ExecutorPool.class);
+    @NotNull
+    private final Map<ExecutorPool, AtomicLong> rejectedTasks = new EnumMap<>(ExecutorPool.class);
+    private boolean shutdown = false;
+
+    /**
+     * Constructs an {@code ExecutorRegistry} without any running pools.
+     */
+    public ExecutorRegistry() {
+        for (ExecutorPool pool : ExecutorPool.values()) {
+            rejectedTasks.put(pool, new AtomicLong());
+        }
+    }
+
+    /**
+     * Returns the executor of the specified pool. Tasks that can not be accepted are handled
+     * according to the {@link RejectionPolicy} of the pool. After {@link #shutdown()}, all
+     * tasks are rejected.
+     *
+     * @param pool the pool whose executor should be returned
+     * @return the {@code ExecutorService} of the {@code pool}
+     * @throws IllegalArgumentException if {@code pool} was {@code null}
+     */
+    public synchronized @NotNull ExecutorService getExecutor(@NotNull ExecutorPool pool) {
+        Validate.notNull(pool, "Pool must not be null.");
+
+        ThreadPoolExecutor executor = executors.get(pool);
+        if (executor == null) {
+            executor = createExecutor(pool);
+            if (shutdown) {
+                executor.shutdown();
+            }
+            executors.put(pool, executor);
+        }
+        return executor;
+    }
+
+    /**
+     * Returns the number of tasks of the specified pool that are waiting for a thread.
+     *
+     * @param pool the pool to be monitored
+     * @return the number of queued tasks
+     * @throws IllegalArgumentException if {@code pool} was {@code null}
+     */
+    public synchronized int getQueueDepth(@NotNull ExecutorPool pool) {
+        Validate.notNull(pool, "Pool must not be null.");
+        ThreadPoolExecutor executor = executors.get(pool);
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    /**
+     * Returns the approximate number of threads of the specified pool that are running tasks.
+     *
+     * @param pool the pool to be monitored
+     * @return the number of active threads
+     * @throws IllegalArgumentException if {@code pool} was {@code null}
+     */
+    public synchronized int getActiveThreadCount(@NotNull ExecutorPool pool) {
+        Validate.notNull(pool, "Pool must not be null.");
+        ThreadPoolExecutor executor = executors.get(pool);
+        return executor != null ? executor.getActiveCount() : 0;
+    }
+
+    /**
+     * Returns the number of tasks the specified pool has rejected or discarded so far.
+     *
+     * @param pool the pool to be monitored
+     * @return the number of rejected tasks
+     * @throws IllegalArgumentException if {@code pool} was {@code null}
+     */
+    public long getRejectedTaskCount(@NotNull ExecutorPool pool) {
+        Validate.notNull(pool, "Pool must not be null.");
+        return rejectedTasks.get(pool).get();
+    }
+
+    /**
+     * Shuts down all pools. Running tasks are interrupted and queued tasks are discarded. This
+     * method waits up to {@link #SHUTDOWN_TIMEOUT_MILLIS} for the threads to stop.
+     */
+    public void shutdown() {
+        Map<ExecutorPool, ThreadPoolExecutor> executorsToStop;
+        synchronized (this) {
+            shutdown = true;
+            executorsToStop = new EnumMap<>(executors);
+        }
+
+        executorsToStop.values().forEach(ExecutorService::shutdownNow);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+        try {
+            for (ThreadPoolExecutor executor : executorsToStop.values()) {
+                executor.awaitTermination(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private @NotNull ThreadPoolExecutor createExecutor(@NotNull ExecutorPool pool) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable,
+                    pool.getPoolName() + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(pool.getMaxThreads(),
+                pool.getMaxThreads(), KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(pool.getQueueCapacity()), threadFactory,
+                createRejectionHandler(pool));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private @NotNull RejectedExecutionHandler createRejectionHandler(@NotNull ExecutorPool pool) {
+        RejectedExecutionHandler handler;
+        switch (pool.getRejectionPolicy()) {
+            case CALLER_RUNS:
+                handler = new ThreadPoolExecutor.CallerRunsPolicy();
+                break;
+            case DISCARD_OLDEST:
+                handler = new ThreadPoolExecutor.DiscardOldestPolicy();
+                break;
+            default:
+                handler = new ThreadPoolExecutor.AbortPolicy();
+                break;
+        }
+        AtomicLong rejected = rejectedTasks.get(pool);
+        return (runnable, executor) -> {
+            rejected.incrementAndGet();
+            handler.rejectedExecution(runnable, executor);
+        };
+    }
+}
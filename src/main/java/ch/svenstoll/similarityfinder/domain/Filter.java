@@ -17,13 +17,22 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
 
 /**
  * A class that can be used to configure articles among which similar contents should be detected.
@@ -32,15 +41,27 @@ import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILA
 public final class Filter {
     public static final int DEFAULT_SIMILARITY_THRESHOLD = MAX_SIMILARITY_INDEX;
     @Nullable
-    public static final LocalDate DEFAULT_FROM_DATE = null;
+    public static final LocalDate DEFAULT_FROM_DATE = FilterCriteria.DEFAULT_FROM_DATE;
     @Nullable
-    public static final LocalDate DEFAULT_TO_DATE = null;
+    public static final LocalDate DEFAULT_TO_DATE = FilterCriteria.DEFAULT_TO_DATE;
     @Nullable
-    public static final String DEFAULT_TITLE = "";
-    public static final int DEFAULT_MIN_LETTERS = 0;
-    public static final boolean DEFAULT_RELEVANT_ONLY = false;
+    public static final String DEFAULT_TITLE = FilterCriteria.DEFAULT_TITLE;
+    public static final int DEFAULT_MIN_LETTERS = FilterCriteria.DEFAULT_MIN_LETTERS;
+    public static final boolean DEFAULT_RELEVANT_ONLY = FilterCriteria.DEFAULT_RELEVANT_ONLY;
+    public static final boolean DEFAULT_LIVE_THRESHOLD = false;
+    /**
+     * The default time budget of a search in seconds. A time budget of {@code 0} means that
+     * searches are not limited in time.
+     */
+    public static final int DEFAULT_TIME_BUDGET = 0;
+    /**
+     * The lowest similarity threshold the results of a search in live threshold mode can be
+     * updated to without searching again, unless the search itself used a lower threshold.
+     */
+    public static final double LIVE_THRESHOLD_FLOOR = 0.5;
     public static final double MIN_PROGRESS = 0;
     public static final double MAX_PROGRESS = 1;
+    public static final double INDETERMINATE_PROGRESS = -1;
 
     @NotNull
     private final Settings settings;
@@ -50,6 +71,31 @@ public final class Filter {
     private final FilteredSimilarities filteredSimilarities;
     @NotNull
     private final SimilarityDetector similarityDetector;
+    @NotNull
+    private final ResultCache resultCache;
+    @NotNull
+    private final PriorityScheduler scheduler;
+    @NotNull
+    private final ExecutorRegistry executorRegistry;
+    @NotNull
+    private final SearchEstimator searchEstimator = new SearchEstimator();
+    @NotNull
+    private final SingleFlight<SearchKey, List<Set<Article>>> searches = new SingleFlight<>();
+    @NotNull
+    private final Set<CancellationSignal> runningSearches = ConcurrentHashMap.newKeySet();
+    /**
+     * The key of the most recently started search. Only this search publishes its state and
+     * result, so a slower search that has been started earlier can not overwrite them.
+     */
+    @NotNull
+    private final AtomicReference<SearchKey> latestSearch = new AtomicReference<>();
+    @NotNull
+    private final Object publishLock = new Object();
+    /**
+     * The signal of the running prefetch of the query index or {@code null} if there is none.
+     */
+    @Nullable
+    private volatile CancellationSignal prefetchSignal = null;
 
     @NotNull
     private final ListProperty<Medium> media = new SimpleListProperty<>();
@@ -72,9 +118,28 @@ public final class Filter {
     private final IntegerProperty minLetters
             = new SimpleIntegerProperty(DEFAULT_MIN_LETTERS);
     @NotNull
+    private final BooleanProperty liveThreshold
+            = new SimpleBooleanProperty(DEFAULT_LIVE_THRESHOLD);
+    @NotNull
+    private final IntegerProperty timeBudget
+            = new SimpleIntegerProperty(DEFAULT_TIME_BUDGET);
+    @NotNull
     private final DoubleProperty progress
             = new SimpleDoubleProperty(MIN_PROGRESS);
 
+    @NotNull
+    private volatile CancellationSignal cancellationSignal = new CancellationSignal();
+    @NotNull
+    private volatile PipelineMetrics pipelineMetrics = new PipelineMetrics();
+    @Nullable
+    private volatile LiveResult liveResult = null;
+    @Nullable
+    private volatile SupersetRun supersetRun = null;
+    @Nullable
+    private volatile PartialDetection partialDetection = null;
+    @Nullable
+    private volatile QueryIndex queryIndex = null;
+
     /**
      * Construct a {@code Filter} instance.
      * <p>
@@ -89,22 +154,39 @@ public final class Filter {
      * @param similarityDetector a {@code SimilarityDetector} used to detect articles with
      *                           similar contents
      * @param settings the {@code Settings} instance used throughout the application
+     * @param resultCache a {@code ResultCache} used to return repeated searches instantly
+     * @param scheduler the {@code PriorityScheduler} of the application. Searches are run as
+     *                  {@link WorkPriority#INTERACTIVE} work, so background work pauses while a
+     *                  search is running. The index of {@link #findSimilarArticles(Article)} is
+     *                  prefetched as {@link WorkPriority#PREFETCH} work after a search.
+     * @param executorRegistry the {@code ExecutorRegistry} whose {@link ExecutorPool#LOADING}
+     *                         pool loads the media list and whose {@link
+     *                         ExecutorPool#PREFETCH} pool prefetches the index of {@link
+     *                         #findSimilarArticles(Article)}
      * @throws IllegalArgumentException if any parameter was {@code null}
      */
     @Inject
     public Filter(@NotNull DatabaseAccess databaseAccess,
                   @NotNull FilteredSimilarities filteredSimilarities,
                   @NotNull SimilarityDetector similarityDetector,
-                  @NotNull Settings settings) {
+                  @NotNull Settings settings,
+                  @NotNull ResultCache resultCache,
+                  @NotNull PriorityScheduler scheduler,
+                  @NotNull ExecutorRegistry executorRegistry) {
         this.databaseAccess = Validate.notNull(databaseAccess, "DatabaseAccessImpl must not be null.");
         this.filteredSimilarities
                 = Validate.notNull(filteredSimilarities, "FilteredSimilarities must not be null.");
         this.similarityDetector
                 = Validate.notNull(similarityDetector, "SimilarityDetector must not be null.");
         this.settings = Validate.notNull(settings, "Settings must not be null.");
+        this.resultCache = Validate.notNull(resultCache, "ResultCache must not be null.");
+        this.scheduler = Validate.notNull(scheduler, "Scheduler must not be null.");
+        this.executorRegistry
+                = Validate.notNull(executorRegistry, "ExecutorRegistry must not be null.");
 
-        similarityDetector.addProgressListener(event -> updateFilterProgress(event.getProgress()));
         settings.addSettingsUpdatedListener(event -> updateMediaListAsync());
+        similarityThreshold.addListener((observable, oldValue, newValue) ->
+                updateSimilaritiesLive(newValue.doubleValue()));
         if (!settings.isFirstLaunch()) {
             updateMediaListAsync();
         }
@@ -127,6 +209,27 @@ public final class Filter {
         }
     }
 
+    /**
+     * Runs the {@code detection} while the progress events of the {@code SimilarityDetector}
+     * that belong to the specified {@code signal} are passed to the {@code update}. Since the
+     * {@code SimilarityDetector} is shared, the events of other detections are ignored.
+     */
+    private <T> T detectWithProgress(@NotNull CancellationSignal signal,
+                                     @NotNull DoubleConsumer update,
+                                     @NotNull Supplier<T> detection) {
+        DetectionProgressListener listener = event -> {
+            if (event.getSignal() == signal) {
+                update.accept(event.getProgress());
+            }
+        };
+        similarityDetector.addProgressListener(listener);
+        try {
+            return detection.get();
+        } finally {
+            similarityDetector.removeProgressListener(listener);
+        }
+    }
+
     /**
      * Tries to update the {@link #media} property by querying the database asynchronously.
      */
@@ -142,45 +245,637 @@ public final class Filter {
             }
         };
 
-        Executor executor = Executors.newSingleThreadExecutor();
-        executor.execute(worker);
+        executorRegistry.getExecutor(ExecutorPool.LOADING).execute(worker);
     }
 
     /**
      * Finds articles with similar contents that match with the various properties of this {@code
      * Filter}.
      * <p>
-     * Since this method might take some time to complete, this will initialize a new progress
-     * cycle. Firstly, the {@link #progress} property is reset and will then be constantly
-     * updated, because this {@code Filter} is registered as a {@code DetectionProgressListener}.
+     * The articles are passed to the {@code SimilarityDetector} while they are still being
+     * queried, so querying the database, generating the content vectors and detecting similar
+     * contents overlap. The metrics of these stages are available through
+     * {@link #getPipelineMetrics()}. Since the number of articles is not known in advance, the
+     * {@link #progress} property is indeterminate until the search is complete.
+     * </p>
+     * <p>
+     * If the {@link #liveThreshold} mode is enabled, all pairs whose similarity index reaches
+     * the lower one of {@link #LIVE_THRESHOLD_FLOOR} and the similarity threshold are kept in a
+     * {@link SimilarityDendrogram}. Subsequent changes of the similarity threshold then update
+     * the {@code FilteredSimilarities} right away without searching again, as long as the
+     * other properties of this {@code Filter} remain unchanged.
+     * </p>
+     * <p>
+     * Unless the live threshold mode is enabled, the result is cached in the {@code
+     * ResultCache}. Repeating a search with the same properties returns the cached result as
+     * long as the data version of the database has not changed.
+     * </p>
+     * <p>
+     * If the properties of this {@code Filter} have only been narrowed since the last search
+     * (see {@link FilterCriteria#isRestrictionOf(FilterCriteria)}) and neither the similarity
+     * threshold nor the data version have changed, the result is derived from the articles of
+     * the last search in memory without querying the database again (see {@link
+     * IncrementalSimilarityDetector#getClusters(java.util.function.Predicate)}).
+     * </p>
+     * <p>
+     * This method is thread safe. Concurrent searches with the same properties share one
+     * search (see {@link SingleFlight}), while searches with different properties run in
+     * parallel, each with its own detection. Only the most recently started search updates
+     * the {@code FilteredSimilarities}, the {@link #progress} and the other state of this
+     * {@code Filter}. Running searches can be cancelled using {@link #cancel()}.
      * </p>
      * <p>
-     * This method is thread safe.
+     * If a {@link #timeBudget} is set and the live threshold mode is disabled, an {@link
+     * AnytimeSimilarityDetector} is used. When the time budget runs out, the clusters found so
+     * far are returned and the partial result is available through {@link
+     * #getPartialResult()} until the detection is continued by {@link #continueDetection()}
+     * or another search is started.
      * </p>
      * @return a list of sets that contain articles with similar contents.
      * @throws MaxArticlesException if more articles are found than specified in the
+     *                              {@code Settings} instance of the application. The search
+     *                              is stopped as soon as the limit is exceeded, so the number
+     *                              of found articles is a lower bound.
+     * @throws DatabaseAccessException if the articles could not be queried or the search has
+     *                                 been cancelled while querying the articles
+     * @throws DetectionAbortedException if the search has been cancelled while detecting
+     *                                   similar contents
+     */
+    public List<Set<Article>> findArticlesWithSimilarContent() {
+        SearchKey key = currentSearchKey();
+        latestSearch.set(key);
+        // The running prefetch belongs to an older search, so it would be discarded anyway.
+        CancellationSignal prefetch = prefetchSignal;
+        if (prefetch != null) {
+            prefetch.cancel();
+        }
+        return searches.run(key, () -> {
+            CancellationSignal signal = new CancellationSignal();
+            runningSearches.add(signal);
+            try {
+                return scheduler.run(WorkPriority.INTERACTIVE, () -> search(key, signal));
+            } finally {
+                runningSearches.remove(signal);
+            }
+        });
+    }
+
+    /**
+     * Returns the key of a search with the current properties of this {@code Filter}.
+     */
+    private @NotNull SearchKey currentSearchKey() {
+        return new SearchKey(FilterCriteria.of(this), similarityThreshold.get(),
+                liveThreshold.get(), timeBudget.get());
+    }
+
+    /**
+     * Runs the {@code update} of the state of this {@code Filter} if the search with the
+     * specified {@code key} is the most recently started search.
+     *
+     * @return {@code true} if the {@code update} has been run
+     */
+    private boolean publish(@NotNull SearchKey key, @NotNull Runnable update) {
+        synchronized (publishLock) {
+            if (!key.equals(latestSearch.get())) {
+                return false;
+            }
+            update.run();
+            return true;
+        }
+    }
+
+    /**
+     * Publishes the {@code result} of the search with the specified {@code key} to the {@code
+     * FilteredSimilarities} if it is the most recently started search.
+     */
+    private void publishResult(@NotNull SearchKey key, @NotNull List<Set<Article>> result) {
+        publish(key, () -> {
+            filteredSimilarities.setSimilarities(FXCollections.observableArrayList(result));
+            progress.set(1);
+        });
+    }
+
+    /**
+     * Runs a search of {@link #findArticlesWithSimilarContent()} with the specified properties.
+     * Only the properties of the {@code key} are used, so the properties of this {@code
+     * Filter} may change while the search is running. The metrics and the result are kept
+     * by this call and only published if no other search has been started since.
+     */
+    private @NotNull List<Set<Article>> search(@NotNull SearchKey key,
+                                               @NotNull CancellationSignal signal) {
+        long startNanos = System.nanoTime();
+        PipelineMetrics metrics = new PipelineMetrics();
+        publish(key, () -> {
+            pipelineMetrics = metrics;
+            progress.set(INDETERMINATE_PROGRESS);
+            liveResult = null;
+            partialDetection = null;
+        });
+
+        FilterCriteria criteria = key.criteria;
+        int maxArticles = settings.getMaxArticles();
+        AtomicInteger foundArticles = new AtomicInteger();
+
+        double threshold = key.threshold;
+
+        String dataVersion = key.liveThreshold ? null : queryDataVersion();
+        String cacheKey = dataVersion != null
+                ? ResultCache.createKey(criteria, threshold, dataVersion) : null;
+        if (cacheKey != null) {
+            List<Set<Article>> cached = resultCache.get(cacheKey);
+            if (cached != null) {
+                publishResult(key, cached);
+                return cached;
+            }
+
+            List<Set<Article>> derived = deriveFromSupersetRun(criteria, threshold, dataVersion);
+            if (derived != null) {
+                resultCache.put(cacheKey, derived);
+                publishResult(key, derived);
+                return derived;
+            }
+        }
+        if (key.timeBudget > 0 && !key.liveThreshold) {
+            List<Article> articles = databaseAccess.queryArticlesByCriteria(criteria, signal);
+            if (articles.size() > maxArticles) {
+                throw new MaxArticlesException(maxArticles, articles.size());
+            }
+            return runPartialDetection(key, new PartialDetection(criteria, threshold, cacheKey,
+                    new AnytimeSimilarityDetector(articles, threshold)), key.timeBudget, signal,
+                    startNanos);
+        }
+
+        // The query is stopped by the consumer as soon as there are too many articles, so
+        // neither the remaining articles are fetched nor is the detection completed. The
+        // detection of a stopped search is not kept for reuse.
+        ArticleStream stream = consumer -> databaseAccess.streamArticlesByCriteria(criteria,
+                signal, metrics, batch -> {
+                    int found = foundArticles.addAndGet(batch.size());
+                    if (found > maxArticles) {
+                        throw new MaxArticlesException(maxArticles, found);
+                    }
+                    consumer.accept(batch);
+                });
+
+        DoubleConsumer searchProgress
+                = newProgress -> publish(key, () -> updateFilterProgress(newProgress));
+        List<Set<Article>> result;
+        SimilarityDendrogram dendrogram = null;
+        IncrementalSimilarityDetector detection = null;
+        if (key.liveThreshold) {
+            dendrogram = detectWithProgress(signal, searchProgress, () ->
+                    similarityDetector.buildDendrogram(stream,
+                            Math.min(threshold, LIVE_THRESHOLD_FLOOR), signal));
+            result = dendrogram.cut(threshold);
+        } else {
+            detection = detectWithProgress(signal, searchProgress, () ->
+                    similarityDetector.detectIncrementally(stream, threshold,
+                            criteria::matches, signal));
+            synchronized (detection) {
+                result = detection.getClusters();
+            }
+        }
+
+        if (cacheKey != null) {
+            resultCache.put(cacheKey, result);
+        }
+        LiveResult newLiveResult = dendrogram != null ? new LiveResult(criteria, dendrogram) : null;
+        SupersetRun newSupersetRun = null;
+        if (cacheKey != null && detection != null) {
+            synchronized (detection) {
+                newSupersetRun = new SupersetRun(criteria, threshold, dataVersion, detection);
+            }
+        }
+        SupersetRun publishedSupersetRun = newSupersetRun;
+        List<Set<Article>> publishedResult = result;
+        boolean published = publish(key, () -> {
+            liveResult = newLiveResult;
+            supersetRun = publishedSupersetRun;
+            filteredSimilarities.setSimilarities(
+                    FXCollections.observableArrayList(publishedResult));
+            progress.set(1);
+        });
+        if (published && newSupersetRun != null) {
+            List<Article> articles;
+            synchronized (detection) {
+                articles = new ArrayList<>(detection.getIndex().getArticles());
+            }
+            prefetchQueryIndex(key, dataVersion, articles);
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds the index of {@link #findSimilarArticles(Article)} from the articles of a
+     * completed search in the background, so the first query for similar articles after the
+     * search does not wait for the database. The index is built as {@link
+     * WorkPriority#PREFETCH} work, which pauses while a search is running, and is discarded if
+     * another search has been started in the meantime.
+     */
+    private void prefetchQueryIndex(@NotNull SearchKey key, @NotNull String dataVersion,
+                                    @NotNull List<Article> articles) {
+        double threshold = Math.max(key.threshold, MIN_SIMILARITY_INDEX);
+        QueryIndex index = queryIndex;
+        if (index != null && dataVersion.equals(index.dataVersion)
+                && key.criteria.equals(index.criteria)
+                && index.service.getFloorThreshold() <= threshold) {
+            return;
+        }
+
+        CancellationSignal signal = new CancellationSignal();
+        prefetchSignal = signal;
+        Runnable worker = () -> {
+            try {
+                SimilarityService service = scheduler.run(WorkPriority.PREFETCH,
+                        () -> new SimilarityService(articles, threshold, () -> {
+                            if (signal.isCancelled()) {
+                                throw new DetectionAbortedException();
+                            }
+                            scheduler.yieldPoint(signal);
+                        }));
+                publish(key, () -> queryIndex = new QueryIndex(key.criteria, dataVersion,
+                        service));
+            } catch (DetectionAbortedException e) {
+                // Another search has been started, so the index is not needed anymore.
+            }
+        };
+
+        executorRegistry.getExecutor(ExecutorPool.PREFETCH).execute(worker);
+    }
+
+    /**
+     * Continues the detection of the last search whose time budget has run out. The detection
+     * runs for another {@link #timeBudget} or until it is complete if no time budget is set.
+     * <p>
+     * This method is thread safe. A running search can be cancelled using {@link #cancel()}.
+     * </p>
+     *
+     * @return a list of sets that contain articles with similar contents
+     * @throws IllegalStateException if there is no partial result of the current properties
+     *                               of this {@code Filter} (see {@link #getPartialResult()})
+     * @throws DetectionAbortedException if the detection has been cancelled
+     */
+    public synchronized @NotNull List<Set<Article>> continueDetection() {
+        PartialDetection detection = partialDetection;
+        if (getPartialResult() == null) {
+            throw new IllegalStateException("There is no partial result of the current filter "
+                    + "properties to be continued.");
+        }
+
+        SearchKey key = currentSearchKey();
+        latestSearch.set(key);
+        CancellationSignal signal = new CancellationSignal();
+        runningSearches.add(signal);
+        progress.set(INDETERMINATE_PROGRESS);
+        try {
+            return scheduler.run(WorkPriority.INTERACTIVE, () -> runPartialDetection(key,
+                    detection, timeBudget.get(), signal, System.nanoTime()));
+        } finally {
+            runningSearches.remove(signal);
+        }
+    }
+
+    /**
+     * Runs a partial detection for the rest of the current time budget and publishes its
+     * result if the search with the specified {@code key} is the most recently started search.
+     * The time spent since the start of the search, e.g. for querying the articles, is part of
+     * the time budget.
+     */
+    private @NotNull List<Set<Article>> runPartialDetection(@NotNull SearchKey key,
+                                                            @NotNull PartialDetection detection,
+                                                            int timeBudget,
+                                                            @NotNull CancellationSignal signal,
+                                                            long startNanos) {
+        long budgetNanos = Long.MAX_VALUE;
+        if (timeBudget > 0) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            budgetNanos = Math.max(1, TimeUnit.SECONDS.toNanos(timeBudget) - elapsedNanos);
+        }
+        PartialDetectionResult result = detection.detector.runFor(budgetNanos, signal);
+
+        detection.result = result;
+        if (result.isComplete() && detection.cacheKey != null) {
+            resultCache.put(detection.cacheKey, result.getClusters());
+        }
+        publish(key, () -> {
+            partialDetection = result.isComplete() ? null : detection;
+            filteredSimilarities.setSimilarities(
+                    FXCollections.observableArrayList(result.getClusters()));
+            progress.set(1);
+        });
+
+        return result.getClusters();
+    }
+
+    /**
+     * Returns the result of the last search if its time budget has run out before the
+     * detection was complete and the properties of this {@code Filter} have not changed since.
+     *
+     * @return the partial result or {@code null} if there is none
+     */
+    public @Nullable PartialDetectionResult getPartialResult() {
+        PartialDetection detection = partialDetection;
+        if (detection == null || Double.compare(detection.threshold, getSimilarityThreshold()) != 0
+                || !detection.criteria.equals(FilterCriteria.of(this))) {
+            return null;
+        }
+        return detection.result;
+    }
+
+    /**
+     * Queries the current data version of the database.
+     *
+     * @return the data version or {@code null} if it could not be queried, so the result must
+     *         neither be cached nor derived from the last search
+     */
+    private @Nullable String queryDataVersion() {
+        try {
+            return databaseAccess.queryDataVersion();
+        } catch (DatabaseAccessException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Derives the result of a search from the last search if the specified criteria are a
+     * restriction of the criteria of that search and the threshold and the data version are
+     * the same. The articles that meet the criteria are selected in memory and only the
+     * clusters that lose articles are clustered again.
+     *
+     * @return the derived result or {@code null} if it can not be derived
+     */
+    private @Nullable List<Set<Article>> deriveFromSupersetRun(@NotNull FilterCriteria criteria,
+                                                               double threshold,
+                                                               @NotNull String dataVersion) {
+        SupersetRun run = supersetRun;
+        if (run == null || Double.compare(run.threshold, threshold) != 0
+                || !run.dataVersion.equals(dataVersion) || !criteria.isRestrictionOf(run.criteria)) {
+            return null;
+        }
+        // The detection may be reused by a running search of the SimilarityDetector, which
+        // holds its monitor while adding a batch and does not make it the last detection
+        // again until it is complete.
+        synchronized (run.detection) {
+            if (run.detection != similarityDetector.getLastDetection()
+                    || run.detection.getIndex().size() != run.size) {
+                return null;
+            }
+            return run.detection.getClusters(criteria::matches);
+        }
+    }
+
+    /**
+     * Updates the {@code FilteredSimilarities} to the clusters of the specified similarity
+     * threshold if the last search has been executed in {@link #liveThreshold} mode with the
+     * current properties of this {@code Filter} and the threshold is not below the floor
+     * threshold of that search. Otherwise, the similarities remain unchanged until the next
+     * search.
+     *
+     * @param threshold the new similarity threshold
+     */
+    private void updateSimilaritiesLive(double threshold) {
+        LiveResult result = liveResult;
+        if (result == null || !liveThreshold.get() || !result.dendrogram.canCut(threshold)
+                || !result.criteria.equals(FilterCriteria.of(this))) {
+            return;
+        }
+        filteredSimilarities.setSimilarities(
+                FXCollections.observableArrayList(result.dendrogram.cut(threshold)));
+    }
+
+    /**
+     * Finds the articles selected by {@code queryCriteria} whose contents are similar to an
+     * article selected by {@code referenceCriteria}, e.g. the articles of today that match an
+     * article of the archive. Only pairs of a query article and a reference article are
+     * compared (see {@link SimilarityDetector#joinArticlesWithSimilarContents(Collection,
+     * Collection, double, CancellationSignal)}). The similarity threshold of this {@code Filter}
+     * is used.
+     * <p>
+     * This method is thread safe. A running search can be cancelled using {@link #cancel()}.
+     * </p>
+     *
+     * @param queryCriteria the criteria that select the articles to be matched
+     * @param referenceCriteria the criteria that select the articles to match against
+     * @return the edges of all similar pairs, each from the query article to the reference
+     *         article, in descending order of their similarity index
+     * @throws MaxArticlesException if more articles are found on both sides together than
+     *                              specified in the {@code Settings} instance of the application
+     * @throws DatabaseAccessException if the articles could not be queried or the search has
+     *                                 been cancelled while querying the articles
+     * @throws DetectionAbortedException if the search has been cancelled while comparing the
+     *                                   articles
+     * @throws IllegalArgumentException if {@code queryCriteria} or {@code referenceCriteria}
+     *                                  was {@code null}
+     */
+    public synchronized @NotNull List<SimilarityEdge> findArticlesMatchingReference(
+            @NotNull FilterCriteria queryCriteria, @NotNull FilterCriteria referenceCriteria) {
+        Validate.notNull(queryCriteria, "QueryCriteria must not be null.");
+        Validate.notNull(referenceCriteria, "ReferenceCriteria must not be null.");
+
+        CancellationSignal signal = new CancellationSignal();
+        cancellationSignal = signal;
+        progress.set(INDETERMINATE_PROGRESS);
+
+        List<Article> queryArticles = databaseAccess.queryArticlesByCriteria(queryCriteria,
+                signal);
+        List<Article> referenceArticles = databaseAccess.queryArticlesByCriteria(
+                referenceCriteria, signal);
+        int maxArticles = settings.getMaxArticles();
+        int foundArticles = queryArticles.size() + referenceArticles.size();
+        if (foundArticles > maxArticles) {
+            throw new MaxArticlesException(maxArticles, foundArticles);
+        }
+
+        double threshold = similarityThreshold.get();
+        List<SimilarityEdge> result = detectWithProgress(signal, this::updateFilterProgress,
+                () -> similarityDetector.joinArticlesWithSimilarContents(queryArticles,
+                        referenceArticles, threshold, signal));
+
+        progress.set(1);
+
+        return result;
+    }
+
+    /**
+     * Finds the {@code k} pairs of articles with the most similar contents among the articles
+     * selected by the current properties of this {@code Filter}. The similarity threshold is
+     * not used (see {@link SimilarityDetector#findMostSimilarPairs(Collection, int,
+     * CancellationSignal)}).
+     * <p>
+     * This method is thread safe. A running search can be cancelled using {@link #cancel()}.
+     * </p>
+     *
+     * @param k the maximum number of pairs to be returned
+     * @return the edges of at most {@code k} pairs in descending order of their similarity
+     *         index
+     * @throws MaxArticlesException if more articles are found than specified in the
      *                              {@code Settings} instance of the application
+     * @throws DatabaseAccessException if the articles could not be queried or the search has
+     *                                 been cancelled while querying the articles
+     * @throws DetectionAbortedException if the search has been cancelled while comparing the
+     *                                   articles
+     * @throws IllegalArgumentException if {@code k} was not positive
      */
-    public synchronized List<Set<Article>> findArticlesWithSimilarContent() {
-        progress.set(0);
+    public synchronized @NotNull List<SimilarityEdge> findMostSimilarPairs(int k) {
+        Validate.isTrue(k > 0, "K must be positive.");
 
-        List<Article> filteredArticles;
-        filteredArticles = databaseAccess.queryArticles(this);
+        CancellationSignal signal = new CancellationSignal();
+        cancellationSignal = signal;
+        progress.set(INDETERMINATE_PROGRESS);
 
-        if (filteredArticles.size() > settings.getMaxArticles()) {
-            throw new MaxArticlesException(settings.getMaxArticles(),
-                    filteredArticles.size());
+        List<Article> articles = databaseAccess.queryArticlesByCriteria(FilterCriteria.of(this),
+                signal);
+        int maxArticles = settings.getMaxArticles();
+        if (articles.size() > maxArticles) {
+            throw new MaxArticlesException(maxArticles, articles.size());
         }
 
-        List<Set<Article>> result = similarityDetector.detectArticlesWithSimilarContents(
-                filteredArticles, similarityThreshold.get());
-        filteredSimilarities.setSimilarities(FXCollections.observableArrayList(result));
+        List<SimilarityEdge> result = detectWithProgress(signal, this::updateFilterProgress,
+                () -> similarityDetector.findMostSimilarPairs(articles, k, signal));
 
         progress.set(1);
 
         return result;
     }
 
+    /**
+     * Finds the articles whose contents are similar to the content of the specified article
+     * among the articles selected by the current properties of this {@code Filter}, e.g. to
+     * look up the articles that resemble an article of a search result. The articles are
+     * indexed by a {@code SimilarityService} once and the index is reused by further queries
+     * as long as the criteria and the data version remain the same and the similarity threshold
+     * is not lowered, so only the first query waits for the database.
+     * <p>
+     * This method is thread safe. A running query can be cancelled using {@link #cancel()}.
+     * </p>
+     *
+     * @param article the {@code Article} whose similar articles should be found
+     * @return the edges from the {@code article} to every similar article, the most similar
+     *         first
+     * @throws MaxArticlesException if more articles are found than specified in the
+     *                              {@code Settings} instance of the application
+     * @throws DatabaseAccessException if the articles could not be queried or the query has
+     *                                 been cancelled while querying the articles
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public synchronized @NotNull List<SimilarityEdge> findSimilarArticles(
+            @NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+        return scheduler.run(WorkPriority.INTERACTIVE, () -> findSimilarArticlesInIndex(article));
+    }
+
+    private @NotNull List<SimilarityEdge> findSimilarArticlesInIndex(@NotNull Article article) {
+
+        FilterCriteria criteria = FilterCriteria.of(this);
+        double threshold = Math.max(similarityThreshold.get(), MIN_SIMILARITY_INDEX);
+        String dataVersion = queryDataVersion();
+        QueryIndex index = queryIndex;
+        if (index == null || dataVersion == null || !dataVersion.equals(index.dataVersion)
+                || !criteria.equals(index.criteria)
+                || index.service.getFloorThreshold() > threshold) {
+            CancellationSignal signal = new CancellationSignal();
+            cancellationSignal = signal;
+            progress.set(INDETERMINATE_PROGRESS);
+
+            List<Article> articles = databaseAccess.queryArticlesByCriteria(criteria, signal);
+            int maxArticles = settings.getMaxArticles();
+            if (articles.size() > maxArticles) {
+                throw new MaxArticlesException(maxArticles, articles.size());
+            }
+            // The index is built for the current threshold, since a lower floor threshold
+            // leaves out fewer n-grams and makes every query verify more candidates.
+            index = new QueryIndex(criteria, dataVersion,
+                    new SimilarityService(articles, threshold));
+            queryIndex = dataVersion != null ? index : null;
+            progress.set(1);
+        }
+
+        List<SimilarityEdge> result = index.service.findSimilarToArticle(article.getId(),
+                threshold);
+        if (result != null) {
+            return result;
+        }
+        // The article is not selected by the criteria, so it is compared by its content.
+        return article.getContent() != null
+                ? index.service.findSimilarToText(article.getContent(), threshold)
+                : Collections.emptyList();
+    }
+
+    /**
+     * Previews the search of the current properties of this {@code Filter} within about
+     * {@link SearchEstimator#DEFAULT_TIME_LIMIT_NANOS} after the articles have been queried.
+     * The number of similar pairs, the mean number of similar articles per article and the
+     * runtime of the detection are extrapolated from samples (see {@link SearchEstimator}). In
+     * {@link #liveThreshold} mode, the runtime is estimated for the floor threshold the search
+     * would be executed with. The {@code FilteredSimilarities} remain unchanged.
+     * <p>
+     * This method is thread safe. A running preview can be cancelled using {@link #cancel()}.
+     * </p>
+     *
+     * @return the estimate of the search
+     * @throws DatabaseAccessException if the articles could not be queried or the preview has
+     *                                 been cancelled while querying the articles
+     * @throws DetectionAbortedException if the preview has been cancelled while sampling
+     */
+    public synchronized @NotNull SearchEstimate estimateSearch() {
+        CancellationSignal signal = new CancellationSignal();
+        cancellationSignal = signal;
+        progress.set(INDETERMINATE_PROGRESS);
+
+        List<Article> articles = databaseAccess.queryArticlesByCriteria(FilterCriteria.of(this),
+                signal);
+        double threshold = similarityThreshold.get();
+        boolean floorThreshold = liveThreshold.get() && threshold > LIVE_THRESHOLD_FLOOR;
+        // If the runtime is estimated separately, the time limit is shared by both estimates.
+        long timeLimitNanos = floorThreshold ? SearchEstimator.DEFAULT_TIME_LIMIT_NANOS / 2
+                : SearchEstimator.DEFAULT_TIME_LIMIT_NANOS;
+        SearchEstimate estimate = searchEstimator.estimate(articles, threshold, timeLimitNanos,
+                signal);
+        if (floorThreshold) {
+            SearchEstimate floorEstimate = searchEstimator.estimate(articles,
+                    LIVE_THRESHOLD_FLOOR, timeLimitNanos, signal);
+            estimate = new SearchEstimate(estimate.getArticleCount(), estimate.getSampledPairs(),
+                    estimate.getSimilarSampledPairs(), estimate.getSimilarPairs(),
+                    estimate.getSimilarArticlesPerArticle(), floorEstimate.getRuntimeNanos());
+        }
+
+        progress.set(1);
+
+        return estimate;
+    }
+
+    /**
+     * Cancels the searches that are currently executed by
+     * {@link #findArticlesWithSimilarContent()} or the other search methods. The running
+     * database queries are cancelled on the server and the similarity detections are stopped.
+     * This method is thread safe and has no effect if no search is running.
+     */
+    public void cancel() {
+        cancellationSignal.cancel();
+        runningSearches.forEach(CancellationSignal::cancel);
+    }
+
+    /**
+     * Returns the metrics of the stages of the most recently started search. The metrics are
+     * updated while the search is running.
+     *
+     * @return the {@code PipelineMetrics} of the most recently started search
+     */
+    public @NotNull PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+
+    /**
+     * Returns the cache of search results, e.g. to monitor its hit and miss rates.
+     *
+     * @return the {@code ResultCache} used by this {@code Filter}
+     */
+    public @NotNull ResultCache getResultCache() {
+        return resultCache;
+    }
+
     /**
      * Resets all filter properties except the filter progress to their default.
      */
@@ -192,6 +887,8 @@ public final class Filter {
         toDate.setValue(DEFAULT_TO_DATE);
         title.setValue(DEFAULT_TITLE);
         minLetters.setValue(DEFAULT_MIN_LETTERS);
+        liveThreshold.setValue(DEFAULT_LIVE_THRESHOLD);
+        timeBudget.setValue(DEFAULT_TIME_BUDGET);
     }
 
     /**
@@ -313,7 +1010,156 @@ public final class Filter {
         this.minLetters.set(minLetters);
     }
 
+    public boolean isLiveThreshold() {
+        return liveThreshold.get();
+    }
+
+    public @NotNull BooleanProperty liveThresholdProperty() {
+        return liveThreshold;
+    }
+
+    public void setLiveThreshold(boolean liveThreshold) {
+        this.liveThreshold.set(liveThreshold);
+    }
+
+    public int getTimeBudget() {
+        return timeBudget.get();
+    }
+
+    public @NotNull IntegerProperty timeBudgetProperty() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(int timeBudget) {
+        this.timeBudget.set(timeBudget);
+    }
+
     public @NotNull DoubleProperty progressProperty() {
         return progress;
     }
+
+    /**
+     * An {@code AnytimeSimilarityDetector} whose time budget has run out together with the
+     * parameters of its search, so it can be continued.
+     */
+    private static final class PartialDetection {
+        @NotNull
+        private final FilterCriteria criteria;
+        private final double threshold;
+        @Nullable
+        private final String cacheKey;
+        @NotNull
+        private final AnytimeSimilarityDetector detector;
+        @Nullable
+        private volatile PartialDetectionResult result = null;
+
+        PartialDetection(@NotNull FilterCriteria criteria, double threshold,
+                         @Nullable String cacheKey, @NotNull AnytimeSimilarityDetector detector) {
+            this.criteria = criteria;
+            this.threshold = threshold;
+            this.cacheKey = cacheKey;
+            this.detector = detector;
+        }
+    }
+
+    /**
+     * The properties of a search of {@link #findArticlesWithSimilarContent()}. Searches with
+     * equal keys have equal results, as long as the data of the database does not change.
+     */
+    private static final class SearchKey {
+        @NotNull
+        private final FilterCriteria criteria;
+        private final double threshold;
+        private final boolean liveThreshold;
+        private final int timeBudget;
+
+        SearchKey(@NotNull FilterCriteria criteria, double threshold, boolean liveThreshold,
+                  int timeBudget) {
+            this.criteria = criteria;
+            this.threshold = threshold;
+            this.liveThreshold = liveThreshold;
+            this.timeBudget = timeBudget;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SearchKey that = (SearchKey) o;
+            return Double.compare(that.threshold, threshold) == 0
+                    && liveThreshold == that.liveThreshold
+                    && timeBudget == that.timeBudget
+                    && criteria.equals(that.criteria);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(criteria, threshold, liveThreshold, timeBudget);
+        }
+    }
+
+    /**
+     * The detection of the last search together with the parameters of that search, so the
+     * results of narrower searches can be derived from it.
+     */
+    private static final class SupersetRun {
+        @NotNull
+        private final FilterCriteria criteria;
+        private final double threshold;
+        @NotNull
+        private final String dataVersion;
+        @NotNull
+        private final IncrementalSimilarityDetector detection;
+        // The detection is updated in place by later detections, which changes its size.
+        private final int size;
+
+        SupersetRun(@NotNull FilterCriteria criteria, double threshold,
+                    @NotNull String dataVersion, @NotNull IncrementalSimilarityDetector detection) {
+            this.criteria = criteria;
+            this.threshold = threshold;
+            this.dataVersion = dataVersion;
+            this.detection = detection;
+            this.size = detection.getIndex().size();
+        }
+    }
+
+    /**
+     * The {@code SimilarityService} of the articles that similar articles are looked up among
+     * together with the criteria and the data version these articles have been queried with.
+     */
+    private static final class QueryIndex {
+        @NotNull
+        private final FilterCriteria criteria;
+        @Nullable
+        private final String dataVersion;
+        @NotNull
+        private final SimilarityService service;
+
+        QueryIndex(@NotNull FilterCriteria criteria, @Nullable String dataVersion,
+                   @NotNull SimilarityService service) {
+            this.criteria = criteria;
+            this.dataVersion = dataVersion;
+            this.service = service;
+        }
+    }
+
+    /**
+     * The {@code SimilarityDendrogram} of a search in live threshold mode together with the
+     * criteria of that search.
+     */
+    private static final class LiveResult {
+        @NotNull
+        private final FilterCriteria criteria;
+        @NotNull
+        private final SimilarityDendrogram dendrogram;
+
+        LiveResult(@NotNull FilterCriteria criteria, @NotNull SimilarityDendrogram dendrogram) {
+            this.criteria = criteria;
+            this.dendrogram = dendrogram;
+        }
+    }
 }
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-import static ch.svenstoll.similarityfinder.domain.Filter.*;
+import static ch.svenstoll.similarityfinder.domain.FilterCriteria.*;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
 
 /**
  * A class that can be used to store the state of a {@code Filter} instance. In opposite to
@@ -24,7 +25,7 @@ public final class FilterConfig {
     private String name;
     @Nullable
     private LocalDateTime lastEdited;
-    private double similarityThreshold = DEFAULT_SIMILARITY_THRESHOLD;
+    private double similarityThreshold = MAX_SIMILARITY_INDEX;
     private boolean relevantOnly = DEFAULT_RELEVANT_ONLY;
     @Nullable
     private List<String> selectedMedia = new ArrayList<>();
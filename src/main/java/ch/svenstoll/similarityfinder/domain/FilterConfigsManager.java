@@ -17,8 +17,6 @@ import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 
 import java.time.LocalDateTime;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * A class that manages various filter configs.
@@ -30,6 +28,8 @@ public final class FilterConfigsManager {
     @NotNull
     private final Filter filter;
     @NotNull
+    private final ExecutorRegistry executorRegistry;
+    @NotNull
     private final ListProperty<FilterConfig> filterConfigs = new SimpleListProperty<>();
 
     /**
@@ -39,14 +39,19 @@ public final class FilterConfigsManager {
      *                            retrieve and store filter configs
      * @param filter the {@code Filter} that is used are used to generate and restore filter
      *               configs
+     * @param executorRegistry the {@code ExecutorRegistry} whose {@link ExecutorPool#LOADING}
+     *                         pool retrieves the stored filter configs
      * @throws IllegalArgumentException if any parameter was {@code null}
      */
     @Inject
     public FilterConfigsManager(@NotNull FilterConfigsAccess filterConfigsAccess,
-                                @NotNull Filter filter) {
+                                @NotNull Filter filter,
+                                @NotNull ExecutorRegistry executorRegistry) {
         this.filterConfigsAccess = Validate.notNull(
                 filterConfigsAccess, "FilterConfigAccess must not be null.");
         this.filter = Validate.notNull(filter, "Filter must not be null.");
+        this.executorRegistry
+                = Validate.notNull(executorRegistry, "ExecutorRegistry must not be null.");
 
         retrieveFilterConfigsAsync();
     }
@@ -65,8 +70,7 @@ public final class FilterConfigsManager {
             }
         };
 
-        Executor executor = Executors.newSingleThreadExecutor();
-        executor.execute(worker);
+        executorRegistry.getExecutor(ExecutorPool.LOADING).execute(worker);
     }
 
     /**
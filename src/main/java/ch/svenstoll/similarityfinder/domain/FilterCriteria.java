@@ -0,0 +1,366 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * An immutable snapshot of the criteria of a {@code Filter} that select the articles among
+ * which similar contents should be detected. In opposite to the {@code Filter} class, no JavaFX
+ * properties are used, so that the criteria can be passed between threads and evaluated locally
+ * without a database query.
+ */
+public final class FilterCriteria {
+    @Nullable
+    public static final LocalDate DEFAULT_FROM_DATE = null;
+    @Nullable
+    public static final LocalDate DEFAULT_TO_DATE = null;
+    @NotNull
+    public static final String DEFAULT_TITLE = "";
+    public static final int DEFAULT_MIN_LETTERS = 0;
+    public static final boolean DEFAULT_RELEVANT_ONLY = false;
+
+    @NotNull
+    private final SortedSet<String> media;
+    @Nullable
+    private final LocalDate fromDate;
+    @Nullable
+    private final LocalDate toDate;
+    @NotNull
+    private final String title;
+    private final int minLetters;
+    private final boolean relevantOnly;
+
+    /**
+     * Constructs a {@code FilterCriteria} instance.
+     *
+     * @param media the names of the media whose articles should be selected. If empty, the
+     *              articles of all media will be selected.
+     * @param fromDate the earliest publication date of the selected articles or {@code null}
+     * @param toDate the latest publication date of the selected articles or {@code null}
+     * @param title a text that must be contained in the title of the selected articles (case
+     *              insensitive). The SQL wildcards {@code %} and {@code _} are supported.
+     * @param minLetters the minimum number of letters of the content of the selected articles
+     * @param relevantOnly whether only articles marked as relevant should be selected
+     * @throws IllegalArgumentException if {@code media} was {@code null} or contained {@code
+     *                                  null} elements
+     */
+    public FilterCriteria(@NotNull Collection<String> media, @Nullable LocalDate fromDate,
+                          @Nullable LocalDate toDate, @Nullable String title, int minLetters,
+                          boolean relevantOnly) {
+        Validate.notNull(media, "Media must not be null.");
+        Validate.noNullElements(media, "Media must not contain null elements.");
+
+        this.media = Collections.unmodifiableSortedSet(new TreeSet<>(media));
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.title = title != null ? title : "";
+        this.minLetters = minLetters;
+        this.relevantOnly = relevantOnly;
+    }
+
+    /**
+     * Creates a {@code FilterCriteria} instance from the current properties of a {@code Filter}.
+     *
+     * @param filter the {@code Filter} whose properties should be used
+     * @return the criteria of the {@code filter}
+     * @throws IllegalArgumentException if {@code filter} was {@code null}
+     */
+    public static @NotNull FilterCriteria of(@NotNull Filter filter) {
+        Validate.notNull(filter, "Filter must not be null.");
+        return new FilterCriteria(filter.getNamesOfSelectedMedia(), filter.getFromDate(),
+                filter.getToDate(), filter.getTitle(), filter.getMinLetters(),
+                filter.isRelevantOnly());
+    }
+
+    /**
+     * Creates a {@code FilterCriteria} instance from a saved {@code FilterConfig}, e.g. to run
+     * a saved search without a {@code Filter}.
+     *
+     * @param filterConfig the {@code FilterConfig} whose values should be used
+     * @return the criteria of the {@code filterConfig}
+     * @throws IllegalArgumentException if {@code filterConfig} was {@code null}
+     */
+    public static @NotNull FilterCriteria of(@NotNull FilterConfig filterConfig) {
+        Validate.notNull(filterConfig, "FilterConfig must not be null.");
+        List<String> selectedMedia = filterConfig.getSelectedMedia();
+        return new FilterCriteria(selectedMedia != null ? selectedMedia
+                : Collections.emptyList(), filterConfig.getFromDate(), filterConfig.getToDate(),
+                filterConfig.getTitle(), filterConfig.getMinLetters(),
+                filterConfig.isRelevantOnly());
+    }
+
+    /**
+     * Creates the narrowest criteria that every one of the specified criteria is a restriction
+     * of (see {@link #isRestrictionOf(FilterCriteria)}), so that a single query for them
+     * returns the articles of all of the specified criteria. The selected articles of each
+     * criteria can then be determined locally with {@link #matches(Article)}.
+     *
+     * @param criteria the criteria to be covered
+     * @return criteria that select a superset of the articles of every {@code criteria}
+     * @throws IllegalArgumentException if {@code criteria} was {@code null}, empty or contained
+     *                                  {@code null} elements
+     */
+    public static @NotNull FilterCriteria covering(@NotNull Collection<FilterCriteria> criteria) {
+        Validate.notEmpty(criteria, "Criteria must not be null or empty.");
+        Validate.noNullElements(criteria, "Criteria must not contain null elements.");
+
+        Iterator<FilterCriteria> iterator = criteria.iterator();
+        FilterCriteria first = iterator.next();
+        Set<String> media = new TreeSet<>(first.media);
+        boolean allMedia = first.media.isEmpty();
+        LocalDate fromDate = first.fromDate;
+        LocalDate toDate = first.toDate;
+        String title = first.title;
+        int minLetters = first.minLetters;
+        boolean relevantOnly = first.relevantOnly;
+
+        while (iterator.hasNext()) {
+            FilterCriteria other = iterator.next();
+            allMedia |= other.media.isEmpty();
+            media.addAll(other.media);
+            // A missing date does not restrict the articles, so it is covered by no date.
+            if (fromDate == null || other.fromDate == null) {
+                fromDate = null;
+            } else if (other.fromDate.isBefore(fromDate)) {
+                fromDate = other.fromDate;
+            }
+            if (toDate == null || other.toDate == null) {
+                toDate = null;
+            } else if (other.toDate.isAfter(toDate)) {
+                toDate = other.toDate;
+            }
+            if (!title.equalsIgnoreCase(other.title)) {
+                title = "";
+            }
+            minLetters = Math.min(minLetters, other.minLetters);
+            relevantOnly &= other.relevantOnly;
+        }
+        return new FilterCriteria(allMedia ? Collections.emptySet() : media, fromDate, toDate,
+                title, minLetters, relevantOnly);
+    }
+
+    /**
+     * Determines whether an {@code Article} meets these criteria.
+     *
+     * @param article the {@code Article} to be checked
+     * @return {@code true} if the {@code article} meets these criteria, otherwise {@code false}
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public boolean matches(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+
+        String content = article.getContent();
+        Medium medium = article.getMedium();
+        return matches(medium != null ? medium.getName() : null, article.getPublicationDate(),
+                article.getTitle(), content != null ? content.codePointCount(0, content.length())
+                        : -1, article.isRelevant());
+    }
+
+    /**
+     * Determines whether an article with the specified properties meets these criteria. The
+     * semantics are the same as the ones of the article query of the database, e.g. articles
+     * without a title or content are never selected, while articles without a publication date
+     * are not restricted by the date criteria.
+     *
+     * @param mediumName the name of the medium of the article or {@code null}
+     * @param publicationDate the publication date of the article or {@code null}
+     * @param articleTitle the title of the article or {@code null}
+     * @param contentLength the number of letters of the article content or a negative number if
+     *                      the article has no content
+     * @param relevant whether the article is marked as relevant
+     * @return {@code true} if the article meets these criteria, otherwise {@code false}
+     */
+    public boolean matches(@Nullable String mediumName, @Nullable LocalDate publicationDate,
+                           @Nullable String articleTitle, int contentLength, boolean relevant) {
+        if (!media.isEmpty() && (mediumName == null || !media.contains(mediumName))) {
+            return false;
+        }
+        if (publicationDate != null) {
+            if (fromDate != null && publicationDate.isBefore(fromDate)) {
+                return false;
+            }
+            if (toDate != null && publicationDate.isAfter(toDate)) {
+                return false;
+            }
+        }
+        if (articleTitle == null || !containsTitle(articleTitle)) {
+            return false;
+        }
+        if (contentLength < 0 || contentLength < minLetters) {
+            return false;
+        }
+        return !relevantOnly || relevant;
+    }
+
+    /**
+     * Determines whether these criteria are a restriction of other criteria, i.e. whether
+     * every article that meets these criteria also meets the {@code other} criteria. This is
+     * the case if these criteria select a subset of the media, a date range within the date
+     * range, a title that contains the title and at least as many letters of the {@code other}
+     * criteria, and relevant articles only if the {@code other} criteria do. Equal criteria are
+     * a restriction of each other.
+     * <p>
+     * The check is conservative: a title that contains SQL wildcards is only considered a
+     * restriction of the same title or an empty title.
+     * </p>
+     *
+     * @param other the criteria that might select a superset of the articles
+     * @return {@code true} if these criteria select a subset of the articles selected by the
+     *         {@code other} criteria, otherwise {@code false}
+     * @throws IllegalArgumentException if {@code other} was {@code null}
+     */
+    public boolean isRestrictionOf(@NotNull FilterCriteria other) {
+        Validate.notNull(other, "Other must not be null.");
+
+        // An empty set of media selects the articles of all media.
+        if (!other.media.isEmpty()
+                && (media.isEmpty() || !other.media.containsAll(media))) {
+            return false;
+        }
+        if (other.fromDate != null && (fromDate == null || fromDate.isBefore(other.fromDate))) {
+            return false;
+        }
+        if (other.toDate != null && (toDate == null || toDate.isAfter(other.toDate))) {
+            return false;
+        }
+        if (!isTitleRestrictionOf(other.title)) {
+            return false;
+        }
+        return minLetters >= other.minLetters && (relevantOnly || !other.relevantOnly);
+    }
+
+    /**
+     * Determines whether every article title that contains the {@link #title} of these
+     * criteria also contains the specified title.
+     */
+    private boolean isTitleRestrictionOf(@NotNull String otherTitle) {
+        if (otherTitle.isEmpty() || title.equalsIgnoreCase(otherTitle)) {
+            return true;
+        }
+        // Without wildcards, the other title is a plain text. If it is part of this title, its
+        // letters are matched literally and in sequence by every matching article title.
+        boolean containsWildcards = otherTitle.indexOf('%') >= 0
+                || otherTitle.indexOf('_') >= 0 || otherTitle.indexOf('\\') >= 0;
+        return !containsWildcards && title.toLowerCase().contains(otherTitle.toLowerCase());
+    }
+
+    /**
+     * Determines whether the specified article title contains the {@link #title} of these
+     * criteria in the same way as {@code LOWER(articleTitle) LIKE LOWER('%' || title || '%')}.
+     *
+     * @param articleTitle the title of an article
+     * @return {@code true} if {@code articleTitle} contains the title of these criteria
+     */
+    private boolean containsTitle(@NotNull String articleTitle) {
+        if (title.isEmpty()) {
+            return true;
+        }
+        return like(articleTitle.toLowerCase(), "%" + title.toLowerCase() + "%");
+    }
+
+    /**
+     * Matches a value against a SQL {@code LIKE} pattern. The wildcards {@code %} (any sequence
+     * of characters) and {@code _} (any single character) are supported and may be escaped
+     * with a backslash.
+     *
+     * @param value the value to be matched
+     * @param pattern the pattern to match against
+     * @return {@code true} if the whole {@code value} matches the {@code pattern}
+     */
+    private static boolean like(@NotNull String value, @NotNull String pattern) {
+        int v = 0;
+        int p = 0;
+        int starPattern = -1;
+        int starValue = -1;
+
+        while (v < value.length()) {
+            if (p < pattern.length()) {
+                char c = pattern.charAt(p);
+                if (c == '%') {
+                    starPattern = p++;
+                    starValue = v;
+                    continue;
+                }
+                boolean escaped = c == '\\' && p + 1 < pattern.length();
+                char literal = escaped ? pattern.charAt(p + 1) : c;
+                if ((!escaped && c == '_') || literal == value.charAt(v)) {
+                    p += escaped ? 2 : 1;
+                    v++;
+                    continue;
+                }
+            }
+            if (starPattern < 0) {
+                return false;
+            }
+            p = starPattern + 1;
+            v = ++starValue;
+        }
+
+        while (p < pattern.length() && pattern.charAt(p) == '%') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    public @NotNull SortedSet<String> getMedia() {
+        return media;
+    }
+
+    public @Nullable LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public @Nullable LocalDate getToDate() {
+        return toDate;
+    }
+
+    public @NotNull String getTitle() {
+        return title;
+    }
+
+    public int getMinLetters() {
+        return minLetters;
+    }
+
+    public boolean isRelevantOnly() {
+        return relevantOnly;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FilterCriteria that = (FilterCriteria) o;
+        return minLetters == that.minLetters &&
+                relevantOnly == that.relevantOnly &&
+                media.equals(that.media) &&
+                Objects.equals(fromDate, that.fromDate) &&
+                Objects.equals(toDate, that.toDate) &&
+                title.equals(that.title);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(media, fromDate, toDate, title, minLetters, relevantOnly);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "FilterCriteria{media=" + media + ", fromDate=" + fromDate + ", toDate=" + toDate
+                + ", title='" + title + "', minLetters=" + minLetters + ", relevantOnly="
+                + relevantOnly + "}";
+    }
+}
@@ -0,0 +1,242 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * Detects articles with similar contents one article at a time. Every added article is only
+ * compared with the similar candidates of a {@link SimilarityIndex} and then indexed itself,
+ * so the articles can be added as soon as they are available. The clusters are the same as
+ * those of {@link SimilarityDetector#detectArticlesWithSimilarContents(List, double)}.
+ * <p>
+ * Since the index and the clusters are kept, new articles can be added to the result of a
+ * previous detection at any time. Only the pairs that contain a new article are compared, so
+ * the costs of an update depend on the number of new articles rather than on the number of
+ * all articles.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public final class IncrementalSimilarityDetector {
+    @NotNull
+    private final SimilarityIndex index;
+    @NotNull
+    private final ArticleClusters clusters;
+    @Nullable
+    private Article firstArticle = null;
+
+    /**
+     * Constructs an {@code IncrementalSimilarityDetector} without any articles.
+     *
+     * @param similarityThreshold a number between (inclusive)
+     *                            {@link SimilarityDetector#MIN_SIMILARITY_INDEX} (total
+     *                            inequality) and {@link SimilarityDetector#MAX_SIMILARITY_INDEX}
+     *                            (total equality)
+     * @throws IllegalArgumentException if {@code similarityThreshold} was out of bounds
+     */
+    public IncrementalSimilarityDetector(double similarityThreshold) {
+        this.index = new SimilarityIndex(similarityThreshold);
+        this.clusters = new ArticleClusters();
+    }
+
+    /**
+     * Constructs an {@code IncrementalSimilarityDetector} that continues an existing
+     * detection. The {@code clusters} must have been built from the articles of the {@code
+     * index} with respect to the similarity threshold of the {@code index}. Both are modified
+     * when articles are added.
+     *
+     * @param index the {@code SimilarityIndex} that contains all articles of the existing
+     *              detection
+     * @param clusters the {@code ArticleClusters} of the existing detection
+     * @throws IllegalArgumentException if {@code index} or {@code clusters} was {@code null}
+     */
+    public IncrementalSimilarityDetector(@NotNull SimilarityIndex index,
+                                         @NotNull ArticleClusters clusters) {
+        this.index = Validate.notNull(index, "Index must not be null.");
+        this.clusters = Validate.notNull(clusters, "Clusters must not be null.");
+
+        index.getArticles().forEach(clusters::add);
+        if (!index.getArticles().isEmpty()) {
+            firstArticle = index.getArticles().get(0);
+        }
+    }
+
+    /**
+     * Adds an article and merges the clusters of all previously added articles that are
+     * similar to it. Articles without content are ignored.
+     *
+     * @param article the {@code Article} to be added
+     * @throws IllegalArgumentException if {@code article} was {@code null} or an article with
+     *                                  the same id has already been added
+     */
+    public void add(@NotNull Article article) {
+        add(article, event -> {});
+    }
+
+    /**
+     * Adds an article and merges the clusters of all previously added articles that are
+     * similar to it (see {@link #add(Article)}). Every similar pair is passed to the {@code
+     * listener} as soon as the clusters of the pair have been merged.
+     * <p>
+     * If the similarity threshold is equal to its min value, every article is only paired
+     * with the first added article, since all articles form one cluster anyway.
+     * </p>
+     *
+     * @param article the {@code Article} to be added
+     * @param listener a {@code Consumer} of the similar pairs of the {@code article}. Exceptions
+     *                 thrown by the listener are propagated, in which case the article may not
+     *                 have been added.
+     * @throws IllegalArgumentException if any parameter was {@code null} or an article with the
+     *                                  same id has already been added
+     */
+    public void add(@NotNull Article article, @NotNull Consumer<DetectionEvent> listener) {
+        Validate.notNull(article, "Article must not be null.");
+        Validate.notNull(listener, "Listener must not be null.");
+        Validate.isTrue(!index.contains(article.getId()),
+                "Article " + article.getId() + " has already been added.");
+
+        if (article.getContent() == null) {
+            return;
+        }
+
+        // If the similarityThreshold is equal to its min value, all articles form one cluster,
+        // so there is no need to look for candidates.
+        if (Double.compare(index.getSimilarityThreshold(), MIN_SIMILARITY_INDEX) <= 0) {
+            if (firstArticle == null) {
+                firstArticle = article;
+            } else {
+                SimilarityEdge edge = new SimilarityEdge(article, firstArticle,
+                        SimilarityIndex.score(article, firstArticle));
+                notify(listener, edge, clusters.union(firstArticle, article));
+            }
+        } else {
+            for (SimilarityEdge edge : index.findSimilar(article)) {
+                notify(listener, edge, clusters.union(edge.getArticle1(), edge.getArticle2()));
+            }
+        }
+        index.add(article);
+    }
+
+    private void notify(@NotNull Consumer<DetectionEvent> listener, @NotNull SimilarityEdge edge,
+                        boolean merge) {
+        listener.accept(new DetectionEvent(edge, merge,
+                clusters.getClusterSize(edge.getArticle1())));
+    }
+
+    /**
+     * Adds all specified articles (see {@link #add(Article)}).
+     *
+     * @param articles the articles to be added
+     * @throws IllegalArgumentException if {@code articles} was {@code null}, contained {@code
+     *                                  null} elements or an article that has already been added
+     */
+    public void addAll(@NotNull Collection<Article> articles) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+
+        articles.forEach(this::add);
+    }
+
+    /**
+     * Replaces an added article by another instance of the same article with an equal
+     * content, e.g. an instance that has been queried again. The clusters do not change, but
+     * they contain the new instance afterwards.
+     *
+     * @param article the new instance of an added article
+     * @return {@code true} if the article has been replaced or {@code false} if no article with
+     *         the same id and an equal content has been added
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public boolean refresh(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+
+        if (!index.replace(article)) {
+            return false;
+        }
+        clusters.replace(article);
+        if (firstArticle != null && firstArticle.getId() == article.getId()) {
+            firstArticle = article;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current clusters of articles with similar contents.
+     *
+     * @return a list of sets that contain all added articles that are similar to each other
+     */
+    public @NotNull List<Set<Article>> getClusters() {
+        return clusters.getClusters();
+    }
+
+    /**
+     * Returns the clusters of articles with similar contents among the articles that are
+     * retained by the specified predicate, e.g. the articles that meet narrower filter
+     * criteria. The result is the same as that of a detection from scratch with only the
+     * retained articles, but no articles are compared again unless necessary: clusters whose
+     * articles are all retained are returned unchanged and the similar pairs of the remaining
+     * clusters are only looked up within those clusters, since a removed article can split a
+     * cluster but never merge two clusters.
+     *
+     * @param retained a predicate that returns {@code true} for every article that should be
+     *                 kept
+     * @return a list of sets that contain all retained articles that are similar to each
+     *         other
+     * @throws IllegalArgumentException if {@code retained} was {@code null}
+     */
+    public @NotNull List<Set<Article>> getClusters(@NotNull Predicate<Article> retained) {
+        Validate.notNull(retained, "Retained must not be null.");
+
+        List<Set<Article>> result = new ArrayList<>();
+        for (Set<Article> cluster : clusters.getClusters()) {
+            Set<Article> retainedArticles = new HashSet<>();
+            for (Article article : cluster) {
+                if (retained.test(article)) {
+                    retainedArticles.add(article);
+                }
+            }
+
+            if (retainedArticles.size() == cluster.size()) {
+                result.add(cluster);
+            } else if (retainedArticles.size() > 1) {
+                // If the similarityThreshold is equal to its min value, all retained articles
+                // are still similar.
+                if (Double.compare(index.getSimilarityThreshold(), MIN_SIMILARITY_INDEX) <= 0) {
+                    result.add(retainedArticles);
+                    continue;
+                }
+                ArticleClusters subClusters = new ArticleClusters();
+                for (Article article : retainedArticles) {
+                    for (SimilarityEdge edge : index.findSimilar(article)) {
+                        if (retainedArticles.contains(edge.getArticle2())) {
+                            subClusters.union(edge.getArticle1(), edge.getArticle2());
+                        }
+                    }
+                }
+                result.addAll(subClusters.getClusters());
+            }
+        }
+        return result;
+    }
+
+    public @NotNull SimilarityIndex getIndex() {
+        return index;
+    }
+
+    public @NotNull ArticleClusters getArticleClusters() {
+        return clusters;
+    }
+}
@@ -0,0 +1,100 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The result of ingesting a single article into a {@link SlidingWindowMonitor}.
+ */
+public final class IngestionResult {
+    @NotNull
+    private final Article article;
+    private final boolean indexed;
+    @NotNull
+    private final List<SimilarityEdge> matches;
+    @NotNull
+    private final Set<Article> cluster;
+    private final int evictedArticles;
+    private final long latencyNanos;
+
+    /**
+     * Constructs an {@code IngestionResult}.
+     *
+     * @param article the ingested {@code Article}
+     * @param indexed whether the article has been added to the window
+     * @param matches the edges from the article to all similar articles in the window
+     * @param cluster the cluster the article has joined, including the article itself
+     * @param evictedArticles the number of articles that aged out of the window
+     * @param latencyNanos the time it took to ingest the article in nanoseconds
+     * @throws IllegalArgumentException if any object parameter was {@code null}
+     */
+    public IngestionResult(@NotNull Article article, boolean indexed,
+                           @NotNull List<SimilarityEdge> matches, @NotNull Set<Article> cluster,
+                           int evictedArticles, long latencyNanos) {
+        this.article = Validate.notNull(article, "Article must not be null.");
+        this.indexed = indexed;
+        this.matches = Collections.unmodifiableList(
+                Validate.notNull(matches, "Matches must not be null."));
+        this.cluster = Collections.unmodifiableSet(
+                Validate.notNull(cluster, "Cluster must not be null."));
+        this.evictedArticles = evictedArticles;
+        this.latencyNanos = latencyNanos;
+    }
+
+    public @NotNull Article getArticle() {
+        return article;
+    }
+
+    /**
+     * Returns whether the article has been added to the window. Articles without content or
+     * publication date and articles that are older than the window are not added.
+     *
+     * @return {@code true} if the article has been added to the window, otherwise {@code false}
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    public @NotNull List<SimilarityEdge> getMatches() {
+        return matches;
+    }
+
+    public @NotNull Set<Article> getCluster() {
+        return cluster;
+    }
+
+    /**
+     * Returns whether the article has joined a cluster of articles with similar contents.
+     *
+     * @return {@code true} if the cluster of the article contains other articles, otherwise
+     *         {@code false}
+     */
+    public boolean hasJoinedCluster() {
+        return cluster.size() > 1;
+    }
+
+    public int getEvictedArticles() {
+        return evictedArticles;
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "IngestionResult{article=" + article.getId() + ", indexed=" + indexed
+                + ", matches=" + matches.size() + ", clusterSize=" + cluster.size()
+                + ", evictedArticles=" + evictedArticles + ", latencyNanos=" + latencyNanos
+                + "}";
+    }
+}
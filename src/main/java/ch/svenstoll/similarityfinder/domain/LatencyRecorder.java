@@ -0,0 +1,119 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latencies and reports their mean, maximum and percentiles. Only the most recent
+ * samples are kept for the percentiles, so the memory used by a recorder does not grow with
+ * the number of recorded latencies. All methods of this class are thread safe.
+ */
+public final class LatencyRecorder {
+    public static final int DEFAULT_SAMPLE_CAPACITY = 1024;
+
+    @NotNull
+    private final long[] samples;
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    /**
+     * Constructs a {@code LatencyRecorder} that keeps {@link #DEFAULT_SAMPLE_CAPACITY} samples.
+     */
+    public LatencyRecorder() {
+        this(DEFAULT_SAMPLE_CAPACITY);
+    }
+
+    /**
+     * Constructs a {@code LatencyRecorder} that keeps the specified number of samples.
+     *
+     * @param sampleCapacity the number of most recent samples the percentiles are calculated
+     *                       from
+     * @throws IllegalArgumentException if {@code sampleCapacity} was not positive
+     */
+    public LatencyRecorder(int sampleCapacity) {
+        Validate.isTrue(sampleCapacity > 0, "SampleCapacity must be positive.");
+        this.samples = new long[sampleCapacity];
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of recorded latencies
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of all recorded latencies.
+     *
+     * @return the mean latency in nanoseconds or {@code 0} if no latency has been recorded
+     */
+    public synchronized double getMeanNanos() {
+        return count > 0 ? (double) totalNanos / count : 0;
+    }
+
+    /**
+     * Returns the highest of all recorded latencies.
+     *
+     * @return the highest latency in nanoseconds or {@code 0} if no latency has been recorded
+     */
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns a percentile of the most recent latencies using the nearest-rank method.
+     *
+     * @param percentile a number between 0 (exclusive) and 100 (inclusive)
+     * @return the latency in nanoseconds that is not exceeded by the specified percentage of
+     *         the most recent latencies or {@code 0} if no latency has been recorded
+     * @throws IllegalArgumentException if {@code percentile} was out of bounds
+     */
+    public synchronized long getPercentileNanos(double percentile) {
+        Validate.isTrue(percentile > 0 && percentile <= 100,
+                "Percentile must be between 0 (exclusive) and 100 (inclusive).");
+
+        int size = (int) Math.min(count, samples.length);
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d samples, mean %.3f ms, p50 %.3f ms, p95 %.3f ms, p99 %.3f ms, "
+                        + "max %.3f ms", count, toMillis(getMeanNanos()),
+                toMillis(getPercentileNanos(50)), toMillis(getPercentileNanos(95)),
+                toMillis(getPercentileNanos(99)), toMillis(maxNanos));
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -9,6 +9,7 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A representation of a medium that publishes articles.
@@ -16,8 +17,11 @@ import org.jetbrains.annotations.NotNull;
 public final class Medium implements Selectable {
     @NotNull
     private final String name;
-    @NotNull
-    private final BooleanProperty selected = new SimpleBooleanProperty(false);
+    // The property is only created when it is requested, e.g. by the user interface, so that
+    // media can be used without JavaFX.
+    @Nullable
+    private BooleanProperty selectedProperty = null;
+    private boolean selected = false;
 
     /**
      * Constructs a {@code Medium} instance.
@@ -35,17 +39,24 @@ public final class Medium implements Selectable {
     }
 
     @Override
-    public boolean isSelected() {
-        return selected.get();
+    public synchronized boolean isSelected() {
+        return selectedProperty != null ? selectedProperty.get() : selected;
     }
 
-    public @NotNull BooleanProperty selectedProperty() {
-        return selected;
+    public synchronized @NotNull BooleanProperty selectedProperty() {
+        if (selectedProperty == null) {
+            selectedProperty = new SimpleBooleanProperty(selected);
+        }
+        return selectedProperty;
     }
 
     @Override
-    public void setSelected(boolean selected) {
-        this.selected.set(selected);
+    public synchronized void setSelected(boolean selected) {
+        if (selectedProperty != null) {
+            selectedProperty.set(selected);
+        } else {
+            this.selected = selected;
+        }
     }
 
     @Override
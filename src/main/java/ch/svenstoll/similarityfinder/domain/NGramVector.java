@@ -0,0 +1,345 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static java.lang.Math.sqrt;
+
+/**
+ * An immutable frequency vector of the n-grams of a text. Each n-gram is packed into a single
+ * {@code long} (21 bits per code point) so that the vector can be stored as two parallel arrays
+ * which are sorted by n-gram. This allows the calculation of the cosine similarity of two vectors
+ * in linear time without any hashing and a compact binary representation of the vector.
+ */
+public final class NGramVector {
+    public static final int N_GRAM_SIZE = 3;
+
+    @NotNull
+    public static final NGramVector EMPTY = new NGramVector(new long[0], new int[0]);
+
+    private static final int BITS_PER_CODE_POINT = 21;
+    private static final long CODE_POINT_MASK = (1L << BITS_PER_CODE_POINT) - 1;
+    private static final byte BINARY_FORMAT_VERSION = 1;
+
+    @NotNull
+    private final long[] grams;
+    @NotNull
+    private final int[] counts;
+    private final long squaredMagnitude;
+    private final long totalCount;
+
+    /**
+     * Constructs a {@code NGramVector}. The arrays are not copied and must not be modified
+     * afterwards.
+     *
+     * @param grams the packed n-grams in strictly ascending order
+     * @param counts the frequency of each n-gram in {@code grams}
+     */
+    private NGramVector(@NotNull long[] grams, @NotNull int[] counts) {
+        this.grams = grams;
+        this.counts = counts;
+
+        long squaredMagnitude = 0;
+        long totalCount = 0;
+        for (int count : counts) {
+            squaredMagnitude += (long) count * count;
+            totalCount += count;
+        }
+        this.squaredMagnitude = squaredMagnitude;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Generates the n-gram frequency vector of the specified {@code text}. The n-grams are
+     * formed by sliding a window of {@link #N_GRAM_SIZE} code points over the whole text, which
+     * is equivalent to the tokens emitted by Lucene's {@code NGramTokenizer}.
+     *
+     * @param text the text to be tokenized
+     * @return the n-gram frequency vector of {@code text} or {@link #EMPTY} if {@code text} was
+     *         {@code null} or shorter than {@link #N_GRAM_SIZE} code points
+     */
+    public static @NotNull NGramVector fromText(@Nullable String text) {
+        if (text == null) {
+            return EMPTY;
+        }
+
+        int codePointCount = text.codePointCount(0, text.length());
+        if (codePointCount < N_GRAM_SIZE) {
+            return EMPTY;
+        }
+
+        long[] packed = new long[codePointCount - N_GRAM_SIZE + 1];
+        long window = 0;
+        long windowMask = (1L << (BITS_PER_CODE_POINT * N_GRAM_SIZE)) - 1;
+        int codePointIndex = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            window = ((window << BITS_PER_CODE_POINT) | codePoint) & windowMask;
+            codePointIndex++;
+            if (codePointIndex >= N_GRAM_SIZE) {
+                packed[codePointIndex - N_GRAM_SIZE] = window;
+            }
+        }
+
+        Arrays.sort(packed);
+        return fromSortedGrams(packed);
+    }
+
+    /**
+     * Creates a vector from a sorted array of packed n-grams that may contain duplicates.
+     *
+     * @param sorted the packed n-grams in ascending order
+     * @return the corresponding {@code NGramVector}
+     */
+    private static @NotNull NGramVector fromSortedGrams(@NotNull long[] sorted) {
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+
+        long[] grams = new long[distinct];
+        int[] counts = new int[distinct];
+        int position = -1;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                position++;
+                grams[position] = sorted[i];
+            }
+            counts[position]++;
+        }
+
+        return new NGramVector(grams, counts);
+    }
+
+    /**
+     * Restores a vector that was encoded with {@link #toBytes()}.
+     *
+     * @param bytes the binary representation of a vector
+     * @return the decoded {@code NGramVector}
+     * @throws IllegalArgumentException if {@code bytes} was {@code null} or is not a valid
+     *                                  binary representation of a vector
+     */
+    public static @NotNull NGramVector fromBytes(@NotNull byte[] bytes) {
+        Validate.notNull(bytes, "Bytes must not be null.");
+        Validate.isTrue(bytes.length > 0 && bytes[0] == BINARY_FORMAT_VERSION,
+                "Bytes must start with the binary format version " + BINARY_FORMAT_VERSION + ".");
+
+        int[] position = {1};
+        try {
+            int size = (int) readVarLong(bytes, position);
+            Validate.isTrue(size >= 0 && size <= bytes.length, "Invalid vector size.");
+
+            long[] grams = new long[size];
+            int[] counts = new int[size];
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += readVarLong(bytes, position);
+                grams[i] = previous;
+                counts[i] = (int) readVarLong(bytes, position);
+                Validate.isTrue(counts[i] > 0, "Counts must be positive.");
+                Validate.isTrue(i == 0 || grams[i] > grams[i - 1],
+                        "Grams must be in strictly ascending order.");
+            }
+            Validate.isTrue(position[0] == bytes.length, "Unexpected trailing bytes.");
+
+            return size == 0 ? EMPTY : new NGramVector(grams, counts);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Unexpected end of vector bytes.", e);
+        }
+    }
+
+    /**
+     * Encodes this vector in a compact binary format. The n-grams are delta encoded and all
+     * numbers are stored as variable length integers.
+     *
+     * @return the binary representation of this vector
+     */
+    public @NotNull byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 + grams.length * 4);
+        out.write(BINARY_FORMAT_VERSION);
+        writeVarLong(out, grams.length);
+
+        long previous = 0;
+        for (int i = 0; i < grams.length; i++) {
+            writeVarLong(out, grams[i] - previous);
+            writeVarLong(out, counts[i]);
+            previous = grams[i];
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Calculates the cosine similarity index of this vector and the {@code other} vector. Total
+     * inequality is represented by the value {@code 0} and total equality by the value {@code
+     * 1}. If any of the two vectors is empty, the value {@code 0} is returned. Equal vectors
+     * will always result in exactly {@code 1}.
+     *
+     * @param other the vector to compare with
+     * @return the cosine similarity index of both vectors
+     * @throws IllegalArgumentException if {@code other} was {@code null}
+     */
+    public double cosineSimilarity(@NotNull NGramVector other) {
+        Validate.notNull(other, "Other must not be null.");
+
+        if (isEmpty() || other.isEmpty()) {
+            return 0;
+        }
+
+        long dotProduct = dotProduct(other);
+        if (dotProduct == squaredMagnitude && dotProduct == other.squaredMagnitude) {
+            return 1;
+        }
+
+        // Cosine similarity formula: a·b / (||a|| * ||b||)
+        return dotProduct / (magnitude() * other.magnitude());
+    }
+
+    /**
+     * Calculates the dot product of this vector and the {@code other} vector by merging the two
+     * sorted n-gram arrays.
+     *
+     * @param other the vector to multiply with
+     * @return the dot product of both vectors
+     * @throws IllegalArgumentException if {@code other} was {@code null}
+     */
+    public long dotProduct(@NotNull NGramVector other) {
+        Validate.notNull(other, "Other must not be null.");
+
+        long dotProduct = 0;
+        int i = 0;
+        int j = 0;
+        while (i < grams.length && j < other.grams.length) {
+            long a = grams[i];
+            long b = other.grams[j];
+            if (a == b) {
+                dotProduct += (long) counts[i] * other.counts[j];
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dotProduct;
+    }
+
+    /**
+     * Creates a multiset that contains every n-gram of this vector as a {@code String} with its
+     * frequency as count.
+     *
+     * @return an immutable multiset of n-grams
+     */
+    public @NotNull Multiset<String> toMultiset() {
+        ImmutableMultiset.Builder<String> builder = ImmutableMultiset.builder();
+        for (int i = 0; i < grams.length; i++) {
+            builder.addCopies(unpack(grams[i]), counts[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Converts a packed n-gram back to its textual representation.
+     *
+     * @param gram a packed n-gram
+     * @return the n-gram as a {@code String}
+     */
+    private static @NotNull String unpack(long gram) {
+        StringBuilder sb = new StringBuilder(N_GRAM_SIZE);
+        for (int i = N_GRAM_SIZE - 1; i >= 0; i--) {
+            sb.appendCodePoint((int) ((gram >>> (i * BITS_PER_CODE_POINT)) & CODE_POINT_MASK));
+        }
+        return sb.toString();
+    }
+
+    private static void writeVarLong(@NotNull ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(@NotNull byte[] bytes, @NotNull int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            Validate.isTrue(shift < Long.SIZE, "Variable length integer is too long.");
+            b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Returns the number of distinct n-grams of this vector.
+     *
+     * @return the number of distinct n-grams
+     */
+    public int size() {
+        return grams.length;
+    }
+
+    public boolean isEmpty() {
+        return grams.length == 0;
+    }
+
+    public long getGram(int index) {
+        return grams[index];
+    }
+
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    public long getSquaredMagnitude() {
+        return squaredMagnitude;
+    }
+
+    public double magnitude() {
+        return sqrt(squaredMagnitude);
+    }
+
+    /**
+     * Returns the number of n-grams including duplicates.
+     *
+     * @return the sum of all n-gram counts
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        NGramVector that = (NGramVector) o;
+        return Arrays.equals(grams, that.grams) && Arrays.equals(counts, that.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(grams) + Arrays.hashCode(counts);
+    }
+}
@@ -0,0 +1,69 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The best-so-far result of an {@link AnytimeSimilarityDetector} whose time budget has run
+ * out, or its final result if the detection is complete.
+ */
+public final class PartialDetectionResult {
+    @NotNull
+    private final List<Set<Article>> clusters;
+    private final double coverage;
+    private final boolean complete;
+
+    /**
+     * Constructs a {@code PartialDetectionResult}.
+     *
+     * @param clusters the clusters of articles with similar contents found so far
+     * @param coverage the fraction of all pairs of articles whose similarity has been
+     *                 determined, a number between 0 and 1
+     * @param complete whether all pairs have been taken into account
+     * @throws IllegalArgumentException if {@code clusters} was {@code null} or {@code coverage}
+     *                                  was out of bounds
+     */
+    public PartialDetectionResult(@NotNull List<Set<Article>> clusters, double coverage,
+                                  boolean complete) {
+        Validate.notNull(clusters, "Clusters must not be null.");
+        Validate.inclusiveBetween(0, 1, coverage, "Coverage must be between 0 and 1 "
+                + "(inclusive).");
+
+        this.clusters = Collections.unmodifiableList(clusters);
+        this.coverage = coverage;
+        this.complete = complete;
+    }
+
+    /**
+     * Returns the clusters found so far. Every cluster of an incomplete result is part of a
+     * cluster of the complete result, but clusters may still grow or be merged.
+     *
+     * @return a list of sets that contain articles with similar contents
+     */
+    public @NotNull List<Set<Article>> getClusters() {
+        return clusters;
+    }
+
+    public double getCoverage() {
+        return coverage;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "PartialDetectionResult{clusters=" + clusters.size() + ", coverage=" + coverage
+                + ", complete=" + complete + "}";
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the {@link StageMetrics} of the stages of a pipeline in the order they have been
+ * started. The metrics can be read from any thread while the pipeline is running.
+ */
+public final class PipelineMetrics {
+    @NotNull
+    private final List<StageMetrics> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a stage to the pipeline.
+     *
+     * @param name the name of the stage
+     * @param queueDepth a supplier of the current number of entries in the input queue of the
+     *                   stage
+     * @param queueCapacity the capacity of the input queue of the stage
+     * @return the {@code StageMetrics} of the new stage
+     * @throws IllegalArgumentException if {@code name} or {@code queueDepth} was {@code null}
+     */
+    public @NotNull StageMetrics addStage(@NotNull String name, @NotNull IntSupplier queueDepth,
+                                          int queueCapacity) {
+        StageMetrics stage = new StageMetrics(name, queueDepth, queueCapacity);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Adds a stage without an input queue to the pipeline, e.g. a stage that reads from a
+     * database.
+     *
+     * @param name the name of the stage
+     * @return the {@code StageMetrics} of the new stage
+     * @throws IllegalArgumentException if {@code name} was {@code null}
+     */
+    public @NotNull StageMetrics addStage(@NotNull String name) {
+        return addStage(name, () -> 0, 0);
+    }
+
+    /**
+     * Returns the stage with the specified name.
+     *
+     * @param name the name of the stage
+     * @return the {@code StageMetrics} of the stage or {@code null} if no such stage exists
+     * @throws IllegalArgumentException if {@code name} was {@code null}
+     */
+    public @Nullable StageMetrics getStage(@NotNull String name) {
+        Validate.notNull(name, "Name must not be null.");
+        return stages.stream().filter(stage -> stage.getName().equals(name)).findFirst()
+                .orElse(null);
+    }
+
+    public @NotNull List<StageMetrics> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    @Override
+    public String toString() {
+        return stages.stream().map(StageMetrics::toString).collect(Collectors.joining("; "));
+    }
+}
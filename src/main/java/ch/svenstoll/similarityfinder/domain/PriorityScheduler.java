@@ -0,0 +1,154 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import com.google.inject.Singleton;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * Coordinates work of different {@link WorkPriority} classes that shares the processors of the
+ * application. Work is run by {@link #run(WorkPriority, Supplier)}, which assigns the priority
+ * class to the calling thread. Long running work is split into chunks and calls {@link
+ * #yieldPoint(CancellationSignal)} between them, where it pauses as long as more urgent work is
+ * running. An interactive search therefore gets the processors to itself as soon as the running
+ * chunks of the background work are complete.
+ * <p>
+ * Work that is not run by this scheduler is treated as {@link WorkPriority#INTERACTIVE}, so
+ * it is never paused. All methods of this class are thread safe.
+ * </p>
+ */
+@Singleton
+public final class PriorityScheduler {
+    @NotNull
+    private final int[] activeCounts = new int[WorkPriority.values().length];
+    @NotNull
+    private final ThreadLocal<WorkPriority> currentPriority = new ThreadLocal<>();
+    private long pauseCount = 0;
+
+    /**
+     * Runs work of the specified priority class on the calling thread. Work of a less urgent
+     * class is paused at its next yield point until the work is complete. Nested calls change
+     * the priority class of the calling thread until they return.
+     *
+     * @param priority the priority class of the work
+     * @param work the work to be run
+     * @param <T> the type of the result of the work
+     * @return the result of the work
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    public <T> T run(@NotNull WorkPriority priority, @NotNull Supplier<T> work) {
+        Validate.notNull(priority, "Priority must not be null.");
+        Validate.notNull(work, "Work must not be null.");
+
+        WorkPriority outerPriority = currentPriority.get();
+        synchronized (this) {
+            activeCounts[priority.ordinal()]++;
+        }
+        currentPriority.set(priority);
+        try {
+            return work.get();
+        } finally {
+            if (outerPriority != null) {
+                currentPriority.set(outerPriority);
+            } else {
+                currentPriority.remove();
+            }
+            synchronized (this) {
+                activeCounts[priority.ordinal()]--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Pauses the calling thread as long as work of a more urgent priority class than its own
+     * is running (see {@link #run(WorkPriority, Supplier)}). This must not be called while
+     * holding a lock that more urgent work may need.
+     *
+     * @param signal a {@code CancellationSignal} that ends the pause
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled or the thread
+     *                                   has been interrupted while paused
+     * @throws IllegalArgumentException if {@code signal} was {@code null}
+     */
+    public void yieldPoint(@NotNull CancellationSignal signal) {
+        Validate.notNull(signal, "Signal must not be null.");
+
+        WorkPriority priority = getCurrentPriority();
+        synchronized (this) {
+            if (!isPreempted(priority)) {
+                return;
+            }
+            pauseCount++;
+        }
+
+        Runnable wakeUp = () -> {
+            synchronized (this) {
+                notifyAll();
+            }
+        };
+        signal.onCancel(wakeUp);
+        try {
+            synchronized (this) {
+                while (isPreempted(priority) && !signal.isCancelled()) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DetectionAbortedException("The paused work has been interrupted.", e);
+        } finally {
+            signal.removeOnCancel(wakeUp);
+        }
+        if (signal.isCancelled()) {
+            throw new DetectionAbortedException("The paused work has been cancelled.", null);
+        }
+    }
+
+    /**
+     * Returns the priority class of the work the calling thread is running.
+     *
+     * @return the priority class or {@link WorkPriority#INTERACTIVE} if the calling thread is
+     *         not running any work of this scheduler
+     */
+    public @NotNull WorkPriority getCurrentPriority() {
+        WorkPriority priority = currentPriority.get();
+        return priority != null ? priority : WorkPriority.INTERACTIVE;
+    }
+
+    /**
+     * Returns the number of running works of the specified priority class.
+     *
+     * @param priority the priority class
+     * @return the number of calls of {@link #run(WorkPriority, Supplier)} with the {@code
+     *         priority} that have not returned, yet
+     * @throws IllegalArgumentException if {@code priority} was {@code null}
+     */
+    public synchronized int getActiveCount(@NotNull WorkPriority priority) {
+        Validate.notNull(priority, "Priority must not be null.");
+        return activeCounts[priority.ordinal()];
+    }
+
+    /**
+     * Returns how often work has been paused at a yield point so far.
+     *
+     * @return the number of pauses
+     */
+    public synchronized long getPauseCount() {
+        return pauseCount;
+    }
+
+    private boolean isPreempted(@NotNull WorkPriority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            if (activeCounts[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
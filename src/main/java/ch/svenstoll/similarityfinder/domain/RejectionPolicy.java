@@ -0,0 +1,26 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+/**
+ * Defines what happens to a task that is submitted to an {@link ExecutorPool} whose threads
+ * are busy and whose queue is full.
+ */
+public enum RejectionPolicy {
+    /**
+     * The submission throws a {@code RejectedExecutionException}.
+     */
+    ABORT,
+    /**
+     * The task is run by the submitting thread.
+     */
+    CALLER_RUNS,
+    /**
+     * The oldest queued task is discarded in favour of the new task, e.g. if a newer task
+     * supersedes the older ones.
+     */
+    DISCARD_OLDEST
+}
@@ -0,0 +1,340 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import ch.svenstoll.similarityfinder.dao.ResultCacheAccess;
+import ch.svenstoll.similarityfinder.dao.ResultCacheAccessException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A cache of search results, so that repeating a search, e.g. by switching back to a previously
+ * used {@code FilterConfig}, returns instantly. The results are stored by a key that consists of
+ * the filter parameters and the version of the data they have been computed from (see {@link
+ * #createKey(FilterCriteria, double, String)}). Hence, results are never returned once the data
+ * has changed.
+ * <p>
+ * The number of results and their estimated memory consumption are bounded. If a bound is
+ * exceeded, the least recently used results are evicted. If enabled in the {@code Settings}, the
+ * results are also stored in a file, so that they survive restarts of the application. All
+ * methods of this class are thread safe.
+ * </p>
+ */
+@Singleton
+public final class ResultCache {
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * A rough estimate of the memory used by an article apart from its strings and its content
+     * vector.
+     */
+    private static final long ARTICLE_OVERHEAD_BYTES = 96;
+    /**
+     * The memory used by a single n-gram of a content vector (a {@code long} and an {@code
+     * int}).
+     */
+    private static final long VECTOR_ENTRY_BYTES = 12;
+
+    @NotNull
+    private final ResultCacheAccess resultCacheAccess;
+    @NotNull
+    private final Settings settings;
+    private final int maxEntries;
+    private final long maxBytes;
+    // The access order of the map is used to find the least recently used result.
+    @NotNull
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long estimatedBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private boolean fileLoaded = false;
+
+    /**
+     * Constructs a {@code ResultCache} with the default bounds.
+     *
+     * @param resultCacheAccess the {@code ResultCacheAccess} used to store the results in a file
+     * @param settings the {@code Settings} instance used throughout the application
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    @Inject
+    public ResultCache(@NotNull ResultCacheAccess resultCacheAccess, @NotNull Settings settings) {
+        this(resultCacheAccess, settings, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a {@code ResultCache}.
+     *
+     * @param resultCacheAccess the {@code ResultCacheAccess} used to store the results in a file
+     * @param settings the {@code Settings} instance used throughout the application
+     * @param maxEntries the maximum number of cached results
+     * @param maxBytes the maximum estimated memory consumption of all cached results in bytes
+     * @throws IllegalArgumentException if any object parameter was {@code null} or a bound was
+     *                                  not positive
+     */
+    ResultCache(@NotNull ResultCacheAccess resultCacheAccess, @NotNull Settings settings,
+                int maxEntries, long maxBytes) {
+        this.resultCacheAccess
+                = Validate.notNull(resultCacheAccess, "ResultCacheAccess must not be null.");
+        this.settings = Validate.notNull(settings, "Settings must not be null.");
+        Validate.isTrue(maxEntries > 0, "MaxEntries must be positive.");
+        Validate.isTrue(maxBytes > 0, "MaxBytes must be positive.");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates the cache key of a search. The key is a SHA-256 hash of a canonical
+     * representation of the parameters, so the order in which the media have been selected does
+     * not matter.
+     *
+     * @param criteria the criteria that select the articles of the search
+     * @param similarityThreshold the similarity threshold of the search
+     * @param dataVersion the version of the data the search is executed on (see {@link
+     *                    ch.svenstoll.similarityfinder.dao.DatabaseAccess#queryDataVersion()})
+     * @return the cache key of the search
+     * @throws IllegalArgumentException if {@code criteria} or {@code dataVersion} was {@code
+     *                                  null}
+     */
+    public static @NotNull String createKey(@NotNull FilterCriteria criteria,
+                                            double similarityThreshold,
+                                            @NotNull String dataVersion) {
+        Validate.notNull(criteria, "Criteria must not be null.");
+        Validate.notNull(dataVersion, "DataVersion must not be null.");
+
+        // Every value is terminated by a character that can not be part of the value itself,
+        // so that different parameters never result in the same representation.
+        StringBuilder canonical = new StringBuilder();
+        canonical.append(criteria.getMedia().size()).append('\u0000');
+        criteria.getMedia().forEach(medium -> canonical.append(medium).append('\u0000'));
+        canonical.append(criteria.getFromDate()).append('\u0000')
+                .append(criteria.getToDate()).append('\u0000')
+                .append(criteria.getTitle()).append('\u0000')
+                .append(criteria.getMinLetters()).append('\u0000')
+                .append(criteria.isRelevantOnly()).append('\u0000')
+                .append(Double.doubleToLongBits(similarityThreshold)).append('\u0000')
+                .append(dataVersion);
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the cached result of a search.
+     *
+     * @param key the cache key of the search
+     * @return a list of sets that contain articles with similar contents or {@code null} if no
+     *         result has been cached for the {@code key}
+     * @throws IllegalArgumentException if {@code key} was {@code null}
+     */
+    public synchronized @Nullable List<Set<Article>> get(@NotNull String key) {
+        Validate.notNull(key, "Key must not be null.");
+        loadFileIfNeeded();
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(entry.result);
+    }
+
+    /**
+     * Caches the result of a search. If the result alone exceeds the memory bound, it is not
+     * cached.
+     *
+     * @param key the cache key of the search
+     * @param result a list of sets that contain articles with similar contents
+     * @throws IllegalArgumentException if {@code key} or {@code result} was {@code null} or
+     *                                  {@code result} contained {@code null} elements
+     */
+    public synchronized void put(@NotNull String key, @NotNull List<Set<Article>> result) {
+        Validate.notNull(key, "Key must not be null.");
+        Validate.notNull(result, "Result must not be null.");
+        Validate.noNullElements(result, "Result must not contain null elements.");
+        loadFileIfNeeded();
+
+        if (!store(key, result)) {
+            return;
+        }
+        if (settings.isResultCachePersistent()) {
+            saveFile();
+        }
+    }
+
+    /**
+     * Stores a result and evicts the least recently used results until all bounds are met.
+     *
+     * @return {@code true} if the result has been stored, otherwise {@code false}
+     */
+    private boolean store(@NotNull String key, @NotNull List<Set<Article>> result) {
+        List<Set<Article>> copy = new ArrayList<>();
+        for (Set<Article> cluster : result) {
+            copy.add(Collections.unmodifiableSet(new HashSet<>(cluster)));
+        }
+        Entry entry = new Entry(Collections.unmodifiableList(copy), estimateBytes(copy));
+        if (entry.bytes > maxBytes) {
+            return false;
+        }
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            estimatedBytes -= previous.bytes;
+        }
+        estimatedBytes += entry.bytes;
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries || estimatedBytes > maxBytes) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            estimatedBytes -= eldest.bytes;
+            evictions++;
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the memory consumption of a result.
+     */
+    private static long estimateBytes(@NotNull List<Set<Article>> result) {
+        long bytes = 0;
+        for (Set<Article> cluster : result) {
+            for (Article article : cluster) {
+                bytes += ARTICLE_OVERHEAD_BYTES
+                        + 2L * (length(article.getTitle()) + length(article.getContent())
+                        + length(article.getAuthor()))
+                        + VECTOR_ENTRY_BYTES * article.getContentVector().size();
+            }
+        }
+        return bytes;
+    }
+
+    private static int length(@Nullable String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Loads the results of the result cache file once if the results are persistent.
+     */
+    private void loadFileIfNeeded() {
+        if (fileLoaded || !settings.isResultCachePersistent()) {
+            return;
+        }
+        fileLoaded = true;
+        try {
+            resultCacheAccess.retrieveResultsFromFile().forEach(this::store);
+        } catch (ResultCacheAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stores all cached results in the result cache file, the least recently used first.
+     */
+    private void saveFile() {
+        LinkedHashMap<String, List<Set<Article>>> results = new LinkedHashMap<>();
+        entries.forEach((key, entry) -> results.put(key, entry.result));
+        try {
+            resultCacheAccess.saveResultsToFile(results);
+        } catch (ResultCacheAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes all cached results. The statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        estimatedBytes = 0;
+        if (settings.isResultCachePersistent()) {
+            saveFile();
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the ratio of lookups that returned a cached result.
+     *
+     * @return a number between 0 and 1 or {@code 0} if nothing has been looked up, yet
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : 0;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated memory consumption of all cached results.
+     *
+     * @return the estimated memory consumption in bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ResultCache{size=%d, estimatedBytes=%d, hits=%d, misses=%d, "
+                + "hitRate=%.2f, evictions=%d}", entries.size(), estimatedBytes, hits, misses,
+                getHitRate(), evictions);
+    }
+
+    /**
+     * A cached result together with its estimated memory consumption.
+     */
+    private static final class Entry {
+        @NotNull
+        private final List<Set<Article>> result;
+        private final long bytes;
+
+        Entry(@NotNull List<Set<Article>> result, long bytes) {
+            this.result = result;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A preview of a search that has been extrapolated from samples by a {@link
+ * SearchEstimator}. All intervals are 95% confidence intervals.
+ */
+public final class SearchEstimate {
+    private final int articleCount;
+    private final long sampledPairs;
+    private final long similarSampledPairs;
+    @NotNull
+    private final ConfidenceInterval similarPairs;
+    @NotNull
+    private final ConfidenceInterval similarArticlesPerArticle;
+    @NotNull
+    private final ConfidenceInterval runtimeNanos;
+
+    /**
+     * Constructs a {@code SearchEstimate}.
+     *
+     * @param articleCount the number of articles with content of the search
+     * @param sampledPairs the number of randomly sampled pairs of articles
+     * @param similarSampledPairs the number of similar pairs among the sampled pairs
+     * @param similarPairs the estimated number of similar pairs of articles
+     * @param similarArticlesPerArticle the estimated mean number of articles an article is
+     *                                  similar to
+     * @param runtimeNanos the estimated runtime of the detection in nanoseconds
+     * @throws IllegalArgumentException if any object parameter was {@code null}
+     */
+    public SearchEstimate(int articleCount, long sampledPairs, long similarSampledPairs,
+                          @NotNull ConfidenceInterval similarPairs,
+                          @NotNull ConfidenceInterval similarArticlesPerArticle,
+                          @NotNull ConfidenceInterval runtimeNanos) {
+        this.articleCount = articleCount;
+        this.sampledPairs = sampledPairs;
+        this.similarSampledPairs = similarSampledPairs;
+        this.similarPairs = Validate.notNull(similarPairs, "SimilarPairs must not be null.");
+        this.similarArticlesPerArticle = Validate.notNull(similarArticlesPerArticle,
+                "SimilarArticlesPerArticle must not be null.");
+        this.runtimeNanos = Validate.notNull(runtimeNanos, "RuntimeNanos must not be null.");
+    }
+
+    public int getArticleCount() {
+        return articleCount;
+    }
+
+    public long getSampledPairs() {
+        return sampledPairs;
+    }
+
+    public long getSimilarSampledPairs() {
+        return similarSampledPairs;
+    }
+
+    public @NotNull ConfidenceInterval getSimilarPairs() {
+        return similarPairs;
+    }
+
+    /**
+     * Returns the estimated mean number of articles an article is similar to. Since similar
+     * articles are in the same cluster, the clusters are at least this large on average,
+     * plus the article itself, if the similar pairs are spread evenly over the clustered
+     * articles.
+     *
+     * @return the estimated mean number of similar articles per article
+     */
+    public @NotNull ConfidenceInterval getSimilarArticlesPerArticle() {
+        return similarArticlesPerArticle;
+    }
+
+    public @NotNull ConfidenceInterval getRuntimeNanos() {
+        return runtimeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchEstimate{articleCount=" + articleCount + ", sampledPairs=" + sampledPairs
+                + ", similarPairs=" + similarPairs + ", similarArticlesPerArticle="
+                + similarArticlesPerArticle + ", runtimeNanos=" + runtimeNanos + "}";
+    }
+}
@@ -0,0 +1,226 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * A class that previews a search within a short time limit instead of detecting all similar
+ * contents. The number of similar pairs is extrapolated from a random sample of pairs and the
+ * runtime of the detection from the time it takes to index a random subset of the articles.
+ * <p>
+ * The runtime is extrapolated for a {@link SimilarityIndex}, which is used by all detections of
+ * the {@link SimilarityDetector}. Adding the {@code i}-th article to the index compares it to
+ * candidates among the {@code i} articles indexed before, so the time per article is modelled
+ * as {@code a + b * i}. The coefficients are fitted by least squares and the runtime of {@code n}
+ * articles is predicted as {@code a * n + b * n * (n - 1) / 2}. The time it takes to query the
+ * articles is not included.
+ * </p>
+ */
+public final class SearchEstimator {
+    public static final long DEFAULT_TIME_LIMIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The quantile of the standard normal distribution of the 95% confidence intervals.
+     */
+    static final double Z = 1.96;
+    static final int MAX_SAMPLED_PAIRS = 200_000;
+    static final int MAX_TIMED_ARTICLES = 2_000;
+
+    /**
+     * The number of sampled pairs after which the time limit and the cancellation signal are
+     * checked again.
+     */
+    private static final int PAIRS_PER_CHECK = 64;
+
+    @NotNull
+    private final Random random;
+    @NotNull
+    private final LongSupplier nanoTime;
+
+    /**
+     * Constructs a {@code SearchEstimator}.
+     */
+    public SearchEstimator() {
+        this(new Random(), System::nanoTime);
+    }
+
+    /**
+     * Constructs a {@code SearchEstimator}.
+     *
+     * @param random the source of the random samples
+     * @param nanoTime a time source in nanoseconds
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     */
+    SearchEstimator(@NotNull Random random, @NotNull LongSupplier nanoTime) {
+        this.random = Validate.notNull(random, "Random must not be null.");
+        this.nanoTime = Validate.notNull(nanoTime, "NanoTime must not be null.");
+    }
+
+    /**
+     * Estimates the result and the runtime of a search among the specified articles. Half of
+     * the time limit is spent on indexing a random subset of the articles and the other half on
+     * scoring random pairs of articles.
+     *
+     * @param articles the articles of the search. Articles without content are ignored.
+     * @param similarityThreshold the similarity threshold of the search. It must be a number
+     *                            between (inclusive) {@link SimilarityDetector#MIN_SIMILARITY_INDEX}
+     *                            and {@link SimilarityDetector#MAX_SIMILARITY_INDEX}.
+     * @param timeLimitNanos the time the estimation may take in nanoseconds
+     * @param signal a {@code CancellationSignal} that can be used to cancel the estimation
+     * @return the estimate of the search
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if {@code articles} or {@code signal} was {@code null},
+     *                                  {@code articles} contained {@code null} elements, {@code
+     *                                  similarityThreshold} was out of bounds or {@code
+     *                                  timeLimitNanos} was not positive
+     */
+    public @NotNull SearchEstimate estimate(@NotNull Collection<Article> articles,
+                                            double similarityThreshold, long timeLimitNanos,
+                                            @NotNull CancellationSignal signal) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+        Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX, similarityThreshold,
+                "SimilarityThreshold must be between " + MIN_SIMILARITY_INDEX + " and "
+                        + MAX_SIMILARITY_INDEX + " (inclusive).");
+        Validate.isTrue(timeLimitNanos > 0, "TimeLimitNanos must be positive.");
+        Validate.notNull(signal, "Signal must not be null.");
+
+        List<Article> contentArticles = new ArrayList<>();
+        for (Article article : articles) {
+            if (article.getContent() != null) {
+                contentArticles.add(article);
+            }
+        }
+        int n = contentArticles.size();
+        double totalPairs = n * (n - 1.0) / 2;
+
+        // If the similarityThreshold is equal to its min value, all articles are similar and
+        // the detection does not compare any articles.
+        if (Double.compare(similarityThreshold, MIN_SIMILARITY_INDEX) <= 0 || n < 2) {
+            double similarPairs = n < 2 ? 0 : totalPairs;
+            double similarArticles = n < 2 ? 0 : n - 1;
+            return new SearchEstimate(n, 0, 0,
+                    new ConfidenceInterval(similarPairs, similarPairs, similarPairs),
+                    new ConfidenceInterval(similarArticles, similarArticles, similarArticles),
+                    new ConfidenceInterval(0, 0, 0));
+        }
+
+        ConfidenceInterval runtime = estimateRuntime(contentArticles, similarityThreshold,
+                timeLimitNanos / 2, signal);
+
+        long deadline = nanoTime.getAsLong() + timeLimitNanos - timeLimitNanos / 2;
+        long sampledPairs = 0;
+        long similarSampledPairs = 0;
+        while (sampledPairs < MAX_SAMPLED_PAIRS) {
+            for (int i = 0; i < PAIRS_PER_CHECK; i++) {
+                int first = random.nextInt(n);
+                int second = random.nextInt(n - 1);
+                if (second >= first) {
+                    second++;
+                }
+                double score = SimilarityIndex.score(contentArticles.get(first),
+                        contentArticles.get(second));
+                if (score >= similarityThreshold) {
+                    similarSampledPairs++;
+                }
+            }
+            sampledPairs += PAIRS_PER_CHECK;
+            checkCancelled(signal);
+            if (nanoTime.getAsLong() - deadline >= 0) {
+                break;
+            }
+        }
+
+        ConfidenceInterval proportion
+                = ConfidenceInterval.ofProportion(similarSampledPairs, sampledPairs, Z);
+        return new SearchEstimate(n, sampledPairs, similarSampledPairs,
+                proportion.scale(totalPairs), proportion.scale(n - 1.0), runtime);
+    }
+
+    /**
+     * Indexes a random subset of the articles, fits the time per article to {@code a + b * i}
+     * and extrapolates the runtime of indexing all articles.
+     */
+    private @NotNull ConfidenceInterval estimateRuntime(@NotNull List<Article> articles,
+                                                        double similarityThreshold,
+                                                        long timeLimitNanos,
+                                                        @NotNull CancellationSignal signal) {
+        List<Article> subset = new ArrayList<>(articles);
+        Collections.shuffle(subset, random);
+
+        SimilarityIndex index = new SimilarityIndex(similarityThreshold);
+        int limit = Math.min(subset.size(), MAX_TIMED_ARTICLES);
+        double[] costs = new double[limit];
+        int timed = 0;
+        long start = nanoTime.getAsLong();
+        long previous = start;
+        while (timed < limit) {
+            Article article = subset.get(timed);
+            index.findSimilar(article);
+            index.add(article);
+            long now = nanoTime.getAsLong();
+            costs[timed++] = now - previous;
+            previous = now;
+
+            checkCancelled(signal);
+            if (now - start >= timeLimitNanos) {
+                break;
+            }
+        }
+
+        double n = articles.size();
+        double pairs = n * (n - 1) / 2;
+        double meanCost = 0;
+        for (int i = 0; i < timed; i++) {
+            meanCost += costs[i];
+        }
+        meanCost /= timed;
+        if (timed < 3) {
+            // Without enough points for a fit, the mean cost is scaled by the number of
+            // comparisons, which is a wide upper bound for a well-filtered index.
+            double estimate = meanCost * n;
+            return new ConfidenceInterval(estimate, 0, Math.max(estimate, meanCost * pairs));
+        }
+
+        double meanPosition = (timed - 1) / 2.0;
+        double sxx = 0;
+        double sxy = 0;
+        for (int i = 0; i < timed; i++) {
+            sxx += (i - meanPosition) * (i - meanPosition);
+            sxy += (i - meanPosition) * (costs[i] - meanCost);
+        }
+        double b = sxy / sxx;
+        double a = meanCost - b * meanPosition;
+
+        double residuals = 0;
+        for (int i = 0; i < timed; i++) {
+            double residual = costs[i] - (a + b * i);
+            residuals += residual * residual;
+        }
+        double variance = residuals / (timed - 2);
+        double errorA = Math.sqrt(variance * (1.0 / timed + meanPosition * meanPosition / sxx));
+        double errorB = Math.sqrt(variance / sxx);
+
+        double estimate = Math.max(0, a * n + b * pairs);
+        double halfWidth = Z * (errorA * n + errorB * pairs);
+        return new ConfidenceInterval(estimate, Math.max(0, estimate - halfWidth),
+                estimate + halfWidth);
+    }
+
+    private static void checkCancelled(@NotNull CancellationSignal signal) {
+        if (signal.isCancelled()) {
+            throw new DetectionAbortedException("The estimation has been cancelled.", null);
+        }
+    }
+}
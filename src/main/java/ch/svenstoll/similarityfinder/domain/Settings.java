@@ -30,6 +30,9 @@ public final class Settings {
     @NotNull
     public static final String DEFAULT_DB_PASSWORD = "";
     public static final int DEFAULT_MAX_ARTICLES = 1000;
+    public static final boolean DEFAULT_LOCAL_SNAPSHOT_ENABLED = false;
+    public static final int DEFAULT_QUERY_TIMEOUT_SECONDS = 0;
+    public static final boolean DEFAULT_RESULT_CACHE_PERSISTENT = false;
 
     @NotNull
     private final SettingsAccess settingsAccess;
@@ -44,6 +47,9 @@ public final class Settings {
     @NotNull
     private String dbPassword = DEFAULT_DB_PASSWORD;
     private int maxArticles = DEFAULT_MAX_ARTICLES;
+    private boolean localSnapshotEnabled = DEFAULT_LOCAL_SNAPSHOT_ENABLED;
+    private int queryTimeoutSeconds = DEFAULT_QUERY_TIMEOUT_SECONDS;
+    private boolean resultCachePersistent = DEFAULT_RESULT_CACHE_PERSISTENT;
 
     /**
      * Constructs a {@code Settings} instance and tries to retrieve any properties that have been
@@ -141,4 +147,49 @@ public final class Settings {
     public synchronized void setMaxArticles(int maxArticles) {
         this.maxArticles = maxArticles;
     }
+
+    public synchronized boolean isLocalSnapshotEnabled() {
+        return localSnapshotEnabled;
+    }
+
+    public synchronized void setLocalSnapshotEnabled(boolean localSnapshotEnabled) {
+        this.localSnapshotEnabled = localSnapshotEnabled;
+    }
+
+    /**
+     * Returns the number of seconds after which a database query times out. A value of {@code
+     * 0} means that queries never time out.
+     *
+     * @return the query timeout in seconds
+     */
+    public synchronized int getQueryTimeoutSeconds() {
+        return queryTimeoutSeconds;
+    }
+
+    /**
+     * Sets the number of seconds after which a database query times out.
+     *
+     * @param queryTimeoutSeconds the query timeout in seconds or {@code 0} if queries should
+     *                            never time out
+     * @throws IllegalArgumentException if {@code queryTimeoutSeconds} was negative
+     */
+    public synchronized void setQueryTimeoutSeconds(int queryTimeoutSeconds) {
+        Validate.isTrue(queryTimeoutSeconds >= 0, "QueryTimeoutSeconds must not be negative.");
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+    }
+
+    /**
+     * Returns whether cached search results are stored in a file, so that they survive
+     * restarts of the application.
+     *
+     * @return {@code true} if cached search results are stored in a file, otherwise {@code
+     *         false}
+     */
+    public synchronized boolean isResultCachePersistent() {
+        return resultCachePersistent;
+    }
+
+    public synchronized void setResultCachePersistent(boolean resultCachePersistent) {
+        this.resultCachePersistent = resultCachePersistent;
+    }
 }
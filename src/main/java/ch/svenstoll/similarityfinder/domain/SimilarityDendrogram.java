@@ -0,0 +1,154 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * A single-linkage merge tree of articles with similar contents. It is built from all pairs of
+ * articles whose similarity index reaches a floor threshold: the pairs are processed in
+ * descending order of their similarity index and every pair that connects two different
+ * clusters is recorded as a merge (Kruskal's algorithm). Since two articles are in the same
+ * cluster as soon as they are connected by similar pairs, the clusters for any threshold at or
+ * above the floor threshold consist of the merges whose similarity index reaches that
+ * threshold. Hence, the clusters of a different threshold are obtained by cutting the tree in
+ * linear time without comparing any articles again.
+ * <p>
+ * Instances of this class are immutable and thread safe.
+ * </p>
+ */
+public final class SimilarityDendrogram {
+    private final double floorThreshold;
+    @NotNull
+    private final List<Article> articles;
+    @NotNull
+    private final Article[] mergedArticles1;
+    @NotNull
+    private final Article[] mergedArticles2;
+    @NotNull
+    private final double[] mergeScores;
+
+    /**
+     * Constructs a {@code SimilarityDendrogram}.
+     *
+     * @param articles the articles of the tree. Articles without content are ignored.
+     * @param edges all pairs of {@code articles} whose similarity index is at least the {@code
+     *              floorThreshold}
+     * @param floorThreshold the lowest threshold the tree can be cut at. It must be a number
+     *                       between (inclusive) {@link SimilarityDetector#MIN_SIMILARITY_INDEX}
+     *                       and {@link SimilarityDetector#MAX_SIMILARITY_INDEX}.
+     * @throws IllegalArgumentException if {@code articles} or {@code edges} was {@code null} or
+     *                                  contained {@code null} elements or if {@code
+     *                                  floorThreshold} was out of bounds
+     */
+    public SimilarityDendrogram(@NotNull Collection<Article> articles,
+                                @NotNull Collection<SimilarityEdge> edges,
+                                double floorThreshold) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.notNull(edges, "Edges must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+        Validate.noNullElements(edges, "Edges must not contain null elements.");
+        Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX, floorThreshold,
+                "FloorThreshold must be between " + MIN_SIMILARITY_INDEX + " and "
+                        + MAX_SIMILARITY_INDEX + " (inclusive).");
+
+        this.floorThreshold = floorThreshold;
+        List<Article> contentArticles = new ArrayList<>();
+        for (Article article : articles) {
+            if (article.getContent() != null) {
+                contentArticles.add(article);
+            }
+        }
+        this.articles = Collections.unmodifiableList(contentArticles);
+
+        List<SimilarityEdge> sortedEdges = new ArrayList<>(edges);
+        sortedEdges.sort(Comparator.comparingDouble(SimilarityEdge::getScore).reversed());
+
+        int maxMerges = Math.max(contentArticles.size() - 1, 0);
+        List<SimilarityEdge> merges = new ArrayList<>(maxMerges);
+        ArticleClusters clusters = new ArticleClusters();
+        for (SimilarityEdge edge : sortedEdges) {
+            if (merges.size() == maxMerges) {
+                break;
+            }
+            if (clusters.union(edge.getArticle1(), edge.getArticle2())) {
+                merges.add(edge);
+            }
+        }
+
+        mergedArticles1 = new Article[merges.size()];
+        mergedArticles2 = new Article[merges.size()];
+        mergeScores = new double[merges.size()];
+        for (int i = 0; i < merges.size(); i++) {
+            mergedArticles1[i] = merges.get(i).getArticle1();
+            mergedArticles2[i] = merges.get(i).getArticle2();
+            mergeScores[i] = merges.get(i).getScore();
+        }
+    }
+
+    /**
+     * Returns whether the clusters of the specified threshold can be obtained from this tree.
+     *
+     * @param similarityThreshold the threshold to be checked
+     * @return {@code true} if the threshold is at or above the floor threshold or equal to
+     *         {@link SimilarityDetector#MIN_SIMILARITY_INDEX}, otherwise {@code false}
+     */
+    public boolean canCut(double similarityThreshold) {
+        return Double.compare(similarityThreshold, MIN_SIMILARITY_INDEX) <= 0
+                || (similarityThreshold >= floorThreshold
+                && similarityThreshold <= MAX_SIMILARITY_INDEX);
+    }
+
+    /**
+     * Cuts the tree at the specified threshold. The result is the same as that of
+     * {@link SimilarityDetector#detectArticlesWithSimilarContents(List, double)} for the
+     * articles of this tree.
+     *
+     * @param similarityThreshold a threshold that can be cut at (see {@link #canCut(double)})
+     * @return a list of sets that contain all articles that are similar to each other with
+     *         respect to the specified {@code similarityThreshold}
+     * @throws IllegalArgumentException if the tree can not be cut at {@code
+     *                                  similarityThreshold}
+     */
+    public @NotNull List<Set<Article>> cut(double similarityThreshold) {
+        Validate.isTrue(canCut(similarityThreshold), "SimilarityThreshold must be between "
+                + floorThreshold + " and " + MAX_SIMILARITY_INDEX + " (inclusive).");
+
+        // If the similarityThreshold is equal to its min value, all articles are similar.
+        if (Double.compare(similarityThreshold, MIN_SIMILARITY_INDEX) <= 0) {
+            List<Set<Article>> clusters = new ArrayList<>();
+            if (articles.size() > 1) {
+                clusters.add(new HashSet<>(articles));
+            }
+            return clusters;
+        }
+
+        ArticleClusters clusters = new ArticleClusters();
+        for (int i = 0; i < mergeScores.length && mergeScores[i] >= similarityThreshold; i++) {
+            clusters.union(mergedArticles1[i], mergedArticles2[i]);
+        }
+        return clusters.getClusters();
+    }
+
+    public double getFloorThreshold() {
+        return floorThreshold;
+    }
+
+    /**
+     * Returns the number of merges of this tree.
+     *
+     * @return the number of merges
+     */
+    public int getMergeCount() {
+        return mergeScores.length;
+    }
+}
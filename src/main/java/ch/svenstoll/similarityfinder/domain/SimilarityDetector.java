@@ -5,15 +5,16 @@
 
 package ch.svenstoll.similarityfinder.domain;
 
-import com.google.common.collect.*;
+import com.google.inject.Inject;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.apache.commons.lang3.Validate;
 
 import java.util.*;
 import java.util.concurrent.*;
-
-import static com.google.common.collect.Multisets.union;
-import static java.lang.Math.sqrt;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * A class that provides the possibility to detect articles that have similar contents according
@@ -23,9 +24,41 @@ import static java.lang.Math.sqrt;
 public final class SimilarityDetector {
     public static final int MIN_SIMILARITY_INDEX = 0;
     public static final int MAX_SIMILARITY_INDEX = 1;
+    /**
+     * The number of articles that are added to a detection between two yield points (see
+     * {@link PriorityScheduler#yieldPoint(CancellationSignal)}).
+     */
+    static final int YIELD_INTERVAL = 256;
 
     @NotNull
-    private final List<DetectionProgressListener> DetectionProgressListeners = new ArrayList<>();
+    private final List<DetectionProgressListener> DetectionProgressListeners
+            = new CopyOnWriteArrayList<>();
+    @NotNull
+    private final PriorityScheduler scheduler;
+    @Nullable
+    private volatile IncrementalSimilarityDetector lastDetection = null;
+
+    /**
+     * Constructs a {@code SimilarityDetector} with its own {@code PriorityScheduler}, so its
+     * detections are never paused.
+     */
+    public SimilarityDetector() {
+        this(new PriorityScheduler());
+    }
+
+    /**
+     * Constructs a {@code SimilarityDetector}.
+     *
+     * @param scheduler the {@code PriorityScheduler} of the application. Detections of a
+     *                  caller that runs less urgent work are paused between the rows of the
+     *                  comparison or the batches of a stream while more urgent work is
+     *                  running.
+     * @throws IllegalArgumentException if {@code scheduler} was {@code null}
+     */
+    @Inject
+    public SimilarityDetector(@NotNull PriorityScheduler scheduler) {
+        this.scheduler = Validate.notNull(scheduler, "Scheduler must not be null.");
+    }
 
     /**
      * Detects articles with similar contents and returns them as a list of sets. Two article
@@ -52,12 +85,69 @@ public final class SimilarityDetector {
      */
     public @NotNull List<Set<Article>> detectArticlesWithSimilarContents(
             @NotNull List<Article> articles, double similarityThreshold) {
+        return detectArticlesWithSimilarContents(articles, similarityThreshold,
+                new CancellationSignal());
+    }
+
+    /**
+     * Detects articles with similar contents and returns them as a list of sets (see
+     * {@link #detectArticlesWithSimilarContents(List, double)}). The detection is stopped as
+     * soon as the specified {@code signal} is cancelled. Pending comparisons are discarded and
+     * the worker threads are interrupted.
+     *
+     * @param articles a list of articles used to detect similar contents
+     * @param similarityThreshold a number between (inclusive) {@link #MIN_SIMILARITY_INDEX} (total
+     *                            inequality) and {@link #MAX_SIMILARITY_INDEX} (total equality)
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection
+     * @return a list of sets that contain all articles that are similar to each other with
+     *         respect to the specified {@code similarityThreshold}
+     * @throws DetectionAbortedException if the thread executing this method has been interrupted
+     *                                   or the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if {@code articles} or {@code signal} was {@code null},
+     *                                  {@code articles} contained {@code null} elements or if
+     *                                  the specified {@code similarityThreshold} was not within
+     *                                  the bounds of {@link #MIN_SIMILARITY_INDEX} and
+     *                                  {@link #MAX_SIMILARITY_INDEX}
+     */
+    public @NotNull List<Set<Article>> detectArticlesWithSimilarContents(
+            @NotNull List<Article> articles, double similarityThreshold,
+            @NotNull CancellationSignal signal) {
+        return detectArticlesWithSimilarContents(articles, similarityThreshold,
+                Runtime.getRuntime().availableProcessors(), signal);
+    }
+
+    /**
+     * Detects articles with similar contents and returns them as a list of sets (see
+     * {@link #detectArticlesWithSimilarContents(List, double, CancellationSignal)}) using the
+     * specified number of worker threads instead of one per available processor.
+     *
+     * @param articles a list of articles used to detect similar contents
+     * @param similarityThreshold a number between (inclusive) {@link #MIN_SIMILARITY_INDEX} (total
+     *                            inequality) and {@link #MAX_SIMILARITY_INDEX} (total equality)
+     * @param threadCount the number of worker threads
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection
+     * @return a list of sets that contain all articles that are similar to each other with
+     *         respect to the specified {@code similarityThreshold}
+     * @throws DetectionAbortedException if the thread executing this method has been interrupted
+     *                                   or the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if {@code articles} or {@code signal} was {@code null},
+     *                                  {@code articles} contained {@code null} elements,
+     *                                  {@code threadCount} was not positive or if the specified
+     *                                  {@code similarityThreshold} was not within the bounds of
+     *                                  {@link #MIN_SIMILARITY_INDEX} and
+     *                                  {@link #MAX_SIMILARITY_INDEX}
+     */
+    public @NotNull List<Set<Article>> detectArticlesWithSimilarContents(
+            @NotNull List<Article> articles, double similarityThreshold, int threadCount,
+            @NotNull CancellationSignal signal) {
         Validate.notNull(articles, "Articles must not be null.");
+        Validate.notNull(signal, "Signal must not be null.");
         Validate.noNullElements(articles, "Articles must not contain null elements.");
         String thresholdBoundsMessage = "SimilarityThreshold must be between "
                 + MIN_SIMILARITY_INDEX + " and " + MAX_SIMILARITY_INDEX + " (inclusive).";
         Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX, similarityThreshold,
                 thresholdBoundsMessage);
+        Validate.isTrue(threadCount > 0, "ThreadCount must be positive.");
 
         // Due to multithreading, a synchronized hash map is used to organize the sets of similar
         // articles. Each article must not be present in more than one set (see
@@ -65,16 +155,19 @@ public final class SimilarityDetector {
         // article in that particular set can be used.
         Map<Integer, Set<Article>> similaritiesMap = Collections.synchronizedMap(new HashMap<>());
 
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-
         // Counter used to calculate progress.
         int loopCount = 0;
 
         for (Article c1 : articles) {
+            checkCancelled(signal);
+            scheduler.yieldPoint(signal);
             loopCount++;
 
-            // Prepare multithreading in inner loop.
-            ExecutorService executorService = Executors.newFixedThreadPool(availableProcessors);
+            // Prepare multithreading in inner loop. The pending comparisons are discarded as
+            // soon as the detection is cancelled.
+            ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+            Runnable stopComparisons = executorService::shutdownNow;
+            signal.onCancel(stopComparisons);
 
             for (Article c2 : articles) {
                 String c1Content = c1.getContent();
@@ -84,16 +177,18 @@ public final class SimilarityDetector {
                     // For every pair of articles the similarity detection is done in a new
                     // thread.
                     Runnable worker = () -> {
-                        // The worker is executed with minimal thread priority to keep the JavaFX
-                        // thread from starving which would result in UI freezes.
-                        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
-
-                        if (hasSimilarContent(c1, c2, similarityThreshold)) {
+                        if (!signal.isCancelled()
+                                && hasSimilarContent(c1, c2, similarityThreshold)) {
                             addSimilarArticles(similaritiesMap, c1, c2);
                         }
 
                     };
-                    executorService.execute(worker);
+                    try {
+                        executorService.execute(worker);
+                    } catch (RejectedExecutionException e) {
+                        // The executor service has been shut down due to a cancellation.
+                        break;
+                    }
                 }
             }
 
@@ -101,20 +196,558 @@ public final class SimilarityDetector {
             try {
                 executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
             } catch (InterruptedException e) {
+                executorService.shutdownNow();
                 Thread.currentThread().interrupt();
                 throw new DetectionAbortedException(e.getMessage(), e.getCause());
+            } finally {
+                signal.removeOnCancel(stopComparisons);
             }
+            checkCancelled(signal);
 
             // The size of articles will never be zero at this point.
             final double progress = (double) loopCount / articles.size();
-            fireProgressEvent(new DetectionProgressEvent(this, progress));
+            fireProgressEvent(new DetectionProgressEvent(this, progress, signal));
         }
 
-        fireProgressEvent(new DetectionProgressEvent(this, 1));
+        fireProgressEvent(new DetectionProgressEvent(this, 1, signal));
 
         return createSimilaritiesListFromMap(similaritiesMap);
     }
 
+    /**
+     * Detects articles with similar contents while the articles of the specified {@code stream}
+     * are still being produced. Every batch is added to an {@link IncrementalSimilarityDetector}
+     * as soon as it arrives, so that the detection overlaps with querying and preparing the
+     * articles. The result is the same as that of
+     * {@link #detectArticlesWithSimilarContents(List, double)}.
+     * <p>
+     * The detection of the last completed call is kept. If the {@code stream} contains all
+     * articles of that detection with unchanged contents and the {@code similarityThreshold}
+     * is the same, only the new articles of the {@code stream} are compared (see
+     * {@link #detectArticlesWithSimilarContents(IncrementalSimilarityDetector, Collection,
+     * CancellationSignal)}). While the {@code stream} is read, its articles are only compared
+     * with the kept detection, which is not modified before it is certain that it can be
+     * reused. As soon as an article with a changed content arrives, or if articles of the kept
+     * detection are missing once the {@code stream} is complete, the articles read so far are
+     * detected from scratch instead. The kept detection is only reused by one call at a time,
+     * so concurrent calls never share the state of a detection and run in parallel.
+     * </p>
+     * <p>
+     * Since the number of articles is not known in advance, subscribed {@code
+     * DetectionProgressListener} instances are only notified when the detection is complete.
+     * </p>
+     *
+     * @param stream an {@code ArticleStream} that provides the articles
+     * @param similarityThreshold a number between (inclusive) {@link #MIN_SIMILARITY_INDEX} (total
+     *                            inequality) and {@link #MAX_SIMILARITY_INDEX} (total equality)
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection
+     * @return a list of sets that contain all articles that are similar to each other with
+     *         respect to the specified {@code similarityThreshold}
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if {@code stream} or {@code signal} was {@code null}, a
+     *                                  batch contained {@code null} elements or if the
+     *                                  specified {@code similarityThreshold} was not within
+     *                                  the bounds of {@link #MIN_SIMILARITY_INDEX} and
+     *                                  {@link #MAX_SIMILARITY_INDEX}
+     */
+    public @NotNull List<Set<Article>> detectArticlesWithSimilarContents(
+            @NotNull ArticleStream stream, double similarityThreshold,
+            @NotNull CancellationSignal signal) {
+        IncrementalSimilarityDetector detection
+                = detectIncrementally(stream, similarityThreshold, article -> true, signal);
+        synchronized (detection) {
+            return detection.getClusters();
+        }
+    }
+
+    /**
+     * Detects articles with similar contents like {@link
+     * #detectArticlesWithSimilarContents(ArticleStream, double, CancellationSignal)}, but
+     * returns the detection of this call instead of its clusters. Unlike {@link
+     * #getLastDetection()}, this is not affected by concurrent calls. Since the detection may
+     * be reused by the next call, it must only be read while holding its monitor.
+     * <p>
+     * The {@code selected} predicate must return {@code true} for every article the {@code
+     * stream} can provide, e.g. the articles that meet the filter criteria of the stream. The
+     * last detection is not reused if it contains an article that is not selected, since it
+     * would have to be detected again anyway. This call then detects from scratch while the
+     * articles are still being produced and the last detection remains available to other
+     * callers.
+     * </p>
+     */
+    @NotNull IncrementalSimilarityDetector detectIncrementally(@NotNull ArticleStream stream,
+                                                               double similarityThreshold,
+                                                               @NotNull Predicate<Article> selected,
+                                                               @NotNull CancellationSignal signal) {
+        Validate.notNull(stream, "Stream must not be null.");
+        Validate.notNull(selected, "Selected must not be null.");
+        Validate.notNull(signal, "Signal must not be null.");
+
+        IncrementalSimilarityDetector previous
+                = claimLastDetection(similarityThreshold, selected);
+        StreamDetection detection
+                = new StreamDetection(previous, similarityThreshold, signal);
+        IncrementalSimilarityDetector result;
+        try {
+            checkCancelled(signal);
+            stream.forEachBatch(detection);
+            checkCancelled(signal);
+            result = detection.complete();
+        } catch (RuntimeException e) {
+            // The claimed detection is given back unless it has already been modified, so a
+            // cancelled or failed call never leaves a partially updated last detection.
+            if (previous != null && !detection.isPreviousModified()) {
+                releaseLastDetection(previous);
+            }
+            throw e;
+        }
+        lastDetection = result;
+
+        fireProgressEvent(new DetectionProgressEvent(this, 1, signal));
+
+        return result;
+    }
+
+    /**
+     * Takes the detection of the last completed call if it can be reused with the specified
+     * threshold and contains only selected articles. It is not available to other calls until
+     * the claiming call is complete or has given it back.
+     */
+    private synchronized @Nullable IncrementalSimilarityDetector claimLastDetection(
+            double similarityThreshold, @NotNull Predicate<Article> selected) {
+        IncrementalSimilarityDetector previous = lastDetection;
+        if (previous == null || Double.compare(
+                previous.getIndex().getSimilarityThreshold(), similarityThreshold) != 0) {
+            return null;
+        }
+        for (Article article : previous.getIndex().getArticles()) {
+            if (!selected.test(article)) {
+                return null;
+            }
+        }
+        lastDetection = null;
+        return previous;
+    }
+
+    /**
+     * Gives back an unmodified detection that has been claimed by {@link
+     * #claimLastDetection(double, Predicate)} unless another call has been completed since.
+     */
+    private synchronized void releaseLastDetection(
+            @NotNull IncrementalSimilarityDetector previous) {
+        if (lastDetection == null) {
+            lastDetection = previous;
+        }
+    }
+
+    /**
+     * Adds the specified articles to the {@code detector} in batches of {@link
+     * #YIELD_INTERVAL} articles. The monitor of the {@code detector} is only held while a
+     * batch is added, so the detection can be cancelled and yield to more urgent work between
+     * the batches.
+     */
+    private void addInBatches(@NotNull IncrementalSimilarityDetector detector,
+                              @NotNull List<Article> articles,
+                              @NotNull CancellationSignal signal) {
+        for (int start = 0; start < articles.size(); start += YIELD_INTERVAL) {
+            checkCancelled(signal);
+            scheduler.yieldPoint(signal);
+            List<Article> batch
+                    = articles.subList(start, Math.min(start + YIELD_INTERVAL, articles.size()));
+            synchronized (detector) {
+                detector.addAll(batch);
+            }
+        }
+    }
+
+    /**
+     * The detection of one call of {@link #detectIncrementally(ArticleStream, double,
+     * Predicate, CancellationSignal)}. As long as the claimed previous detection may be
+     * reused, the articles of the stream are only compared with it and collected. The
+     * previous detection is not modified until the whole stream has been read and it is
+     * certain that it contains no outdated articles and no articles that are missing from the
+     * stream. As soon as the first changed article arrives, a new detection is built from the
+     * collected articles and the rest of the stream is added to it directly.
+     */
+    private final class StreamDetection implements Consumer<List<Article>> {
+        private final double similarityThreshold;
+        @NotNull
+        private final CancellationSignal signal;
+        @Nullable
+        private IncrementalSimilarityDetector previous;
+        @Nullable
+        private IncrementalSimilarityDetector detector = null;
+        @NotNull
+        private final List<Article> articles = new ArrayList<>();
+        @NotNull
+        private final List<Article> reused = new ArrayList<>();
+        @NotNull
+        private final List<Article> added = new ArrayList<>();
+        private boolean previousModified = false;
+
+        StreamDetection(@Nullable IncrementalSimilarityDetector previous,
+                        double similarityThreshold, @NotNull CancellationSignal signal) {
+            this.previous = previous;
+            this.similarityThreshold = similarityThreshold;
+            this.signal = signal;
+            if (previous == null) {
+                detector = new IncrementalSimilarityDetector(similarityThreshold);
+            }
+        }
+
+        @Override
+        public void accept(@NotNull List<Article> batch) {
+            checkCancelled(signal);
+            scheduler.yieldPoint(signal);
+            Validate.noNullElements(batch, "Batch must not contain null elements.");
+
+            if (detector != null) {
+                synchronized (detector) {
+                    detector.addAll(batch);
+                }
+                return;
+            }
+
+            // The claimed detection is not modified by other calls, so it can be read without
+            // holding its monitor.
+            SimilarityIndex index = Objects.requireNonNull(previous).getIndex();
+            articles.addAll(batch);
+            for (Article article : batch) {
+                if (article.getContent() == null) {
+                    continue;
+                }
+                Article known = index.get(article.getId());
+                if (known == null) {
+                    added.add(article);
+                } else if (Objects.equals(known.getContent(), article.getContent())) {
+                    reused.add(article);
+                } else {
+                    detectFromScratch();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Completes the detection after the whole stream has been read. The previous
+         * detection is updated if it can be reused. Otherwise, the collected articles are
+         * detected from scratch.
+         */
+        @NotNull IncrementalSimilarityDetector complete() {
+            if (detector != null) {
+                return detector;
+            }
+            IncrementalSimilarityDetector reusable = Objects.requireNonNull(previous);
+            if (reused.size() < reusable.getIndex().size()) {
+                detectFromScratch();
+                return Objects.requireNonNull(detector);
+            }
+
+            previousModified = true;
+            synchronized (reusable) {
+                reused.forEach(reusable::refresh);
+            }
+            addInBatches(reusable, added, signal);
+            return reusable;
+        }
+
+        boolean isPreviousModified() {
+            return previousModified;
+        }
+
+        private void detectFromScratch() {
+            IncrementalSimilarityDetector fresh
+                    = new IncrementalSimilarityDetector(similarityThreshold);
+            previous = null;
+            detector = fresh;
+            addInBatches(fresh, articles, signal);
+            articles.clear();
+            reused.clear();
+            added.clear();
+        }
+    }
+
+    /**
+     * Returns the detection of the last completed call of {@link
+     * #detectArticlesWithSimilarContents(ArticleStream, double, CancellationSignal)}. It
+     * contains all articles of that call and is updated in place by the next call if it can be
+     * reused.
+     *
+     * @return the last detection or {@code null} if no detection has been completed, yet
+     */
+    public @Nullable IncrementalSimilarityDetector getLastDetection() {
+        return lastDetection;
+    }
+
+    /**
+     * Builds a {@link SimilarityDendrogram} from the articles of the specified {@code stream}
+     * while they are still being produced. All pairs whose similarity index reaches the {@code
+     * floorThreshold} are found by a {@link SimilarityIndex} and kept as edges of the tree, so
+     * the clusters of any threshold at or above the floor threshold can be obtained from the
+     * tree without comparing the articles again.
+     * <p>
+     * Since the number of articles is not known in advance, subscribed {@code
+     * DetectionProgressListener} instances are only notified when the tree is complete.
+     * </p>
+     *
+     * @param stream an {@code ArticleStream} that provides the articles
+     * @param floorThreshold the lowest threshold the tree can be cut at. It must be a number
+     *                       between (inclusive) {@link #MIN_SIMILARITY_INDEX} and {@link
+     *                       #MAX_SIMILARITY_INDEX}. Lower values result in more edges.
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection
+     * @return the {@code SimilarityDendrogram} of all articles of the {@code stream}
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if {@code stream} or {@code signal} was {@code null}, a
+     *                                  batch contained {@code null} elements or if the
+     *                                  specified {@code floorThreshold} was not within the
+     *                                  bounds of {@link #MIN_SIMILARITY_INDEX} and
+     *                                  {@link #MAX_SIMILARITY_INDEX}
+     */
+    public @NotNull SimilarityDendrogram buildDendrogram(@NotNull ArticleStream stream,
+                                                        double floorThreshold,
+                                                        @NotNull CancellationSignal signal) {
+        Validate.notNull(stream, "Stream must not be null.");
+        Validate.notNull(signal, "Signal must not be null.");
+
+        SimilarityIndex index = new SimilarityIndex(floorThreshold);
+        List<SimilarityEdge> edges = new ArrayList<>();
+
+        checkCancelled(signal);
+        stream.forEachBatch(batch -> {
+            checkCancelled(signal);
+            scheduler.yieldPoint(signal);
+            Validate.noNullElements(batch, "Batch must not contain null elements.");
+            for (Article article : batch) {
+                if (article.getContent() != null && !index.contains(article.getId())) {
+                    edges.addAll(index.findSimilar(article));
+                    index.add(article);
+                }
+            }
+        });
+        checkCancelled(signal);
+
+        SimilarityDendrogram dendrogram
+                = new SimilarityDendrogram(index.getArticles(), edges, floorThreshold);
+        fireProgressEvent(new DetectionProgressEvent(this, 1, signal));
+
+        return dendrogram;
+    }
+
+    /**
+     * Adds new articles to an existing detection and returns the updated clusters. Only the
+     * pairs of a new article and an existing article and the pairs of two new articles are
+     * compared. Existing clusters are merged if a new article is similar to articles of both
+     * clusters.
+     *
+     * @param detection an {@code IncrementalSimilarityDetector} that contains the index and the
+     *                  clusters of the existing detection. It is updated by this method.
+     * @param newArticles the articles to be added
+     * @param signal a {@code CancellationSignal} that can be used to cancel the detection. The
+     *               articles that have been added until the cancellation remain in the {@code
+     *               detection}.
+     * @return a list of sets that contain all articles of the {@code detection} that are
+     *         similar to each other
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if any parameter was {@code null}, {@code newArticles}
+     *                                  contained {@code null} elements or an article that is
+     *                                  already part of the {@code detection}
+     */
+    public @NotNull List<Set<Article>> detectArticlesWithSimilarContents(
+            @NotNull IncrementalSimilarityDetector detection,
+            @NotNull Collection<Article> newArticles, @NotNull CancellationSignal signal) {
+        Validate.notNull(detection, "Detection must not be null.");
+        Validate.notNull(newArticles, "NewArticles must not be null.");
+        Validate.notNull(signal, "Signal must not be null.");
+        Validate.noNullElements(newArticles, "NewArticles must not contain null elements.");
+
+        int addedCount = 0;
+        for (Article article : newArticles) {
+            checkCancelled(signal);
+            if (addedCount % YIELD_INTERVAL == 0) {
+                scheduler.yieldPoint(signal);
+            }
+            detection.add(article);
+            addedCount++;
+            fireProgressEvent(new DetectionProgressEvent(this,
+                    (double) addedCount / newArticles.size(), signal));
+        }
+        fireProgressEvent(new DetectionProgressEvent(this, 1, signal));
+
+        return detection.getClusters();
+    }
+
+    /**
+     * Finds the pairs of a query article and a reference article with similar contents, e.g.
+     * the articles of today that match an article of the archive. In contrast to {@link
+     * #detectArticlesWithSimilarContents(List, double)}, pairs of two query articles or of two
+     * reference articles are never compared.
+     * <p>
+     * The larger of both sides is indexed once by a {@link SimilarityIndex} and the articles of
+     * the smaller side are passed through it, so every article of the smaller side is only
+     * compared with its similar candidates. An article that is part of both sides is never
+     * paired with itself and every pair is only returned once. Subscribed {@code
+     * DetectionProgressListener} instances will be notified about the progress of the join.
+     * </p>
+     *
+     * @param queryArticles the articles that should be matched
+     * @param referenceArticles the articles the query articles are matched against
+     * @param similarityThreshold a number between (inclusive) {@link #MIN_SIMILARITY_INDEX} (total
+     *                            inequality) and {@link #MAX_SIMILARITY_INDEX} (total equality)
+     * @param signal a {@code CancellationSignal} that can be used to cancel the join
+     * @return the edges of all similar pairs, each from the query article to the reference
+     *         article, in descending order of their similarity index
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if any object parameter was {@code null}, contained
+     *                                  {@code null} elements or if the specified {@code
+     *                                  similarityThreshold} was not within the bounds of
+     *                                  {@link #MIN_SIMILARITY_INDEX} and
+     *                                  {@link #MAX_SIMILARITY_INDEX}
+     */
+    public @NotNull List<SimilarityEdge> joinArticlesWithSimilarContents(
+            @NotNull Collection<Article> queryArticles,
+            @NotNull Collection<Article> referenceArticles, double similarityThreshold,
+            @NotNull CancellationSignal signal) {
+        Validate.notNull(queryArticles, "QueryArticles must not be null.");
+        Validate.notNull(referenceArticles, "ReferenceArticles must not be null.");
+        Validate.notNull(signal, "Signal must not be null.");
+        Validate.noNullElements(queryArticles, "QueryArticles must not contain null elements.");
+        Validate.noNullElements(referenceArticles,
+                "ReferenceArticles must not contain null elements.");
+
+        SimilarityIndex index = new SimilarityIndex(similarityThreshold);
+        boolean indexQueries = queryArticles.size() > referenceArticles.size();
+        Collection<Article> indexedArticles = indexQueries ? queryArticles : referenceArticles;
+        Collection<Article> probingArticles = indexQueries ? referenceArticles : queryArticles;
+        for (Article article : indexedArticles) {
+            checkCancelled(signal);
+            if (!index.contains(article.getId())) {
+                index.add(article);
+            }
+        }
+
+        // Articles that are part of both sides would otherwise result in the same pair twice.
+        Set<Integer> queryIds = queryArticles.stream().map(Article::getId)
+                .collect(Collectors.toSet());
+        Set<Integer> referenceIds = referenceArticles.stream().map(Article::getId)
+                .collect(Collectors.toSet());
+
+        List<SimilarityEdge> edges = new ArrayList<>();
+        Set<Integer> probedIds = new HashSet<>();
+        int probedCount = 0;
+        for (Article article : probingArticles) {
+            checkCancelled(signal);
+            probedCount++;
+            if (!probedIds.add(article.getId())) {
+                continue;
+            }
+            for (SimilarityEdge edge : index.findSimilar(article)) {
+                Article query = indexQueries ? edge.getArticle2() : edge.getArticle1();
+                Article reference = indexQueries ? edge.getArticle1() : edge.getArticle2();
+                if (referenceIds.contains(query.getId()) && queryIds.contains(reference.getId())
+                        && query.getId() > reference.getId()) {
+                    continue;
+                }
+                edges.add(new SimilarityEdge(query, reference, edge.getScore()));
+            }
+            fireProgressEvent(new DetectionProgressEvent(this,
+                    (double) probedCount / probingArticles.size(), signal));
+        }
+        fireProgressEvent(new DetectionProgressEvent(this, 1, signal));
+
+        edges.sort(Comparator.comparingDouble(SimilarityEdge::getScore).reversed());
+        return edges;
+    }
+
+    /**
+     * Finds the {@code k} pairs of articles with the most similar contents, e.g. if no suitable
+     * similarity threshold is known. Ties at the lowest returned similarity index are broken
+     * arbitrarily.
+     * <p>
+     * The articles are passed through a {@link SimilarityIndex} like in {@link
+     * #detectArticlesWithSimilarContents(ArticleStream, double, CancellationSignal)}. The best
+     * pairs found so far are kept in a bounded min-heap. Once it is full, its lowest similarity
+     * index becomes the threshold of the index, which rises with every better pair. Hence, the
+     * articles that follow are indexed with fewer n-grams and only candidates that can enter the
+     * heap are verified. Articles whose content occurs more than once are passed through the
+     * index first, so that their pairs raise the threshold to its maximum right away. Subscribed
+     * {@code DetectionProgressListener} instances will be notified about the progress.
+     * </p>
+     *
+     * @param articles the articles among which the pairs should be found. Articles without
+     *                 content and repeated articles are ignored.
+     * @param k the maximum number of pairs to be returned
+     * @param signal a {@code CancellationSignal} that can be used to cancel the search
+     * @return the edges of at most {@code k} pairs in descending order of their similarity
+     *         index
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     * @throws IllegalArgumentException if any object parameter was {@code null}, {@code
+     *                                  articles} contained {@code null} elements or {@code k}
+     *                                  was not positive
+     */
+    public @NotNull List<SimilarityEdge> findMostSimilarPairs(
+            @NotNull Collection<Article> articles, int k, @NotNull CancellationSignal signal) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.notNull(signal, "Signal must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+        Validate.isTrue(k > 0, "K must be positive.");
+
+        Map<String, Integer> contentCounts = new HashMap<>();
+        for (Article article : articles) {
+            if (article.getContent() != null) {
+                contentCounts.merge(article.getContent(), 1, Integer::sum);
+            }
+        }
+        List<Article> orderedArticles = new ArrayList<>(articles);
+        orderedArticles.sort(Comparator.comparing(article -> article.getContent() == null
+                || contentCounts.get(article.getContent()) == 1));
+
+        SimilarityIndex index = new SimilarityIndex(MIN_SIMILARITY_INDEX);
+        PriorityQueue<SimilarityEdge> bestEdges = new PriorityQueue<>(k,
+                Comparator.comparingDouble(SimilarityEdge::getScore));
+        int processedCount = 0;
+        for (Article article : orderedArticles) {
+            checkCancelled(signal);
+            processedCount++;
+            if (article.getContent() == null || index.contains(article.getId())) {
+                continue;
+            }
+
+            for (SimilarityEdge edge : index.findSimilar(article)) {
+                if (bestEdges.size() < k) {
+                    bestEdges.add(edge);
+                } else if (edge.getScore() > bestEdges.peek().getScore()) {
+                    bestEdges.poll();
+                    bestEdges.add(edge);
+                }
+            }
+            if (bestEdges.size() == k
+                    && bestEdges.peek().getScore() > index.getSimilarityThreshold()) {
+                index.raiseSimilarityThreshold(bestEdges.peek().getScore());
+            }
+            index.add(article);
+
+            fireProgressEvent(new DetectionProgressEvent(this,
+                    (double) processedCount / orderedArticles.size(), signal));
+        }
+        fireProgressEvent(new DetectionProgressEvent(this, 1, signal));
+
+        List<SimilarityEdge> edges = new ArrayList<>(bestEdges);
+        edges.sort(Comparator.comparingDouble(SimilarityEdge::getScore).reversed());
+        return edges;
+    }
+
+    /**
+     * Checks whether the detection has been cancelled.
+     *
+     * @param signal the {@code CancellationSignal} of the detection
+     * @throws DetectionAbortedException if the {@code signal} has been cancelled
+     */
+    private void checkCancelled(@NotNull CancellationSignal signal) {
+        if (signal.isCancelled()) {
+            throw new DetectionAbortedException("The detection has been cancelled.", null);
+        }
+    }
+
     /**
      * Determines whether two {@code Article} objects have similar content properties based
      * on the given similarity threshold value.
@@ -143,49 +776,11 @@ public final class SimilarityDetector {
             return true;
         }
 
-        Multiset<String> content1NGrams = article1.getContentNGrams();
-        Multiset<String> content2NGrams = article2.getContentNGrams();
-        double score = calculateCosineSimilarity(content1NGrams, content2NGrams);
+        double score = article1.getContentVector().cosineSimilarity(article2.getContentVector());
 
         return score >= similarityThreshold;
     }
 
-    /**
-     * Calculates the cosine similarity index of two n-gram multisets. Total inequality is
-     * represented by the value {@code 0} and total equality by the value {@code 1}. If any of
-     * the two multisets are empty, the value {@code 0} is returned.
-     *
-     * @param nGramsA a {@code Multiset} of n-grams
-     * @param nGramsB a {@code Multiset} of n-grams
-     * @return the cosine similarity index of {@code nGramsA} and {@code nGramsB}
-     * @throws IllegalArgumentException if {@code nGramsA} or {@code nGramsB} was {@code null}
-     */
-    private double calculateCosineSimilarity(@NotNull final Multiset<String> nGramsA,
-                                             @NotNull final Multiset<String> nGramsB) {
-        Validate.notNull(nGramsA, "NGramsA must not be null.");
-        Validate.notNull(nGramsB, "NGramsB must not be null.");
-
-        if (nGramsA.size() == 0 || nGramsB.size() == 0) {
-            return 0;
-        }
-
-        double dotProduct = 0;
-        double magnitudeA = 0;
-        double magnitudeB = 0;
-
-        for (final String entry : union(nGramsA, nGramsB).elementSet()) {
-            final double aCount = nGramsA.count(entry);
-            final double bCount = nGramsB.count(entry);
-
-            dotProduct += aCount * bCount;
-            magnitudeA += aCount * aCount;
-            magnitudeB += bCount * bCount;
-        }
-
-        // Cosine similarity formula: a·b / (||a|| * ||b||)
-        return dotProduct / (sqrt(magnitudeA) * sqrt(magnitudeB));
-    }
-
     /**
      * Adds two similar {@code Article} instance to the given {@code similaritiesMap}. Each
      * article will only be present in one set (see similarity definition in
@@ -272,6 +867,15 @@ public final class SimilarityDetector {
         DetectionProgressListeners.add(listener);
     }
 
+    /**
+     * Removes a previously added {@code DetectionProgressListener}.
+     *
+     * @param listener the {@code DetectionProgressListener} to be removed
+     */
+    public void removeProgressListener(@Nullable DetectionProgressListener listener) {
+        DetectionProgressListeners.remove(listener);
+    }
+
     /**
      * Notifies listeners that a {@code DetectionProgressEvent} has occurred.
      *
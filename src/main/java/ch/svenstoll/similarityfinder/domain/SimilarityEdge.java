@@ -0,0 +1,56 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A pair of articles with similar contents and the cosine similarity index of their content
+ * vectors.
+ */
+public final class SimilarityEdge {
+    @NotNull
+    private final Article article1;
+    @NotNull
+    private final Article article2;
+    private final double score;
+
+    /**
+     * Constructs a {@code SimilarityEdge}.
+     *
+     * @param article1 an {@code Article} whose content is similar to {@code article2}
+     * @param article2 an {@code Article} whose content is similar to {@code article1}
+     * @param score the similarity index of both contents
+     * @throws IllegalArgumentException if {@code article1} or {@code article2} was {@code null}
+     */
+    public SimilarityEdge(@NotNull Article article1, @NotNull Article article2, double score) {
+        this.article1 = Validate.notNull(article1, "Article1 must not be null.");
+        this.article2 = Validate.notNull(article2, "Article2 must not be null.");
+        this.score = score;
+    }
+
+    public @NotNull Article getArticle1() {
+        return article1;
+    }
+
+    public @NotNull Article getArticle2() {
+        return article2;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "SimilarityEdge{" +
+                "article1=" + article1.getId() +
+                ", article2=" + article2.getId() +
+                ", score=" + score +
+                '}';
+    }
+}
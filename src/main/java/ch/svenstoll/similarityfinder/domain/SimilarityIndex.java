@@ -0,0 +1,418 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * An inverted index of article content vectors that finds the indexed articles whose contents
+ * are similar to the content of another article without comparing it to every indexed article.
+ * <p>
+ * Only a part of every vector is indexed: the n-grams that occur in many articles are left out
+ * as long as the magnitude of the left out part stays below the similarity threshold times the
+ * magnitude of the vector. Due to the Cauchy-Schwarz inequality, the left out n-grams alone can
+ * never make two contents similar. Hence, every similar article shares at least one indexed
+ * n-gram with the query and is found as a candidate. The candidates are verified by calculating
+ * their exact cosine similarity, so the results are the same as those of comparing all pairs.
+ * </p>
+ * <p>
+ * Articles without content are never indexed. Articles with equal contents are always similar.
+ * Removed articles give their postings and their slot back, so an index whose articles are
+ * added and removed at the same rate does not grow. This class is not thread safe.
+ * </p>
+ */
+public final class SimilarityIndex {
+    /**
+     * A relative margin that keeps rounding errors from leaving out an n-gram that is needed
+     * to find a similar article.
+     */
+    private static final double ROUNDING_MARGIN = 1e-9;
+
+    private double similarityThreshold;
+    // The slots of removed articles are null until they are reused.
+    @NotNull
+    private final List<Article> articles = new ArrayList<>();
+    @NotNull
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    @NotNull
+    private final Map<Integer, Integer> ordinalsById = new HashMap<>();
+    @NotNull
+    private final Map<Long, Postings> postings = new HashMap<>();
+    @NotNull
+    private final Map<Long, Integer> documentFrequencies = new HashMap<>();
+    // Contents that are too short to contain any n-gram can only be found by equality.
+    @NotNull
+    private final Map<String, List<Integer>> ordinalsByShortContent = new HashMap<>();
+    @NotNull
+    private int[] candidateMarks = new int[0];
+    private int currentMark = 0;
+
+    /**
+     * Constructs an empty {@code SimilarityIndex}.
+     *
+     * @param similarityThreshold the lowest similarity threshold the index is able to answer
+     *                            queries for. It must be a number between (inclusive)
+     *                            {@link SimilarityDetector#MIN_SIMILARITY_INDEX} and
+     *                            {@link SimilarityDetector#MAX_SIMILARITY_INDEX}.
+     * @throws IllegalArgumentException if {@code similarityThreshold} was out of bounds
+     */
+    public SimilarityIndex(double similarityThreshold) {
+        Validate.inclusiveBetween(MIN_SIMILARITY_INDEX, MAX_SIMILARITY_INDEX, similarityThreshold,
+                "SimilarityThreshold must be between " + MIN_SIMILARITY_INDEX + " and "
+                        + MAX_SIMILARITY_INDEX + " (inclusive).");
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    /**
+     * Adds an article to this index.
+     *
+     * @param article the {@code Article} to be added
+     * @return {@code true} if the article has been added or {@code false} if it has no content
+     * @throws IllegalArgumentException if {@code article} was {@code null} or an article with
+     *                                  the same id has already been added
+     */
+    public boolean add(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+        Validate.isTrue(!ordinalsById.containsKey(article.getId()),
+                "Article " + article.getId() + " has already been added.");
+
+        String content = article.getContent();
+        if (content == null) {
+            return false;
+        }
+
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = articles.size();
+            articles.add(article);
+        } else {
+            ordinal = freeOrdinals.pop();
+            articles.set(ordinal, article);
+        }
+        ordinalsById.put(article.getId(), ordinal);
+
+        NGramVector vector = article.getContentVector();
+        if (vector.isEmpty()) {
+            ordinalsByShortContent.computeIfAbsent(content, key -> new ArrayList<>()).add(ordinal);
+            return true;
+        }
+
+        for (int i = 0; i < vector.size(); i++) {
+            documentFrequencies.merge(vector.getGram(i), 1, Integer::sum);
+        }
+        for (long gram : selectIndexedGrams(vector)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(ordinal);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the article with the specified id and all of its postings from this index.
+     *
+     * @param id the id of the article to be removed
+     * @return the removed {@code Article} or {@code null} if no such article has been indexed
+     */
+    public @Nullable Article remove(int id) {
+        Integer ordinal = ordinalsById.remove(id);
+        if (ordinal == null) {
+            return null;
+        }
+        Article article = articles.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+
+        NGramVector vector = article.getContentVector();
+        if (vector.isEmpty()) {
+            List<Integer> ordinals = ordinalsByShortContent.get(article.getContent());
+            ordinals.remove(ordinal);
+            if (ordinals.isEmpty()) {
+                ordinalsByShortContent.remove(article.getContent());
+            }
+            return article;
+        }
+
+        // The indexed n-grams are not stored, so the article is removed from the postings of
+        // all of its n-grams.
+        for (int i = 0; i < vector.size(); i++) {
+            long gram = vector.getGram(i);
+            Postings gramPostings = postings.get(gram);
+            if (gramPostings != null && gramPostings.remove(ordinal) && gramPostings.size == 0) {
+                postings.remove(gram);
+            }
+            documentFrequencies.computeIfPresent(gram,
+                    (key, frequency) -> frequency > 1 ? frequency - 1 : null);
+        }
+        return article;
+    }
+
+    /**
+     * Selects the n-grams of a vector that are indexed. The n-grams are left out in descending
+     * order of their document frequency as long as the left out part of the vector can not
+     * reach the similarity threshold on its own.
+     *
+     * @param vector a non-empty content vector
+     * @return the n-grams to be indexed
+     */
+    private @NotNull List<Long> selectIndexedGrams(@NotNull NGramVector vector) {
+        Integer[] order = new Integer[vector.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(
+                (Integer i) -> documentFrequencies.get(vector.getGram(i))).reversed());
+
+        double bound = similarityThreshold * similarityThreshold
+                * vector.getSquaredMagnitude() * (1 - ROUNDING_MARGIN);
+        double leftOut = 0;
+        List<Long> indexedGrams = new ArrayList<>();
+        for (int i : order) {
+            double squaredCount = (double) vector.getCount(i) * vector.getCount(i);
+            if (indexedGrams.isEmpty() && leftOut + squaredCount < bound) {
+                leftOut += squaredCount;
+            } else {
+                indexedGrams.add(vector.getGram(i));
+            }
+        }
+        return indexedGrams;
+    }
+
+    /**
+     * Finds all indexed articles whose contents are similar to the content of the specified
+     * {@code article} with respect to the similarity threshold of this index. The article
+     * itself is never part of the result, even if it has been indexed.
+     *
+     * @param article the {@code Article} whose similar articles should be found
+     * @return a list of edges from the {@code article} to each similar indexed article
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public @NotNull List<SimilarityEdge> findSimilar(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+
+        List<SimilarityEdge> edges = new ArrayList<>();
+        String content = article.getContent();
+        if (content == null) {
+            return edges;
+        }
+        NGramVector vector = article.getContentVector();
+
+        // If the similarityThreshold is equal to its min value, every content is similar.
+        if (Double.compare(similarityThreshold, MIN_SIMILARITY_INDEX) <= 0) {
+            for (Article other : articles) {
+                if (other != null && other.getId() != article.getId()) {
+                    edges.add(new SimilarityEdge(article, other, score(article, other)));
+                }
+            }
+            return edges;
+        }
+
+        if (vector.isEmpty()) {
+            for (int ordinal : ordinalsByShortContent.getOrDefault(content,
+                    Collections.emptyList())) {
+                Article other = articles.get(ordinal);
+                if (other.getId() != article.getId()) {
+                    edges.add(new SimilarityEdge(article, other, MAX_SIMILARITY_INDEX));
+                }
+            }
+            return edges;
+        }
+
+        nextMark();
+        for (int i = 0; i < vector.size(); i++) {
+            Postings gramPostings = postings.get(vector.getGram(i));
+            if (gramPostings == null) {
+                continue;
+            }
+            for (int j = 0; j < gramPostings.size; j++) {
+                int ordinal = gramPostings.ordinals[j];
+                if (candidateMarks[ordinal] == currentMark) {
+                    continue;
+                }
+                candidateMarks[ordinal] = currentMark;
+
+                Article other = articles.get(ordinal);
+                if (other.getId() == article.getId()) {
+                    continue;
+                }
+                double score = score(article, other);
+                if (score >= similarityThreshold) {
+                    edges.add(new SimilarityEdge(article, other, score));
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Calculates the similarity index of the contents of two articles. Equal contents always
+     * result in {@link SimilarityDetector#MAX_SIMILARITY_INDEX}.
+     */
+    static double score(@NotNull Article article1, @NotNull Article article2) {
+        if (Objects.equals(article1.getContent(), article2.getContent())) {
+            return MAX_SIMILARITY_INDEX;
+        }
+        return article1.getContentVector().cosineSimilarity(article2.getContentVector());
+    }
+
+    /**
+     * Starts a new candidate search by advancing the mark that flags already visited
+     * candidates.
+     */
+    private void nextMark() {
+        if (candidateMarks.length < articles.size()) {
+            candidateMarks = Arrays.copyOf(candidateMarks,
+                    Math.max(articles.size(), candidateMarks.length * 2));
+        }
+        if (currentMark == Integer.MAX_VALUE) {
+            Arrays.fill(candidateMarks, 0);
+            currentMark = 0;
+        }
+        currentMark++;
+    }
+
+    /**
+     * Returns the indexed article with the specified id.
+     *
+     * @param id the id of the article
+     * @return the indexed {@code Article} or {@code null} if no such article has been indexed
+     */
+    public @Nullable Article get(int id) {
+        Integer ordinal = ordinalsById.get(id);
+        return ordinal != null ? articles.get(ordinal) : null;
+    }
+
+    /**
+     * Replaces an indexed article by another instance of the same article, e.g. an instance
+     * that has been queried again and whose title or relevance may have changed. Since the
+     * content must be equal, the index does not change.
+     *
+     * @param article the new instance of the indexed article
+     * @return {@code true} if the article has been replaced or {@code false} if no article with
+     *         the same id and an equal content has been indexed
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public boolean replace(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+
+        Integer ordinal = ordinalsById.get(article.getId());
+        if (ordinal == null
+                || !Objects.equals(articles.get(ordinal).getContent(), article.getContent())) {
+            return false;
+        }
+        articles.set(ordinal, article);
+        return true;
+    }
+
+    /**
+     * Returns all indexed articles. As long as no article has been removed, they are in the
+     * order they have been added.
+     *
+     * @return an unmodifiable list of the indexed articles
+     */
+    public @NotNull List<Article> getArticles() {
+        if (freeOrdinals.isEmpty()) {
+            return Collections.unmodifiableList(articles);
+        }
+        List<Article> indexedArticles = new ArrayList<>(ordinalsById.size());
+        for (Article article : articles) {
+            if (article != null) {
+                indexedArticles.add(article);
+            }
+        }
+        return Collections.unmodifiableList(indexedArticles);
+    }
+
+    /**
+     * Returns whether an article with the specified id has been indexed.
+     *
+     * @param id the id of the article
+     * @return {@code true} if such an article has been indexed, otherwise {@code false}
+     */
+    public boolean contains(int id) {
+        return ordinalsById.containsKey(id);
+    }
+
+    /**
+     * Returns the number of indexed articles.
+     *
+     * @return the number of indexed articles
+     */
+    public int size() {
+        return ordinalsById.size();
+    }
+
+    /**
+     * Returns the total number of postings, i.e. the number of indexed n-gram occurrences.
+     *
+     * @return the number of postings
+     */
+    public long getPostingsCount() {
+        long count = 0;
+        for (Postings gramPostings : postings.values()) {
+            count += gramPostings.size;
+        }
+        return count;
+    }
+
+    /**
+     * Raises the similarity threshold of this index, e.g. once only pairs that are more similar
+     * than the ones found so far are of interest. The articles that have already been indexed
+     * keep their postings. Since these have been selected for a lower threshold, they are still
+     * sufficient to find every similar article. Articles that are added afterwards are indexed
+     * with fewer n-grams and fewer candidates are verified.
+     *
+     * @param similarityThreshold the new threshold. It must be a number between (inclusive) the
+     *                            current threshold and {@link
+     *                            SimilarityDetector#MAX_SIMILARITY_INDEX}.
+     * @throws IllegalArgumentException if {@code similarityThreshold} was out of bounds
+     */
+    public void raiseSimilarityThreshold(double similarityThreshold) {
+        Validate.inclusiveBetween(this.similarityThreshold, MAX_SIMILARITY_INDEX,
+                similarityThreshold, "SimilarityThreshold must be between "
+                        + this.similarityThreshold + " and " + MAX_SIMILARITY_INDEX
+                        + " (inclusive).");
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    /**
+     * A growable list of article ordinals that contain a certain n-gram.
+     */
+    private static final class Postings {
+        @NotNull
+        private int[] ordinals = new int[4];
+        private int size = 0;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        /**
+         * Removes an ordinal by moving the last ordinal into its place, since the order of the
+         * ordinals does not matter.
+         */
+        boolean remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    ordinals[i] = ordinals[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
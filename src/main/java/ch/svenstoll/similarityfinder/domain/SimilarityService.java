@@ -0,0 +1,285 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MAX_SIMILARITY_INDEX;
+import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
+
+/**
+ * Answers similarity queries against a fixed set of articles that is kept in memory. The
+ * content vectors of the articles are calculated once and the articles are indexed by a
+ * {@link SimilarityIndex} for a floor threshold, so a query neither tokenizes the articles
+ * again nor compares it to every article. Queries can use any threshold at or above the floor
+ * threshold.
+ * <p>
+ * All methods of this class are thread safe. Since the index is not thread safe, its lookups
+ * are serialized, while filtering and clustering run in parallel.
+ * </p>
+ */
+public final class SimilarityService {
+    /**
+     * The number of articles that are indexed by {@link #SimilarityService(Collection, double,
+     * Runnable)} or compared by {@link #detectClusters(FilterCriteria, double, Runnable)}
+     * between two checkpoints.
+     */
+    public static final int CHECKPOINT_INTERVAL = 256;
+
+    private final double floorThreshold;
+    @NotNull
+    private final SimilarityIndex index;
+    @NotNull
+    private final List<Article> articles;
+    /**
+     * The id of the temporary article a text query is made of. It is not used by any indexed
+     * article, so no indexed article is mistaken for the query itself.
+     */
+    private final int queryId;
+
+    /**
+     * Constructs a {@code SimilarityService} and indexes the specified articles.
+     *
+     * @param articles the articles to be queried. Articles without content are ignored.
+     * @param floorThreshold the lowest threshold queries can use. It must be a number between
+     *                       (inclusive) {@link SimilarityDetector#MIN_SIMILARITY_INDEX} and
+     *                       {@link SimilarityDetector#MAX_SIMILARITY_INDEX}.
+     * @throws IllegalArgumentException if {@code articles} was {@code null} or contained {@code
+     *                                  null} elements or articles with the same id or if {@code
+     *                                  floorThreshold} was out of bounds
+     */
+    public SimilarityService(@NotNull Collection<Article> articles, double floorThreshold) {
+        this(articles, floorThreshold, () -> {});
+    }
+
+    /**
+     * Constructs a {@code SimilarityService} and indexes the specified articles (see {@link
+     * #SimilarityService(Collection, double)}). The {@code checkpoint} is run after every
+     * {@link #CHECKPOINT_INTERVAL} articles, e.g. to yield to more urgent work (see {@link
+     * PriorityScheduler#yieldPoint(CancellationSignal)}). Exceptions thrown by the {@code
+     * checkpoint} stop the indexing and are propagated.
+     *
+     * @param checkpoint the {@code Runnable} that is run between the chunks of the indexing
+     * @throws IllegalArgumentException if {@code articles} or {@code checkpoint} was {@code
+     *                                  null}, {@code articles} contained {@code null} elements
+     *                                  or articles with the same id or if {@code
+     *                                  floorThreshold} was out of bounds
+     */
+    public SimilarityService(@NotNull Collection<Article> articles, double floorThreshold,
+                             @NotNull Runnable checkpoint) {
+        Validate.notNull(articles, "Articles must not be null.");
+        Validate.noNullElements(articles, "Articles must not contain null elements.");
+        Validate.notNull(checkpoint, "Checkpoint must not be null.");
+
+        this.index = new SimilarityIndex(floorThreshold);
+        this.floorThreshold = floorThreshold;
+        List<Article> indexedArticles = new ArrayList<>();
+        int count = 0;
+        for (Article article : articles) {
+            if (count++ % CHECKPOINT_INTERVAL == 0) {
+                checkpoint.run();
+            }
+            if (index.add(article)) {
+                indexedArticles.add(article);
+            }
+        }
+        this.articles = Collections.unmodifiableList(indexedArticles);
+
+        int id = -1;
+        while (index.contains(id)) {
+            id--;
+        }
+        this.queryId = id;
+    }
+
+    /**
+     * Finds all articles whose contents are similar to the specified text.
+     *
+     * @param text the text to be compared with the contents of the articles
+     * @param similarityThreshold a threshold between (inclusive) the floor threshold and {@link
+     *                            SimilarityDetector#MAX_SIMILARITY_INDEX}
+     * @return the edges from the text to every similar article, the most similar first. The
+     *         first article of every edge represents the text.
+     * @throws IllegalArgumentException if {@code text} was {@code null} or {@code
+     *                                  similarityThreshold} was out of bounds
+     */
+    public @NotNull List<SimilarityEdge> findSimilarToText(@NotNull String text,
+                                                           double similarityThreshold) {
+        Validate.notNull(text, "Text must not be null.");
+        validateThreshold(similarityThreshold);
+
+        Article query = new Article(queryId);
+        query.setContent(text);
+        return findSimilar(query, similarityThreshold);
+    }
+
+    /**
+     * Finds all articles whose contents are similar to the content of the article with the
+     * specified id.
+     *
+     * @param id the id of an article of this service
+     * @param similarityThreshold a threshold between (inclusive) the floor threshold and {@link
+     *                            SimilarityDetector#MAX_SIMILARITY_INDEX}
+     * @return the edges from the article to every similar article, the most similar first, or
+     *         {@code null} if there is no article with content and the specified id
+     * @throws IllegalArgumentException if {@code similarityThreshold} was out of bounds
+     */
+    public @Nullable List<SimilarityEdge> findSimilarToArticle(int id,
+                                                               double similarityThreshold) {
+        validateThreshold(similarityThreshold);
+
+        Article article;
+        synchronized (index) {
+            article = index.get(id);
+        }
+        return article != null ? findSimilar(article, similarityThreshold) : null;
+    }
+
+    /**
+     * Finds the {@code k} articles whose contents are most similar to the specified text. Only
+     * articles whose similarity index reaches the floor threshold are found.
+     *
+     * @param text the text to be compared with the contents of the articles
+     * @param k the maximum number of articles to be found
+     * @return the edges from the text to at most {@code k} articles, the most similar first.
+     *         The first article of every edge represents the text.
+     * @throws IllegalArgumentException if {@code text} was {@code null} or {@code k} was not
+     *                                  positive
+     */
+    public @NotNull List<SimilarityEdge> findMostSimilarToText(@NotNull String text, int k) {
+        Validate.isTrue(k > 0, "K must be positive.");
+        List<SimilarityEdge> edges = findSimilarToText(text, floorThreshold);
+        return edges.size() > k ? new ArrayList<>(edges.subList(0, k)) : edges;
+    }
+
+    /**
+     * Finds the {@code k} articles whose contents are most similar to the content of the
+     * article with the specified id. Only articles whose similarity index reaches the floor
+     * threshold are found.
+     *
+     * @param id the id of an article of this service
+     * @param k the maximum number of articles to be found
+     * @return the edges from the article to at most {@code k} articles, the most similar
+     *         first, or {@code null} if there is no article with content and the specified id
+     * @throws IllegalArgumentException if {@code k} was not positive
+     */
+    public @Nullable List<SimilarityEdge> findMostSimilarToArticle(int id, int k) {
+        Validate.isTrue(k > 0, "K must be positive.");
+        List<SimilarityEdge> edges = findSimilarToArticle(id, floorThreshold);
+        if (edges == null || edges.size() <= k) {
+            return edges;
+        }
+        return new ArrayList<>(edges.subList(0, k));
+    }
+
+    /**
+     * Detects the articles with similar contents among the articles that meet the specified
+     * criteria. The result is the same as that of {@link
+     * SimilarityDetector#detectArticlesWithSimilarContents(List, double)} for these articles.
+     *
+     * @param criteria the criteria that select the articles
+     * @param similarityThreshold a threshold between (inclusive) the floor threshold and {@link
+     *                            SimilarityDetector#MAX_SIMILARITY_INDEX} or {@link
+     *                            SimilarityDetector#MIN_SIMILARITY_INDEX}
+     * @return a list of sets that contain all selected articles that are similar to each other
+     * @throws IllegalArgumentException if {@code criteria} was {@code null} or {@code
+     *                                  similarityThreshold} was out of bounds
+     */
+    public @NotNull List<Set<Article>> detectClusters(@NotNull FilterCriteria criteria,
+                                                      double similarityThreshold) {
+        return detectClusters(criteria, similarityThreshold, () -> {});
+    }
+
+    /**
+     * Detects the articles with similar contents among the articles that meet the specified
+     * criteria (see {@link #detectClusters(FilterCriteria, double)}) and runs the {@code
+     * checkpoint} after every {@link #CHECKPOINT_INTERVAL} articles, e.g. to yield to more
+     * urgent work (see {@link PriorityScheduler#yieldPoint(CancellationSignal)}). Exceptions
+     * thrown by the {@code checkpoint} stop the detection and are propagated.
+     *
+     * @param checkpoint the {@code Runnable} that is run between the chunks of the detection
+     * @throws IllegalArgumentException if {@code criteria} or {@code checkpoint} was {@code
+     *                                  null} or {@code similarityThreshold} was out of bounds
+     */
+    public @NotNull List<Set<Article>> detectClusters(@NotNull FilterCriteria criteria,
+                                                      double similarityThreshold,
+                                                      @NotNull Runnable checkpoint) {
+        Validate.notNull(criteria, "Criteria must not be null.");
+        Validate.notNull(checkpoint, "Checkpoint must not be null.");
+
+        List<Article> selectedArticles = new ArrayList<>();
+        Set<Integer> selectedIds = new HashSet<>();
+        for (Article article : articles) {
+            if (criteria.matches(article)) {
+                selectedArticles.add(article);
+                selectedIds.add(article.getId());
+            }
+        }
+
+        // If the similarityThreshold is equal to its min value, all articles are similar.
+        if (Double.compare(similarityThreshold, MIN_SIMILARITY_INDEX) <= 0) {
+            List<Set<Article>> clusters = new ArrayList<>();
+            if (selectedArticles.size() > 1) {
+                clusters.add(new HashSet<>(selectedArticles));
+            }
+            return clusters;
+        }
+        validateThreshold(similarityThreshold);
+
+        ArticleClusters clusters = new ArticleClusters();
+        for (int i = 0; i < selectedArticles.size(); i++) {
+            if (i % CHECKPOINT_INTERVAL == 0) {
+                checkpoint.run();
+            }
+            Article article = selectedArticles.get(i);
+            for (SimilarityEdge edge : findSimilar(article, similarityThreshold)) {
+                if (selectedIds.contains(edge.getArticle2().getId())) {
+                    clusters.union(edge.getArticle1(), edge.getArticle2());
+                }
+            }
+        }
+        return clusters.getClusters();
+    }
+
+    private @NotNull List<SimilarityEdge> findSimilar(@NotNull Article article,
+                                                      double similarityThreshold) {
+        List<SimilarityEdge> candidates;
+        synchronized (index) {
+            candidates = index.findSimilar(article);
+        }
+        List<SimilarityEdge> edges = new ArrayList<>();
+        for (SimilarityEdge candidate : candidates) {
+            if (candidate.getScore() >= similarityThreshold) {
+                edges.add(candidate);
+            }
+        }
+        edges.sort(Comparator.comparingDouble(SimilarityEdge::getScore).reversed());
+        return edges;
+    }
+
+    private void validateThreshold(double similarityThreshold) {
+        Validate.inclusiveBetween(floorThreshold, MAX_SIMILARITY_INDEX, similarityThreshold,
+                "SimilarityThreshold must be between " + floorThreshold + " and "
+                        + MAX_SIMILARITY_INDEX + " (inclusive).");
+    }
+
+    public double getFloorThreshold() {
+        return floorThreshold;
+    }
+
+    /**
+     * Returns the number of articles that can be queried, i.e. the articles with content.
+     *
+     * @return the number of indexed articles
+     */
+    public int size() {
+        return articles.size();
+    }
+}
@@ -0,0 +1,91 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent computations with the same key. The first caller of a key runs the
+ * computation on its own thread, while all callers with the same key that arrive before it is
+ * complete wait for it and receive the same result or exception. Computations with different
+ * keys run in parallel. Results are not kept once a computation is complete, so a later call
+ * starts a new computation.
+ * <p>
+ * All methods of this class are thread safe.
+ * </p>
+ *
+ * @param <K> the type of the keys. Equal keys must identify computations with equal results.
+ * @param <V> the type of the results
+ */
+public final class SingleFlight<K, V> {
+    @NotNull
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the result of the {@code computation}, or of the computation with the same key
+     * that is already running.
+     *
+     * @param key the key that identifies the computation
+     * @param computation the computation that is run if no computation with the same key is
+     *                    running
+     * @return the result of the computation
+     * @throws IllegalArgumentException if any parameter was {@code null}
+     * @throws RuntimeException if the computation has thrown it. Checked exceptions can not
+     *                          occur, since a {@code Supplier} does not throw them.
+     */
+    public V run(@NotNull K key, @NotNull Supplier<V> computation) {
+        Validate.notNull(key, "Key must not be null.");
+        Validate.notNull(computation, "Computation must not be null.");
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            V result = computation.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Returns the number of computations that are currently running.
+     *
+     * @return the number of distinct keys in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(@NotNull CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Continuously monitors arriving articles for similar contents within a sliding window of
+ * publication dates. The articles of the window are kept in a warm {@link SimilarityIndex},
+ * so every arriving article is only compared with its similar candidates and the cluster it
+ * joins is reported right away.
+ * <p>
+ * The window ends at the latest publication date that has been ingested or passed to {@link
+ * #advanceTo(LocalDate)}. Articles that age out of the window are evicted together with their
+ * postings and similarity edges, so the memory used by the monitor depends on the number of
+ * articles within the window rather than on the number of ingested articles. Since an evicted
+ * article may have connected two parts of a cluster, the clusters are derived from the
+ * similarity edges that remain in the window.
+ * </p>
+ * <p>
+ * All methods of this class are thread safe.
+ * </p>
+ */
+public final class SlidingWindowMonitor {
+    public static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private final int windowDays;
+    @NotNull
+    private final LongSupplier nanoTime;
+    @NotNull
+    private final SimilarityIndex index;
+    @NotNull
+    private final Map<Integer, Set<Integer>> neighbours = new HashMap<>();
+    @NotNull
+    private final Map<Integer, LocalDate> datesById = new HashMap<>();
+    @NotNull
+    private final TreeMap<LocalDate, Set<Integer>> idsByDate = new TreeMap<>();
+    @NotNull
+    private final LatencyRecorder ingestionLatency = new LatencyRecorder();
+    @Nullable
+    private LocalDate windowEnd = null;
+
+    /**
+     * Constructs a {@code SlidingWindowMonitor} with an empty window.
+     *
+     * @param similarityThreshold a number between (inclusive)
+     *                            {@link SimilarityDetector#MIN_SIMILARITY_INDEX} (total
+     *                            inequality) and {@link SimilarityDetector#MAX_SIMILARITY_INDEX}
+     *                            (total equality)
+     * @param windowDays the number of days covered by the window, e.g. {@link
+     *                   #DEFAULT_WINDOW_DAYS}
+     * @throws IllegalArgumentException if {@code similarityThreshold} was out of bounds or
+     *                                  {@code windowDays} was not positive
+     */
+    public SlidingWindowMonitor(double similarityThreshold, int windowDays) {
+        this(similarityThreshold, windowDays, System::nanoTime);
+    }
+
+    /**
+     * Constructs a {@code SlidingWindowMonitor} that uses the specified time source to measure
+     * the ingestion latency.
+     *
+     * @param similarityThreshold the similarity threshold
+     * @param windowDays the number of days covered by the window
+     * @param nanoTime a time source in nanoseconds
+     * @throws IllegalArgumentException if {@code similarityThreshold} was out of bounds,
+     *                                  {@code windowDays} was not positive or {@code nanoTime}
+     *                                  was {@code null}
+     */
+    SlidingWindowMonitor(double similarityThreshold, int windowDays,
+                         @NotNull LongSupplier nanoTime) {
+        Validate.isTrue(windowDays > 0, "WindowDays must be positive.");
+        this.index = new SimilarityIndex(similarityThreshold);
+        this.windowDays = windowDays;
+        this.nanoTime = Validate.notNull(nanoTime, "NanoTime must not be null.");
+    }
+
+    /**
+     * Ingests an arriving article. The window is advanced to the publication date of the
+     * article first, so articles that have aged out are evicted. Then the article is compared
+     * with all articles in the window and added to it. If an article with the same id is
+     * already in the window, it is replaced.
+     * <p>
+     * Articles without content or publication date and articles whose publication date lies
+     * before the window are not added.
+     * </p>
+     *
+     * @param article the arriving {@code Article}
+     * @return the similar articles in the window and the cluster the article has joined
+     * @throws IllegalArgumentException if {@code article} was {@code null}
+     */
+    public synchronized @NotNull IngestionResult ingest(@NotNull Article article) {
+        Validate.notNull(article, "Article must not be null.");
+
+        long startNanos = nanoTime.getAsLong();
+        LocalDate date = article.getPublicationDate();
+        int evictedArticles = 0;
+        if (date != null) {
+            evictedArticles = advanceTo(date);
+        }
+        remove(article.getId());
+
+        if (article.getContent() == null || date == null || date.isBefore(getWindowStart())) {
+            return finishIngestion(article, false, Collections.emptyList(),
+                    Collections.singleton(article), evictedArticles, startNanos);
+        }
+
+        List<SimilarityEdge> matches = index.findSimilar(article);
+        index.add(article);
+        Set<Integer> articleNeighbours = new HashSet<>();
+        for (SimilarityEdge match : matches) {
+            int otherId = match.getArticle2().getId();
+            articleNeighbours.add(otherId);
+            neighbours.get(otherId).add(article.getId());
+        }
+        neighbours.put(article.getId(), articleNeighbours);
+        datesById.put(article.getId(), date);
+        idsByDate.computeIfAbsent(date, key -> new HashSet<>()).add(article.getId());
+
+        return finishIngestion(article, true, matches,
+                collectCluster(article.getId(), new HashSet<>()), evictedArticles, startNanos);
+    }
+
+    /**
+     * Records the latency of an ingestion and creates its result.
+     */
+    private @NotNull IngestionResult finishIngestion(@NotNull Article article, boolean indexed,
+                                                     @NotNull List<SimilarityEdge> matches,
+                                                     @NotNull Set<Article> cluster,
+                                                     int evictedArticles, long startNanos) {
+        long latencyNanos = nanoTime.getAsLong() - startNanos;
+        ingestionLatency.record(latencyNanos);
+        return new IngestionResult(article, indexed, matches, cluster, evictedArticles,
+                latencyNanos);
+    }
+
+    /**
+     * Advances the end of the window to the specified date and evicts all articles that have
+     * aged out of the window. The window never moves backwards.
+     *
+     * @param date the new end of the window, usually the current date
+     * @return the number of evicted articles
+     * @throws IllegalArgumentException if {@code date} was {@code null}
+     */
+    public synchronized int advanceTo(@NotNull LocalDate date) {
+        Validate.notNull(date, "Date must not be null.");
+
+        if (windowEnd != null && !date.isAfter(windowEnd)) {
+            return 0;
+        }
+        windowEnd = date;
+
+        int evictedArticles = 0;
+        LocalDate windowStart = getWindowStart();
+        while (!idsByDate.isEmpty() && idsByDate.firstKey().isBefore(windowStart)) {
+            for (int id : new ArrayList<>(idsByDate.firstEntry().getValue())) {
+                remove(id);
+                evictedArticles++;
+            }
+        }
+        return evictedArticles;
+    }
+
+    /**
+     * Removes an article and its similarity edges from the window.
+     */
+    private void remove(int id) {
+        LocalDate date = datesById.remove(id);
+        if (date == null) {
+            return;
+        }
+        Set<Integer> idsOfDate = idsByDate.get(date);
+        idsOfDate.remove(id);
+        if (idsOfDate.isEmpty()) {
+            idsByDate.remove(date);
+        }
+        for (int neighbour : neighbours.remove(id)) {
+            neighbours.get(neighbour).remove(id);
+        }
+        index.remove(id);
+    }
+
+    /**
+     * Collects all articles that are connected to the specified article by similarity edges.
+     */
+    private @NotNull Set<Article> collectCluster(int id, @NotNull Set<Integer> visited) {
+        Set<Article> cluster = new HashSet<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        visited.add(id);
+        pending.push(id);
+        while (!pending.isEmpty()) {
+            int current = pending.pop();
+            cluster.add(index.get(current));
+            for (int neighbour : neighbours.get(current)) {
+                if (visited.add(neighbour)) {
+                    pending.push(neighbour);
+                }
+            }
+        }
+        return cluster;
+    }
+
+    /**
+     * Returns all clusters of articles with similar contents that are currently in the window.
+     *
+     * @return a list of sets that contain at least two articles that are similar to each other
+     */
+    public synchronized @NotNull List<Set<Article>> getClusters() {
+        List<Set<Article>> clusters = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        for (int id : neighbours.keySet()) {
+            if (!visited.contains(id) && !neighbours.get(id).isEmpty()) {
+                clusters.add(collectCluster(id, visited));
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * Returns the first day of the window.
+     *
+     * @return the first publication date within the window or {@link LocalDate#MIN} if nothing
+     *         has been ingested, yet
+     */
+    public synchronized @NotNull LocalDate getWindowStart() {
+        return windowEnd != null ? windowEnd.minusDays(windowDays - 1) : LocalDate.MIN;
+    }
+
+    public synchronized @Nullable LocalDate getWindowEnd() {
+        return windowEnd;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * Returns the number of articles within the window.
+     *
+     * @return the number of articles within the window
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the total number of postings of the articles within the window.
+     *
+     * @return the number of postings
+     */
+    public synchronized long getPostingsCount() {
+        return index.getPostingsCount();
+    }
+
+    public @NotNull LatencyRecorder getIngestionLatency() {
+        return ingestionLatency;
+    }
+}
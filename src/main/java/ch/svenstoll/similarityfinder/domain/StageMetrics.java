@@ -0,0 +1,122 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics of a single stage of a pipeline: the number of processed items, the throughput and
+ * the depth of the queue the stage takes its input from. A stage whose queue is constantly
+ * full is the bottleneck of the pipeline. All methods of this class are thread safe.
+ */
+public final class StageMetrics {
+    @NotNull
+    private final String name;
+    @NotNull
+    private final IntSupplier queueDepth;
+    private final int queueCapacity;
+    @NotNull
+    private final LongSupplier nanoTime;
+    private final long startNanos;
+    @NotNull
+    private final AtomicLong processedItems = new AtomicLong();
+    private volatile long finishNanos = -1;
+
+    /**
+     * Constructs a {@code StageMetrics} instance and starts measuring the throughput.
+     *
+     * @param name the name of the stage
+     * @param queueDepth a supplier of the current number of entries in the input queue of the
+     *                   stage
+     * @param queueCapacity the capacity of the input queue of the stage or {@code 0} if the
+     *                      stage has no input queue
+     * @throws IllegalArgumentException if {@code name} or {@code queueDepth} was {@code null}
+     */
+    public StageMetrics(@NotNull String name, @NotNull IntSupplier queueDepth,
+                        int queueCapacity) {
+        this(name, queueDepth, queueCapacity, System::nanoTime);
+    }
+
+    /**
+     * Constructs a {@code StageMetrics} instance that uses the specified time source.
+     *
+     * @param name the name of the stage
+     * @param queueDepth a supplier of the current number of entries in the input queue
+     * @param queueCapacity the capacity of the input queue of the stage
+     * @param nanoTime a time source in nanoseconds
+     * @throws IllegalArgumentException if any object parameter was {@code null}
+     */
+    StageMetrics(@NotNull String name, @NotNull IntSupplier queueDepth, int queueCapacity,
+                 @NotNull LongSupplier nanoTime) {
+        this.name = Validate.notNull(name, "Name must not be null.");
+        this.queueDepth = Validate.notNull(queueDepth, "QueueDepth must not be null.");
+        this.queueCapacity = queueCapacity;
+        this.nanoTime = Validate.notNull(nanoTime, "NanoTime must not be null.");
+        this.startNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Records that the stage has processed the specified number of items.
+     *
+     * @param count the number of processed items
+     */
+    public void recordProcessed(int count) {
+        processedItems.addAndGet(count);
+    }
+
+    /**
+     * Stops measuring the throughput. Subsequent calls have no effect.
+     */
+    public void finish() {
+        if (finishNanos < 0) {
+            finishNanos = nanoTime.getAsLong();
+        }
+    }
+
+    public @NotNull String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getProcessedItems() {
+        return processedItems.get();
+    }
+
+    public boolean isFinished() {
+        return finishNanos >= 0;
+    }
+
+    /**
+     * Returns the average number of items processed per second since the stage has been
+     * started until it has been finished or until now.
+     *
+     * @return the throughput in items per second
+     */
+    public double getThroughput() {
+        long end = isFinished() ? finishNanos : nanoTime.getAsLong();
+        long elapsedNanos = Math.max(1, end - startNanos);
+        return getProcessedItems() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d items, %.1f items/s, queue %d/%d", name,
+                getProcessedItems(), getThroughput(), getQueueDepth(), queueCapacity);
+    }
+}
@@ -0,0 +1,28 @@
+/* Copyright 2017 Sven Stoll. All rights reserved.
+
+   Licensed under the MIT License. See LICENSE file in the project root for full license
+   information. */
+
+package ch.svenstoll.similarityfinder.domain;
+
+/**
+ * The priority classes of the work of a {@link PriorityScheduler}, the most urgent first.
+ */
+public enum WorkPriority {
+    /**
+     * Work a user is waiting for, e.g. a search of the {@code Filter} or a query for similar
+     * articles. It is never paused.
+     */
+    INTERACTIVE,
+    /**
+     * Speculative work whose result may soon be requested, e.g. warming an index. It is paused
+     * while interactive work is running.
+     */
+    PREFETCH,
+    /**
+     * Bulk work nobody is waiting for or that may be delayed, e.g. a scheduled batch run or a
+     * cluster detection of the {@code SimilarityServer}. It is paused while interactive or
+     * prefetch work is running.
+     */
+    BATCH
+}
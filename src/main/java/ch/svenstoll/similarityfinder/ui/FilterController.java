@@ -34,6 +34,7 @@ import java.util.Set;
 import java.util.concurrent.*;
 
 import static ch.svenstoll.similarityfinder.domain.Filter.DEFAULT_MIN_LETTERS;
+import static ch.svenstoll.similarityfinder.domain.Filter.DEFAULT_TIME_BUDGET;
 import static ch.svenstoll.similarityfinder.domain.SimilarityDetector.MIN_SIMILARITY_INDEX;
 import static ch.svenstoll.similarityfinder.ui.CheckBoxUtil.adjustCheckBoxSelectionState;
 
@@ -53,6 +54,8 @@ public final class FilterController implements Controller {
     @NotNull
     private final FilterConfigsManagerController configsManagerController;
     @NotNull
+    private final ExecutorRegistry executorRegistry;
+    @NotNull
     private final List<Task> filterTasks = new ArrayList<>();
     @NotNull
     private final ObservableList<Medium> mediaList = FXCollections.observableArrayList();
@@ -66,6 +69,8 @@ public final class FilterController implements Controller {
     @FXML
     private Slider similarityThresholdSlider;
     @FXML
+    private CheckBox liveThresholdCheckBox;
+    @FXML
     private CheckBox relevantOnlyCheckBox;
     @FXML
     private ListView<Medium> mediaListView;
@@ -80,11 +85,17 @@ public final class FilterController implements Controller {
     @FXML
     private DecimalTextField minLettersField;
     @FXML
+    private DecimalTextField timeBudgetField;
+    @FXML
     private ProgressIndicator progressIndicator;
     @FXML
     private CheckBox selectAllMediaCheckBox;
     @FXML
     private Button filterButton;
+    @FXML
+    private Button estimateButton;
+    @FXML
+    private Label estimateLabel;
 
     /**
      * Construct a {@code FilterController}.
@@ -93,14 +104,19 @@ public final class FilterController implements Controller {
      *               similar contents should be detected
      * @param configsManagerController the {@code FilterConfigsManagerController} whose view
      *                                 may be opened in a new stage if requested by the user
+     * @param executorRegistry the {@code ExecutorRegistry} whose {@link ExecutorPool#SEARCH}
+     *                         pool runs the searches and previews
      * @throws IllegalArgumentException if any parameter was {@code null}
      */
     @Inject
     public FilterController(@NotNull Filter filter,
-                            @NotNull FilterConfigsManagerController configsManagerController) {
+                            @NotNull FilterConfigsManagerController configsManagerController,
+                            @NotNull ExecutorRegistry executorRegistry) {
         this.filter = Validate.notNull(filter, "Filter must not be null.");
         this.configsManagerController = Validate.notNull(configsManagerController,
                 "ConfigManagerController must not be null.");
+        this.executorRegistry
+                = Validate.notNull(executorRegistry, "ExecutorRegistry must not be null.");
     }
 
     /**
@@ -112,6 +128,7 @@ public final class FilterController implements Controller {
         initializeSimilarityThreshold();
         initializeMediaListView();
         initializeMinLetters();
+        initializeTimeBudget();
         filter.relevantOnlyProperty().bindBidirectional(relevantOnlyCheckBox.selectedProperty());
         filter.fromDateProperty().bindBidirectional(fromDatePicker.valueProperty());
         filter.toDateProperty().bindBidirectional(toDatePicker.valueProperty());
@@ -147,6 +164,10 @@ public final class FilterController implements Controller {
                 filter.similarityThresholdProperty());
         similarityThresholdSlider.valueProperty().addListener((observable, oldValue, newValue) ->
                 similarityThresholdField.setTextFieldNumber(newValue));
+
+        // In live threshold mode, the filter updates the results of the last search whenever
+        // the threshold changes.
+        filter.liveThresholdProperty().bindBidirectional(liveThresholdCheckBox.selectedProperty());
     }
 
     /**
@@ -216,6 +237,35 @@ public final class FilterController implements Controller {
         });
     }
 
+    /**
+     * Initializes the {@link #timeBudgetField}. The corresponding filter property will be
+     * adjusted whenever the {@code timeBudgetField} loses focus.
+     */
+    private void initializeTimeBudget() {
+        DecimalFormat timeBudgetFormat = new DecimalFormat();
+        timeBudgetFormat.setParseIntegerOnly(true);
+        timeBudgetFormat.setRoundingMode(RoundingMode.HALF_UP);
+        timeBudgetField.setMinValue(0);
+        timeBudgetField.setMaxValue(Integer.MAX_VALUE);
+        timeBudgetField.setDecimalFormat(timeBudgetFormat);
+        timeBudgetField.focusedProperty().addListener((observable, oldValue, newValue) -> {
+            if (!newValue) {
+                timeBudgetField.formatTextProperty("");
+                filter.setTimeBudget(timeBudgetField.parseTextFieldNumber(0).intValue());
+            }
+        });
+
+        filter.timeBudgetProperty().addListener((observable, oldValue, newValue) -> {
+            if (timeBudgetField.parseTextFieldNumber(0).intValue() != newValue.intValue()) {
+                if (newValue.intValue() == DEFAULT_TIME_BUDGET) {
+                    timeBudgetField.setText("");
+                } else {
+                    timeBudgetField.setTextFieldNumber(newValue);
+                }
+            }
+        });
+    }
+
     /**
      * Finds articles with similar contents that match with the various properties of this {@code
      * Filter} instance.To prevent blocking the JavaFX thread, this method will be executed
@@ -231,23 +281,119 @@ public final class FilterController implements Controller {
                     task.cancel(true);
                 }
             }
+            filter.cancel();
             filterTasks.clear();
             return;
         }
 
-        Task<List<Set<Article>>> task = new Task<List<Set<Article>>>() {
+        startFilterTask(new Task<List<Set<Article>>>() {
             @Override
             protected List<Set<Article>> call() {
                 return filter.findArticlesWithSimilarContent();
             }
+        });
+    }
+
+    /**
+     * Estimates the result and the runtime of a search with the various properties of this
+     * {@code Filter} instance and shows the estimate in the {@link #estimateLabel}. To prevent
+     * blocking the JavaFX thread, the estimate is computed asynchronously.
+     */
+    @FXML
+    private void estimateSearch() {
+        Task<SearchEstimate> task = new Task<SearchEstimate>() {
+            @Override
+            protected SearchEstimate call() {
+                return filter.estimateSearch();
+            }
         };
+        task.setOnSucceeded(event -> {
+            estimateButton.setDisable(false);
+            estimateLabel.setText(formatEstimate(task.getValue()));
+        });
+        task.setOnFailed(event -> {
+            estimateButton.setDisable(false);
+            Throwable e = task.getException();
+            if (e instanceof DatabaseAccessException) {
+                estimateLabel.setText(e.getMessage());
+            } else {
+                estimateLabel.setText("");
+                if (!(e instanceof DetectionAbortedException)) {
+                    e.printStackTrace();
+                }
+            }
+        });
 
+        try {
+            executorRegistry.getExecutor(ExecutorPool.SEARCH).execute(task);
+        } catch (RejectedExecutionException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        estimateButton.setDisable(true);
+        estimateLabel.setText("Estimating...");
+    }
+
+    /**
+     * Formats an estimate of a search for the {@link #estimateLabel}. The runtime of a search
+     * with a time budget is limited to the time budget.
+     *
+     * @param estimate the estimate to be formatted
+     * @return a short description of the {@code estimate}
+     */
+    private @NotNull String formatEstimate(@NotNull SearchEstimate estimate) {
+        ConfidenceInterval pairs = estimate.getSimilarPairs();
+        ConfidenceInterval perArticle = estimate.getSimilarArticlesPerArticle();
+        ConfidenceInterval runtime = estimate.getRuntimeNanos();
+        String text = String.format("%d articles: ~%.0f similar pairs (%.0f-%.0f), "
+                        + "~%.1f similar articles per article (%.1f-%.1f), search ~%.1f s "
+                        + "(%.1f-%.1f s).", estimate.getArticleCount(), pairs.getEstimate(),
+                pairs.getLower(), pairs.getUpper(), perArticle.getEstimate(),
+                perArticle.getLower(), perArticle.getUpper(), toSeconds(runtime.getEstimate()),
+                toSeconds(runtime.getLower()), toSeconds(runtime.getUpper()));
+        int timeBudget = filter.getTimeBudget();
+        if (timeBudget > 0 && toSeconds(runtime.getEstimate()) > timeBudget) {
+            text += String.format(" The time budget limits the search to %d s.", timeBudget);
+        }
+        return text;
+    }
+
+    private static double toSeconds(double nanos) {
+        return nanos / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Continues the detection of the last search whose time budget has run out. Like a new
+     * search, it is executed asynchronously and can be cancelled using the {@link
+     * #filterButton}.
+     */
+    private void continueDetection() {
+        startFilterTask(new Task<List<Set<Article>>>() {
+            @Override
+            protected List<Set<Article>> call() {
+                return filter.continueDetection();
+            }
+        });
+    }
+
+    /**
+     * Executes a filter task asynchronously and adjusts the state of this {@code
+     * FilterController} until the task is done.
+     *
+     * @param task the filter task to be executed
+     */
+    private void startFilterTask(Task<List<Set<Article>>> task) {
         task.setOnCancelled(event -> setFilterStateToReady());
         task.setOnSucceeded(event -> handleSuccessfulFilterTask(task));
         task.setOnFailed(event -> handleFailedFilterTask(task));
 
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        executorService.submit(task);
+        try {
+            executorRegistry.getExecutor(ExecutorPool.SEARCH).execute(task);
+        } catch (RejectedExecutionException e) {
+            e.printStackTrace();
+            return;
+        }
 
         filterTasks.add(task);
         setFilterStateToBusy();
@@ -266,7 +412,20 @@ public final class FilterController implements Controller {
         filterTasks.remove(task);
         setFilterStateToReady();
 
-        if (task.getValue().size() == 0) {
+        PartialDetectionResult partialResult = filter.getPartialResult();
+        if (partialResult != null) {
+            ButtonType continueButton = new ButtonType("Continue", ButtonBar.ButtonData.YES);
+            final Alert alert = new Alert(Alert.AlertType.CONFIRMATION, String.format(
+                    "%d groups of similar articles have been found so far, but only %.0f%% of "
+                            + "all pairs of articles have been compared. Continue the search?",
+                    partialResult.getClusters().size(), partialResult.getCoverage() * 100),
+                    continueButton, ButtonType.CLOSE);
+            alert.setHeaderText("Time budget exceeded.");
+            AlertUtil.styleAlert(alert);
+            alert.showAndWait()
+                    .filter(button -> button == continueButton)
+                    .ifPresent(button -> continueDetection());
+        } else if (task.getValue().size() == 0) {
             final Alert alert = new Alert(Alert.AlertType.INFORMATION, "Try to adjust the " +
                     "filter values.", ButtonType.OK);
             alert.setHeaderText("No similarities found.");
@@ -297,9 +456,9 @@ public final class FilterController implements Controller {
         } else if (e instanceof MaxArticlesException) {
             int found = ((MaxArticlesException) e).getFoundArticles();
             int max = ((MaxArticlesException) e).getMaxArticles();
-            final Alert errorAlert = new Alert(Alert.AlertType.ERROR, found + " articles" +
-                    " found. The maximum number of articles is currently set to " + max
-                    + ".", ButtonType.OK);
+            final Alert errorAlert = new Alert(Alert.AlertType.ERROR, "At least " + found
+                    + " articles found. The maximum number of articles is currently set to "
+                    + max + ".", ButtonType.OK);
             AlertUtil.styleAlert(errorAlert);
             errorAlert.show();
         } else {
@@ -348,6 +507,7 @@ public final class FilterController implements Controller {
      */
     public void stopOngoingBackgroundTasks() {
         filterTasks.forEach(Task::cancel);
+        filter.cancel();
     }
 
     /**
@@ -5,14 +5,22 @@
 
 package ch.svenstoll.similarityfinder.ui;
 
+import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
 import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.ExecutorPool;
+import ch.svenstoll.similarityfinder.domain.ExecutorRegistry;
+import ch.svenstoll.similarityfinder.domain.Filter;
 import ch.svenstoll.similarityfinder.domain.FilteredSimilarities;
+import ch.svenstoll.similarityfinder.domain.MaxArticlesException;
+import ch.svenstoll.similarityfinder.domain.SimilarityEdge;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
@@ -28,6 +36,7 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A JavaFx controller class that controls the view that displays articles with similar content.
@@ -40,6 +49,10 @@ public final class FilteredSimilaritiesController implements Controller {
 
     @NotNull
     private final FilteredSimilarities filteredSimilarities;
+    @NotNull
+    private final Filter filter;
+    @NotNull
+    private final ExecutorRegistry executorRegistry;
 
     @FXML
     private Pane similaritiesRootPane;
@@ -65,11 +78,20 @@ public final class FilteredSimilaritiesController implements Controller {
      *
      * @param similarities the {@code FilteredSimilarities} instance that provides the data to be
      *                     displayed
+     * @param filter the {@code Filter} instance used to find articles that are similar to a
+     *               displayed article
+     * @param executorRegistry the {@code ExecutorRegistry} whose {@link ExecutorPool#SEARCH}
+     *                         pool finds the similar articles
      */
     @Inject
-    public FilteredSimilaritiesController(@NotNull FilteredSimilarities similarities) {
+    public FilteredSimilaritiesController(@NotNull FilteredSimilarities similarities,
+                                          @NotNull Filter filter,
+                                          @NotNull ExecutorRegistry executorRegistry) {
         this.filteredSimilarities
                 = Validate.notNull(similarities, "FilteredSimilarities must not be null.");
+        this.filter = Validate.notNull(filter, "Filter must not be null.");
+        this.executorRegistry
+                = Validate.notNull(executorRegistry, "ExecutorRegistry must not be null.");
     }
 
     /**
@@ -117,8 +139,9 @@ public final class FilteredSimilaritiesController implements Controller {
 
     /**
      * Creates a {@code TreeTableRow} with a context menu that allows a user to copy the IDs of the
-     * articles that are selected in the {@link #similaritiesTableView}. The context menu will
-     * only be displayed if the row is not empty.
+     * articles that are selected in the {@link #similaritiesTableView} and to find the articles
+     * that are similar to a single selected article. The context menu will only be displayed if
+     * the row is not empty.
      *
      * @return a {@code TreeTableRow} with an adjusted {@code contextMenuProperty}
      */
@@ -126,16 +149,21 @@ public final class FilteredSimilaritiesController implements Controller {
         final TreeTableRow<Article> row = new TreeTableRow<>();
         final ContextMenu contextMenu = new ContextMenu();
         final MenuItem copyIdItem = new MenuItem();
+        final MenuItem findSimilarItem = new MenuItem("Find Similar");
 
         copyIdItem.setOnAction(event -> copyIdsOfSelectedRowsToClipboard());
+        findSimilarItem.setOnAction(event -> findSimilarArticles(row.getItem()));
         contextMenu.setOnShowing(event -> {
-            if (similaritiesTableView.getSelectionModel().getSelectedItems().size() <= 1) {
+            int selectedItems = similaritiesTableView.getSelectionModel().getSelectedItems()
+                    .size();
+            if (selectedItems <= 1) {
                 copyIdItem.setText("Copy ID");
             } else {
                 copyIdItem.setText("Copy IDs");
             }
+            findSimilarItem.setDisable(selectedItems > 1);
         });
-        contextMenu.getItems().add(copyIdItem);
+        contextMenu.getItems().addAll(copyIdItem, findSimilarItem);
 
         row.contextMenuProperty().bind(Bindings.when(row.emptyProperty())
                 .then((ContextMenu) null).otherwise(contextMenu));
@@ -158,6 +186,90 @@ public final class FilteredSimilaritiesController implements Controller {
         clipboard.setContent(content);
     }
 
+    /**
+     * Finds the articles that are similar to the specified article among the articles selected
+     * by the {@code Filter} asynchronously and shows them in a dialog together with their
+     * similarity index.
+     *
+     * @param article the {@code Article} whose similar articles should be found
+     */
+    private void findSimilarArticles(@Nullable Article article) {
+        if (article == null) {
+            return;
+        }
+
+        Task<List<SimilarityEdge>> task = new Task<List<SimilarityEdge>>() {
+            @Override
+            protected List<SimilarityEdge> call() {
+                return filter.findSimilarArticles(article);
+            }
+        };
+        task.setOnSucceeded(event -> showSimilarArticles(article, task.getValue()));
+        task.setOnFailed(event -> {
+            Throwable e = task.getException();
+            if (e instanceof DatabaseAccessException || e instanceof MaxArticlesException) {
+                final Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage(),
+                        ButtonType.OK);
+                alert.setHeaderText("Similar articles could not be found.");
+                AlertUtil.styleAlert(alert);
+                alert.show();
+            } else {
+                e.printStackTrace();
+            }
+        });
+
+        try {
+            executorRegistry.getExecutor(ExecutorPool.SEARCH).execute(task);
+        } catch (RejectedExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Shows the articles that are similar to an article in a dialog.
+     *
+     * @param article the {@code Article} the similar articles have been found for
+     * @param matches the edges from the {@code article} to every similar article
+     */
+    private void showSimilarArticles(@NotNull Article article,
+                                     @NotNull List<SimilarityEdge> matches) {
+        TableView<SimilarityEdge> tableView = new TableView<>();
+        tableView.setId("similarArticlesTableView");
+        TableColumn<SimilarityEdge, Integer> idColumn = new TableColumn<>("ID");
+        idColumn.setCellValueFactory(cellDataFeatures -> new ReadOnlyObjectWrapper<>(
+                cellDataFeatures.getValue().getArticle2().getId()));
+        TableColumn<SimilarityEdge, String> titleColumn = new TableColumn<>("Title");
+        titleColumn.setCellValueFactory(cellDataFeatures -> new ReadOnlyStringWrapper(
+                cellDataFeatures.getValue().getArticle2().getTitle()));
+        TableColumn<SimilarityEdge, String> mediumColumn = new TableColumn<>("Medium");
+        mediumColumn.setCellValueFactory(cellDataFeatures -> new ReadOnlyStringWrapper(
+                cellDataFeatures.getValue().getArticle2().getMedium() != null
+                        ? cellDataFeatures.getValue().getArticle2().getMedium().getName()
+                        : null));
+        TableColumn<SimilarityEdge, String> dateColumn = new TableColumn<>("Date");
+        dateColumn.setCellValueFactory(cellDataFeatures -> {
+            LocalDate date = cellDataFeatures.getValue().getArticle2().getPublicationDate();
+            return new ReadOnlyStringWrapper(date != null ? date.format(DATE_FORMATTER) : null);
+        });
+        TableColumn<SimilarityEdge, String> scoreColumn = new TableColumn<>("Similarity");
+        scoreColumn.setCellValueFactory(cellDataFeatures -> new ReadOnlyStringWrapper(
+                String.format("%.3f", cellDataFeatures.getValue().getScore())));
+        tableView.getColumns().addAll(Arrays.asList(idColumn, titleColumn, mediumColumn,
+                dateColumn, scoreColumn));
+        tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        tableView.getItems().setAll(matches);
+
+        final Alert alert = new Alert(Alert.AlertType.INFORMATION, null, ButtonType.OK);
+        alert.setTitle("Find Similar");
+        alert.setHeaderText(matches.size()
+                + (matches.size() == 1 ? " article is" : " articles are")
+                + " similar to article " + article.getId() + ".");
+        alert.getDialogPane().setContent(tableView);
+        alert.setResizable(true);
+        AlertUtil.styleAlert(alert);
+        alert.show();
+    }
+
     /**
      * Updates the items that are displayed in the {@link #similaritiesTableView}. The
      * {@link #counterLabel} and the state of the {@link #copyAllButton} will also be adjusted.
@@ -16,6 +16,7 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
@@ -50,6 +51,12 @@ public final class SettingsController implements Controller, Stageable {
     @FXML
     private DecimalTextField maxContributionsField;
     @FXML
+    private DecimalTextField queryTimeoutField;
+    @FXML
+    private CheckBox localSnapshotCheckBox;
+    @FXML
+    private CheckBox resultCacheCheckBox;
+    @FXML
     private Button saveButton;
     @FXML
     private Button revertButton;
@@ -99,6 +106,18 @@ public final class SettingsController implements Controller, Stageable {
         maxContributionsField.setTextFieldNumber(settings.getMaxArticles());
         maxContributionsField.focusedProperty().addListener((observable, oldValue, newValue) ->
                 maxContributionsField.formatTextProperty("0"));
+
+        DecimalFormat queryTimeoutFormat = new DecimalFormat();
+        queryTimeoutFormat.setRoundingMode(RoundingMode.HALF_UP);
+        queryTimeoutFormat.setParseIntegerOnly(true);
+        queryTimeoutField.setDecimalFormat(queryTimeoutFormat);
+        queryTimeoutField.setMinValue(0);
+        queryTimeoutField.setMaxValue(Integer.MAX_VALUE);
+        queryTimeoutField.setTextFieldNumber(settings.getQueryTimeoutSeconds());
+        queryTimeoutField.focusedProperty().addListener((observable, oldValue, newValue) ->
+                queryTimeoutField.formatTextProperty("0"));
+        localSnapshotCheckBox.setSelected(settings.isLocalSnapshotEnabled());
+        resultCacheCheckBox.setSelected(settings.isResultCachePersistent());
     }
 
     /**
@@ -145,6 +164,15 @@ public final class SettingsController implements Controller, Stageable {
                 settingsEdited.set(true);
             }
         });
+        queryTimeoutField.textProperty().addListener((observable, oldValue, newValue) -> {
+            if (!oldValue.equals(newValue)) {
+                settingsEdited.set(true);
+            }
+        });
+        localSnapshotCheckBox.selectedProperty().addListener(observable ->
+                settingsEdited.set(true));
+        resultCacheCheckBox.selectedProperty().addListener(observable ->
+                settingsEdited.set(true));
 
         settingsEdited.set(false);
         settingsEdited.addListener((observable, oldValue, newValue) -> {
@@ -188,6 +216,9 @@ public final class SettingsController implements Controller, Stageable {
         settings.setDbUser(dbUserField.getText());
         settings.setDbPassword(dbPasswordField.getText());
         settings.setMaxArticles(maxContributionsField.parseTextFieldNumber(0).intValue());
+        settings.setQueryTimeoutSeconds(queryTimeoutField.parseTextFieldNumber(0).intValue());
+        settings.setLocalSnapshotEnabled(localSnapshotCheckBox.isSelected());
+        settings.setResultCachePersistent(resultCacheCheckBox.isSelected());
         settings.saveSettings();
 
         settingsEdited.set(false);
@@ -204,6 +235,9 @@ public final class SettingsController implements Controller, Stageable {
         dbUserField.setText(settings.getDbUser());
         dbPasswordField.setText(settings.getDbPassword());
         maxContributionsField.setTextFieldNumber(settings.getMaxArticles());
+        queryTimeoutField.setTextFieldNumber(settings.getQueryTimeoutSeconds());
+        localSnapshotCheckBox.setSelected(settings.isLocalSnapshotEnabled());
+        resultCacheCheckBox.setSelected(settings.isResultCachePersistent());
 
         settingsEdited.setValue(false);
         disableEditingButtons();
@@ -0,0 +1,47 @@
+package ch.svenstoll.similarityfinder;
+
+import org.junit.Test;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BatchOptionsTest {
+    @Test
+    public void parse_givenOutputOnly_shouldRunAllConfigsOnce() {
+        // When:
+        BatchOptions options = BatchOptions.parse(new String[]{"--output", "results"});
+
+        // Then:
+        assertEquals("results", options.getOutput());
+        assertNull(options.getConfigNames());
+        assertNull(options.getTime());
+        assertEquals(CliOptions.Format.JSONL, options.getFormat());
+    }
+
+    @Test
+    public void parse_givenOptions_shouldUseValues() {
+        // When:
+        BatchOptions options = BatchOptions.parse(new String[]{"--output", "results",
+                "--configs", "budget, school", "--at", "02:30", "--format", "csv"});
+
+        // Then:
+        assertEquals(Arrays.asList("budget", "school"), options.getConfigNames());
+        assertEquals(LocalTime.of(2, 30), options.getTime());
+        assertEquals(CliOptions.Format.CSV, options.getFormat());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenNoOutput_shouldThrowException() {
+        // When:
+        BatchOptions.parse(new String[]{"--at", "02:30"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenInvalidTime_shouldThrowException() {
+        // When:
+        BatchOptions.parse(new String[]{"--output", "results", "--at", "2 am"});
+    }
+}
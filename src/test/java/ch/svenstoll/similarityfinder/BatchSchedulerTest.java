@@ -0,0 +1,136 @@
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.dao.DatabaseAccess;
+import ch.svenstoll.similarityfinder.dao.FilterConfigsAccess;
+import ch.svenstoll.similarityfinder.domain.*;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class BatchSchedulerTest {
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2017, 3, 2, 2, 30);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FilterConfigsAccess filterConfigsAccess;
+    private BatchScheduler scheduler;
+    private PrintStream err;
+
+    @Before
+    public void setup() {
+        DatabaseAccess databaseAccess = mock(DatabaseAccess.class);
+        filterConfigsAccess = mock(FilterConfigsAccess.class);
+        scheduler = new BatchScheduler(new BatchDetector(databaseAccess, new PriorityScheduler()), filterConfigsAccess);
+        err = new PrintStream(new ByteArrayOutputStream());
+
+        List<Article> articles = Arrays.asList(generateArticle(1, "same content", "A"),
+                generateArticle(2, "same content", "A"),
+                generateArticle(3, "same content", "B"));
+        given(databaseAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willReturn(articles);
+        given(filterConfigsAccess.retrieveFilterConfigsFromFile()).willReturn(Arrays.asList(
+                generateConfig("medium A", "A"), generateConfig("medium B", "B")));
+    }
+
+    @Test
+    public void run_givenConfigs_shouldWriteClustersAndReportPerConfig() throws IOException {
+        // Given:
+        File output = temporaryFolder.getRoot();
+
+        // When:
+        int exitCode = scheduler.run(BatchOptions.parse(new String[]{"--output",
+                output.getPath()}), START_TIME, err);
+
+        // Then:
+        assertEquals(Cli.EXIT_SUCCESS, exitCode);
+        File directory = new File(output, "2017-03-02T02-30-00");
+        List<String> lines = Files.readAllLines(new File(directory, "01-medium_A.jsonl")
+                .toPath(), UTF_8);
+        assertEquals(1, lines.size());
+        assertEquals(0, new File(directory, "02-medium_B.jsonl").length());
+
+        JsonObject report = new JsonParser().parse(new String(Files.readAllBytes(
+                new File(directory, BatchScheduler.REPORT_FILE).toPath()), UTF_8))
+                .getAsJsonObject();
+        assertEquals(3, report.get("articles").getAsInt());
+        JsonArray configs = report.getAsJsonArray("configs");
+        assertEquals(2, configs.size());
+        assertEquals("medium A", configs.get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals(1, configs.get(0).getAsJsonObject().get("clusters").getAsInt());
+        assertEquals(1, configs.get(1).getAsJsonObject().get("articles").getAsInt());
+    }
+
+    @Test
+    public void run_givenUnknownConfigName_shouldReturnUsageExitCode() {
+        // When:
+        int exitCode = scheduler.run(BatchOptions.parse(new String[]{"--output",
+                temporaryFolder.getRoot().getPath(), "--configs", "medium A,missing"}),
+                START_TIME, err);
+
+        // Then:
+        assertEquals(Cli.EXIT_USAGE, exitCode);
+    }
+
+    @Test
+    public void delayUntil_givenLaterTimeOfDay_shouldDelayUntilToday() {
+        // Given:
+        ZonedDateTime now = ZonedDateTime.of(START_TIME, ZoneOffset.UTC);
+
+        // When:
+        long delay = BatchScheduler.delayUntil(LocalTime.of(3, 0), now);
+
+        // Then:
+        assertEquals(Duration.ofMinutes(30).toMillis(), delay);
+    }
+
+    @Test
+    public void delayUntil_givenPassedTimeOfDay_shouldDelayUntilTomorrow() {
+        // Given:
+        ZonedDateTime now = ZonedDateTime.of(START_TIME, ZoneOffset.UTC);
+
+        // When:
+        long delay = BatchScheduler.delayUntil(LocalTime.of(2, 30), now);
+
+        // Then:
+        assertEquals(Duration.ofDays(1).toMillis(), delay);
+    }
+
+    private FilterConfig generateConfig(String name, String medium) {
+        FilterConfig config = new FilterConfig(name, LocalDateTime.now(), null);
+        config.setSelectedMedia(Collections.singletonList(medium));
+        config.setSimilarityThreshold(0.9);
+
+        return config;
+    }
+
+    private Article generateArticle(int id, String content, String medium) {
+        Article article = new Article(id);
+        article.setContent(content);
+        article.setTitle("title " + id);
+        article.setMedium(new Medium(medium));
+        article.setPublicationDate(LocalDate.of(2017, 3, 1));
+
+        return article;
+    }
+}
@@ -0,0 +1,110 @@
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.FilterConfig;
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CliOptionsTest {
+    @Test
+    public void parse_givenNoArguments_shouldUseDefaults() {
+        // When:
+        CliOptions options = CliOptions.parse(new String[0]);
+
+        // Then:
+        assertEquals(CliOptions.Engine.INDEX, options.getEngine());
+        assertEquals(CliOptions.Format.JSONL, options.getFormat());
+        assertEquals(1, options.getSimilarityThreshold(null), 0);
+        assertEquals(new FilterCriteria(Collections.emptyList(), null, null, "", 0, false),
+                options.toCriteria(null));
+    }
+
+    @Test
+    public void parse_givenFilterParameters_shouldOverrideValuesOfConfig() {
+        // Given:
+        FilterConfig config = new FilterConfig("config", LocalDateTime.now(), null);
+        config.setSimilarityThreshold(0.9);
+        config.setSelectedMedia(Collections.singletonList("medium 1"));
+        config.setTitle("budget");
+        config.setMinLetters(100);
+
+        // When:
+        CliOptions options = CliOptions.parse(new String[]{"--config", "config", "--threshold",
+                "0.75", "--media", "medium 2, medium 3", "--from", "2017-01-01",
+                "--relevant-only", "--engine", "pairwise", "--threads", "3", "--format", "csv"});
+
+        // Then:
+        assertEquals("config", options.getConfigName());
+        assertEquals(0.75, options.getSimilarityThreshold(config), 0);
+        assertEquals(new FilterCriteria(Arrays.asList("medium 2", "medium 3"),
+                LocalDate.of(2017, 1, 1), null, "budget", 100, true), options.toCriteria(config));
+        assertEquals(CliOptions.Engine.PAIRWISE, options.getEngine());
+        assertEquals(3, options.getThreads());
+        assertEquals(CliOptions.Format.CSV, options.getFormat());
+    }
+
+    @Test
+    public void parse_givenHelp_shouldRequestHelp() {
+        // When:
+        CliOptions options = CliOptions.parse(new String[]{"--help"});
+
+        // Then:
+        assertTrue(options.isHelp());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenUnknownOption_shouldThrowException() {
+        // When:
+        CliOptions.parse(new String[]{"--unknown"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenMissingValue_shouldThrowException() {
+        // When:
+        CliOptions.parse(new String[]{"--threshold"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenThresholdOutOfBounds_shouldThrowException() {
+        // When:
+        CliOptions.parse(new String[]{"--threshold", "1.5"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenAnytimeEngineWithoutTimeBudget_shouldThrowException() {
+        // When:
+        CliOptions.parse(new String[]{"--engine", "anytime"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenResumeWithoutCheckpointEngine_shouldThrowException() {
+        // When:
+        CliOptions.parse(new String[]{"--resume"});
+    }
+
+    @Test
+    public void parse_givenShardedEngine_shouldUseShardOptions() {
+        // When:
+        CliOptions options = CliOptions.parse(new String[]{"--engine", "sharded", "--workers",
+                "4", "--shard-size", "500", "--worker-heap", "2g"});
+
+        // Then:
+        assertEquals(CliOptions.Engine.SHARDED, options.getEngine());
+        assertEquals(4, options.getWorkers());
+        assertEquals(500, options.getShardSize());
+        assertEquals("2g", options.getWorkerHeap());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenInvalidWorkerHeap_shouldThrowException() {
+        // When:
+        CliOptions.parse(new String[]{"--engine", "sharded", "--worker-heap", "-Xmx2g"});
+    }
+}
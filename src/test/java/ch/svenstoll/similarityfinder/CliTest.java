@@ -0,0 +1,163 @@
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.dao.DatabaseAccess;
+import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
+import ch.svenstoll.similarityfinder.dao.FilterConfigsAccess;
+import ch.svenstoll.similarityfinder.domain.*;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class CliTest {
+    private DatabaseAccess databaseAccess;
+    private FilterConfigsAccess filterConfigsAccess;
+    private Settings settings;
+    private Cli cli;
+    private ByteArrayOutputStream out;
+    private PrintStream err;
+    private List<Article> articles;
+
+    @Before
+    public void setup() {
+        databaseAccess = mock(DatabaseAccess.class);
+        filterConfigsAccess = mock(FilterConfigsAccess.class);
+        settings = mock(Settings.class);
+        cli = new Cli(databaseAccess, new SimilarityDetector(),
+                mock(CheckpointingDetector.class), filterConfigsAccess, settings);
+        out = new ByteArrayOutputStream();
+        err = new PrintStream(new ByteArrayOutputStream());
+
+        articles = Arrays.asList(generateArticle(1, "same content", "Budget, revised"),
+                generateArticle(2, "same content", "Budget"),
+                generateArticle(3, "other content", "School"));
+        given(databaseAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willReturn(articles);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void run_givenIndexEngine_shouldWriteClustersAsJsonLines() {
+        // Given:
+        willAnswer(invocation -> {
+            invocation.<Consumer<List<Article>>>getArgument(3).accept(articles);
+            return null;
+        }).given(databaseAccess).streamArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class), any(PipelineMetrics.class), any(Consumer.class));
+
+        // When:
+        int exitCode = cli.run(CliOptions.parse(new String[0]), null, out, err);
+
+        // Then:
+        assertEquals(Cli.EXIT_SUCCESS, exitCode);
+        String[] lines = new String(out.toByteArray(), UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        JsonObject cluster = new JsonParser().parse(lines[0]).getAsJsonObject();
+        assertEquals(1, cluster.get("cluster").getAsInt());
+        assertEquals(2, cluster.getAsJsonArray("articles").size());
+        JsonObject first = cluster.getAsJsonArray("articles").get(0).getAsJsonObject();
+        assertEquals(1, first.get("id").getAsInt());
+        assertEquals("Budget, revised", first.get("title").getAsString());
+        assertEquals("2017-03-01", first.get("publicationDate").getAsString());
+    }
+
+    @Test
+    public void run_givenPairwiseEngineAndCsvFormat_shouldWriteOneRowPerArticle() {
+        // When:
+        int exitCode = cli.run(CliOptions.parse(new String[]{"--engine", "pairwise",
+                "--threads", "2", "--format", "csv"}), null, out, err);
+
+        // Then:
+        assertEquals(Cli.EXIT_SUCCESS, exitCode);
+        assertEquals(ClusterWriter.CSV_HEADER + "\n"
+                        + "1,1,medium,2017-03-01,\"Budget, revised\"\n"
+                        + "1,2,medium,2017-03-01,Budget\n",
+                new String(out.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void run_givenConfig_shouldQueryCriteriaOfConfig() {
+        // Given:
+        FilterConfig config = new FilterConfig("saved", LocalDateTime.now(), null);
+        config.setTitle("budget");
+        given(filterConfigsAccess.retrieveFilterConfigsFromFile())
+                .willReturn(Collections.singletonList(config));
+
+        // When:
+        int exitCode = cli.run(CliOptions.parse(new String[]{"--config", "saved", "--engine",
+                "pairwise"}), null, out, err);
+
+        // Then:
+        assertEquals(Cli.EXIT_SUCCESS, exitCode);
+        verify(databaseAccess).queryArticlesByCriteria(eq(FilterCriteria.of(config)),
+                any(CancellationSignal.class));
+    }
+
+    @Test
+    public void run_givenUnknownConfig_shouldReturnUsageExitCode() {
+        // Given:
+        given(filterConfigsAccess.retrieveFilterConfigsFromFile())
+                .willReturn(Collections.emptyList());
+
+        // When:
+        int exitCode = cli.run(CliOptions.parse(new String[]{"--config", "missing"}), null, out,
+                err);
+
+        // Then:
+        assertEquals(Cli.EXIT_USAGE, exitCode);
+    }
+
+    @Test
+    public void run_givenDatabaseOptions_shouldOverrideSettings() {
+        // When:
+        cli.run(CliOptions.parse(new String[]{"--engine", "pairwise", "--db-address",
+                "localhost:5432/articles", "--db-user", "reader"}), "secret", out, err);
+
+        // Then:
+        verify(settings).setDbAddress("localhost:5432/articles");
+        verify(settings).setDbUser("reader");
+        verify(settings).setDbPassword("secret");
+    }
+
+    @Test
+    public void run_givenDatabaseAccessException_shouldReturnFailureExitCode() {
+        // Given:
+        given(databaseAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willThrow(new DatabaseAccessException());
+
+        // When:
+        int exitCode = cli.run(CliOptions.parse(new String[]{"--engine", "pairwise"}), null,
+                out, err);
+
+        // Then:
+        assertEquals(Cli.EXIT_FAILURE, exitCode);
+    }
+
+    private Article generateArticle(int id, String content, String title) {
+        Article article = new Article(id);
+        article.setContent(content);
+        article.setTitle(title);
+        article.setMedium(new Medium("medium"));
+        article.setPublicationDate(LocalDate.of(2017, 3, 1));
+
+        return article;
+    }
+}
@@ -0,0 +1,39 @@
+package ch.svenstoll.similarityfinder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ServerOptionsTest {
+    @Test
+    public void parse_givenNoArguments_shouldUseDefaults() {
+        // When:
+        ServerOptions options = ServerOptions.parse(new String[0]);
+
+        // Then:
+        assertEquals(ServerOptions.DEFAULT_PORT, options.getPort());
+        assertEquals(ServerOptions.DEFAULT_QUEUE_CAPACITY, options.getQueueCapacity());
+        assertEquals(ServerOptions.DEFAULT_FLOOR_THRESHOLD, options.getFloorThreshold(), 0);
+        assertEquals(Runtime.getRuntime().availableProcessors(), options.getWorkers());
+    }
+
+    @Test
+    public void parse_givenOptions_shouldUseValues() {
+        // When:
+        ServerOptions options = ServerOptions.parse(new String[]{"--port", "9000", "--workers",
+                "2", "--queue-capacity", "8", "--floor-threshold", "0.7", "--db-user", "user"});
+
+        // Then:
+        assertEquals(9000, options.getPort());
+        assertEquals(2, options.getWorkers());
+        assertEquals(8, options.getQueueCapacity());
+        assertEquals(0.7, options.getFloorThreshold(), 0);
+        assertEquals("user", options.getDbUser());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_givenPortOutOfBounds_shouldThrowException() {
+        // When:
+        ServerOptions.parse(new String[]{"--port", "70000"});
+    }
+}
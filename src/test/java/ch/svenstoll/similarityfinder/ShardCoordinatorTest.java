@@ -0,0 +1,140 @@
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+
+public class ShardCoordinatorTest {
+    private ShardCoordinator coordinator;
+    private List<Article> articles;
+
+    @Before
+    public void setup() throws IOException {
+        coordinator = new ShardCoordinator();
+
+        Random random = new Random(3);
+        String[] words = {"the", "council", "decided", "budget", "school", "new", "road",
+                "vote", "city", "plan"};
+        articles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, i % 10 == 0 ? "ab" : content.toString()));
+        }
+        articles.add(new Article(100));
+    }
+
+    @After
+    public void tearDown() {
+        coordinator.close();
+    }
+
+    @Test
+    public void detect_givenWorkerThreads_shouldFindSameClustersAsDetector() throws IOException {
+        // Given:
+        for (int i = 0; i < 3; i++) {
+            startWorkerThread();
+        }
+        coordinator.awaitWorkers(3, 10000);
+
+        for (double threshold : new double[]{0, 0.5, 0.8, 1}) {
+            // When:
+            List<Set<Article>> clusters
+                    = coordinator.detect(articles, threshold, 17, new CancellationSignal());
+
+            // Then:
+            assertThat(clusters, containsInAnyOrder(new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(articles, threshold).toArray()));
+        }
+    }
+
+    @Test
+    public void detect_givenWorkerProcesses_shouldFindSameClustersAsDetector()
+            throws IOException {
+        // Given:
+        coordinator.startWorkerProcesses(2, Collections.singletonList("-Xmx64m"));
+        coordinator.awaitWorkers(2, 30000);
+
+        // When:
+        List<Set<Article>> clusters
+                = coordinator.detect(articles, 0.7, 30, new CancellationSignal());
+
+        // Then:
+        assertThat(clusters, containsInAnyOrder(new SimilarityDetector()
+                .detectArticlesWithSimilarContents(articles, 0.7).toArray()));
+    }
+
+    @Test
+    public void detect_givenFailingWorker_shouldReassignItsAssignments() throws IOException {
+        // Given:
+        startWorkerThread();
+        Socket failingWorker = new Socket("127.0.0.1", coordinator.getPort());
+        DataOutputStream out = new DataOutputStream(failingWorker.getOutputStream());
+        out.writeInt(ShardProtocol.MAGIC);
+        out.writeInt(ShardProtocol.VERSION);
+        out.flush();
+        coordinator.awaitWorkers(2, 10000);
+        failingWorker.close();
+
+        // When:
+        List<Set<Article>> clusters
+                = coordinator.detect(articles, 0.7, 10, new CancellationSignal());
+
+        // Then:
+        assertThat(clusters, containsInAnyOrder(new SimilarityDetector()
+                .detectArticlesWithSimilarContents(articles, 0.7).toArray()));
+        assertEquals(1, coordinator.getWorkerCount());
+    }
+
+    @Test(expected = DetectionAbortedException.class)
+    public void detect_givenCancelledSignal_shouldThrowException() throws IOException {
+        // Given:
+        startWorkerThread();
+        coordinator.awaitWorkers(1, 10000);
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+
+        // When:
+        coordinator.detect(articles, 0.7, 10, signal);
+    }
+
+    private void startWorkerThread() {
+        Thread thread = new Thread(() -> {
+            try (Socket socket = new Socket("127.0.0.1", coordinator.getPort())) {
+                new ShardWorker().serve(socket.getInputStream(), socket.getOutputStream());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+        article.setTitle("title " + id);
+        article.setMedium(new Medium("medium"));
+        article.setPublicationDate(LocalDate.of(2017, 3, 1));
+
+        return article;
+    }
+}
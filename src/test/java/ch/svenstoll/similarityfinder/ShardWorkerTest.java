@@ -0,0 +1,60 @@
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShardWorkerTest {
+    @Test
+    public void serve_givenComparisonWithinShard_shouldReplyWithSimilarPairs() throws IOException {
+        // Given:
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(request);
+        out.writeByte(ShardProtocol.SHARD);
+        out.writeInt(0);
+        out.writeInt(3);
+        out.writeInt(1);
+        ShardProtocol.writeVector(out, NGramVector.fromText("the council decided"));
+        out.writeInt(2);
+        ShardProtocol.writeVector(out, NGramVector.fromText("the council decided"));
+        out.writeInt(3);
+        ShardProtocol.writeVector(out, NGramVector.fromText("a school story"));
+        out.writeByte(ShardProtocol.COMPARE);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeDouble(0.9);
+        out.writeByte(ShardProtocol.CLOSE);
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+
+        // When:
+        new ShardWorker().serve(new ByteArrayInputStream(request.toByteArray()), reply);
+
+        // Then:
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(reply.toByteArray()));
+        assertEquals(ShardProtocol.MAGIC, in.readInt());
+        assertEquals(ShardProtocol.VERSION, in.readInt());
+        assertEquals(1, in.readInt());
+        assertEquals(1, in.readInt());
+        assertEquals(2, in.readInt());
+        assertEquals(1, in.readDouble(), 0);
+        assertEquals(-1, in.read());
+    }
+
+    @Test(expected = IOException.class)
+    public void serve_givenComparisonOfMissingShard_shouldThrowException() throws IOException {
+        // Given:
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(request);
+        out.writeByte(ShardProtocol.COMPARE);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.writeDouble(0.9);
+
+        // When:
+        new ShardWorker().serve(new ByteArrayInputStream(request.toByteArray()),
+                new ByteArrayOutputStream());
+    }
+}
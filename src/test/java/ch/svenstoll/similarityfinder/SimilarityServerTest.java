@@ -0,0 +1,212 @@
+package ch.svenstoll.similarityfinder;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.Medium;
+import ch.svenstoll.similarityfinder.domain.PriorityScheduler;
+import ch.svenstoll.similarityfinder.domain.SimilarityService;
+import ch.svenstoll.similarityfinder.domain.WorkPriority;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SimilarityServerTest {
+    private SimilarityServer server;
+    private PriorityScheduler scheduler;
+
+    @Before
+    public void setup() throws IOException {
+        scheduler = new PriorityScheduler();
+        SimilarityService service = new SimilarityService(Arrays.asList(
+                generateArticle(1, "the council decided on the new budget", "A"),
+                generateArticle(2, "the council decided on the new budget", "B"),
+                generateArticle(3, "a completely different story about a school", "A"),
+                generateArticle(4, "a completely different story about a school", "A")), 0.5);
+        server = new SimilarityServer(service, scheduler,
+                new InetSocketAddress("127.0.0.1", 0), 2, 4);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void findSimilarToText_givenText_shouldRespondWithMatches() throws IOException {
+        // When:
+        Response response = request("POST", SimilarityServer.TEXT_PATH + "?threshold=0.9",
+                "the council decided on the new budget");
+
+        // Then:
+        assertEquals(200, response.status);
+        JsonArray matches = response.body.getAsJsonArray("matches");
+        assertEquals(2, matches.size());
+        assertEquals(1, matches.get(0).getAsJsonObject().get("score").getAsDouble(), 0);
+    }
+
+    @Test
+    public void findSimilarToArticle_givenUnknownId_shouldRespondWithNotFound()
+            throws IOException {
+        // When:
+        Response response = request("GET", SimilarityServer.ARTICLE_PATH + "?id=5", null);
+
+        // Then:
+        assertEquals(404, response.status);
+    }
+
+    @Test
+    public void detectClusters_givenMediumParameter_shouldOnlyClusterArticlesOfMedium()
+            throws IOException {
+        // When:
+        Response response = request("GET", SimilarityServer.CLUSTERS_PATH + "?media=A", null);
+
+        // Then:
+        assertEquals(200, response.status);
+        JsonArray clusters = response.body.getAsJsonArray("clusters");
+        assertEquals(1, clusters.size());
+        assertEquals(3, clusters.get(0).getAsJsonArray().get(0).getAsJsonObject().get("id")
+                .getAsInt());
+    }
+
+    @Test(timeout = 10_000)
+    public void detectClusters_givenQueryRunning_shouldPauseUntilQueryIsComplete()
+            throws Exception {
+        // Given:
+        CountDownLatch queryRunning = new CountDownLatch(1);
+        CountDownLatch queryDone = new CountDownLatch(1);
+        Thread query = new Thread(() -> scheduler.run(WorkPriority.INTERACTIVE, () -> {
+            queryRunning.countDown();
+            try {
+                queryDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        query.start();
+        queryRunning.await();
+
+        // When:
+        CompletableFuture<Response> detection = CompletableFuture.supplyAsync(() -> {
+            try {
+                return request("GET", SimilarityServer.CLUSTERS_PATH, null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        while (scheduler.getPauseCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        // Then:
+        assertFalse(detection.isDone());
+        queryDone.countDown();
+        assertEquals(200, detection.get().status);
+    }
+
+    @Test
+    public void findSimilarToText_givenThresholdBelowFloor_shouldRespondWithBadRequest()
+            throws IOException {
+        // When:
+        Response response = request("POST", SimilarityServer.TEXT_PATH + "?threshold=0.2",
+                "text");
+
+        // Then:
+        assertEquals(400, response.status);
+    }
+
+    @Test
+    public void getStatistics_givenAnsweredRequests_shouldReportLatencies() throws IOException {
+        // Given:
+        request("GET", SimilarityServer.CLUSTERS_PATH, null);
+        request("GET", SimilarityServer.CLUSTERS_PATH, null);
+
+        // When:
+        Response response = request("GET", SimilarityServer.STATS_PATH, null);
+
+        // Then:
+        assertEquals(4, response.body.get("articles").getAsInt());
+        assertEquals(2, response.body.getAsJsonObject("latencies")
+                .getAsJsonObject(SimilarityServer.CLUSTERS_PATH).get("count").getAsInt());
+    }
+
+    @Test
+    public void parseQuery_givenEncodedParameters_shouldDecodeThem() {
+        // When:
+        Map<String, String> parameters
+                = SimilarityServer.parseQuery("title=new%20budget&relevant-only&media=A%2CB");
+
+        // Then:
+        assertEquals("new budget", parameters.get("title"));
+        assertEquals("", parameters.get("relevant-only"));
+        assertEquals("A,B", parameters.get("media"));
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream()
+                : connection.getErrorStream();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            content.write(buffer, 0, read);
+        }
+        in.close();
+        connection.disconnect();
+
+        return new Response(status, new JsonParser().parse(new String(content.toByteArray(),
+                UTF_8)).getAsJsonObject());
+    }
+
+    private Article generateArticle(int id, String content, String medium) {
+        Article article = new Article(id);
+        article.setContent(content);
+        article.setTitle("title " + id);
+        article.setMedium(new Medium(medium));
+        article.setPublicationDate(LocalDate.of(2017, 3, 1));
+
+        return article;
+    }
+
+    private static final class Response {
+        private final int status;
+        private final JsonObject body;
+
+        Response(int status, JsonObject body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.stubbing.OngoingStubbing;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+public class ArticleBulkLoaderTest {
+    private static final FilterCriteria ALL_ARTICLES
+            = new FilterCriteria(Collections.emptyList(), null, null, "", 0, false);
+
+    private ArticleBulkLoader bulkLoader;
+    private Connection connection;
+    private PGConnection pgConnection;
+    private ResultSet sizeResult;
+    private ResultSet planResult;
+
+    @Before
+    public void setUp() throws SQLException {
+        bulkLoader = new ArticleBulkLoader();
+        connection = mock(Connection.class);
+        pgConnection = mock(PGConnection.class);
+        Statement statement = mock(Statement.class);
+        sizeResult = mock(ResultSet.class);
+        planResult = mock(ResultSet.class);
+
+        given(connection.isWrapperFor(PGConnection.class)).willReturn(true);
+        given(connection.unwrap(PGConnection.class)).willReturn(pgConnection);
+        given(connection.createStatement()).willReturn(statement);
+        given(pgConnection.escapeLiteral(anyString()))
+                .willAnswer(invocation -> invocation.<String>getArgument(0).replace("'", "''"));
+        given(statement.executeQuery(contains("pg_class"))).willReturn(sizeResult);
+        given(statement.executeQuery(contains("EXPLAIN"))).willReturn(planResult);
+        given(sizeResult.next()).willReturn(true);
+        given(planResult.next()).willReturn(true);
+    }
+
+    @Test
+    public void loadRecords_givenLargeFractionSelected_shouldReplayCopyStream()
+            throws SQLException, IOException {
+        // Given:
+        givenEstimates(100_000, 90_000);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyOut copyOut = mock(CopyOut.class);
+        given(pgConnection.getCopyAPI()).willReturn(copyManager);
+        given(copyManager.copyOut(anyString())).willReturn(copyOut);
+        givenChunks(copyOut, BinaryCopyParserTest.readRecordedStream(), 7);
+
+        // When:
+        List<ArticleRecord> records = bulkLoader.loadRecords(connection, ALL_ARTICLES,
+                QueryContext.uncancellable());
+
+        // Then:
+        assertEquals(Arrays.asList(1, 2, 3),
+                records.stream().map(record -> record.id).collect(Collectors.toList()));
+        verify(copyOut, never()).cancelCopy();
+    }
+
+    @Test
+    public void loadRecords_givenSmallFractionSelected_shouldReturnNull() throws SQLException {
+        // Given:
+        givenEstimates(100_000, 10);
+
+        // When:
+        List<ArticleRecord> records = bulkLoader.loadRecords(connection, ALL_ARTICLES,
+                QueryContext.uncancellable());
+
+        // Then:
+        assertNull(records);
+        verify(pgConnection, never()).getCopyAPI();
+    }
+
+    @Test
+    public void loadRecords_givenSmallRelation_shouldReturnNull() throws SQLException {
+        // Given:
+        givenEstimates(ArticleBulkLoader.MIN_RELATION_SIZE - 1,
+                ArticleBulkLoader.MIN_RELATION_SIZE - 1);
+
+        // When:
+        List<ArticleRecord> records = bulkLoader.loadRecords(connection, ALL_ARTICLES,
+                QueryContext.uncancellable());
+
+        // Then:
+        assertNull(records);
+    }
+
+    @Test
+    public void loadRecords_givenNoPostgresConnection_shouldReturnNull() throws SQLException {
+        // Given:
+        given(connection.isWrapperFor(PGConnection.class)).willReturn(false);
+
+        // When:
+        List<ArticleRecord> records = bulkLoader.loadRecords(connection, ALL_ARTICLES,
+                QueryContext.uncancellable());
+
+        // Then:
+        assertNull(records);
+    }
+
+    @Test
+    public void buildCondition_givenAllCriteria_shouldInlineEscapedLiterals() throws SQLException {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Arrays.asList("b", "a'"),
+                LocalDate.of(2017, 1, 1), LocalDate.of(2017, 12, 31), "it's", 100, true);
+
+        // When:
+        String condition = ArticleBulkLoader.buildCondition(pgConnection, criteria);
+
+        // Then:
+        assertEquals("medium IN ('a''', 'b') AND " +
+                "COALESCE(publicationDate >= DATE '2017-01-01', TRUE) AND " +
+                "COALESCE(publicationDate <= DATE '2017-12-31', TRUE) AND " +
+                "LOWER(title) LIKE LOWER('%it''s%') AND " +
+                "LENGTH(content) >= 100 AND " +
+                "relevant = TRUE", condition);
+    }
+
+    private void givenEstimates(long relationSize, long selectedRows) throws SQLException {
+        given(sizeResult.getLong(1)).willReturn(relationSize);
+        given(planResult.getString(1)).willReturn(
+                "Seq Scan on article  (cost=0.00..100.00 rows=" + selectedRows + " width=100)");
+    }
+
+    private static void givenChunks(CopyOut copyOut, byte[] bytes, int chunkSize)
+            throws SQLException {
+        OngoingStubbing<byte[]> stubbing = when(copyOut.readFromCopy());
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            stubbing = stubbing.thenReturn(
+                    Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunkSize)));
+        }
+        stubbing.thenReturn(null);
+    }
+}
@@ -0,0 +1,224 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.IngestionResult;
+import ch.svenstoll.similarityfinder.domain.SlidingWindowMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ArticleChangeFeedTest {
+    private static final String DB_URL = "jdbc:h2:mem:changefeed;MODE=PostgreSQL";
+    private static final String MARKER_EXPRESSION = "version";
+    private static final LocalDate TODAY = LocalDate.of(2017, 6, 30);
+    private static final String CONTENT = "The council has approved the new budget for the city.";
+
+    private Connection connection;
+    private SlidingWindowMonitor monitor;
+    private ArticleChangeFeed feed;
+    private List<IngestionResult> published;
+
+    @Before
+    public void setUp() throws SQLException {
+        // An in-memory database is used as a stand-in for the PostgreSQL database. The xmin
+        // system column is replaced by an explicit version column. This connection keeps the
+        // database open while the feed opens and closes its own connections.
+        connection = DriverManager.getConnection(DB_URL);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE article (id INTEGER PRIMARY KEY, title TEXT, " +
+                    "content TEXT, medium TEXT, publicationDate DATE, relevant BOOLEAN, " +
+                    "version BIGINT)");
+        }
+
+        DatabaseConnectionProvider connectionProvider = mock(DatabaseConnectionProvider.class);
+        given(connectionProvider.getDbConnection())
+                .willAnswer(invocation -> DriverManager.getConnection(DB_URL));
+        monitor = new SlidingWindowMonitor(0.5, 7);
+        feed = new ArticleChangeFeed(connectionProvider, monitor, MARKER_EXPRESSION,
+                () -> TODAY, ArticleChangeFeed.DEFAULT_OVERLAP);
+        published = new ArrayList<>();
+        feed.addListener(published::add);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        feed.stop();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE article");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void poll_givenFirstPoll_shouldFillWindowWithoutPublishing() throws SQLException {
+        // Given:
+        insertArticle(1, CONTENT, TODAY, 1);
+        insertArticle(2, CONTENT, TODAY.minusDays(1), 1);
+        insertArticle(3, CONTENT, TODAY.minusDays(30), 1);
+
+        // When:
+        int actual = feed.poll();
+
+        // Then:
+        assertEquals(0, actual);
+        assertEquals(2, monitor.size());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    public void poll_givenInsertedSimilarArticle_shouldPublishItsMatches() throws SQLException {
+        // Given:
+        insertArticle(1, CONTENT, TODAY, 1);
+        feed.poll();
+        insertArticle(2, CONTENT, TODAY, 2);
+        insertArticle(3, "Completely unrelated words about a football match.", TODAY, 2);
+
+        // When:
+        int actual = feed.poll();
+
+        // Then:
+        assertEquals(2, actual);
+        assertEquals(3, monitor.size());
+        assertEquals(1, published.size());
+        assertEquals(2, published.get(0).getArticle().getId());
+        assertEquals(1, published.get(0).getMatches().get(0).getArticle2().getId());
+    }
+
+    @Test
+    public void poll_givenUpdatedArticle_shouldReplaceItInMonitor() throws SQLException {
+        // Given:
+        insertArticle(1, CONTENT, TODAY, 1);
+        insertArticle(2, "Completely unrelated words about a football match.", TODAY, 1);
+        feed.poll();
+
+        // When:
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE article SET content = '" + CONTENT + "', version = 2 " +
+                    "WHERE id = 2");
+        }
+        int actual = feed.poll();
+
+        // Then:
+        assertEquals(1, actual);
+        assertEquals(2, monitor.size());
+        assertEquals(1, published.size());
+        assertEquals(2, published.get(0).getArticle().getId());
+        assertEquals(1, monitor.getClusters().size());
+    }
+
+    @Test
+    public void poll_givenNoChanges_shouldNotIngestAnything() throws SQLException {
+        // Given:
+        insertArticle(1, CONTENT, TODAY, 1);
+        feed.poll();
+        feed.poll();
+
+        // When:
+        int actual = feed.poll();
+
+        // Then:
+        assertEquals(0, actual);
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    public void poll_givenInsertCommittedOutOfOrder_shouldPublishItOnce() throws SQLException {
+        // Given:
+        // The transaction that has written article 2 commits after the one of article 3 has
+        // been polled, so both its id and its version are below the watermarks.
+        insertArticle(1, CONTENT, TODAY, 1);
+        feed.poll();
+        insertArticle(3, "Completely unrelated words about a football match.", TODAY, 3);
+        feed.poll();
+        insertArticle(2, CONTENT, TODAY, 2);
+
+        // When:
+        int actual = feed.poll();
+        int repeated = feed.poll();
+
+        // Then:
+        assertEquals(1, actual);
+        assertEquals(0, repeated);
+        assertEquals(3, monitor.size());
+        assertEquals(1, published.size());
+        assertEquals(2, published.get(0).getArticle().getId());
+    }
+
+    @Test
+    public void poll_givenUpdateCommittedOutOfOrder_shouldReplaceItInMonitor()
+            throws SQLException {
+        // Given:
+        insertArticle(1, CONTENT, TODAY, 1);
+        insertArticle(2, "Completely unrelated words about a football match.", TODAY, 1);
+        feed.poll();
+        insertArticle(3, "Other unrelated words about the weather forecast.", TODAY, 3);
+        feed.poll();
+
+        // When:
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE article SET content = '" + CONTENT + "', version = 2 " +
+                    "WHERE id = 2");
+        }
+        int actual = feed.poll();
+
+        // Then:
+        assertEquals(1, actual);
+        assertEquals(1, published.size());
+        assertEquals(2, published.get(0).getArticle().getId());
+        assertEquals(1, monitor.getClusters().size());
+    }
+
+    @Test
+    public void start_givenInterval_shouldPollInBackground() throws Exception {
+        // Given:
+        insertArticle(1, CONTENT, TODAY, 1);
+        feed.poll();
+        CountDownLatch publishedLatch = new CountDownLatch(1);
+        feed.addListener(result -> publishedLatch.countDown());
+        feed.start(Duration.ofMillis(10));
+
+        // When:
+        insertArticle(2, CONTENT, TODAY, 2);
+
+        // Then:
+        assertTrue(publishedLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(feed.isRunning());
+        feed.stop();
+        assertFalse(feed.isRunning());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void start_givenRunningFeed_shouldThrowException() {
+        // Given:
+        feed.start(Duration.ofSeconds(1));
+
+        // When:
+        feed.start(Duration.ofSeconds(1));
+    }
+
+    private void insertArticle(int id, String content, LocalDate publicationDate, long version)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO article VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            statement.setInt(1, id);
+            statement.setString(2, "Title " + id);
+            statement.setString(3, content);
+            statement.setString(4, "medium");
+            statement.setDate(5, Date.valueOf(publicationDate));
+            statement.setBoolean(6, false);
+            statement.setLong(7, version);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.CancellationSignal;
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import ch.svenstoll.similarityfinder.domain.PipelineMetrics;
+import ch.svenstoll.similarityfinder.domain.PriorityScheduler;
+import ch.svenstoll.similarityfinder.domain.WorkPriority;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ch.svenstoll.similarityfinder.dao.ArticlePipeline.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.*;
+
+public class ArticlePipelineTest {
+    private static final int RECORD_COUNT = 1000;
+
+    @Test
+    public void run_givenRecords_shouldPassAllArticlesToConsumer() throws Exception {
+        // Given:
+        List<ArticleRecord> records = generateRecords();
+        PipelineMetrics metrics = new PipelineMetrics();
+        ArticlePipeline pipeline = new ArticlePipeline(QueryContext.uncancellable(), metrics, 3);
+        List<Integer> ids = new ArrayList<>();
+
+        // When:
+        pipeline.run(sink -> records.forEach(sink), hashes -> Collections.emptyMap(),
+                batch -> batch.forEach(article -> ids.add(article.getId())));
+
+        // Then:
+        assertEquals(RECORD_COUNT, ids.size());
+        assertThat(ids, containsInAnyOrder(records.stream().map(record -> record.id).toArray()));
+        assertEquals(RECORD_COUNT, metrics.getStage(FETCH_STAGE).getProcessedItems());
+        assertEquals(RECORD_COUNT, metrics.getStage(TOKENIZE_STAGE).getProcessedItems());
+        assertEquals(RECORD_COUNT, metrics.getStage(CONSUME_STAGE).getProcessedItems());
+        assertTrue(metrics.getStage(CONSUME_STAGE).isFinished());
+    }
+
+    @Test
+    public void run_givenStoredVectors_shouldOnlyGenerateMissingVectors() throws Exception {
+        // Given:
+        List<ArticleRecord> records = generateRecords();
+        NGramVector storedVector = NGramVector.fromText("stored");
+        ArticlePipeline pipeline = new ArticlePipeline(QueryContext.uncancellable(),
+                new PipelineMetrics(), 2);
+        Map<Integer, NGramVector> vectors = new HashMap<>();
+
+        // When:
+        pipeline.run(sink -> records.forEach(sink), hashes -> {
+            Map<Integer, NGramVector> stored = new HashMap<>();
+            hashes.keySet().stream().filter(id -> id % 2 == 0)
+                    .forEach(id -> stored.put(id, storedVector));
+            return stored;
+        }, batch -> batch.forEach(article ->
+                vectors.put(article.getId(), article.getContentVector())));
+
+        // Then:
+        assertSame(storedVector, vectors.get(0));
+        assertEquals(NGramVector.fromText(records.get(1).content), vectors.get(1));
+        assertEquals(RECORD_COUNT / 2, pipeline.getGeneratedVectors().size());
+        assertEquals(pipeline.getGeneratedVectors().keySet(),
+                pipeline.getGeneratedContentHashes().keySet());
+    }
+
+    @Test
+    public void run_givenSlowConsumer_shouldBoundQueues() throws Exception {
+        // Given:
+        List<ArticleRecord> records = generateRecords();
+        PipelineMetrics metrics = new PipelineMetrics();
+        ArticlePipeline pipeline = new ArticlePipeline(QueryContext.uncancellable(), metrics, 2);
+        List<Integer> depths = new ArrayList<>();
+
+        // When:
+        pipeline.run(sink -> records.forEach(sink), hashes -> Collections.emptyMap(), batch -> {
+            depths.add(metrics.getStage(TOKENIZE_STAGE).getQueueDepth());
+            depths.add(metrics.getStage(CONSUME_STAGE).getQueueDepth());
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Then:
+        assertThat(Collections.max(depths), lessThanOrEqualTo(QUEUE_CAPACITY));
+    }
+
+    @Test(expected = SQLException.class)
+    public void run_givenSourceFails_shouldThrowException() throws Exception {
+        // Given:
+        ArticlePipeline pipeline = new ArticlePipeline(QueryContext.uncancellable(),
+                new PipelineMetrics(), 2);
+
+        // When:
+        pipeline.run(sink -> {
+            sink.accept(generateRecords().get(0));
+            throw new SQLException("connection lost");
+        }, hashes -> Collections.emptyMap(), batch -> { });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void run_givenConsumerFails_shouldStopPipelineAndThrowException() throws Exception {
+        // Given:
+        List<ArticleRecord> records = generateRecords();
+        ArticlePipeline pipeline = new ArticlePipeline(QueryContext.uncancellable(),
+                new PipelineMetrics(), 2);
+
+        // When:
+        pipeline.run(sink -> records.forEach(sink), hashes -> Collections.emptyMap(), batch -> {
+            throw new IllegalStateException();
+        });
+    }
+
+    @Test(expected = DatabaseAccessException.class)
+    public void run_givenSignalCancelled_shouldStopPipeline() throws Exception {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        ArticlePipeline pipeline = new ArticlePipeline(new QueryContext(signal, 0),
+                new PipelineMetrics(), 2);
+
+        // When:
+        pipeline.run(sink -> {
+            // The source would never end without the cancellation.
+            for (int id = 0; ; id++) {
+                sink.accept(new ArticleRecord(id, null, "content", null, null, false));
+            }
+        }, hashes -> Collections.emptyMap(), batch -> signal.cancel());
+    }
+
+    @Test
+    public void deliver_givenArticles_shouldPassArticlesInBatches() {
+        // Given:
+        List<Article> articles = new ArrayList<>();
+        for (int id = 0; id < BATCH_SIZE + 1; id++) {
+            articles.add(new Article(id));
+        }
+        PipelineMetrics metrics = new PipelineMetrics();
+        List<List<Article>> batches = new ArrayList<>();
+
+        // When:
+        new ArticlePipeline(QueryContext.uncancellable(), metrics).deliver(articles,
+                batches::add);
+
+        // Then:
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(1).size());
+        assertEquals(BATCH_SIZE + 1, metrics.getStage(CONSUME_STAGE).getProcessedItems());
+    }
+
+    @Test(timeout = 10_000)
+    public void run_givenMoreUrgentWorkRunning_shouldPauseStagesUntilItIsComplete()
+            throws Exception {
+        // Given:
+        List<ArticleRecord> records = generateRecords();
+        PriorityScheduler scheduler = new PriorityScheduler();
+        ArticlePipeline pipeline = new ArticlePipeline(QueryContext.uncancellable(),
+                new PipelineMetrics(), scheduler, 2);
+        CountDownLatch interactiveRunning = new CountDownLatch(1);
+        CountDownLatch interactiveDone = new CountDownLatch(1);
+        Thread interactive = new Thread(() -> scheduler.run(WorkPriority.INTERACTIVE, () -> {
+            interactiveRunning.countDown();
+            try {
+                interactiveDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        interactive.start();
+        interactiveRunning.await();
+        List<Integer> ids = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        // When:
+        Thread batch = new Thread(() -> scheduler.run(WorkPriority.BATCH, () -> {
+            try {
+                pipeline.run(sink -> records.forEach(sink), hashes -> Collections.emptyMap(),
+                        articles -> articles.forEach(article -> ids.add(article.getId())));
+            } catch (Exception e) {
+                failure.set(e);
+            }
+            return null;
+        }));
+        batch.start();
+        while (scheduler.getPauseCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        // Then:
+        assertTrue(ids.isEmpty());
+        interactiveDone.countDown();
+        batch.join();
+        assertNull(failure.get());
+        assertEquals(RECORD_COUNT, ids.size());
+    }
+
+    private static List<ArticleRecord> generateRecords() {
+        List<ArticleRecord> records = new ArrayList<>();
+        for (int id = 0; id < RECORD_COUNT; id++) {
+            records.add(new ArticleRecord(id, "title " + id, "content of article " + id,
+                    "medium", null, false));
+        }
+        return records;
+    }
+}
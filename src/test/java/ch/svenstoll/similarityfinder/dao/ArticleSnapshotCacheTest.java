@@ -0,0 +1,216 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleSnapshotCacheTest {
+    private static final String SOURCE_KEY = "localhost/db|user";
+    private static final String MARKER_EXPRESSION = "version";
+    private static final FilterCriteria ALL_ARTICLES
+            = new FilterCriteria(Collections.emptyList(), null, null, "", 0, false);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Connection connection;
+    private String location;
+    private List<Integer> generatedIds;
+
+    @Before
+    public void setUp() throws SQLException, IOException {
+        // An in-memory database is used as a stand-in for the PostgreSQL database. The xmin
+        // system column is replaced by an explicit version column.
+        connection = DriverManager.getConnection("jdbc:h2:mem:;MODE=PostgreSQL");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE article (id INTEGER PRIMARY KEY, title TEXT, " +
+                    "content TEXT, medium TEXT, publicationDate DATE, relevant BOOLEAN, " +
+                    "version BIGINT)");
+        }
+        location = temporaryFolder.getRoot().toPath().resolve("snapshot.bin").toString();
+        generatedIds = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void queryArticles_givenEmptySnapshot_shouldFetchAllArticles() throws Exception {
+        // Given:
+        insertArticle(1, "Title", "Some content", "medium", 1);
+        insertArticle(2, "Other", "More content", "medium", 1);
+        ArticleSnapshotCache cache = new ArticleSnapshotCache(location, MARKER_EXPRESSION);
+
+        // When:
+        List<Article> articles = queryArticles(cache, ALL_ARTICLES);
+
+        // Then:
+        assertEquals(asList(1, 2), ids(articles));
+        assertEquals(asList(1, 2), generatedIds);
+    }
+
+    @Test
+    public void queryArticles_givenNewArticle_shouldOnlyFetchNewArticle() throws Exception {
+        // Given:
+        insertArticle(1, "Title", "Some content", "medium", 1);
+        ArticleSnapshotCache cache = new ArticleSnapshotCache(location, MARKER_EXPRESSION);
+        queryArticles(cache, ALL_ARTICLES);
+        generatedIds.clear();
+        insertArticle(2, "Other", "More content", "medium", 1);
+
+        // When:
+        List<Article> articles = queryArticles(cache, ALL_ARTICLES);
+
+        // Then:
+        assertEquals(asList(1, 2), ids(articles));
+        assertEquals(Collections.singletonList(2), generatedIds);
+    }
+
+    @Test
+    public void queryArticles_givenChangedArticle_shouldFetchChangedArticle() throws Exception {
+        // Given:
+        insertArticle(1, "Title", "Some content", "medium", 1);
+        insertArticle(2, "Other", "More content", "medium", 1);
+        ArticleSnapshotCache cache = new ArticleSnapshotCache(location, MARKER_EXPRESSION);
+        queryArticles(cache, ALL_ARTICLES);
+        generatedIds.clear();
+        execute("UPDATE article SET content = 'Changed content', version = 2 WHERE id = 1");
+
+        // When:
+        List<Article> articles = queryArticles(cache, ALL_ARTICLES);
+
+        // Then:
+        assertEquals(Collections.singletonList(1), generatedIds);
+        assertEquals("Changed content", articles.get(0).getContent());
+        assertEquals(NGramVector.fromText("Changed content"), articles.get(0).getContentVector());
+    }
+
+    @Test
+    public void queryArticles_givenDeletedArticle_shouldRemoveArticle() throws Exception {
+        // Given:
+        insertArticle(1, "Title", "Some content", "medium", 1);
+        insertArticle(2, "Other", "More content", "medium", 1);
+        ArticleSnapshotCache cache = new ArticleSnapshotCache(location, MARKER_EXPRESSION);
+        queryArticles(cache, ALL_ARTICLES);
+        execute("DELETE FROM article WHERE id = 2");
+
+        // When:
+        List<Article> articles = queryArticles(cache, ALL_ARTICLES);
+
+        // Then:
+        assertEquals(Collections.singletonList(1), ids(articles));
+    }
+
+    @Test
+    public void queryArticles_givenSnapshotFile_shouldNotFetchArticlesAgain() throws Exception {
+        // Given:
+        insertArticle(1, "Title", "Some content", "medium", 1);
+        insertArticle(2, "Other", null, null, 1);
+        queryArticles(new ArticleSnapshotCache(location, MARKER_EXPRESSION), ALL_ARTICLES);
+        generatedIds.clear();
+        ArticleSnapshotCache cache = new ArticleSnapshotCache(location, MARKER_EXPRESSION);
+
+        // When:
+        List<Article> articles = queryArticles(cache, ALL_ARTICLES);
+
+        // Then:
+        assertTrue(generatedIds.isEmpty());
+        assertEquals(Collections.singletonList(1), ids(articles));
+        Article article = articles.get(0);
+        assertEquals("Title", article.getTitle());
+        assertEquals("Some content", article.getContent());
+        assertEquals("medium", article.getMedium().getName());
+        assertEquals(LocalDate.of(2017, 1, 1), article.getPublicationDate());
+        assertEquals(NGramVector.fromText("Some content"), article.getContentVector());
+    }
+
+    @Test
+    public void queryArticles_givenCriteria_shouldOnlyReturnMatchingArticles() throws Exception {
+        // Given:
+        insertArticle(1, "Title", "Some content", "medium", 1);
+        insertArticle(2, "Other", "More content", "other medium", 1);
+        ArticleSnapshotCache cache = new ArticleSnapshotCache(location, MARKER_EXPRESSION);
+        FilterCriteria criteria = new FilterCriteria(Collections.singletonList("other medium"),
+                null, null, "", 0, false);
+
+        // When:
+        List<Article> articles = queryArticles(cache, criteria);
+
+        // Then:
+        assertEquals(Collections.singletonList(2), ids(articles));
+    }
+
+    @Test
+    public void queryArticles_givenDifferentSource_shouldDiscardSnapshotFile() throws Exception {
+        // Given:
+        insertArticle(1, "Title", "Some content", "medium", 1);
+        queryArticles(new ArticleSnapshotCache(location, MARKER_EXPRESSION), ALL_ARTICLES);
+        generatedIds.clear();
+        ArticleSnapshotCache cache = new ArticleSnapshotCache(location, MARKER_EXPRESSION);
+
+        // When:
+        cache.queryArticles(connection, "otherhost/db|user", ALL_ARTICLES, this::generate,
+                QueryContext.uncancellable());
+
+        // Then:
+        assertEquals(Collections.singletonList(1), generatedIds);
+    }
+
+    private List<Article> queryArticles(ArticleSnapshotCache cache, FilterCriteria criteria)
+            throws SQLException, InterruptedException {
+        return cache.queryArticles(connection, SOURCE_KEY, criteria, this::generate,
+                QueryContext.uncancellable());
+    }
+
+    private List<Article> generate(List<ArticleRecord> records) {
+        List<Article> articles = new ArrayList<>();
+        for (ArticleRecord record : records) {
+            generatedIds.add(record.id);
+            articles.add(record.toArticle(NGramVector.fromText(record.content)));
+        }
+        Collections.sort(generatedIds);
+        return articles;
+    }
+
+    private void insertArticle(int id, String title, String content, String medium, long version)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO article VALUES (?, ?, ?, ?, DATE '2017-01-01', FALSE, ?)")) {
+            statement.setInt(1, id);
+            statement.setString(2, title);
+            statement.setString(3, content);
+            statement.setString(4, medium);
+            statement.setLong(5, version);
+            statement.executeUpdate();
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static List<Integer> ids(List<Article> articles) {
+        return articles.stream().map(Article::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,131 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.NGramVector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ch.svenstoll.similarityfinder.dao.ArticleVectorStore.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleVectorStoreTest {
+    private Connection connection;
+    private ArticleVectorStore vectorStore;
+
+    @Before
+    public void setUp() throws SQLException {
+        // An in-memory database is used as a stand-in for the PostgreSQL database.
+        connection = DriverManager.getConnection("jdbc:h2:mem:;MODE=PostgreSQL");
+        vectorStore = new ArticleVectorStore();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void loadVectors_givenNoVectorsStored_shouldReturnEmptyMap() throws SQLException {
+        // Given:
+        Map<Integer, Long> hashes = new HashMap<>();
+        hashes.put(1, hashContent("content"));
+
+        // When:
+        Map<Integer, NGramVector> vectors = vectorStore.loadVectors(connection, hashes);
+
+        // Then:
+        assertTrue(vectors.isEmpty());
+    }
+
+    @Test
+    public void loadVectors_givenContentUnchanged_shouldReturnStoredVector() throws SQLException {
+        // Given:
+        String content = "some content";
+        Map<Integer, Long> hashes = new HashMap<>();
+        hashes.put(1, hashContent(content));
+        Map<Integer, NGramVector> stored = new HashMap<>();
+        stored.put(1, NGramVector.fromText(content));
+        vectorStore.storeVectors(connection, stored, hashes);
+
+        // When:
+        Map<Integer, NGramVector> vectors = vectorStore.loadVectors(connection, hashes);
+
+        // Then:
+        assertEquals(stored, vectors);
+    }
+
+    @Test
+    public void loadVectors_givenContentChanged_shouldOmitOutdatedVector() throws SQLException {
+        // Given:
+        Map<Integer, Long> oldHashes = new HashMap<>();
+        oldHashes.put(1, hashContent("old content"));
+        Map<Integer, NGramVector> stored = new HashMap<>();
+        stored.put(1, NGramVector.fromText("old content"));
+        vectorStore.storeVectors(connection, stored, oldHashes);
+
+        Map<Integer, Long> newHashes = new HashMap<>();
+        newHashes.put(1, hashContent("new content"));
+
+        // When:
+        Map<Integer, NGramVector> vectors = vectorStore.loadVectors(connection, newHashes);
+
+        // Then:
+        assertTrue(vectors.isEmpty());
+    }
+
+    @Test
+    public void storeVectors_givenVectorAlreadyStored_shouldReplaceStoredVector()
+            throws SQLException {
+        // Given:
+        Map<Integer, Long> oldHashes = new HashMap<>();
+        oldHashes.put(1, hashContent("old content"));
+        Map<Integer, NGramVector> oldVectors = new HashMap<>();
+        oldVectors.put(1, NGramVector.fromText("old content"));
+        vectorStore.storeVectors(connection, oldVectors, oldHashes);
+
+        Map<Integer, Long> newHashes = new HashMap<>();
+        newHashes.put(1, hashContent("new content"));
+        Map<Integer, NGramVector> newVectors = new HashMap<>();
+        newVectors.put(1, NGramVector.fromText("new content"));
+
+        // When:
+        vectorStore.storeVectors(connection, newVectors, newHashes);
+
+        // Then:
+        assertEquals(newVectors, vectorStore.loadVectors(connection, newHashes));
+        assertEquals(1, countStoredVectors());
+    }
+
+    @Test
+    public void loadVectors_givenMoreIdsThanFitIntoOneStatement_shouldReturnAllVectors()
+            throws SQLException {
+        // Given:
+        Map<Integer, Long> hashes = new HashMap<>();
+        Map<Integer, NGramVector> stored = new HashMap<>();
+        for (int id = 0; id < MAX_IDS_PER_STATEMENT * 2 + 1; id++) {
+            String content = "content " + id;
+            hashes.put(id, hashContent(content));
+            stored.put(id, NGramVector.fromText(content));
+        }
+        vectorStore.storeVectors(connection, stored, hashes);
+
+        // When:
+        Map<Integer, NGramVector> vectors = vectorStore.loadVectors(connection, hashes);
+
+        // Then:
+        assertEquals(stored, vectors);
+    }
+
+    private int countStoredVectors() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + VECTOR_RELATION);
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
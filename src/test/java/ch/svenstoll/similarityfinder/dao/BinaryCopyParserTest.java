@@ -0,0 +1,81 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BinaryCopyParserTest {
+    static final String RECORDED_STREAM = "/binary-copy-parser/articles.bin";
+
+    @Test
+    public void readRecord_givenRecordedStream_shouldParseAllTuples() throws IOException {
+        // Given:
+        try (BinaryCopyParser parser = new BinaryCopyParser(openRecordedStream())) {
+            // When:
+            ArticleRecord first = parser.readRecord();
+            ArticleRecord second = parser.readRecord();
+            ArticleRecord third = parser.readRecord();
+            ArticleRecord trailer = parser.readRecord();
+
+            // Then:
+            assertEquals(1, first.id);
+            assertEquals("First title", first.title);
+            assertEquals("Some content with umlauts: äöü", first.content);
+            assertEquals("medium", first.mediumName);
+            assertEquals(LocalDate.of(2017, 3, 1), first.publicationDate);
+            assertTrue(first.relevant);
+
+            assertEquals(2, second.id);
+            assertNull(second.content);
+            assertNull(second.mediumName);
+            assertNull(second.publicationDate);
+            assertFalse(second.relevant);
+
+            assertEquals(LocalDate.of(1999, 12, 31), third.publicationDate);
+            assertFalse(third.relevant);
+
+            assertNull(trailer);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void readRecord_givenInvalidSignature_shouldThrowException() throws IOException {
+        // Given:
+        byte[] bytes = readRecordedStream();
+        bytes[0] = 'X';
+        BinaryCopyParser parser = new BinaryCopyParser(new ByteArrayInputStream(bytes));
+
+        // When:
+        parser.readRecord();
+    }
+
+    @Test(expected = IOException.class)
+    public void readRecord_givenTruncatedStream_shouldThrowException() throws IOException {
+        // Given:
+        byte[] bytes = readRecordedStream();
+        BinaryCopyParser parser = new BinaryCopyParser(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 10)));
+
+        // When:
+        while (parser.readRecord() != null) {
+            // Reads until the stream ends unexpectedly.
+        }
+    }
+
+    private static InputStream openRecordedStream() {
+        return BinaryCopyParserTest.class.getResourceAsStream(RECORDED_STREAM);
+    }
+
+    static byte[] readRecordedStream() throws IOException {
+        try (InputStream in = openRecordedStream()) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+}
@@ -1,30 +1,55 @@
 package ch.svenstoll.similarityfinder.dao;
 
 import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.CancellationSignal;
 import ch.svenstoll.similarityfinder.domain.Filter;
+import ch.svenstoll.similarityfinder.domain.FilterCriteria;
 import ch.svenstoll.similarityfinder.domain.Medium;
+import ch.svenstoll.similarityfinder.domain.PipelineMetrics;
+import ch.svenstoll.similarityfinder.domain.PriorityScheduler;
+import ch.svenstoll.similarityfinder.domain.Settings;
+import ch.svenstoll.similarityfinder.domain.WorkPriority;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatchers;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static ch.svenstoll.similarityfinder.dao.DatabaseAccessImpl.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 public class DatabaseAccessImplTest {
     private DatabaseAccessImpl databaseAccess;
     private DatabaseConnectionProvider connectionProvider;
+    private Settings settings;
 
     @Before
     public void setUp() {
         connectionProvider = mock(DatabaseConnectionProvider.class);
-        databaseAccess = new DatabaseAccessImpl(connectionProvider);
+        settings = mock(Settings.class);
+        databaseAccess = new DatabaseAccessImpl(connectionProvider, settings,
+                mock(ArticleSnapshotCache.class), new PriorityScheduler());
     }
 
     @Test(expected = DatabaseAccessException.class)
@@ -58,6 +83,94 @@ public class DatabaseAccessImplTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    public void queryDataVersion_givenDbQuerySuccessful_shouldCombineChangeCounters()
+            throws SQLException {
+        // Given:
+        ResultSet resultSet = mockDataVersionResultSet();
+        given(resultSet.getString(4)).willReturn("3");
+        given(resultSet.getString(5)).willReturn("42");
+        given(resultSet.getString(6)).willReturn("1");
+
+        // When:
+        String version = databaseAccess.queryDataVersion();
+
+        // Then:
+        assertEquals("2017-06-30 10:00:00+02:null:16384:3:42:1", version);
+    }
+
+    @Test
+    public void queryDataVersion_givenUpdateCommittedOutOfOrder_shouldChangeVersion()
+            throws SQLException {
+        // Given:
+        // An update of a transaction with an older xid that commits late leaves the number of
+        // articles, the highest id and the highest xmin unchanged, but raises the update counter.
+        ResultSet resultSet = mockDataVersionResultSet();
+        given(resultSet.getString(4)).willReturn("3");
+        given(resultSet.getString(5)).willReturn("42").willReturn("43");
+        given(resultSet.getString(6)).willReturn("1");
+        String before = databaseAccess.queryDataVersion();
+
+        // When:
+        String after = databaseAccess.queryDataVersion();
+
+        // Then:
+        assertNotEquals(before, after);
+    }
+
+    @Test(timeout = 10_000)
+    public void streamArticlesByCriteria_givenSnapshotSyncWhileMoreUrgentWorkRuns_shouldNotPause()
+            throws Exception {
+        // Given:
+        PriorityScheduler scheduler = new PriorityScheduler();
+        ArticleSnapshotCache snapshotCache = mock(ArticleSnapshotCache.class);
+        databaseAccess = new DatabaseAccessImpl(connectionProvider, settings, snapshotCache,
+                scheduler);
+        given(settings.isLocalSnapshotEnabled()).willReturn(true);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        given(connection.prepareStatement(anyString())).willReturn(statement);
+        given(statement.executeQuery()).willReturn(mock(ResultSet.class));
+        given(connectionProvider.getDbConnection()).willReturn(connection);
+        CountDownLatch urgentWorkDone = new CountDownLatch(1);
+        AtomicLong pausesWhileGenerating = new AtomicLong(-1);
+        given(snapshotCache.queryArticles(any(Connection.class), anyString(),
+                any(FilterCriteria.class), any(), any(QueryContext.class)))
+                .willAnswer(invocation -> {
+                    ArticleSnapshotCache.ArticleGenerator generator = invocation.getArgument(3);
+                    List<Article> generated = generator.generateArticles(
+                            Collections.singletonList(
+                                    new ArticleRecord(1, null, null, null, null, false)));
+                    pausesWhileGenerating.set(scheduler.getPauseCount());
+                    urgentWorkDone.countDown();
+                    return generated;
+                });
+        CountDownLatch urgentWorkRunning = new CountDownLatch(1);
+        Thread urgentWork = new Thread(() -> scheduler.run(WorkPriority.INTERACTIVE, () -> {
+            urgentWorkRunning.countDown();
+            try {
+                return urgentWorkDone.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }));
+        urgentWork.start();
+        assertTrue(urgentWorkRunning.await(5, TimeUnit.SECONDS));
+        List<Article> articles = new ArrayList<>();
+
+        // When:
+        scheduler.run(WorkPriority.BATCH, () -> {
+            databaseAccess.streamArticlesByCriteria(criteria(), new CancellationSignal(),
+                    new PipelineMetrics(), articles::addAll);
+            return null;
+        });
+
+        // Then:
+        assertEquals(0L, pausesWhileGenerating.get());
+        assertEquals(1, articles.size());
+        urgentWork.join();
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void queryContributions_givenFilterNotProvided_shouldThrowException() {
         // When:
@@ -107,4 +220,170 @@ public class DatabaseAccessImplTest {
         // Then:
         assertEquals(1, result.size());
     }
+
+    @Test
+    public void queryArticlesByCriteria_givenQueryTimeout_shouldApplyTimeoutToStatement()
+            throws SQLException {
+        // Given:
+        given(settings.getQueryTimeoutSeconds()).willReturn(30);
+        PreparedStatement statement = givenArticlesStatement();
+        given(statement.executeQuery()).willReturn(mock(ResultSet.class));
+
+        // When:
+        databaseAccess.queryArticlesByCriteria(criteria(), new CancellationSignal());
+
+        // Then:
+        verify(statement).setQueryTimeout(30);
+    }
+
+    @Test(expected = DatabaseAccessException.class)
+    public void queryArticlesByCriteria_givenSignalCancelledDuringQuery_shouldCancelStatement()
+            throws SQLException {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        PreparedStatement statement = givenArticlesStatement();
+        given(statement.executeQuery()).willAnswer(invocation -> {
+            signal.cancel();
+            throw new SQLException("canceling statement due to user request");
+        });
+
+        try {
+            // When:
+            databaseAccess.queryArticlesByCriteria(criteria(), signal);
+        } finally {
+            // Then:
+            verify(statement).cancel();
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void queryArticlesByCriteria_givenBulkLoadOfSeveralBatches_shouldLookUpVectorsOnOtherConnection()
+            throws SQLException, IOException {
+        // Given:
+        int articleCount = 2 * ArticlePipeline.BATCH_SIZE + 1;
+        Connection copyConnection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        Statement estimateStatement = mock(Statement.class);
+        ResultSet estimateResult = mock(ResultSet.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyOut copyOut = mock(CopyOut.class);
+        given(copyConnection.isWrapperFor(PGConnection.class)).willReturn(true);
+        given(copyConnection.unwrap(PGConnection.class)).willReturn(pgConnection);
+        given(copyConnection.createStatement()).willReturn(estimateStatement);
+        given(estimateStatement.executeQuery(anyString())).willReturn(estimateResult);
+        given(estimateResult.next()).willReturn(true);
+        given(estimateResult.getLong(1)).willReturn(100_000L);
+        given(estimateResult.getString(1))
+                .willReturn("Seq Scan on article  (cost=0.00..100.00 rows=90000 width=100)");
+        given(pgConnection.getCopyAPI()).willReturn(copyManager);
+        given(copyManager.copyOut(anyString())).willReturn(copyOut);
+        given(copyOut.readFromCopy()).willReturn(encodeCopyStream(articleCount), (byte[]) null);
+
+        Connection vectorConnection = mock(Connection.class);
+        PreparedStatement vectorStatement = mock(PreparedStatement.class);
+        given(vectorConnection.prepareStatement(anyString())).willReturn(vectorStatement);
+        given(vectorStatement.executeQuery()).willReturn(mock(ResultSet.class));
+        given(connectionProvider.getDbConnection()).willReturn(copyConnection, vectorConnection);
+
+        // When:
+        List<Article> result = databaseAccess.queryArticlesByCriteria(criteria(),
+                new CancellationSignal());
+
+        // Then:
+        assertEquals(articleCount, result.size());
+        verify(copyConnection, never()).prepareStatement(anyString());
+        verify(vectorConnection, times(3)).prepareStatement(contains("SELECT"));
+    }
+
+    @Test(timeout = 10_000)
+    public void queryArticlesByCriteria_givenConcurrentQueries_shouldUseSeparateConnections()
+            throws Exception {
+        // Given:
+        CountDownLatch firstQueryRunning = new CountDownLatch(1);
+        CountDownLatch secondQueryDone = new CountDownLatch(1);
+        Connection firstConnection = mock(Connection.class);
+        PreparedStatement firstStatement = mock(PreparedStatement.class);
+        given(firstConnection.prepareStatement(anyString())).willReturn(firstStatement);
+        given(firstStatement.executeQuery()).willAnswer(invocation -> {
+            firstQueryRunning.countDown();
+            assertTrue(secondQueryDone.await(5, TimeUnit.SECONDS));
+            return mock(ResultSet.class);
+        });
+        Connection secondConnection = mock(Connection.class);
+        PreparedStatement secondStatement = mock(PreparedStatement.class);
+        given(secondConnection.prepareStatement(anyString())).willReturn(secondStatement);
+        given(secondStatement.executeQuery()).willReturn(mock(ResultSet.class));
+        Connection vectorConnection = mock(Connection.class);
+        given(vectorConnection.prepareStatement(anyString()))
+                .willReturn(mock(PreparedStatement.class));
+        given(connectionProvider.getDbConnection())
+                .willReturn(firstConnection, vectorConnection, secondConnection);
+
+        // When:
+        CompletableFuture<List<Article>> firstQuery = CompletableFuture.supplyAsync(() ->
+                databaseAccess.queryArticlesByCriteria(criteria(), new CancellationSignal()));
+        assertTrue(firstQueryRunning.await(5, TimeUnit.SECONDS));
+        databaseAccess.queryArticlesByCriteria(criteria(), new CancellationSignal());
+        secondQueryDone.countDown();
+        firstQuery.get();
+
+        // Then:
+        verify(secondStatement).executeQuery();
+        verify(firstConnection, times(1)).prepareStatement(anyString());
+    }
+
+    private PreparedStatement givenArticlesStatement() throws SQLException {
+        Connection connection = mock(Connection.class);
+        given(connectionProvider.getDbConnection()).willReturn(connection);
+        given(connection.createArrayOf(anyString(), any())).willReturn(mock(Array.class));
+
+        PreparedStatement statement = mock(PreparedStatement.class);
+        given(connection.prepareStatement(anyString())).willReturn(statement);
+        return statement;
+    }
+
+    /**
+     * Encodes articles with the ids 1 to {@code count} in the binary format of the {@code COPY}
+     * command.
+     */
+    private static byte[] encodeCopyStream(int count) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+        out.writeInt(0);
+        out.writeInt(0);
+        for (int id = 1; id <= count; id++) {
+            out.writeShort(6);
+            out.writeInt(Integer.BYTES);
+            out.writeInt(id);
+            for (String text : new String[] {"Title " + id, "Content " + id, "medium"}) {
+                byte[] encoded = text.getBytes(UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+            out.writeInt(-1);
+            out.writeInt(1);
+            out.writeByte(0);
+        }
+        out.writeShort(-1);
+        return bytes.toByteArray();
+    }
+
+    private static FilterCriteria criteria() {
+        return new FilterCriteria(Collections.emptyList(), null, null, "", 0, false);
+    }
+
+    private ResultSet mockDataVersionResultSet() throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+
+        given(connectionProvider.getDbConnection()).willReturn(connection);
+        given(connection.createStatement()).willReturn(statement);
+        given(statement.executeQuery(anyString())).willReturn(resultSet);
+        given(resultSet.next()).willReturn(true);
+        given(resultSet.getString(1)).willReturn("2017-06-30 10:00:00+02");
+        given(resultSet.getString(3)).willReturn("16384");
+        return resultSet;
+    }
 }
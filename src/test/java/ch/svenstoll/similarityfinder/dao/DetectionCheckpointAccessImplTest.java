@@ -0,0 +1,83 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.DetectionCheckpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class DetectionCheckpointAccessImplTest {
+    private File file;
+    private DetectionCheckpointAccessImpl checkpointAccess;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("detection-checkpoint", ".json");
+        file.delete();
+        checkpointAccess = new DetectionCheckpointAccessImpl(file.getPath());
+    }
+
+    @After
+    public void cleanUp() {
+        checkpointAccess.deleteCheckpoint();
+    }
+
+    @Test
+    public void retrieveCheckpoint_givenFileDoesNotExist_shouldReturnNull() {
+        // When:
+        DetectionCheckpoint checkpoint = checkpointAccess.retrieveCheckpoint();
+
+        // Then:
+        assertNull(checkpoint);
+    }
+
+    @Test
+    public void retrieveCheckpoint_givenSavedCheckpoints_shouldReturnLastCheckpoint() {
+        // Given:
+        checkpointAccess.saveCheckpoint(new DetectionCheckpoint(0.8, 2, 1, new int[]{1},
+                new int[]{0}));
+        DetectionCheckpoint expected = new DetectionCheckpoint(0.8, 5, 42, new int[]{1, 4},
+                new int[]{0, 2});
+        checkpointAccess.saveCheckpoint(expected);
+
+        // When:
+        DetectionCheckpoint actual = checkpointAccess.retrieveCheckpoint();
+
+        // Then:
+        assertEquals(expected, actual);
+        assertFalse(new File(file.getPath()
+                + DetectionCheckpointAccessImpl.TEMPORARY_FILE_SUFFIX).exists());
+    }
+
+    @Test(expected = DetectionCheckpointAccessException.class)
+    public void retrieveCheckpoint_givenInvalidCheckpoint_shouldThrowException()
+            throws IOException {
+        // Given:
+        Files.write(file.toPath(), ("{\"similarityThreshold\": 0.8, \"completedArticles\": 1, "
+                + "\"fingerprint\": 0, \"linkedOrdinals\": [3], \"rootOrdinals\": [0]}")
+                .getBytes(UTF_8));
+
+        // When:
+        checkpointAccess.retrieveCheckpoint();
+    }
+
+    @Test
+    public void deleteCheckpoint_givenSavedCheckpoint_shouldDeleteFile() {
+        // Given:
+        checkpointAccess.saveCheckpoint(new DetectionCheckpoint(0.8, 0, 0, new int[0],
+                new int[0]));
+
+        // When:
+        checkpointAccess.deleteCheckpoint();
+
+        // Then:
+        assertFalse(file.exists());
+        assertNull(checkpointAccess.retrieveCheckpoint());
+    }
+}
@@ -0,0 +1,85 @@
+package ch.svenstoll.similarityfinder.dao;
+
+import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.Medium;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheAccessImplTest {
+    private File file;
+    private ResultCacheAccessImpl resultCacheAccess;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("result-cache", ".json");
+        file.delete();
+        resultCacheAccess = new ResultCacheAccessImpl(file.getPath());
+    }
+
+    @After
+    public void cleanUp() {
+        file.delete();
+    }
+
+    @Test
+    public void retrieveResultsFromFile_givenFileDoesNotExist_shouldReturnNoResults() {
+        // When:
+        Map<String, List<Set<Article>>> results = resultCacheAccess.retrieveResultsFromFile();
+
+        // Then:
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void retrieveResultsFromFile_givenSavedResults_shouldRestoreArticles() {
+        // Given:
+        Article article = new Article(7);
+        article.setTitle("title");
+        article.setContent("content");
+        article.setMedium(new Medium("medium"));
+        article.setPublicationDate(LocalDate.of(2017, 3, 1));
+        article.setAuthor("author");
+        article.setRelevant(true);
+        LinkedHashMap<String, List<Set<Article>>> results = new LinkedHashMap<>();
+        results.put("key2", Collections.singletonList(Collections.singleton(article)));
+        results.put("key1", Collections.emptyList());
+        resultCacheAccess.saveResultsToFile(results);
+
+        // When:
+        Map<String, List<Set<Article>>> restored = resultCacheAccess.retrieveResultsFromFile();
+
+        // Then:
+        assertEquals(Arrays.asList("key2", "key1"), new ArrayList<>(restored.keySet()));
+        Article restoredArticle = restored.get("key2").get(0).iterator().next();
+        assertEquals(7, restoredArticle.getId());
+        assertEquals("title", restoredArticle.getTitle());
+        assertEquals("content", restoredArticle.getContent());
+        assertEquals("medium", restoredArticle.getMedium().getName());
+        assertEquals(LocalDate.of(2017, 3, 1), restoredArticle.getPublicationDate());
+        assertEquals("author", restoredArticle.getAuthor());
+        assertTrue(restoredArticle.isRelevant());
+        assertEquals(article.getContentVector().size(),
+                restoredArticle.getContentVector().size());
+    }
+
+    @Test(expected = ResultCacheAccessException.class)
+    public void retrieveResultsFromFile_givenCorruptedFile_shouldThrowException()
+            throws IOException {
+        // Given:
+        Files.write(file.toPath(), "[{\"key\": ".getBytes(UTF_8));
+
+        // When:
+        resultCacheAccess.retrieveResultsFromFile();
+    }
+}
@@ -51,7 +51,10 @@ public class SettingsAccessImplTest {
         verify(preferences, times(1)).put(anyString(), eq(dbUser));
         verify(preferences, times(1)).put(anyString(), eq(dbPassword));
         verify(preferences, times(1)).putInt(anyString(), eq(maxContributions));
-        verify(preferences, times(1)).putBoolean(anyString(), eq(firstLaunch));
+        verify(preferences, times(1)).putBoolean(eq(FIRST_LAUNCH_KEY), eq(firstLaunch));
+        verify(preferences, times(1)).putBoolean(eq(LOCAL_SNAPSHOT_ENABLED_KEY), anyBoolean());
+        verify(preferences, times(1)).putInt(eq(QUERY_TIMEOUT_KEY), anyInt());
+        verify(preferences, times(1)).putBoolean(eq(RESULT_CACHE_PERSISTENT_KEY), anyBoolean());
     }
 
     @Test(expected = SettingsAccessException.class)
@@ -82,12 +85,20 @@ public class SettingsAccessImplTest {
         String dbPassword = "password";
         int maxContributions = 1000;
         boolean firstLaunch = false;
+        boolean localSnapshotEnabled = true;
+        int queryTimeoutSeconds = 30;
+        boolean resultCachePersistent = true;
 
         given(preferences.get(eq(DB_ADDRESS_KEY), anyString())).willReturn(dbServerAddress);
         given(preferences.get(eq(DB_USER_KEY), anyString())).willReturn(dbUser);
         given(preferences.get(eq(DB_PASSWORD_KEY), anyString())).willReturn(dbPassword);
         given(preferences.getInt(eq(MAX_CONTRIBUTIONS_KEY), anyInt())).willReturn(maxContributions);
         given(preferences.getBoolean(eq(FIRST_LAUNCH_KEY), anyBoolean())).willReturn(firstLaunch);
+        given(preferences.getBoolean(eq(LOCAL_SNAPSHOT_ENABLED_KEY), anyBoolean()))
+                .willReturn(localSnapshotEnabled);
+        given(preferences.getInt(eq(QUERY_TIMEOUT_KEY), anyInt())).willReturn(queryTimeoutSeconds);
+        given(preferences.getBoolean(eq(RESULT_CACHE_PERSISTENT_KEY), anyBoolean()))
+                .willReturn(resultCachePersistent);
 
         Settings settings = mock(Settings.class);
 
@@ -100,6 +111,9 @@ public class SettingsAccessImplTest {
         verify(settings, times(1)).setDbPassword(eq(dbPassword));
         verify(settings, times(1)).setMaxArticles(eq(maxContributions));
         verify(settings, times(1)).setFirstLaunch(eq(firstLaunch));
+        verify(settings, times(1)).setLocalSnapshotEnabled(eq(localSnapshotEnabled));
+        verify(settings, times(1)).setQueryTimeoutSeconds(eq(queryTimeoutSeconds));
+        verify(settings, times(1)).setResultCachePersistent(eq(resultCachePersistent));
     }
 
     @Test(expected = SettingsAccessException.class)
@@ -0,0 +1,117 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.*;
+
+public class AnytimeSimilarityDetectorTest {
+    private List<Article> articles;
+
+    @Before
+    public void setup() {
+        Random random = new Random(11);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        articles = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        articles.add(generateArticle(60, null));
+    }
+
+    @Test
+    public void runFor_givenSufficientBudget_shouldReturnSameSetsAsSimilarityDetector() {
+        for (double threshold : new double[]{0, 0.5, 0.85, 1}) {
+            // Given:
+            AnytimeSimilarityDetector detector = new AnytimeSimilarityDetector(articles,
+                    threshold);
+
+            // When:
+            PartialDetectionResult result = detector.runFor(Long.MAX_VALUE,
+                    new CancellationSignal());
+
+            // Then:
+            List<Set<Article>> expected = new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(articles, threshold);
+            assertTrue(result.isComplete());
+            assertEquals(1, result.getCoverage(), 0);
+            assertThat(result.getClusters(), containsInAnyOrder(expected.toArray()));
+        }
+    }
+
+    @Test
+    public void runFor_givenExceededBudget_shouldReturnBestSoFarAndContinueLater() {
+        // Given:
+        // Every call of the time source advances the time by 1 ns, so every step of the
+        // detection exceeds a budget of 1 ns.
+        long[] time = {0};
+        AnytimeSimilarityDetector detector = new AnytimeSimilarityDetector(articles, 0.85,
+                () -> time[0]++);
+        List<Set<Article>> expected = new SimilarityDetector()
+                .detectArticlesWithSimilarContents(articles, 0.85);
+
+        // When:
+        PartialDetectionResult first = detector.runFor(1, new CancellationSignal());
+        PartialDetectionResult result = first;
+        double coverage = first.getCoverage();
+        while (!result.isComplete()) {
+            result = detector.runFor(1, new CancellationSignal());
+            assertTrue(result.getCoverage() >= coverage);
+            coverage = result.getCoverage();
+        }
+
+        // Then:
+        assertFalse(first.isComplete());
+        assertTrue(first.getCoverage() < 1);
+        assertThat(result.getClusters(), containsInAnyOrder(expected.toArray()));
+    }
+
+    @Test
+    public void runFor_givenEqualContents_shouldFindThemFirst() {
+        // Given:
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            articles.add(generateArticle(i, "distinct content number " + i * 7919));
+        }
+        Article duplicate1 = generateArticle(100, "duplicate content");
+        Article duplicate2 = generateArticle(101, "duplicate content");
+        articles.add(duplicate1);
+        articles.add(duplicate2);
+        long[] time = {0};
+        AnytimeSimilarityDetector detector = new AnytimeSimilarityDetector(articles, 1,
+                () -> time[0]++);
+
+        // When:
+        PartialDetectionResult result = detector.runFor(1, new CancellationSignal());
+
+        // Then:
+        assertFalse(result.isComplete());
+        assertEquals(Collections.singletonList(new HashSet<>(Arrays.asList(duplicate1,
+                duplicate2))), result.getClusters());
+    }
+
+    @Test(expected = DetectionAbortedException.class)
+    public void runFor_givenCancelledSignal_shouldThrowException() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+
+        // When:
+        new AnytimeSimilarityDetector(articles, 0.85).runFor(Long.MAX_VALUE, signal);
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+
+        return article;
+    }
+}
@@ -0,0 +1,87 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.*;
+
+public class ArticleClustersTest {
+    private ArticleClusters clusters;
+
+    @Before
+    public void setUp() {
+        clusters = new ArticleClusters();
+    }
+
+    @Test
+    public void getClusters_givenSingleArticles_shouldReturnEmptyList() {
+        // Given:
+        clusters.add(new Article(1));
+        clusters.add(new Article(2));
+
+        // When:
+        List<Set<Article>> result = clusters.getClusters();
+
+        // Then:
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void union_givenArticleBridgesTwoClusters_shouldMergeClusters() {
+        // Given:
+        Article article1 = new Article(1);
+        Article article2 = new Article(2);
+        Article article3 = new Article(3);
+        Article article4 = new Article(4);
+        Article article5 = new Article(5);
+        clusters.union(article1, article2);
+        clusters.union(article3, article4);
+
+        // When:
+        boolean merged = clusters.union(article2, article3);
+
+        // Then:
+        assertTrue(merged);
+        List<Set<Article>> result = clusters.getClusters();
+        assertEquals(1, result.size());
+        assertThat(result.get(0), containsInAnyOrder(article1, article2, article3, article4));
+        assertFalse(clusters.isSameCluster(article1, article5));
+    }
+
+    @Test
+    public void union_givenArticlesInSameCluster_shouldReturnFalse() {
+        // Given:
+        Article article1 = new Article(1);
+        Article article2 = new Article(2);
+        Article article3 = new Article(3);
+        clusters.union(article1, article2);
+        clusters.union(article2, article3);
+
+        // When:
+        boolean merged = clusters.union(article1, article3);
+
+        // Then:
+        assertFalse(merged);
+        assertTrue(clusters.isSameCluster(article1, article3));
+        assertEquals(3, clusters.size());
+    }
+
+    @Test
+    public void getClusterSize_givenMergedClusters_shouldReturnSizeOfMergedCluster() {
+        // Given:
+        Article article1 = new Article(1);
+        Article article2 = new Article(2);
+        Article article3 = new Article(3);
+        clusters.union(article1, article2);
+        clusters.union(article2, article3);
+
+        // Then:
+        assertEquals(3, clusters.getClusterSize(article1));
+        assertEquals(0, clusters.getClusterSize(new Article(4)));
+    }
+}
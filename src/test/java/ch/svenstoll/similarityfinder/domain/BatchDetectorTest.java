@@ -0,0 +1,119 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import ch.svenstoll.similarityfinder.dao.DatabaseAccess;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BatchDetectorTest {
+    private DatabaseAccess databaseAccess;
+    private BatchDetector batchDetector;
+    private List<Article> articles;
+
+    @Before
+    public void setup() {
+        databaseAccess = mock(DatabaseAccess.class);
+        batchDetector = new BatchDetector(databaseAccess, new PriorityScheduler());
+
+        Random random = new Random(5);
+        String[] words = {"the", "council", "decided", "budget", "school", "new", "road",
+                "vote", "city", "plan"};
+        articles = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = 3 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString(), i % 3 == 0 ? "A" : "B"));
+        }
+        given(databaseAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willReturn(articles);
+    }
+
+    @Test
+    public void detect_givenConfigs_shouldFindSameClustersAsSeparateDetections() {
+        // Given:
+        FilterConfig first = generateConfig("first", Collections.singletonList("A"), 0.8);
+        FilterConfig second = generateConfig("second", Collections.singletonList("B"), 0.6);
+        FilterConfig third = generateConfig("third", Collections.emptyList(), 0);
+
+        // When:
+        BatchReport report = batchDetector.detect(Arrays.asList(first, second, third),
+                new CancellationSignal());
+
+        // Then:
+        assertEquals(3, report.getResults().size());
+        assertEquals(articles.size(), report.getArticleCount());
+        for (BatchResult result : report.getResults()) {
+            FilterCriteria criteria = FilterCriteria.of(result.getConfig());
+            List<Article> selectedArticles = articles.stream()
+                    .filter(criteria::matches)
+                    .collect(Collectors.toList());
+            assertEquals(selectedArticles.size(), result.getArticleCount());
+            assertThat(result.getClusters(), containsInAnyOrder(new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(selectedArticles,
+                            result.getConfig().getSimilarityThreshold()).toArray()));
+        }
+    }
+
+    @Test
+    public void detect_givenConfigs_shouldQueryArticlesOfAllConfigsOnce() {
+        // Given:
+        FilterConfig first = generateConfig("first", Collections.singletonList("A"), 0.8);
+        FilterConfig second = generateConfig("second", Collections.singletonList("B"), 0.6);
+
+        // When:
+        batchDetector.detect(Arrays.asList(first, second), new CancellationSignal());
+
+        // Then:
+        verify(databaseAccess, times(1)).queryArticlesByCriteria(
+                any(FilterCriteria.class), any(CancellationSignal.class));
+        verify(databaseAccess).queryArticlesByCriteria(
+                eq(new FilterCriteria(Arrays.asList("A", "B"), null, null, "", 0, false)),
+                any(CancellationSignal.class));
+    }
+
+    @Test(expected = DetectionAbortedException.class)
+    public void detect_givenCancelledSignal_shouldThrowException() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+
+        // When:
+        batchDetector.detect(Collections.singletonList(
+                generateConfig("config", Collections.emptyList(), 0.8)), signal);
+    }
+
+    private FilterConfig generateConfig(String name, List<String> media, double threshold) {
+        FilterConfig config = new FilterConfig(name, LocalDateTime.now(), null);
+        config.setSelectedMedia(media);
+        config.setSimilarityThreshold(threshold);
+
+        return config;
+    }
+
+    private Article generateArticle(int id, String content, String medium) {
+        Article article = new Article(id);
+        article.setContent(content);
+        article.setTitle("title " + id);
+        article.setMedium(new Medium(medium));
+        article.setPublicationDate(LocalDate.of(2017, 3, 1));
+
+        return article;
+    }
+}
@@ -0,0 +1,80 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class CancellationSignalTest {
+    @Test
+    public void cancel_givenRegisteredCallback_shouldRunCallbackOnce() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        Runnable callback = mock(Runnable.class);
+        signal.onCancel(callback);
+
+        // When:
+        signal.cancel();
+        signal.cancel();
+
+        // Then:
+        assertTrue(signal.isCancelled());
+        verify(callback, times(1)).run();
+    }
+
+    @Test
+    public void cancel_givenRemovedCallback_shouldNotRunCallback() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        Runnable callback = mock(Runnable.class);
+        signal.onCancel(callback);
+        signal.removeOnCancel(callback);
+
+        // When:
+        signal.cancel();
+
+        // Then:
+        verify(callback, never()).run();
+    }
+
+    @Test
+    public void onCancel_givenSignalAlreadyCancelled_shouldRunCallbackImmediately() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+        Runnable callback = mock(Runnable.class);
+
+        // When:
+        signal.onCancel(callback);
+
+        // Then:
+        verify(callback, times(1)).run();
+    }
+
+    @Test
+    public void cancel_givenFailingCallback_shouldStillRunOtherCallbacks() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        Runnable failing = mock(Runnable.class);
+        doThrow(new IllegalStateException()).when(failing).run();
+        Runnable callback = mock(Runnable.class);
+        signal.onCancel(failing);
+        signal.onCancel(callback);
+
+        // When:
+        signal.cancel();
+
+        // Then:
+        verify(callback, times(1)).run();
+    }
+
+    @Test
+    public void isCancelled_givenNewSignal_shouldReturnFalse() {
+        // When:
+        CancellationSignal signal = new CancellationSignal();
+
+        // Then:
+        assertFalse(signal.isCancelled());
+    }
+}
@@ -0,0 +1,183 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import ch.svenstoll.similarityfinder.dao.DetectionCheckpointAccess;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.*;
+
+public class CheckpointingDetectorTest {
+    private InMemoryCheckpointAccess checkpointAccess;
+    private List<Article> articles;
+
+    @Before
+    public void setup() {
+        checkpointAccess = new InMemoryCheckpointAccess();
+
+        Random random = new Random(7);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        articles = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        articles.add(generateArticle(60, null));
+    }
+
+    @Test
+    public void detect_givenArticles_shouldReturnSameSetsAsSimilarityDetector() {
+        for (double threshold : new double[]{0, 0.5, 0.85, 1}) {
+            // Given:
+            CheckpointingDetector detector = new CheckpointingDetector(checkpointAccess, 7, 0,
+                    () -> 0);
+
+            // When:
+            List<Set<Article>> actual = detector.detect(articles, threshold,
+                    new CancellationSignal());
+
+            // Then:
+            List<Set<Article>> expected = new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(articles, threshold);
+            assertThat(actual, containsInAnyOrder(expected.toArray()));
+            assertTrue(checkpointAccess.saved > 0);
+            assertNull(checkpointAccess.checkpoint);
+        }
+    }
+
+    @Test
+    public void resume_givenCancelledDetection_shouldContinueFromCheckpoint() {
+        for (double threshold : new double[]{0, 0.5, 0.85}) {
+            // Given:
+            CancellationSignal signal = new CancellationSignal();
+            checkpointAccess.cancelAfterSaves(3, signal);
+            CheckpointingDetector detector = new CheckpointingDetector(checkpointAccess, 7, 0,
+                    () -> 0);
+            try {
+                detector.detect(articles, threshold, signal);
+                fail("The detection should have been cancelled.");
+            } catch (DetectionAbortedException e) {
+                // The detection has been cancelled as expected.
+            }
+            assertEquals(21, checkpointAccess.checkpoint.getCompletedArticles());
+            checkpointAccess.cancelAfterSaves(-1, null);
+
+            // When:
+            List<Set<Article>> actual = new CheckpointingDetector(checkpointAccess, 7, 0, () -> 0)
+                    .resume(copyArticles(articles), new CancellationSignal());
+
+            // Then:
+            List<Set<Article>> expected = new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(articles, threshold);
+            assertEquals(toIds(expected), toIds(actual));
+        }
+    }
+
+    @Test(expected = CheckpointMismatchException.class)
+    public void resume_givenChangedArticle_shouldThrowException() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        checkpointAccess.cancelAfterSaves(1, signal);
+        try {
+            new CheckpointingDetector(checkpointAccess, 7, 0, () -> 0)
+                    .detect(articles, 0.5, signal);
+        } catch (DetectionAbortedException e) {
+            // The detection has been cancelled as expected.
+        }
+        List<Article> changedArticles = copyArticles(articles);
+        changedArticles.stream().filter(article -> article.getId() == 3).findFirst()
+                .ifPresent(article -> article.setContent("changed content"));
+
+        // When:
+        new CheckpointingDetector(checkpointAccess, 7, 0, () -> 0)
+                .resume(changedArticles, new CancellationSignal());
+    }
+
+    @Test(expected = CheckpointMismatchException.class)
+    public void resume_givenNoCheckpoint_shouldThrowException() {
+        // When:
+        new CheckpointingDetector(checkpointAccess, 7, 0, () -> 0)
+                .resume(articles, new CancellationSignal());
+    }
+
+    @Test
+    public void detect_givenSlowCheckpoints_shouldDelayNextCheckpoint() {
+        // Given:
+        // Every call of the time source advances the time by 1 ms, so storing a checkpoint
+        // takes 1 ms and the next checkpoint must not be stored within the next 50 ms.
+        long[] time = {0};
+        CheckpointingDetector detector = new CheckpointingDetector(checkpointAccess, 1, 0,
+                () -> time[0] += 1_000_000);
+
+        // When:
+        detector.detect(articles, 0.5, new CancellationSignal());
+
+        // Then:
+        assertTrue(checkpointAccess.saved > 0);
+        assertTrue(checkpointAccess.saved <= 60 / 25);
+    }
+
+    private List<Article> copyArticles(List<Article> articles) {
+        List<Article> copies = new ArrayList<>();
+        for (Article article : articles) {
+            copies.add(generateArticle(article.getId(), article.getContent()));
+        }
+        Collections.reverse(copies);
+        return copies;
+    }
+
+    private Set<Set<Integer>> toIds(List<Set<Article>> clusters) {
+        Set<Set<Integer>> ids = new HashSet<>();
+        for (Set<Article> cluster : clusters) {
+            Set<Integer> clusterIds = new HashSet<>();
+            cluster.forEach(article -> clusterIds.add(article.getId()));
+            ids.add(clusterIds);
+        }
+        return ids;
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+
+        return article;
+    }
+
+    private static final class InMemoryCheckpointAccess implements DetectionCheckpointAccess {
+        private DetectionCheckpoint checkpoint;
+        private int saved = 0;
+        private int cancelAfterSaves = -1;
+        private CancellationSignal signal;
+
+        void cancelAfterSaves(int saves, CancellationSignal signal) {
+            this.cancelAfterSaves = saves;
+            this.signal = signal;
+            this.saved = 0;
+        }
+
+        @Override
+        public DetectionCheckpoint retrieveCheckpoint() {
+            return checkpoint;
+        }
+
+        @Override
+        public void saveCheckpoint(DetectionCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+            saved++;
+            if (saved == cancelAfterSaves) {
+                signal.cancel();
+            }
+        }
+
+        @Override
+        public void deleteCheckpoint() {
+            checkpoint = null;
+        }
+    }
+}
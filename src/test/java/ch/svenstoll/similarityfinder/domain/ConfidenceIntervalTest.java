@@ -0,0 +1,56 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConfidenceIntervalTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_givenEstimateOutOfBounds_shouldThrowException() {
+        // When:
+        new ConfidenceInterval(2, 0, 1);
+    }
+
+    @Test
+    public void ofProportion_givenNoSuccesses_shouldReturnWilsonInterval() {
+        // When:
+        ConfidenceInterval interval = ConfidenceInterval.ofProportion(0, 10, 1.96);
+
+        // Then:
+        assertEquals(0, interval.getEstimate(), 0);
+        assertEquals(0, interval.getLower(), 1e-9);
+        assertEquals(1.96 * 1.96 / (10 + 1.96 * 1.96), interval.getUpper(), 1e-9);
+    }
+
+    @Test
+    public void ofProportion_givenHalfSuccesses_shouldReturnSymmetricInterval() {
+        // When:
+        ConfidenceInterval interval = ConfidenceInterval.ofProportion(50, 100, 1.96);
+
+        // Then:
+        assertEquals(0.5, interval.getEstimate(), 0);
+        assertEquals(0.5 - interval.getLower(), interval.getUpper() - 0.5, 1e-9);
+        assertEquals(0.404, interval.getLower(), 0.001);
+    }
+
+    @Test
+    public void ofProportion_givenEmptySample_shouldReturnWholeRange() {
+        // When:
+        ConfidenceInterval interval = ConfidenceInterval.ofProportion(0, 0, 1.96);
+
+        // Then:
+        assertEquals(0, interval.getLower(), 0);
+        assertEquals(1, interval.getUpper(), 0);
+    }
+
+    @Test
+    public void scale_givenFactor_shouldScaleEstimateAndBounds() {
+        // When:
+        ConfidenceInterval interval = new ConfidenceInterval(0.5, 0.25, 0.75).scale(4);
+
+        // Then:
+        assertEquals(2, interval.getEstimate(), 0);
+        assertEquals(1, interval.getLower(), 0);
+        assertEquals(3, interval.getUpper(), 0);
+    }
+}
@@ -0,0 +1,160 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.*;
+
+public class DetectionPublisherTest {
+    private List<Article> articles;
+
+    @Before
+    public void setUp() {
+        articles = new ArrayList<>();
+        String[] contents = {"the council decided the budget", "the council decided a budget",
+                "a new road for the city", "a new road for this city", "the school vote",
+                "the council decided the budget", null, "an unrelated story"};
+        for (int i = 0; i < contents.length; i++) {
+            Article article = new Article(i);
+            article.setContent(contents[i]);
+            articles.add(article);
+        }
+    }
+
+    @Test
+    public void subscribe_givenUnboundedDemand_shouldPublishEdgesOfDetectedClusters()
+            throws InterruptedException {
+        // Given:
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        DetectionPublisher publisher = new DetectionPublisher(this::streamInTwoBatches, 0.7);
+
+        // When:
+        publisher.subscribe(subscriber);
+
+        // Then:
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        ArticleClusters clusters = new ArticleClusters();
+        for (DetectionEvent event : subscriber.events) {
+            clusters.union(event.getEdge().getArticle1(), event.getEdge().getArticle2());
+        }
+        List<Set<Article>> expected
+                = new SimilarityDetector().detectArticlesWithSimilarContents(articles, 0.7);
+        assertThat(clusters.getClusters(), containsInAnyOrder(expected.toArray()));
+    }
+
+    @Test
+    public void subscribe_givenDemandOfOne_shouldPublishOnlyOneEvent()
+            throws InterruptedException {
+        // Given:
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        DetectionPublisher publisher = new DetectionPublisher(this::streamInTwoBatches, 0.7);
+
+        // When:
+        publisher.subscribe(subscriber);
+
+        // Then:
+        assertTrue(subscriber.firstEvent.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, subscriber.events.size());
+        assertTrue(subscriber.events.get(0).isMerge());
+        assertEquals(2, subscriber.events.get(0).getClusterSize());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    public void cancel_givenPausedDetection_shouldNotComplete() throws InterruptedException {
+        // Given:
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        new DetectionPublisher(this::streamInTwoBatches, 0.7).subscribe(subscriber);
+        assertTrue(subscriber.firstEvent.await(10, TimeUnit.SECONDS));
+
+        // When:
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // Then:
+        assertFalse(subscriber.done.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, subscriber.events.size());
+    }
+
+    @Test
+    public void request_givenNonPositiveNumber_shouldSignalError() throws InterruptedException {
+        // Given:
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        new DetectionPublisher(this::streamInTwoBatches, 0.7).subscribe(subscriber);
+
+        // When:
+        subscriber.subscription.request(0);
+
+        // Then:
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertThat(subscriber.error, instanceOf(IllegalArgumentException.class));
+        assertTrue(subscriber.events.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_givenThresholdOutOfBounds_shouldThrowException() {
+        // When:
+        new DetectionPublisher(this::streamInTwoBatches, 1.1);
+    }
+
+    private void streamInTwoBatches(Consumer<List<Article>> consumer) {
+        consumer.accept(articles.subList(0, 4));
+        consumer.accept(articles.subList(4, articles.size()));
+    }
+
+    private static final class RecordingSubscriber implements DetectionSubscriber {
+        private final long initialDemand;
+        private final List<DetectionEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstEvent = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile DetectionSubscription subscription;
+        private volatile boolean completed = false;
+        private volatile Throwable error = null;
+
+        RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(DetectionSubscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(DetectionEvent event) {
+            events.add(event);
+            firstEvent.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
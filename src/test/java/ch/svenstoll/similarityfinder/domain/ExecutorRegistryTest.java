@@ -0,0 +1,141 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ExecutorRegistryTest {
+    private ExecutorRegistry registry;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        registry = new ExecutorRegistry();
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        registry.shutdown();
+    }
+
+    @Test
+    public void getExecutor_givenSamePool_shouldReturnSameExecutor() {
+        // When:
+        ExecutorService executor1 = registry.getExecutor(ExecutorPool.SEARCH);
+        ExecutorService executor2 = registry.getExecutor(ExecutorPool.SEARCH);
+
+        // Then:
+        assertSame(executor1, executor2);
+        assertNotSame(executor1, registry.getExecutor(ExecutorPool.LOADING));
+    }
+
+    @Test
+    public void getQueueDepth_givenBusyPool_shouldCountQueuedTasks() throws InterruptedException {
+        // Given:
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = registry.getExecutor(ExecutorPool.LOADING);
+
+        // When:
+        executor.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        // Then:
+        assertEquals(1, registry.getActiveThreadCount(ExecutorPool.LOADING));
+        assertEquals(2, registry.getQueueDepth(ExecutorPool.LOADING));
+        assertEquals(0, registry.getQueueDepth(ExecutorPool.SEARCH));
+    }
+
+    @Test
+    public void execute_givenFullQueueOfDiscardingPool_shouldDiscardOldestTask()
+            throws InterruptedException {
+        // Given:
+        ExecutorPool pool = ExecutorPool.LOADING;
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = registry.getExecutor(pool);
+        executor.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < pool.getQueueCapacity(); i++) {
+            executor.execute(this::awaitRelease);
+        }
+
+        // When:
+        executor.execute(this::awaitRelease);
+
+        // Then:
+        assertEquals(1, registry.getRejectedTaskCount(pool));
+        assertEquals(pool.getQueueCapacity(), registry.getQueueDepth(pool));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void execute_givenFullQueueOfAbortingPool_shouldThrowException()
+            throws InterruptedException {
+        // Given:
+        ExecutorPool pool = ExecutorPool.SEARCH;
+        CountDownLatch started = new CountDownLatch(pool.getMaxThreads());
+        ExecutorService executor = registry.getExecutor(pool);
+        for (int i = 0; i < pool.getMaxThreads(); i++) {
+            executor.execute(() -> {
+                started.countDown();
+                awaitRelease();
+            });
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < pool.getQueueCapacity(); i++) {
+            executor.execute(this::awaitRelease);
+        }
+
+        // When:
+        executor.execute(this::awaitRelease);
+    }
+
+    @Test
+    public void shutdown_givenRunningTask_shouldInterruptItAndRejectNewTasks()
+            throws InterruptedException {
+        // Given:
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = registry.getExecutor(ExecutorPool.SEARCH);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // When:
+        registry.shutdown();
+
+        // Then:
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(executor.isShutdown());
+        assertTrue(registry.getExecutor(ExecutorPool.LOADING).isShutdown());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
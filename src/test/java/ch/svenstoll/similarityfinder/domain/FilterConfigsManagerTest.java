@@ -27,7 +27,8 @@ public class FilterConfigsManagerTest {
     public void setUp() {
         configsAccess = mock(FilterConfigsAccess.class);
         filter = mock(Filter.class);
-        configsManager = new FilterConfigsManager(configsAccess, filter);
+        configsManager = new FilterConfigsManager(configsAccess, filter,
+                new ExecutorRegistry());
 
         verify(configsAccess, timeout(500).times(1)).retrieveFilterConfigsFromFile();
     }
@@ -38,7 +39,8 @@ public class FilterConfigsManagerTest {
         willThrow(new FilterConfigsAccessException()).given(configsAccess).retrieveFilterConfigsFromFile();
 
         // When:
-        FilterConfigsManager configsManager = new FilterConfigsManager(configsAccess, filter);
+        FilterConfigsManager configsManager = new FilterConfigsManager(configsAccess, filter,
+                new ExecutorRegistry());
 
         // Then:
         verify(configsAccess, timeout(50).times(2)).retrieveFilterConfigsFromFile();
@@ -55,7 +57,8 @@ public class FilterConfigsManagerTest {
         when(configsAccess.retrieveFilterConfigsFromFile()).thenReturn(expected);
 
         // When:
-        FilterConfigsManager configsManager = new FilterConfigsManager(configsAccess, filter);
+        FilterConfigsManager configsManager = new FilterConfigsManager(configsAccess, filter,
+                new ExecutorRegistry());
 
         // Then:
         verify(configsAccess, timeout(500).times(2)).retrieveFilterConfigsFromFile();
@@ -0,0 +1,206 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class FilterCriteriaTest {
+    private static final LocalDate DATE = LocalDate.of(2017, 6, 15);
+
+    @Test
+    public void of_givenFilter_shouldCopyFilterProperties() {
+        // Given:
+        Filter filter = mock(Filter.class);
+        given(filter.getNamesOfSelectedMedia()).willReturn(Collections.singletonList("medium"));
+        given(filter.getFromDate()).willReturn(DATE);
+        given(filter.getTitle()).willReturn("title");
+        given(filter.getMinLetters()).willReturn(10);
+        given(filter.isRelevantOnly()).willReturn(true);
+
+        // When:
+        FilterCriteria criteria = FilterCriteria.of(filter);
+
+        // Then:
+        assertEquals(new FilterCriteria(Collections.singletonList("medium"), DATE, null,
+                "title", 10, true), criteria);
+    }
+
+    @Test
+    public void matches_givenNoRestrictions_shouldMatchArticleWithTitleAndContent() {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Collections.emptyList(), null, null, "", 0, false);
+
+        // Then:
+        assertTrue(criteria.matches(null, null, "title", 0, false));
+        assertFalse(criteria.matches(null, null, null, 0, false));
+        assertFalse(criteria.matches(null, null, "title", -1, false));
+    }
+
+    @Test
+    public void matches_givenMedia_shouldOnlyMatchArticlesOfSelectedMedia() {
+        // Given:
+        FilterCriteria criteria
+                = new FilterCriteria(Collections.singletonList("medium"), null, null, "", 0, false);
+
+        // Then:
+        assertTrue(criteria.matches("medium", null, "title", 0, false));
+        assertFalse(criteria.matches("other", null, "title", 0, false));
+        assertFalse(criteria.matches(null, null, "title", 0, false));
+    }
+
+    @Test
+    public void matches_givenDateRange_shouldMatchDatesWithinRangeAndMissingDates() {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Collections.emptyList(), DATE, DATE.plusDays(1), "",
+                0, false);
+
+        // Then:
+        assertTrue(criteria.matches(null, DATE, "title", 0, false));
+        assertTrue(criteria.matches(null, DATE.plusDays(1), "title", 0, false));
+        assertTrue(criteria.matches(null, null, "title", 0, false));
+        assertFalse(criteria.matches(null, DATE.minusDays(1), "title", 0, false));
+        assertFalse(criteria.matches(null, DATE.plusDays(2), "title", 0, false));
+    }
+
+    @Test
+    public void matches_givenTitle_shouldMatchTitlesContainingTextIgnoringCase() {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Collections.emptyList(), null, null, "Some_T", 0,
+                false);
+
+        // Then:
+        assertTrue(criteria.matches(null, null, "This is some title", 0, false));
+        assertTrue(criteria.matches(null, null, "SOMEXT", 0, false));
+        assertFalse(criteria.matches(null, null, "some", 0, false));
+    }
+
+    @Test
+    public void matches_givenTitleWithPercentWildcard_shouldMatchAnySequence() {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Collections.emptyList(), null, null, "a%c", 0, false);
+
+        // Then:
+        assertTrue(criteria.matches(null, null, "xxabbbcxx", 0, false));
+        assertFalse(criteria.matches(null, null, "cba", 0, false));
+    }
+
+    @Test
+    public void matches_givenMinLettersAndRelevantOnly_shouldRestrictArticles() {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Collections.emptyList(), null, null, "", 5, true);
+
+        // Then:
+        assertTrue(criteria.matches(null, null, "title", 5, true));
+        assertFalse(criteria.matches(null, null, "title", 4, true));
+        assertFalse(criteria.matches(null, null, "title", 5, false));
+    }
+
+    @Test
+    public void isRestrictionOf_givenNarrowerCriteria_shouldReturnTrue() {
+        // Given:
+        FilterCriteria wide = new FilterCriteria(Arrays.asList("a", "b"), DATE.minusDays(10),
+                DATE.plusDays(10), "some", 5, false);
+        FilterCriteria narrow = new FilterCriteria(Collections.singletonList("a"), DATE,
+                DATE.plusDays(1), "Some Title", 10, true);
+
+        // Then:
+        assertTrue(narrow.isRestrictionOf(wide));
+        assertTrue(wide.isRestrictionOf(wide));
+        assertFalse(wide.isRestrictionOf(narrow));
+    }
+
+    @Test
+    public void isRestrictionOf_givenWiderCriterion_shouldReturnFalse() {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Collections.singletonList("a"), DATE, DATE,
+                "title", 5, true);
+
+        // Then:
+        assertFalse(new FilterCriteria(Collections.emptyList(), DATE, DATE, "title", 5, true)
+                .isRestrictionOf(criteria));
+        assertFalse(new FilterCriteria(Collections.singletonList("a"), null, DATE, "title", 5,
+                true).isRestrictionOf(criteria));
+        assertFalse(new FilterCriteria(Collections.singletonList("a"), DATE, DATE.plusDays(1),
+                "title", 5, true).isRestrictionOf(criteria));
+        assertFalse(new FilterCriteria(Collections.singletonList("a"), DATE, DATE, "tit", 5,
+                true).isRestrictionOf(criteria));
+        assertFalse(new FilterCriteria(Collections.singletonList("a"), DATE, DATE, "title", 4,
+                true).isRestrictionOf(criteria));
+        assertFalse(new FilterCriteria(Collections.singletonList("a"), DATE, DATE, "title", 5,
+                false).isRestrictionOf(criteria));
+    }
+
+    @Test
+    public void isRestrictionOf_givenTitleWithWildcards_shouldOnlyAcceptSameTitle() {
+        // Given:
+        FilterCriteria criteria = new FilterCriteria(Collections.emptyList(), null, null, "a_c",
+                0, false);
+
+        // Then:
+        assertTrue(new FilterCriteria(Collections.emptyList(), null, null, "A_C", 0, false)
+                .isRestrictionOf(criteria));
+        assertFalse(new FilterCriteria(Collections.emptyList(), null, null, "a_cd", 0, false)
+                .isRestrictionOf(criteria));
+    }
+
+    @Test
+    public void of_givenFilterConfig_shouldUseValuesOfConfig() {
+        // Given:
+        FilterConfig config = new FilterConfig("config", LocalDateTime.now(), null);
+        config.setSelectedMedia(Arrays.asList("medium 2", "medium 1"));
+        config.setFromDate(LocalDate.of(2017, 1, 1));
+        config.setTitle("budget");
+        config.setMinLetters(100);
+        config.setRelevantOnly(true);
+
+        // When:
+        FilterCriteria criteria = FilterCriteria.of(config);
+
+        // Then:
+        assertEquals(new FilterCriteria(Arrays.asList("medium 1", "medium 2"),
+                LocalDate.of(2017, 1, 1), null, "budget", 100, true), criteria);
+    }
+
+    @Test
+    public void covering_givenCriteria_shouldCoverEachOfThem() {
+        // Given:
+        FilterCriteria first = new FilterCriteria(Collections.singletonList("medium 1"),
+                DATE, DATE.plusDays(10), "budget", 100, true);
+        FilterCriteria second = new FilterCriteria(Collections.singletonList("medium 2"),
+                DATE.minusDays(5), DATE.plusDays(3), "school", 50, true);
+
+        // When:
+        FilterCriteria covering = FilterCriteria.covering(Arrays.asList(first, second));
+
+        // Then:
+        assertEquals(new FilterCriteria(Arrays.asList("medium 1", "medium 2"),
+                DATE.minusDays(5), DATE.plusDays(10), "", 50, true), covering);
+        assertTrue(first.isRestrictionOf(covering));
+        assertTrue(second.isRestrictionOf(covering));
+    }
+
+    @Test
+    public void covering_givenCriteriaWithoutRestriction_shouldNotRestrictArticles() {
+        // Given:
+        FilterCriteria first = new FilterCriteria(Collections.singletonList("medium"), DATE,
+                null, "budget", 0, true);
+        FilterCriteria second = new FilterCriteria(Collections.emptyList(), null, DATE,
+                "Budget", 0, false);
+
+        // When:
+        FilterCriteria covering = FilterCriteria.covering(Arrays.asList(first, second));
+
+        // Then:
+        assertEquals(new FilterCriteria(Collections.emptyList(), null, null, "budget", 0,
+                false), covering);
+    }
+}
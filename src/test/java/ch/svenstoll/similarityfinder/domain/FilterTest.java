@@ -2,6 +2,7 @@ package ch.svenstoll.similarityfinder.domain;
 
 import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
 import ch.svenstoll.similarityfinder.dao.DatabaseAccess;
+import ch.svenstoll.similarityfinder.dao.ResultCacheAccess;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import org.junit.Before;
@@ -10,6 +11,12 @@ import org.junit.Test;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -17,7 +24,12 @@ import static ch.svenstoll.similarityfinder.domain.Filter.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +39,9 @@ public class FilterTest {
     private FilteredSimilarities similarities;
     private SimilarityDetector detector;
     private Settings settings;
+    private ResultCache resultCache;
+    private ExecutorRegistry executorRegistry;
+    private PriorityScheduler scheduler;
 
     @Before
     public void setup() {
@@ -34,7 +49,15 @@ public class FilterTest {
         similarities = mock(FilteredSimilarities.class);
         detector = mock(SimilarityDetector.class);
         settings = mock(Settings.class);
-        filter = new Filter(dataAccess, similarities, detector, settings);
+        resultCache = new ResultCache(mock(ResultCacheAccess.class), settings);
+        given(dataAccess.queryDataVersion()).willReturn("");
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class)))
+                .willAnswer(invocation -> new IncrementalSimilarityDetector(1));
+        executorRegistry = new ExecutorRegistry();
+        scheduler = new PriorityScheduler();
+        filter = new Filter(dataAccess, similarities, detector, settings, resultCache,
+                scheduler, executorRegistry);
 
         verify(dataAccess, timeout(50).times(1)).queryAllMedia();
     }
@@ -45,7 +68,8 @@ public class FilterTest {
         willThrow(new DatabaseAccessException()).given(dataAccess).queryAllMedia();
 
         // When:
-        Filter filter = new Filter(dataAccess, similarities, detector, settings);
+        Filter filter = new Filter(dataAccess, similarities, detector, settings, resultCache,
+                new PriorityScheduler(), new ExecutorRegistry());
 
         // Then:
         // Due to the @Before annotation, the queryAllMedia method has already been called once.
@@ -62,7 +86,8 @@ public class FilterTest {
         given(dataAccess.queryAllMedia()).willReturn(expected);
 
         // When:
-        filter = new Filter(dataAccess, similarities, detector, settings);
+        filter = new Filter(dataAccess, similarities, detector, settings, resultCache,
+                new PriorityScheduler(), new ExecutorRegistry());
 
         // Then:
         // Due to the @Before annotation the queryAllMedia method has already been called once.
@@ -76,8 +101,10 @@ public class FilterTest {
     public void
     findArticlesWithSimilarContent_givenDatabaseAccessExceptionOccurs_shouldThrowException() {
         // Given:
+        givenDetectorConsumesStream();
         willThrow(new DatabaseAccessException())
-                .given(dataAccess).queryArticles(any(Filter.class));
+                .given(dataAccess).streamArticlesByCriteria(any(FilterCriteria.class),
+                        any(CancellationSignal.class), any(PipelineMetrics.class), any());
 
         // When:
         filter.findArticlesWithSimilarContent();
@@ -88,7 +115,8 @@ public class FilterTest {
     findArticlesWithSimilarContent_givenDetectionAbortedExceptionOccurs_shouldThrowException() {
         // Given:
         willThrow(new DetectionAbortedException())
-                .given(detector).detectArticlesWithSimilarContents(anyList(), anyDouble());
+                .given(detector).detectIncrementally(any(ArticleStream.class),
+                        anyDouble(), any(), any(CancellationSignal.class));
 
         // When:
         filter.findArticlesWithSimilarContent();
@@ -105,6 +133,124 @@ public class FilterTest {
         verify(similarities, times(1)).setSimilarities(result);
     }
 
+    @Test(timeout = 10_000)
+    public void
+    findArticlesWithSimilarContent_givenOlderSearchCompletesLast_shouldOnlyPublishLatestSearch()
+            throws Exception {
+        // Given:
+        CountDownLatch olderSearchDetecting = new CountDownLatch(1);
+        CountDownLatch latestSearchDone = new CountDownLatch(1);
+        given(detector.detectIncrementally(any(ArticleStream.class), eq(0.9),
+                any(), any(CancellationSignal.class))).willAnswer(invocation -> {
+            olderSearchDetecting.countDown();
+            assertTrue(latestSearchDone.await(5, TimeUnit.SECONDS));
+            return new IncrementalSimilarityDetector(1);
+        });
+        filter.setSimilarityThreshold(0.9);
+        CompletableFuture<List<Set<Article>>> olderSearch
+                = CompletableFuture.supplyAsync(filter::findArticlesWithSimilarContent);
+        assertTrue(olderSearchDetecting.await(5, TimeUnit.SECONDS));
+        filter.setSimilarityThreshold(0.8);
+
+        // When:
+        filter.findArticlesWithSimilarContent();
+        PipelineMetrics latestMetrics = filter.getPipelineMetrics();
+        latestSearchDone.countDown();
+        olderSearch.get();
+
+        // Then:
+        verify(similarities, times(1)).setSimilarities(any());
+        assertSame(latestMetrics, filter.getPipelineMetrics());
+    }
+
+    @Test(timeout = 10_000)
+    public void
+    findArticlesWithSimilarContent_givenOlderSearchReportsProgress_shouldKeepLatestProgress()
+            throws Exception {
+        // Given:
+        List<DetectionProgressListener> listeners = new CopyOnWriteArrayList<>();
+        willAnswer(invocation -> listeners.add(invocation.getArgument(0)))
+                .given(detector).addProgressListener(any());
+        CountDownLatch olderSearchDetecting = new CountDownLatch(1);
+        CountDownLatch latestSearchDetecting = new CountDownLatch(1);
+        CountDownLatch latestSearchMayComplete = new CountDownLatch(1);
+        given(detector.detectIncrementally(any(ArticleStream.class), eq(0.9),
+                any(), any(CancellationSignal.class))).willAnswer(invocation -> {
+            olderSearchDetecting.countDown();
+            assertTrue(latestSearchDetecting.await(5, TimeUnit.SECONDS));
+            CancellationSignal signal = invocation.getArgument(3);
+            listeners.forEach(listener -> listener.onDetectionProgress(
+                    new DetectionProgressEvent(detector, 1, signal)));
+            return new IncrementalSimilarityDetector(1);
+        });
+        given(detector.detectIncrementally(any(ArticleStream.class), eq(0.8),
+                any(), any(CancellationSignal.class))).willAnswer(invocation -> {
+            latestSearchDetecting.countDown();
+            assertTrue(latestSearchMayComplete.await(5, TimeUnit.SECONDS));
+            return new IncrementalSimilarityDetector(1);
+        });
+        filter.setSimilarityThreshold(0.9);
+        CompletableFuture<List<Set<Article>>> olderSearch
+                = CompletableFuture.supplyAsync(filter::findArticlesWithSimilarContent);
+        assertTrue(olderSearchDetecting.await(5, TimeUnit.SECONDS));
+        filter.setSimilarityThreshold(0.8);
+
+        // When:
+        CompletableFuture<List<Set<Article>>> latestSearch
+                = CompletableFuture.supplyAsync(filter::findArticlesWithSimilarContent);
+        olderSearch.get();
+
+        // Then:
+        assertEquals(INDETERMINATE_PROGRESS, filter.progressProperty().get(), 0);
+        latestSearchMayComplete.countDown();
+        latestSearch.get();
+        assertEquals(MAX_PROGRESS, filter.progressProperty().get(), 0);
+    }
+
+    @Test(expected = MaxArticlesException.class)
+    public void findArticlesWithSimilarContent_givenTooManyArticles_shouldThrowException() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(2);
+        givenDetectorConsumesStream();
+        willAnswer(invocation -> {
+            Consumer<List<Article>> consumer = invocation.getArgument(3);
+            consumer.accept(Arrays.asList(new Article(1), new Article(2), new Article(3)));
+            return null;
+        }).given(dataAccess).streamArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class), any(PipelineMetrics.class), any());
+
+        // When:
+        filter.findArticlesWithSimilarContent();
+    }
+
+    @Test
+    public void findArticlesWithSimilarContent_givenTooManyArticles_shouldStopQuery() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(2);
+        givenDetectorConsumesStream();
+        AtomicInteger acceptedBatches = new AtomicInteger();
+        willAnswer(invocation -> {
+            Consumer<List<Article>> consumer = invocation.getArgument(3);
+            for (int id = 1; id <= 5; id++) {
+                consumer.accept(Collections.singletonList(new Article(id)));
+                acceptedBatches.incrementAndGet();
+            }
+            return null;
+        }).given(dataAccess).streamArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class), any(PipelineMetrics.class), any());
+
+        // When:
+        try {
+            filter.findArticlesWithSimilarContent();
+            fail("The search should have been stopped.");
+        } catch (MaxArticlesException e) {
+            // Then:
+            assertEquals(3, e.getFoundArticles());
+        }
+        assertEquals(2, acceptedBatches.get());
+        verify(similarities, never()).setSimilarities(any());
+    }
+
     @Test
     public void reset_givenAllValuesAreChanged_shouldResetAllValuesToDefault() {
         // Given:
@@ -114,6 +260,8 @@ public class FilterTest {
         filter.setTitle("test");
         filter.setMinLetters(1000);
         filter.setRelevantOnly(true);
+        filter.setLiveThreshold(true);
+        filter.setTimeBudget(10);
 
         // When:
         filter.reset();
@@ -125,6 +273,8 @@ public class FilterTest {
         assertEquals(DEFAULT_TITLE, filter.getTitle());
         assertEquals(DEFAULT_MIN_LETTERS, filter.getMinLetters());
         assertEquals(DEFAULT_RELEVANT_ONLY, filter.isRelevantOnly());
+        assertEquals(DEFAULT_LIVE_THRESHOLD, filter.isLiveThreshold());
+        assertEquals(DEFAULT_TIME_BUDGET, filter.getTimeBudget());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -217,4 +367,387 @@ public class FilterTest {
         List<String> expected = Arrays.asList("medium 1", "medium 2");
         assertThat(actual, containsInAnyOrder(expected.toArray()));
     }
+
+    @Test
+    public void cancel_givenSearchIsRunning_shouldCancelSignalOfSearch() {
+        // Given:
+        List<CancellationSignal> signals = new ArrayList<>();
+        givenDetectorConsumesStream();
+        willAnswer(invocation -> {
+            signals.add(invocation.getArgument(1));
+            filter.cancel();
+            return null;
+        }).given(dataAccess).streamArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class), any(PipelineMetrics.class), any());
+
+        // When:
+        filter.findArticlesWithSimilarContent();
+
+        // Then:
+        assertEquals(1, signals.size());
+        assertTrue(signals.get(0).isCancelled());
+    }
+
+    @Test
+    public void findArticlesMatchingReference_givenBothSides_shouldJoinQueriedArticles() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        FilterCriteria queryCriteria = new FilterCriteria(Collections.emptyList(),
+                LocalDate.of(2017, 3, 1), null, "", 0, false);
+        FilterCriteria referenceCriteria = new FilterCriteria(Collections.emptyList(), null,
+                LocalDate.of(2017, 2, 28), "", 0, false);
+        List<Article> queryArticles = Collections.singletonList(new Article(1));
+        List<Article> referenceArticles = Arrays.asList(new Article(2), new Article(3));
+        given(dataAccess.queryArticlesByCriteria(eq(queryCriteria), any(CancellationSignal.class)))
+                .willReturn(queryArticles);
+        given(dataAccess.queryArticlesByCriteria(eq(referenceCriteria),
+                any(CancellationSignal.class))).willReturn(referenceArticles);
+        List<SimilarityEdge> expected = Collections.singletonList(
+                new SimilarityEdge(queryArticles.get(0), referenceArticles.get(0), 1));
+        given(detector.joinArticlesWithSimilarContents(eq(queryArticles), eq(referenceArticles),
+                anyDouble(), any(CancellationSignal.class))).willReturn(expected);
+
+        // When:
+        List<SimilarityEdge> actual = filter.findArticlesMatchingReference(queryCriteria,
+                referenceCriteria);
+
+        // Then:
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void findMostSimilarPairs_givenArticles_shouldReturnPairsOfDetector() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        List<Article> articles = Arrays.asList(new Article(1), new Article(2));
+        given(dataAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willReturn(articles);
+        List<SimilarityEdge> expected = Collections.singletonList(
+                new SimilarityEdge(articles.get(0), articles.get(1), 1));
+        given(detector.findMostSimilarPairs(eq(articles), eq(500),
+                any(CancellationSignal.class))).willReturn(expected);
+
+        // When:
+        List<SimilarityEdge> actual = filter.findMostSimilarPairs(500);
+
+        // Then:
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void findSimilarArticles_givenRepeatedQueries_shouldQueryArticlesOnce() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        Article article1 = new Article(1);
+        article1.setContent("the council decided on the new budget");
+        Article article2 = new Article(2);
+        article2.setContent("the council decided on the new budget");
+        Article article3 = new Article(3);
+        article3.setContent("a completely different story about a school");
+        given(dataAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class)))
+                .willReturn(Arrays.asList(article1, article2, article3));
+        filter.setSimilarityThreshold(0.9);
+
+        // When:
+        List<SimilarityEdge> similarToArticle1 = filter.findSimilarArticles(article1);
+        List<SimilarityEdge> similarToArticle3 = filter.findSimilarArticles(article3);
+
+        // Then:
+        assertEquals(1, similarToArticle1.size());
+        assertEquals(article2, similarToArticle1.get(0).getArticle2());
+        assertTrue(similarToArticle3.isEmpty());
+        verify(dataAccess, times(1)).queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class));
+    }
+
+    @Test(timeout = 10_000)
+    public void findSimilarArticles_givenCompletedSearch_shouldUsePrefetchedIndex()
+            throws InterruptedException {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        Article article1 = generateArticle(1, "the council decided on the new budget");
+        Article article2 = generateArticle(2, "the council decided on the new budget");
+        IncrementalSimilarityDetector detection = new IncrementalSimilarityDetector(0.9);
+        detection.addAll(Arrays.asList(article1, article2));
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class))).willReturn(detection);
+        filter.setSimilarityThreshold(0.9);
+        filter.findArticlesWithSimilarContent();
+        // The prefetch is queued on the prefetch pool, which runs one task at a time.
+        CountDownLatch prefetched = new CountDownLatch(1);
+        executorRegistry.getExecutor(ExecutorPool.PREFETCH).execute(prefetched::countDown);
+        prefetched.await();
+
+        // When:
+        List<SimilarityEdge> result = filter.findSimilarArticles(article1);
+
+        // Then:
+        assertEquals(1, result.size());
+        assertEquals(article2, result.get(0).getArticle2());
+        verify(dataAccess, never()).queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class));
+    }
+
+    @Test(timeout = 10_000)
+    public void findArticlesWithSimilarContent_givenPrefetchPaused_shouldNotDelayLoading()
+            throws Exception {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        IncrementalSimilarityDetector detection = new IncrementalSimilarityDetector(0.9);
+        detection.addAll(Arrays.asList(generateArticle(1, "the council decided on the budget"),
+                generateArticle(2, "the council decided on the budget")));
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class))).willReturn(detection);
+        filter.setSimilarityThreshold(0.9);
+        CountDownLatch interactiveWorkDone = new CountDownLatch(1);
+        CountDownLatch interactiveWorkRunning = new CountDownLatch(1);
+        CompletableFuture<Void> interactiveWork = CompletableFuture.runAsync(() ->
+                scheduler.run(WorkPriority.INTERACTIVE, () -> {
+                    interactiveWorkRunning.countDown();
+                    try {
+                        return interactiveWorkDone.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        assertTrue(interactiveWorkRunning.await(5, TimeUnit.SECONDS));
+        filter.findArticlesWithSimilarContent();
+        while (scheduler.getPauseCount() == 0) {
+            Thread.sleep(10);
+        }
+
+        // When:
+        CountDownLatch loaded = new CountDownLatch(1);
+        executorRegistry.getExecutor(ExecutorPool.LOADING).execute(loaded::countDown);
+
+        // Then:
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        interactiveWorkDone.countDown();
+        interactiveWork.get();
+    }
+
+    @Test(expected = MaxArticlesException.class)
+    public void findArticlesMatchingReference_givenTooManyArticles_shouldThrowException() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(2);
+        given(dataAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class)))
+                .willReturn(Arrays.asList(new Article(1), new Article(2)));
+
+        // When:
+        FilterCriteria criteria = new FilterCriteria(Collections.emptyList(), null, null, "", 0,
+                false);
+        filter.findArticlesMatchingReference(criteria, criteria);
+    }
+
+    @Test
+    public void findArticlesWithSimilarContent_givenRepeatedSearch_shouldReturnCachedResult() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        given(dataAccess.queryDataVersion()).willReturn("1:1:1");
+        IncrementalSimilarityDetector detection = new IncrementalSimilarityDetector(1);
+        detection.addAll(Arrays.asList(generateArticle(1, "content"),
+                generateArticle(2, "content")));
+        List<Set<Article>> expected = detection.getClusters();
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class))).willReturn(detection);
+        filter.findArticlesWithSimilarContent();
+
+        // When:
+        List<Set<Article>> actual = filter.findArticlesWithSimilarContent();
+
+        // Then:
+        assertEquals(expected, actual);
+        verify(detector, times(1)).detectIncrementally(any(ArticleStream.class),
+                anyDouble(), any(), any(CancellationSignal.class));
+        assertEquals(1, resultCache.getHits());
+        assertEquals(1, resultCache.getMisses());
+    }
+
+    @Test
+    public void findArticlesWithSimilarContent_givenChangedDataVersion_shouldSearchAgain() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        given(dataAccess.queryDataVersion()).willReturn("1:1:1").willReturn("2:2:2");
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class)))
+                .willReturn(new IncrementalSimilarityDetector(1));
+        filter.findArticlesWithSimilarContent();
+
+        // When:
+        filter.findArticlesWithSimilarContent();
+
+        // Then:
+        verify(detector, times(2)).detectIncrementally(any(ArticleStream.class),
+                anyDouble(), any(), any(CancellationSignal.class));
+    }
+
+    @Test
+    public void findArticlesWithSimilarContent_givenNarrowedFilter_shouldDeriveFromLastSearch() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        given(dataAccess.queryDataVersion()).willReturn("1:1:1");
+        Article article1 = generateArticle(1, "content");
+        Article article2 = generateArticle(2, "content");
+        Article article3 = generateArticle(3, "content");
+        article1.setTitle("Short");
+        article2.setTitle("Short");
+        article3.setTitle("Long");
+        IncrementalSimilarityDetector detection = new IncrementalSimilarityDetector(1);
+        detection.addAll(Arrays.asList(article1, article2, article3));
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class))).willReturn(detection);
+        given(detector.getLastDetection()).willReturn(detection);
+        filter.findArticlesWithSimilarContent();
+
+        // When:
+        filter.setTitle("sho");
+        List<Set<Article>> actual = filter.findArticlesWithSimilarContent();
+
+        // Then:
+        assertEquals(Collections.singletonList(new HashSet<>(Arrays.asList(article1, article2))),
+                actual);
+        verify(detector, times(1)).detectIncrementally(any(ArticleStream.class),
+                anyDouble(), any(), any(CancellationSignal.class));
+    }
+
+    @Test
+    public void findArticlesWithSimilarContent_givenWidenedFilter_shouldSearchAgain() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        given(dataAccess.queryDataVersion()).willReturn("1:1:1");
+        IncrementalSimilarityDetector detection = new IncrementalSimilarityDetector(1);
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class))).willReturn(detection);
+        given(detector.getLastDetection()).willReturn(detection);
+        filter.setMinLetters(10);
+        filter.findArticlesWithSimilarContent();
+
+        // When:
+        filter.setMinLetters(5);
+        filter.findArticlesWithSimilarContent();
+
+        // Then:
+        verify(detector, times(2)).detectIncrementally(any(ArticleStream.class),
+                anyDouble(), any(), any(CancellationSignal.class));
+    }
+
+    @Test
+    public void findArticlesWithSimilarContent_givenTimeBudget_shouldUseAnytimeDetection() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        List<Article> articles = Arrays.asList(generateArticle(1, "content"),
+                generateArticle(2, "content"), generateArticle(3, "other"));
+        given(dataAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willReturn(articles);
+        filter.setTimeBudget(60);
+
+        // When:
+        List<Set<Article>> actual = filter.findArticlesWithSimilarContent();
+
+        // Then:
+        assertEquals(Collections.singletonList(new HashSet<>(articles.subList(0, 2))), actual);
+        assertNull(filter.getPartialResult());
+        verify(detector, never()).detectIncrementally(any(ArticleStream.class),
+                anyDouble(), any(), any(CancellationSignal.class));
+    }
+
+    @Test(expected = MaxArticlesException.class)
+    public void findArticlesWithSimilarContent_givenTimeBudgetAndTooManyArticles_shouldThrowException() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(1);
+        given(dataAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willReturn(Arrays.asList(
+                generateArticle(1, "content"), generateArticle(2, "content")));
+        filter.setTimeBudget(60);
+
+        // When:
+        filter.findArticlesWithSimilarContent();
+    }
+
+    @Test
+    public void estimateSearch_givenArticles_shouldEstimateWithoutDetecting() {
+        // Given:
+        List<Article> articles = Arrays.asList(generateArticle(1, "content"),
+                generateArticle(2, "content"), generateArticle(3, "other"));
+        given(dataAccess.queryArticlesByCriteria(any(FilterCriteria.class),
+                any(CancellationSignal.class))).willReturn(articles);
+
+        // When:
+        SearchEstimate estimate = filter.estimateSearch();
+
+        // Then:
+        assertEquals(3, estimate.getArticleCount());
+        assertTrue(estimate.getSampledPairs() > 0);
+        verify(detector, never()).detectIncrementally(any(ArticleStream.class),
+                anyDouble(), any(), any(CancellationSignal.class));
+        verify(similarities, never()).setSimilarities(any());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void continueDetection_givenNoPartialResult_shouldThrowException() {
+        // When:
+        filter.continueDetection();
+    }
+
+    @Test
+    public void setSimilarityThreshold_givenLiveThresholdSearch_shouldUpdateSimilaritiesLive() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        Article c1 = generateArticle(1, "content");
+        Article c2 = generateArticle(2, "content");
+        Article c3 = generateArticle(3, "other");
+        SimilarityDendrogram dendrogram = new SimilarityDendrogram(Arrays.asList(c1, c2, c3),
+                Arrays.asList(new SimilarityEdge(c1, c2, 1), new SimilarityEdge(c2, c3, 0.7)),
+                0.5);
+        given(detector.buildDendrogram(any(ArticleStream.class), anyDouble(),
+                any(CancellationSignal.class))).willReturn(dendrogram);
+        filter.setSimilarityThreshold(0.8);
+        filter.setLiveThreshold(true);
+        filter.findArticlesWithSimilarContent();
+
+        // When:
+        filter.setSimilarityThreshold(0.6);
+
+        // Then:
+        verify(detector, times(1)).buildDendrogram(any(ArticleStream.class), eq(0.5),
+                any(CancellationSignal.class));
+        verify(similarities, times(1)).setSimilarities(FXCollections.observableArrayList(
+                Collections.singletonList(new HashSet<>(Arrays.asList(c1, c2, c3)))));
+    }
+
+    @Test
+    public void setSimilarityThreshold_givenThresholdBelowFloor_shouldKeepSimilarities() {
+        // Given:
+        given(settings.getMaxArticles()).willReturn(10);
+        given(detector.buildDendrogram(any(ArticleStream.class), anyDouble(),
+                any(CancellationSignal.class))).willReturn(new SimilarityDendrogram(
+                Collections.emptyList(), Collections.emptyList(), 0.5));
+        filter.setSimilarityThreshold(0.8);
+        filter.setLiveThreshold(true);
+        filter.findArticlesWithSimilarContent();
+
+        // When:
+        filter.setSimilarityThreshold(0.3);
+
+        // Then:
+        verify(similarities, times(1)).setSimilarities(any());
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+
+        return article;
+    }
+
+    private void givenDetectorConsumesStream() {
+        given(detector.detectIncrementally(any(ArticleStream.class), anyDouble(),
+                any(), any(CancellationSignal.class))).willAnswer(invocation -> {
+            ArticleStream stream = invocation.getArgument(0);
+            stream.forEachBatch(batch -> { });
+            return new IncrementalSimilarityDetector(1);
+        });
+    }
 }
@@ -0,0 +1,146 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalSimilarityDetectorTest {
+    @Test
+    public void getClusters_givenRandomArticles_shouldReturnSameSetsAsSimilarityDetector() {
+        // Given:
+        Random random = new Random(3);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 5; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        articles.add(generateArticle(80, null));
+
+        for (double threshold : new double[]{0, 0.5, 0.85, 1}) {
+            IncrementalSimilarityDetector detector = new IncrementalSimilarityDetector(threshold);
+
+            // When:
+            detector.addAll(articles);
+
+            // Then:
+            List<Set<Article>> expected = new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(articles, threshold);
+            assertThat(detector.getClusters(), containsInAnyOrder(expected.toArray()));
+        }
+    }
+
+    @Test
+    public void constructor_givenExistingIndexAndClusters_shouldContinueDetection() {
+        // Given:
+        IncrementalSimilarityDetector previous = new IncrementalSimilarityDetector(0);
+        Article article1 = generateArticle(1, "first");
+        Article article2 = generateArticle(2, "second");
+        previous.add(article1);
+        Article article3 = generateArticle(3, "third");
+
+        // When:
+        IncrementalSimilarityDetector detector = new IncrementalSimilarityDetector(
+                previous.getIndex(), previous.getArticleClusters());
+        detector.add(article2);
+        detector.add(article3);
+
+        // Then:
+        assertEquals(1, detector.getClusters().size());
+        assertThat(detector.getClusters().get(0),
+                containsInAnyOrder(article1, article2, article3));
+    }
+
+    @Test
+    public void add_givenArticleWithoutContent_shouldIgnoreArticle() {
+        // Given:
+        IncrementalSimilarityDetector detector = new IncrementalSimilarityDetector(0);
+        detector.add(generateArticle(1, "content"));
+
+        // When:
+        detector.add(generateArticle(2, null));
+
+        // Then:
+        assertEquals(0, detector.getClusters().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_givenArticleAddedTwice_shouldThrowException() {
+        // Given:
+        IncrementalSimilarityDetector detector = new IncrementalSimilarityDetector(0.5);
+        Article article = generateArticle(1, "content");
+        detector.add(article);
+
+        // When:
+        detector.add(article);
+    }
+
+    @Test
+    public void getClusters_givenRetainedArticles_shouldReturnSameSetsAsSimilarityDetector() {
+        // Given:
+        Random random = new Random(5);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 5; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        List<Article> retained = new ArrayList<>();
+        for (Article article : articles) {
+            if (article.getId() % 3 != 0) {
+                retained.add(article);
+            }
+        }
+
+        for (double threshold : new double[]{0, 0.5, 0.85, 1}) {
+            IncrementalSimilarityDetector detector = new IncrementalSimilarityDetector(threshold);
+            detector.addAll(articles);
+
+            // When:
+            List<Set<Article>> actual = detector.getClusters(
+                    article -> article.getId() % 3 != 0);
+
+            // Then:
+            List<Set<Article>> expected = new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(retained, threshold);
+            assertThat(actual, containsInAnyOrder(expected.toArray()));
+        }
+    }
+
+    @Test
+    public void getClusters_givenBridgingArticleRemoved_shouldSplitCluster() {
+        // Given:
+        IncrementalSimilarityDetector detector = new IncrementalSimilarityDetector(0.9);
+        Article article1 = generateArticle(1, "first content");
+        Article article2 = generateArticle(2, "first content");
+        Article bridge = generateArticle(3, "first content");
+        Article article4 = generateArticle(4, "second");
+        Article article5 = generateArticle(5, "second");
+        detector.addAll(Arrays.asList(article1, article2, bridge, article4, article5));
+
+        // When:
+        List<Set<Article>> clusters = detector.getClusters(article -> article != bridge);
+
+        // Then:
+        assertThat(clusters, containsInAnyOrder(
+                new HashSet<>(Arrays.asList(article1, article2)),
+                new HashSet<>(Arrays.asList(article4, article5))));
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+
+        return article;
+    }
+}
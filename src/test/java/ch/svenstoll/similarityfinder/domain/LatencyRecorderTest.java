@@ -0,0 +1,57 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyRecorderTest {
+    @Test
+    public void getPercentileNanos_givenRecordedLatencies_shouldReturnNearestRank() {
+        // Given:
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 100; i >= 1; i--) {
+            recorder.record(i);
+        }
+
+        // When:
+        long median = recorder.getPercentileNanos(50);
+        long p99 = recorder.getPercentileNanos(99);
+
+        // Then:
+        assertEquals(50, median);
+        assertEquals(99, p99);
+        assertEquals(100, recorder.getPercentileNanos(100));
+        assertEquals(50.5, recorder.getMeanNanos(), 1e-9);
+        assertEquals(100, recorder.getMaxNanos());
+        assertEquals(100, recorder.getCount());
+    }
+
+    @Test
+    public void getPercentileNanos_givenMoreLatenciesThanCapacity_shouldOnlyUseRecentSamples() {
+        // Given:
+        LatencyRecorder recorder = new LatencyRecorder(4);
+        for (int i = 1; i <= 8; i++) {
+            recorder.record(i * 10);
+        }
+
+        // When:
+        long min = recorder.getPercentileNanos(1);
+
+        // Then:
+        assertEquals(50, min);
+        assertEquals(8, recorder.getCount());
+        assertEquals(80, recorder.getMaxNanos());
+    }
+
+    @Test
+    public void getPercentileNanos_givenNoLatencies_shouldReturnZero() {
+        // Given:
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        // When:
+        long median = recorder.getPercentileNanos(50);
+
+        // Then:
+        assertEquals(0, median);
+    }
+}
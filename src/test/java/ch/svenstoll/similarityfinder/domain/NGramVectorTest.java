@@ -0,0 +1,122 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NGramVectorTest {
+    @Test
+    public void fromText_givenTextIsNotProvided_shouldReturnEmptyVector() {
+        // When:
+        NGramVector vector = NGramVector.fromText(null);
+
+        // Then:
+        assertTrue(vector.isEmpty());
+    }
+
+    @Test
+    public void fromText_givenTextIsShorterThanNGramSize_shouldReturnEmptyVector() {
+        // When:
+        NGramVector vector = NGramVector.fromText("ab");
+
+        // Then:
+        assertTrue(vector.isEmpty());
+    }
+
+    @Test
+    public void fromText_givenText_shouldContainSameNGramsAsLuceneTokenizer() throws IOException {
+        // Given:
+        String text = "This is some test content with repetitions: abcabcabc äöü 😀😀😀!";
+
+        // When:
+        NGramVector vector = NGramVector.fromText(text);
+
+        // Then:
+        assertEquals(tokenizeWithLucene(text), vector.toMultiset());
+    }
+
+    @Test
+    public void cosineSimilarity_givenEqualTexts_shouldReturnExactlyOne() {
+        // Given:
+        NGramVector a = NGramVector.fromText("Some text that is compared with itself.");
+        NGramVector b = NGramVector.fromText("Some text that is compared with itself.");
+
+        // When:
+        double similarity = a.cosineSimilarity(b);
+
+        // Then:
+        assertEquals(1, similarity, 0);
+    }
+
+    @Test
+    public void cosineSimilarity_givenEmptyVector_shouldReturnZero() {
+        // Given:
+        NGramVector a = NGramVector.fromText("content");
+
+        // When:
+        double similarity = a.cosineSimilarity(NGramVector.EMPTY);
+
+        // Then:
+        assertEquals(0, similarity, 0);
+    }
+
+    @Test
+    public void cosineSimilarity_givenDifferentTexts_shouldMatchMultisetCalculation() {
+        // Given:
+        NGramVector a = NGramVector.fromText("1234567890...");
+        NGramVector b = NGramVector.fromText("123456789");
+
+        // When:
+        double similarity = a.cosineSimilarity(b);
+
+        // Then:
+        // a has 11 distinct trigrams, b has 7 trigrams that are all contained in a.
+        double expected = 7 / (Math.sqrt(11) * Math.sqrt(7));
+        assertEquals(expected, similarity, 1e-12);
+    }
+
+    @Test
+    public void toBytes_givenVector_shouldBeRestorableWithFromBytes() {
+        // Given:
+        NGramVector vector = NGramVector.fromText("Some text to be stored in the database. 😀");
+
+        // When:
+        NGramVector restored = NGramVector.fromBytes(vector.toBytes());
+
+        // Then:
+        assertEquals(vector, restored);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromBytes_givenTruncatedBytes_shouldThrowException() {
+        // Given:
+        byte[] bytes = NGramVector.fromText("Some text").toBytes();
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        // When:
+        NGramVector.fromBytes(truncated);
+    }
+
+    private Multiset<String> tokenizeWithLucene(String text) throws IOException {
+        Multiset<String> nGrams = HashMultiset.create();
+        NGramTokenizer tokenizer
+                = new NGramTokenizer(NGramVector.N_GRAM_SIZE, NGramVector.N_GRAM_SIZE);
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+        while (tokenizer.incrementToken()) {
+            nGrams.add(termAtt.toString());
+        }
+        tokenizer.close();
+        return nGrams;
+    }
+}
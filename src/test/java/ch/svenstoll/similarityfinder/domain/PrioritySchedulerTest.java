@@ -0,0 +1,110 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class PrioritySchedulerTest {
+    private PriorityScheduler scheduler;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        scheduler = new PriorityScheduler();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @Test
+    public void yieldPoint_givenRunningInteractiveWork_shouldPauseBatchWorkUntilItIsComplete()
+            throws Exception {
+        // Given:
+        CountDownLatch interactiveStarted = new CountDownLatch(1);
+        CountDownLatch releaseInteractive = new CountDownLatch(1);
+        Future<?> interactive = executor.submit(() -> scheduler.run(WorkPriority.INTERACTIVE,
+                () -> {
+                    interactiveStarted.countDown();
+                    await(releaseInteractive);
+                    return null;
+                }));
+        assertTrue(interactiveStarted.await(10, TimeUnit.SECONDS));
+
+        // When:
+        Future<?> batch = executor.submit(() -> scheduler.run(WorkPriority.BATCH, () -> {
+            scheduler.yieldPoint(new CancellationSignal());
+            return null;
+        }));
+
+        // Then:
+        Thread.sleep(100);
+        assertFalse(batch.isDone());
+        assertEquals(1, scheduler.getPauseCount());
+
+        releaseInteractive.countDown();
+        interactive.get(10, TimeUnit.SECONDS);
+        batch.get(10, TimeUnit.SECONDS);
+        assertEquals(0, scheduler.getActiveCount(WorkPriority.INTERACTIVE));
+        assertEquals(0, scheduler.getActiveCount(WorkPriority.BATCH));
+    }
+
+    @Test
+    public void yieldPoint_givenOnlyLessUrgentWork_shouldNotPause() {
+        // Given:
+        scheduler.run(WorkPriority.BATCH, () -> {
+            // When:
+            scheduler.run(WorkPriority.PREFETCH, () -> {
+                scheduler.yieldPoint(new CancellationSignal());
+                return null;
+            });
+
+            // Then:
+            assertEquals(WorkPriority.BATCH, scheduler.getCurrentPriority());
+            return null;
+        });
+        assertEquals(0, scheduler.getPauseCount());
+        assertEquals(WorkPriority.INTERACTIVE, scheduler.getCurrentPriority());
+    }
+
+    @Test
+    public void yieldPoint_givenCancelledSignalWhilePaused_shouldThrowException()
+            throws Exception {
+        // Given:
+        CountDownLatch releaseInteractive = new CountDownLatch(1);
+        CountDownLatch interactiveStarted = new CountDownLatch(1);
+        executor.submit(() -> scheduler.run(WorkPriority.INTERACTIVE, () -> {
+            interactiveStarted.countDown();
+            await(releaseInteractive);
+            return null;
+        }));
+        assertTrue(interactiveStarted.await(10, TimeUnit.SECONDS));
+        CancellationSignal signal = new CancellationSignal();
+        Future<?> batch = executor.submit(() -> scheduler.run(WorkPriority.BATCH, () -> {
+            scheduler.yieldPoint(signal);
+            return null;
+        }));
+        Thread.sleep(100);
+
+        // When:
+        signal.cancel();
+
+        // Then:
+        try {
+            batch.get(10, TimeUnit.SECONDS);
+            fail("The paused work should have been aborted.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DetectionAbortedException);
+        } finally {
+            releaseInteractive.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
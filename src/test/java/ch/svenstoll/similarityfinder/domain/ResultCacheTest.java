@@ -0,0 +1,144 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import ch.svenstoll.similarityfinder.dao.ResultCacheAccess;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+public class ResultCacheTest {
+    private ResultCacheAccess resultCacheAccess;
+    private Settings settings;
+
+    @Before
+    public void setup() {
+        resultCacheAccess = mock(ResultCacheAccess.class);
+        settings = mock(Settings.class);
+    }
+
+    @Test
+    public void createKey_givenSameParametersInDifferentOrder_shouldReturnSameKey() {
+        // Given:
+        FilterCriteria criteria1 = new FilterCriteria(Arrays.asList("a", "b"),
+                LocalDate.of(2017, 1, 1), null, "title", 10, true);
+        FilterCriteria criteria2 = new FilterCriteria(Arrays.asList("b", "a"),
+                LocalDate.of(2017, 1, 1), null, "title", 10, true);
+
+        // When:
+        String key1 = ResultCache.createKey(criteria1, 0.8, "1:2:3");
+        String key2 = ResultCache.createKey(criteria2, 0.8, "1:2:3");
+
+        // Then:
+        assertEquals(key1, key2);
+        assertNotEquals(key1, ResultCache.createKey(criteria1, 0.81, "1:2:3"));
+        assertNotEquals(key1, ResultCache.createKey(criteria1, 0.8, "1:2:4"));
+        assertNotEquals(key1, ResultCache.createKey(new FilterCriteria(
+                Collections.singletonList("a"), LocalDate.of(2017, 1, 1), null, "title", 10,
+                true), 0.8, "1:2:3"));
+    }
+
+    @Test
+    public void get_givenCachedResult_shouldCountHitsAndMisses() {
+        // Given:
+        ResultCache cache = new ResultCache(resultCacheAccess, settings);
+        List<Set<Article>> result = generateResult(1, "content");
+        cache.put("key", result);
+
+        // When:
+        List<Set<Article>> cached = cache.get("key");
+        List<Set<Article>> missing = cache.get("other key");
+
+        // Then:
+        assertEquals(result, cached);
+        assertNull(missing);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void put_givenMoreEntriesThanAllowed_shouldEvictLeastRecentlyUsed() {
+        // Given:
+        ResultCache cache = new ResultCache(resultCacheAccess, settings, 2, Long.MAX_VALUE);
+        cache.put("key1", generateResult(1, "content"));
+        cache.put("key2", generateResult(3, "content"));
+        cache.get("key1");
+
+        // When:
+        cache.put("key3", generateResult(5, "content"));
+
+        // Then:
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("key1"));
+        assertNull(cache.get("key2"));
+        assertNotNull(cache.get("key3"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void put_givenMemoryBoundExceeded_shouldEvictUntilBoundIsMet() {
+        // Given:
+        ResultCache probe = new ResultCache(resultCacheAccess, settings);
+        probe.put("key", generateResult(1, "a long content of an article"));
+        long bytesOfResult = probe.getEstimatedBytes();
+        ResultCache cache = new ResultCache(resultCacheAccess, settings, 100,
+                bytesOfResult * 2);
+        cache.put("key1", generateResult(1, "a long content of an article"));
+        cache.put("key2", generateResult(3, "a long content of an article"));
+
+        // When:
+        cache.put("key3", generateResult(5, "a long content of an article"));
+
+        // Then:
+        assertEquals(2, cache.size());
+        assertTrue(cache.getEstimatedBytes() <= bytesOfResult * 2);
+        assertNull(cache.get("key1"));
+    }
+
+    @Test
+    public void put_givenPersistentCache_shouldLoadAndSaveFile() {
+        // Given:
+        given(settings.isResultCachePersistent()).willReturn(true);
+        LinkedHashMap<String, List<Set<Article>>> stored = new LinkedHashMap<>();
+        stored.put("stored key", generateResult(1, "content"));
+        given(resultCacheAccess.retrieveResultsFromFile()).willReturn(stored);
+        ResultCache cache = new ResultCache(resultCacheAccess, settings);
+
+        // When:
+        cache.put("key", generateResult(3, "content"));
+
+        // Then:
+        assertNotNull(cache.get("stored key"));
+        verify(resultCacheAccess, times(1)).retrieveResultsFromFile();
+        verify(resultCacheAccess, times(1)).saveResultsToFile(any());
+    }
+
+    @Test
+    public void put_givenCacheNotPersistent_shouldNotAccessFile() {
+        // Given:
+        ResultCache cache = new ResultCache(resultCacheAccess, settings);
+
+        // When:
+        cache.put("key", generateResult(1, "content"));
+        cache.get("key");
+
+        // Then:
+        verifyZeroInteractions(resultCacheAccess);
+    }
+
+    private List<Set<Article>> generateResult(int firstId, String content) {
+        Set<Article> cluster = new HashSet<>();
+        for (int id = firstId; id < firstId + 2; id++) {
+            Article article = new Article(id);
+            article.setContent(content);
+            cluster.add(article);
+        }
+        return Collections.singletonList(cluster);
+    }
+}
@@ -0,0 +1,145 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SearchEstimatorTest {
+    private List<Article> articles;
+
+    @Before
+    public void setup() {
+        Random random = new Random(5);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        articles = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        articles.add(generateArticle(60, null));
+    }
+
+    @Test
+    public void estimate_givenSample_shouldContainNumberOfSimilarPairs() {
+        // Given:
+        long[] time = {0};
+        SearchEstimator estimator = new SearchEstimator(new Random(3), () -> time[0]++);
+        int similarPairs = 0;
+        for (int i = 0; i < 60; i++) {
+            for (int j = i + 1; j < 60; j++) {
+                if (SimilarityIndex.score(articles.get(i), articles.get(j)) >= 0.7) {
+                    similarPairs++;
+                }
+            }
+        }
+
+        // When:
+        SearchEstimate estimate = estimator.estimate(articles, 0.7, Long.MAX_VALUE,
+                new CancellationSignal());
+
+        // Then:
+        assertEquals(60, estimate.getArticleCount());
+        assertEquals(SearchEstimator.MAX_SAMPLED_PAIRS, estimate.getSampledPairs());
+        assertTrue(estimate.getSimilarPairs().getLower() <= similarPairs);
+        assertTrue(estimate.getSimilarPairs().getUpper() >= similarPairs);
+        assertEquals(estimate.getSimilarPairs().getEstimate() * 2 / 60,
+                estimate.getSimilarArticlesPerArticle().getEstimate(), 1e-9);
+    }
+
+    @Test
+    public void estimate_givenEqualContents_shouldEstimateAllPairsAsSimilar() {
+        // Given:
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            articles.add(generateArticle(i, "same content"));
+        }
+        long[] time = {0};
+        SearchEstimator estimator = new SearchEstimator(new Random(3), () -> time[0]++);
+
+        // When:
+        SearchEstimate estimate = estimator.estimate(articles, 1, Long.MAX_VALUE,
+                new CancellationSignal());
+
+        // Then:
+        assertEquals(45, estimate.getSimilarPairs().getEstimate(), 1e-9);
+        assertEquals(45, estimate.getSimilarPairs().getUpper(), 1e-9);
+        assertEquals(9, estimate.getSimilarArticlesPerArticle().getEstimate(), 1e-9);
+    }
+
+    @Test
+    public void estimate_givenConstantCostPerArticle_shouldExtrapolateRuntime() {
+        // Given:
+        // Every call of the time source advances the time by 10 ns, so indexing every article
+        // takes 10 ns regardless of the number of indexed articles.
+        long[] time = {0};
+        SearchEstimator estimator = new SearchEstimator(new Random(3), () -> time[0] += 10);
+
+        // When:
+        SearchEstimate estimate = estimator.estimate(articles, 0.7, Long.MAX_VALUE,
+                new CancellationSignal());
+
+        // Then:
+        assertEquals(600, estimate.getRuntimeNanos().getEstimate(), 1e-6);
+        assertEquals(600, estimate.getRuntimeNanos().getLower(), 1e-6);
+        assertEquals(600, estimate.getRuntimeNanos().getUpper(), 1e-6);
+    }
+
+    @Test
+    public void estimate_givenTimeLimit_shouldStopSampling() {
+        // Given:
+        long[] time = {0};
+        SearchEstimator estimator = new SearchEstimator(new Random(3), () -> time[0]++);
+
+        // When:
+        SearchEstimate estimate = estimator.estimate(articles, 0.7, 200,
+                new CancellationSignal());
+
+        // Then:
+        assertTrue(estimate.getSampledPairs() > 0);
+        assertTrue(estimate.getSampledPairs() < SearchEstimator.MAX_SAMPLED_PAIRS);
+    }
+
+    @Test
+    public void estimate_givenMinThreshold_shouldReturnExactEstimate() {
+        // Given:
+        SearchEstimator estimator = new SearchEstimator();
+
+        // When:
+        SearchEstimate estimate = estimator.estimate(articles, 0, 1, new CancellationSignal());
+
+        // Then:
+        assertEquals(0, estimate.getSampledPairs());
+        assertEquals(1770, estimate.getSimilarPairs().getLower(), 0);
+        assertEquals(1770, estimate.getSimilarPairs().getUpper(), 0);
+        assertEquals(0, estimate.getRuntimeNanos().getEstimate(), 0);
+    }
+
+    @Test(expected = DetectionAbortedException.class)
+    public void estimate_givenCancelledSignal_shouldThrowException() {
+        // Given:
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+
+        // When:
+        new SearchEstimator().estimate(articles, 0.7, Long.MAX_VALUE, signal);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void estimate_givenTimeLimitNotPositive_shouldThrowException() {
+        // When:
+        new SearchEstimator().estimate(articles, 0.7, 0, new CancellationSignal());
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+
+        return article;
+    }
+}
@@ -5,6 +5,7 @@ import ch.svenstoll.similarityfinder.dao.SettingsAccessException;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.mock;
@@ -50,4 +51,13 @@ public class SettingsTest {
         // Then:
         verify(listener, times(0)).onSettingsUpdated(any());
     }
+
+    @Test
+    public void isLocalSnapshotEnabled_givenNewSettings_shouldBeDisabled() {
+        // When:
+        boolean actual = settings.isLocalSnapshotEnabled();
+
+        // Then:
+        assertFalse(actual);
+    }
 }
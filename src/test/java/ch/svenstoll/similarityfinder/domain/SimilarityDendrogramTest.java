@@ -0,0 +1,80 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.*;
+
+public class SimilarityDendrogramTest {
+    @Test
+    public void cut_givenRandomArticles_shouldReturnSameSetsAsSimilarityDetector() {
+        // Given:
+        Random random = new Random(17);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 5; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        articles.add(generateArticle(100, null));
+        SimilarityDetector detector = new SimilarityDetector();
+        SimilarityDendrogram dendrogram = detector.buildDendrogram(
+                consumer -> consumer.accept(articles), 0.4, new CancellationSignal());
+
+        for (double threshold : new double[]{0, 0.4, 0.55, 0.7, 0.85, 1}) {
+            // When:
+            List<Set<Article>> actual = dendrogram.cut(threshold);
+
+            // Then:
+            List<Set<Article>> expected
+                    = detector.detectArticlesWithSimilarContents(articles, threshold);
+            assertThat(actual, containsInAnyOrder(expected.toArray()));
+        }
+    }
+
+    @Test
+    public void cut_givenEdges_shouldOnlyKeepMergesAboveThreshold() {
+        // Given:
+        Article c1 = generateArticle(1, "one");
+        Article c2 = generateArticle(2, "two");
+        Article c3 = generateArticle(3, "three");
+        Article c4 = generateArticle(4, "four");
+        SimilarityDendrogram dendrogram = new SimilarityDendrogram(
+                Arrays.asList(c1, c2, c3, c4),
+                Arrays.asList(new SimilarityEdge(c1, c2, 0.9), new SimilarityEdge(c2, c3, 0.6),
+                        new SimilarityEdge(c1, c3, 0.55), new SimilarityEdge(c3, c4, 0.8)),
+                0.5);
+
+        // When:
+        List<Set<Article>> clusters = dendrogram.cut(0.7);
+
+        // Then:
+        assertEquals(3, dendrogram.getMergeCount());
+        assertThat(clusters, containsInAnyOrder(new HashSet<>(Arrays.asList(c1, c2)),
+                new HashSet<>(Arrays.asList(c3, c4))));
+        assertEquals(1, dendrogram.cut(0.6).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cut_givenThresholdBelowFloor_shouldThrowException() {
+        // Given:
+        SimilarityDendrogram dendrogram = new SimilarityDendrogram(Collections.emptyList(),
+                Collections.emptyList(), 0.5);
+
+        // When:
+        dendrogram.cut(0.4);
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+
+        return article;
+    }
+}
@@ -9,7 +9,12 @@ import java.util.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class SimilarityDetectorTest {
     private SimilarityDetector detector;
@@ -187,6 +192,305 @@ public class SimilarityDetectorTest {
         assertThat(similarities.get(0), containsInAnyOrder(articles.toArray()));
     }
 
+    @Test(expected = DetectionAbortedException.class)
+    public void detectArticlesWithSimilarContent_givenSignalCancelled_shouldAbortDetection() {
+        // Given:
+        List<Article> articles = Arrays.asList(generateArticle(1, "content"),
+                generateArticle(2, "content"));
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+
+        // When:
+        detector.detectArticlesWithSimilarContents(articles, 0.5, signal);
+    }
+
+    @Test
+    public void detectArticlesWithSimilarContent_givenStream_shouldReturnSameSetsAsForList() {
+        // Given:
+        Random random = new Random(42);
+        String[] words = {"alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 6; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        ArticleStream stream = consumer -> {
+            consumer.accept(articles.subList(0, 25));
+            consumer.accept(articles.subList(25, articles.size()));
+        };
+
+        // When:
+        List<Set<Article>> expected = detector.detectArticlesWithSimilarContents(articles, 0.8);
+        List<Set<Article>> similarities = detector.detectArticlesWithSimilarContents(stream, 0.8,
+                new CancellationSignal());
+
+        // Then:
+        assertNotEquals(0, expected.size());
+        assertThat(similarities, containsInAnyOrder(expected.toArray()));
+    }
+
+    @Test
+    public void detectArticlesWithSimilarContent_givenNewArticleBridgesClusters_shouldMergeClusters() {
+        // Given:
+        IncrementalSimilarityDetector detection = new IncrementalSimilarityDetector(0.6);
+        Article c1 = generateArticle(1, "aaaa aaaa aaaa");
+        Article c2 = generateArticle(2, "aaaa aaaa aaab");
+        Article c3 = generateArticle(3, "zzzz zzzz zzzz");
+        Article c4 = generateArticle(4, "zzzz zzzz zzzy");
+        detection.addAll(Arrays.asList(c1, c2, c3, c4));
+        Article bridge = generateArticle(5, "aaaa aaaa aaaa zzzz zzzz zzzz");
+        assertEquals(2, detection.getClusters().size());
+
+        // When:
+        List<Set<Article>> similarities = detector.detectArticlesWithSimilarContents(detection,
+                Collections.singletonList(bridge), new CancellationSignal());
+
+        // Then:
+        assertEquals(1, similarities.size());
+        assertThat(similarities.get(0), containsInAnyOrder(c1, c2, c3, c4, bridge));
+    }
+
+    @Test
+    public void detectArticlesWithSimilarContent_givenStreamWithNewArticles_shouldKeepPreviousArticles() {
+        // Given:
+        List<Article> oldArticles = Arrays.asList(generateArticle(1, "content one"),
+                generateArticle(2, "content one"), generateArticle(3, "other text"));
+        detector.detectArticlesWithSimilarContents(
+                consumer -> consumer.accept(oldArticles), 1, new CancellationSignal());
+        List<Article> articles = Arrays.asList(generateArticle(1, "content one"),
+                generateArticle(2, "content one"), generateArticle(3, "other text"),
+                generateArticle(4, "other text"));
+
+        // When:
+        List<Set<Article>> similarities = detector.detectArticlesWithSimilarContents(
+                consumer -> consumer.accept(articles), 1, new CancellationSignal());
+
+        // Then:
+        assertThat(similarities, containsInAnyOrder(
+                detector.detectArticlesWithSimilarContents(articles, 1).toArray()));
+        // The clusters contain the instances of the current stream.
+        similarities.forEach(set -> set.forEach(article ->
+                assertTrue(articles.stream().anyMatch(current -> current == article))));
+    }
+
+    @Test
+    public void detectArticlesWithSimilarContent_givenStreamWithChangedArticle_shouldStartFromScratch() {
+        // Given:
+        detector.detectArticlesWithSimilarContents(consumer -> consumer.accept(Arrays.asList(
+                generateArticle(1, "content one"), generateArticle(2, "content one"))), 1,
+                new CancellationSignal());
+        List<Article> articles = Arrays.asList(generateArticle(1, "content one"),
+                generateArticle(2, "changed content"), generateArticle(3, "changed content"));
+
+        // When:
+        List<Set<Article>> similarities = detector.detectArticlesWithSimilarContents(
+                consumer -> consumer.accept(articles), 1, new CancellationSignal());
+
+        // Then:
+        assertEquals(1, similarities.size());
+        assertThat(similarities.get(0), containsInAnyOrder(articles.get(1), articles.get(2)));
+    }
+
+    @Test
+    public void detectArticlesWithSimilarContent_givenStreamWithMissingArticle_shouldNotModifyPreviousDetection() {
+        // Given:
+        detector.detectArticlesWithSimilarContents(consumer -> consumer.accept(Arrays.asList(
+                generateArticle(1, "content one"), generateArticle(2, "content one"),
+                generateArticle(3, "other text"))), 1, new CancellationSignal());
+        IncrementalSimilarityDetector previous = detector.getLastDetection();
+        List<Article> articles = Arrays.asList(generateArticle(1, "content one"),
+                generateArticle(2, "content one"), generateArticle(4, "other text"));
+
+        // When:
+        List<Set<Article>> similarities = detector.detectArticlesWithSimilarContents(
+                consumer -> consumer.accept(articles), 1, new CancellationSignal());
+
+        // Then:
+        assertEquals(1, similarities.size());
+        assertThat(similarities.get(0), containsInAnyOrder(articles.get(0), articles.get(1)));
+        assertNotSame(previous, detector.getLastDetection());
+        assertEquals(3, previous.getIndex().size());
+        assertFalse(previous.getIndex().contains(4));
+    }
+
+    @Test
+    public void detectIncrementally_givenCancelledWhileReusing_shouldKeepPreviousDetection() {
+        // Given:
+        detector.detectArticlesWithSimilarContents(consumer -> consumer.accept(Arrays.asList(
+                generateArticle(1, "content one"), generateArticle(2, "content one"))), 1,
+                new CancellationSignal());
+        IncrementalSimilarityDetector previous = detector.getLastDetection();
+        CancellationSignal signal = new CancellationSignal();
+        ArticleStream stream = consumer -> {
+            consumer.accept(Arrays.asList(generateArticle(1, "content one"),
+                    generateArticle(2, "content one"), generateArticle(3, "content one")));
+            signal.cancel();
+            consumer.accept(Collections.singletonList(generateArticle(4, "content one")));
+        };
+
+        // When:
+        try {
+            detector.detectIncrementally(stream, 1, article -> true, signal);
+            fail("The detection should have been aborted.");
+        } catch (DetectionAbortedException e) {
+            // Expected.
+        }
+
+        // Then:
+        assertSame(previous, detector.getLastDetection());
+        assertEquals(2, previous.getIndex().size());
+    }
+
+    @Test
+    public void detectIncrementally_givenPreviousArticleNotSelected_shouldNotClaimPreviousDetection() {
+        // Given:
+        detector.detectArticlesWithSimilarContents(consumer -> consumer.accept(Arrays.asList(
+                generateArticle(1, "content one"), generateArticle(2, "content one"))), 1,
+                new CancellationSignal());
+        IncrementalSimilarityDetector previous = detector.getLastDetection();
+        List<Article> articles = Arrays.asList(generateArticle(2, "content one"),
+                generateArticle(3, "content one"));
+
+        // When:
+        IncrementalSimilarityDetector detection = detector.detectIncrementally(
+                consumer -> consumer.accept(articles), 1, article -> article.getId() != 1,
+                new CancellationSignal());
+
+        // Then:
+        assertNotSame(previous, detection);
+        assertEquals(2, previous.getIndex().size());
+        assertEquals(1, detection.getClusters().size());
+        assertThat(detection.getClusters().get(0), containsInAnyOrder(articles.toArray()));
+    }
+
+    @Test
+    public void joinArticlesWithSimilarContents_givenRandomArticles_shouldReturnCrossPairsOnly() {
+        // Given:
+        Random random = new Random(13);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        List<Article> queries = new ArrayList<>();
+        List<Article> references = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            (i < 20 ? queries : references).add(generateArticle(i, content.toString()));
+        }
+
+        // The result must not depend on which side is indexed.
+        for (boolean swapped : new boolean[]{false, true}) {
+            List<Article> querySide = swapped ? references : queries;
+            List<Article> referenceSide = swapped ? queries : references;
+
+            // When:
+            List<SimilarityEdge> edges = detector.joinArticlesWithSimilarContents(querySide,
+                    referenceSide, 0.75, new CancellationSignal());
+
+            // Then:
+            Set<String> expected = new HashSet<>();
+            for (Article query : querySide) {
+                for (Article reference : referenceSide) {
+                    double score = query.getContent().equals(reference.getContent()) ? 1
+                            : query.getContentVector().cosineSimilarity(
+                                    reference.getContentVector());
+                    if (score >= 0.75) {
+                        expected.add(query.getId() + "-" + reference.getId());
+                    }
+                }
+            }
+            Set<String> actual = new HashSet<>();
+            for (SimilarityEdge edge : edges) {
+                actual.add(edge.getArticle1().getId() + "-" + edge.getArticle2().getId());
+            }
+            assertEquals(expected, actual);
+            assertEquals(expected.size(), edges.size());
+        }
+    }
+
+    @Test
+    public void joinArticlesWithSimilarContents_givenOverlappingSides_shouldReturnEachPairOnce() {
+        // Given:
+        Article c1 = generateArticle(1, "content");
+        Article c2 = generateArticle(2, "content");
+        Article c3 = generateArticle(3, "content");
+
+        // When:
+        List<SimilarityEdge> edges = detector.joinArticlesWithSimilarContents(
+                Arrays.asList(c1, c2), Arrays.asList(c2, c3), 1, new CancellationSignal());
+
+        // Then:
+        // The pairs are 1-2, 1-3 and 2-3, but never 2-2 or both 1-2 and 2-1.
+        assertEquals(3, edges.size());
+    }
+
+    @Test
+    public void findMostSimilarPairs_givenRandomArticles_shouldReturnSameScoresAsComparingAllPairs() {
+        // Given:
+        Random random = new Random(17);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate", "city"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 5; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        List<Double> allScores = new ArrayList<>();
+        for (int i = 0; i < articles.size(); i++) {
+            for (int j = i + 1; j < articles.size(); j++) {
+                Article a1 = articles.get(i);
+                Article a2 = articles.get(j);
+                allScores.add(a1.getContent().equals(a2.getContent()) ? 1
+                        : a1.getContentVector().cosineSimilarity(a2.getContentVector()));
+            }
+        }
+        allScores.sort(Comparator.reverseOrder());
+
+        for (int k : new int[]{1, 20, 500}) {
+            // When:
+            List<SimilarityEdge> edges = detector.findMostSimilarPairs(articles, k,
+                    new CancellationSignal());
+
+            // Then:
+            assertEquals(k, edges.size());
+            Set<String> pairs = new HashSet<>();
+            for (int i = 0; i < k; i++) {
+                SimilarityEdge edge = edges.get(i);
+                assertEquals(allScores.get(i), edge.getScore(), 1e-9);
+                int id1 = Math.min(edge.getArticle1().getId(), edge.getArticle2().getId());
+                int id2 = Math.max(edge.getArticle1().getId(), edge.getArticle2().getId());
+                assertTrue(pairs.add(id1 + "-" + id2));
+            }
+        }
+    }
+
+    @Test
+    public void findMostSimilarPairs_givenFewerPairsThanK_shouldReturnAllPairs() {
+        // Given:
+        List<Article> articles = Arrays.asList(generateArticle(1, "content"),
+                generateArticle(2, "content"), generateArticle(3, "other"),
+                generateArticle(4, null));
+
+        // When:
+        List<SimilarityEdge> edges = detector.findMostSimilarPairs(articles, 10,
+                new CancellationSignal());
+
+        // Then:
+        assertEquals(3, edges.size());
+        assertEquals(1, edges.get(0).getScore(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findMostSimilarPairs_givenKNotPositive_shouldThrowException() {
+        // When:
+        detector.findMostSimilarPairs(Collections.emptyList(), 0, new CancellationSignal());
+    }
+
     private Article generateArticle(int id, String content) {
         Article article = new Article(id);
         article.setContent(content);
@@ -0,0 +1,233 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.*;
+
+public class SimilarityIndexTest {
+    @Test
+    public void findSimilar_givenRandomArticles_shouldFindSameArticlesAsComparingAllPairs() {
+        // Given:
+        Random random = new Random(7);
+        String[] words = {"the", "council", "decided", "budget", "school", "new", "road",
+                "vote", "city", "plan"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = 3 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+
+        for (double threshold : new double[]{0.3, 0.6, 0.9, 1}) {
+            SimilarityIndex index = new SimilarityIndex(threshold);
+            articles.forEach(index::add);
+
+            for (Article article : articles) {
+                // When:
+                List<Integer> found = index.findSimilar(article).stream()
+                        .map(edge -> edge.getArticle2().getId())
+                        .collect(Collectors.toList());
+
+                // Then:
+                List<Integer> expected = articles.stream()
+                        .filter(other -> other != article && article.getContentVector()
+                                .cosineSimilarity(other.getContentVector()) >= threshold)
+                        .map(Article::getId)
+                        .collect(Collectors.toList());
+                assertThat(found, containsInAnyOrder(expected.toArray()));
+            }
+        }
+    }
+
+    @Test
+    public void add_givenHighThreshold_shouldNotIndexEveryNGram() {
+        // Given:
+        SimilarityIndex index = new SimilarityIndex(0.9);
+        long nGrams = 0;
+
+        // When:
+        for (int i = 0; i < 20; i++) {
+            Article article = generateArticle(i, "a common text with number " + i);
+            nGrams += article.getContentVector().size();
+            index.add(article);
+        }
+
+        // Then:
+        assertThat(index.getPostingsCount(), lessThan(nGrams));
+    }
+
+    @Test
+    public void findSimilar_givenEqualShortContents_shouldFindArticle() {
+        // Given:
+        SimilarityIndex index = new SimilarityIndex(1);
+        Article article1 = generateArticle(1, "ab");
+        Article article2 = generateArticle(2, "ab");
+        index.add(article1);
+
+        // When:
+        List<SimilarityEdge> edges = index.findSimilar(article2);
+
+        // Then:
+        assertEquals(1, edges.size());
+        assertSame(article1, edges.get(0).getArticle2());
+    }
+
+    @Test
+    public void findSimilar_givenMinThreshold_shouldFindAllArticles() {
+        // Given:
+        SimilarityIndex index = new SimilarityIndex(0);
+        index.add(generateArticle(1, "first content"));
+        index.add(generateArticle(2, "something else"));
+
+        // When:
+        List<SimilarityEdge> edges = index.findSimilar(generateArticle(3, "xyz"));
+
+        // Then:
+        assertEquals(2, edges.size());
+    }
+
+    @Test
+    public void add_givenArticleWithoutContent_shouldNotIndexArticle() {
+        // Given:
+        SimilarityIndex index = new SimilarityIndex(0.5);
+
+        // When:
+        boolean added = index.add(generateArticle(1, null));
+
+        // Then:
+        assertFalse(added);
+        assertFalse(index.contains(1));
+        assertEquals(0, index.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_givenArticleWithSameIdAdded_shouldThrowException() {
+        // Given:
+        SimilarityIndex index = new SimilarityIndex(0.5);
+        index.add(generateArticle(1, "content"));
+
+        // When:
+        index.add(generateArticle(1, "other content"));
+    }
+
+    @Test
+    public void remove_givenIndexedArticles_shouldNoLongerFindRemovedArticles() {
+        // Given:
+        SimilarityIndex index = new SimilarityIndex(0.5);
+        Article article1 = generateArticle(1, "the council decided on the budget");
+        Article article2 = generateArticle(2, "the council decided on the budget today");
+        Article article3 = generateArticle(3, "a");
+        Article article4 = generateArticle(4, "a");
+        Arrays.asList(article1, article2, article3, article4).forEach(index::add);
+
+        // When:
+        Article removed = index.remove(2);
+        index.remove(4);
+
+        // Then:
+        assertSame(article2, removed);
+        assertNull(index.remove(2));
+        assertEquals(2, index.size());
+        assertFalse(index.contains(2));
+        assertThat(index.getArticles(), containsInAnyOrder(article1, article3));
+        assertTrue(index.findSimilar(article2).stream()
+                .noneMatch(edge -> edge.getArticle2() == article2));
+        assertTrue(index.findSimilar(article3).isEmpty());
+    }
+
+    @Test
+    public void remove_givenArticlesAddedAndRemovedAtSameRate_shouldNotGrow() {
+        // Given:
+        Random random = new Random(11);
+        String[] words = {"the", "council", "decided", "budget", "school", "new", "road"};
+        SimilarityIndex index = new SimilarityIndex(0.6);
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 6; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        for (int i = 0; i < 50; i++) {
+            index.add(articles.get(i));
+        }
+
+        // When:
+        for (int i = 50; i < articles.size(); i++) {
+            index.remove(i - 50);
+            index.add(articles.get(i));
+        }
+
+        // Then:
+        assertEquals(50, index.size());
+        SimilarityIndex expected = new SimilarityIndex(0.6);
+        articles.subList(250, 300).forEach(expected::add);
+        for (Article article : articles) {
+            Set<Integer> found = index.findSimilar(article).stream()
+                    .map(edge -> edge.getArticle2().getId())
+                    .collect(Collectors.toSet());
+            Set<Integer> expectedIds = expected.findSimilar(article).stream()
+                    .map(edge -> edge.getArticle2().getId())
+                    .collect(Collectors.toSet());
+            assertEquals(expectedIds, found);
+        }
+    }
+
+    @Test
+    public void raiseSimilarityThreshold_givenIndexedArticles_shouldStillFindSimilarArticles() {
+        // Given:
+        Random random = new Random(9);
+        String[] words = {"the", "council", "decided", "budget", "school", "new", "road"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 5; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString()));
+        }
+        SimilarityIndex index = new SimilarityIndex(0.2);
+        articles.subList(0, 50).forEach(index::add);
+
+        // When:
+        index.raiseSimilarityThreshold(0.8);
+        articles.subList(50, 100).forEach(index::add);
+
+        // Then:
+        assertEquals(0.8, index.getSimilarityThreshold(), 0);
+        for (Article article : articles) {
+            List<Integer> found = index.findSimilar(article).stream()
+                    .map(edge -> edge.getArticle2().getId())
+                    .collect(Collectors.toList());
+            List<Integer> expected = articles.stream()
+                    .filter(other -> other != article && article.getContentVector()
+                            .cosineSimilarity(other.getContentVector()) >= 0.8)
+                    .map(Article::getId)
+                    .collect(Collectors.toList());
+            assertThat(found, containsInAnyOrder(expected.toArray()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void raiseSimilarityThreshold_givenLowerThreshold_shouldThrowException() {
+        // When:
+        new SimilarityIndex(0.8).raiseSimilarityThreshold(0.5);
+    }
+
+    private Article generateArticle(int id, String content) {
+        Article article = new Article(id);
+        article.setContent(content);
+
+        return article;
+    }
+}
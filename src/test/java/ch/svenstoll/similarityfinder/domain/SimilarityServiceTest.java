@@ -0,0 +1,164 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.*;
+
+public class SimilarityServiceTest {
+    @Test
+    public void findSimilarToText_givenText_shouldFindSimilarArticlesMostSimilarFirst() {
+        // Given:
+        SimilarityService service = new SimilarityService(Arrays.asList(
+                generateArticle(1, "the council decided on the new budget", "A"),
+                generateArticle(2, "the council decided on the new budget today", "A"),
+                generateArticle(3, "a completely different story about a school", "A")), 0.5);
+
+        // When:
+        List<SimilarityEdge> matches
+                = service.findSimilarToText("the council decided on the new budget", 0.5);
+
+        // Then:
+        assertEquals(Arrays.asList(1, 2), matches.stream()
+                .map(edge -> edge.getArticle2().getId())
+                .collect(Collectors.toList()));
+        assertEquals(1, matches.get(0).getScore(), 0);
+    }
+
+    @Test
+    public void findSimilarToArticle_givenArticle_shouldNotFindArticleItself() {
+        // Given:
+        SimilarityService service = new SimilarityService(Arrays.asList(
+                generateArticle(1, "same content", "A"),
+                generateArticle(2, "same content", "A"),
+                generateArticle(3, "other content", "A")), 0.9);
+
+        // When:
+        List<SimilarityEdge> matches = service.findSimilarToArticle(1, 1);
+
+        // Then:
+        assertEquals(1, matches.size());
+        assertEquals(2, matches.get(0).getArticle2().getId());
+    }
+
+    @Test
+    public void findSimilarToArticle_givenUnknownId_shouldReturnNull() {
+        // Given:
+        SimilarityService service = new SimilarityService(Collections.singletonList(
+                generateArticle(1, "content", "A")), 0.5);
+
+        // When:
+        List<SimilarityEdge> matches = service.findSimilarToArticle(2, 0.5);
+
+        // Then:
+        assertNull(matches);
+    }
+
+    @Test
+    public void findMostSimilarToArticle_givenK_shouldFindKMostSimilarArticles() {
+        // Given:
+        SimilarityService service = new SimilarityService(Arrays.asList(
+                generateArticle(1, "the council decided on the new budget", "A"),
+                generateArticle(2, "the council decided on the new budget", "A"),
+                generateArticle(3, "the council decided on the new budget today", "A"),
+                generateArticle(4, "the council decided on a new budget yesterday", "A")), 0.3);
+
+        // When:
+        List<SimilarityEdge> matches = service.findMostSimilarToArticle(1, 2);
+
+        // Then:
+        assertEquals(Arrays.asList(2, 3), matches.stream()
+                .map(edge -> edge.getArticle2().getId())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findMostSimilarToText_givenFewerSimilarArticlesThanK_shouldFindAll() {
+        // Given:
+        SimilarityService service = new SimilarityService(Arrays.asList(
+                generateArticle(1, "the council decided on the new budget", "A"),
+                generateArticle(2, "a completely different story about a school", "A")), 0.5);
+
+        // When:
+        List<SimilarityEdge> matches
+                = service.findMostSimilarToText("the council decided on the new budget", 10);
+
+        // Then:
+        assertEquals(1, matches.size());
+        assertEquals(1, matches.get(0).getArticle2().getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findSimilarToText_givenThresholdBelowFloor_shouldThrowException() {
+        // Given:
+        SimilarityService service = new SimilarityService(Collections.emptyList(), 0.5);
+
+        // When:
+        service.findSimilarToText("text", 0.4);
+    }
+
+    @Test
+    public void detectClusters_givenRandomArticles_shouldFindSameClustersAsDetector() {
+        // Given:
+        Random random = new Random(11);
+        String[] words = {"the", "council", "decided", "budget", "school", "new", "road",
+                "vote", "city", "plan"};
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = 3 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString(), i % 2 == 0 ? "A" : "B"));
+        }
+        SimilarityService service = new SimilarityService(articles, 0.5);
+        FilterCriteria criteria = new FilterCriteria(Collections.singletonList("A"), null, null,
+                "", 0, false);
+        List<Article> selectedArticles = articles.stream()
+                .filter(criteria::matches)
+                .collect(Collectors.toList());
+
+        for (double threshold : new double[]{0, 0.5, 0.8, 1}) {
+            // When:
+            List<Set<Article>> clusters = service.detectClusters(criteria, threshold);
+
+            // Then:
+            assertThat(clusters, containsInAnyOrder(new SimilarityDetector()
+                    .detectArticlesWithSimilarContents(selectedArticles, threshold).toArray()));
+        }
+    }
+
+    @Test
+    public void detectClusters_givenCheckpoint_shouldRunItBetweenChunks() {
+        // Given:
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < SimilarityService.CHECKPOINT_INTERVAL + 1; i++) {
+            articles.add(generateArticle(i, "content " + i, "A"));
+        }
+        SimilarityService service = new SimilarityService(articles, 0.5);
+        int[] checkpoints = {0};
+
+        // When:
+        service.detectClusters(new FilterCriteria(Collections.emptyList(), null, null, "", 0,
+                false), 0.9, () -> checkpoints[0]++);
+
+        // Then:
+        assertEquals(2, checkpoints[0]);
+    }
+
+    private Article generateArticle(int id, String content, String medium) {
+        Article article = new Article(id);
+        article.setContent(content);
+        article.setTitle("title " + id);
+        article.setMedium(new Medium(medium));
+        article.setPublicationDate(LocalDate.of(2017, 3, 1));
+
+        return article;
+    }
+}
@@ -0,0 +1,101 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+    private SingleFlight<String, Integer> singleFlight;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        singleFlight = new SingleFlight<>();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @Test
+    public void run_givenConcurrentCallsWithSameKey_shouldComputeOnce() throws Exception {
+        // Given:
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> leader = executor.submit(() -> singleFlight.run("key", () -> {
+            computations.incrementAndGet();
+            started.countDown();
+            await(release);
+            return 42;
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // When:
+        Future<Integer> follower = executor.submit(() -> singleFlight.run("key", () -> {
+            computations.incrementAndGet();
+            return 0;
+        }));
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then:
+        assertEquals(42, (int) leader.get(10, TimeUnit.SECONDS));
+        assertEquals(42, (int) follower.get(10, TimeUnit.SECONDS));
+        assertEquals(1, computations.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void run_givenDifferentKeys_shouldComputeInParallel() throws Exception {
+        // Given:
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Callable<Integer> task1 = () -> singleFlight.run("key1", () -> {
+            bothStarted.countDown();
+            await(bothStarted);
+            return 1;
+        });
+        Callable<Integer> task2 = () -> singleFlight.run("key2", () -> {
+            bothStarted.countDown();
+            await(bothStarted);
+            return 2;
+        });
+
+        // When:
+        Future<Integer> result1 = executor.submit(task1);
+        Future<Integer> result2 = executor.submit(task2);
+
+        // Then:
+        assertEquals(1, (int) result1.get(10, TimeUnit.SECONDS));
+        assertEquals(2, (int) result2.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = DetectionAbortedException.class)
+    public void run_givenFailingComputation_shouldThrowItsException() {
+        // When:
+        singleFlight.run("key", () -> {
+            throw new DetectionAbortedException();
+        });
+    }
+
+    @Test
+    public void run_givenCompletedComputation_shouldComputeAgain() {
+        // Given:
+        singleFlight.run("key", () -> 1);
+
+        // When:
+        int actual = singleFlight.run("key", () -> 2);
+
+        // Then:
+        assertEquals(2, actual);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.*;
+
+public class SlidingWindowMonitorTest {
+    private static final LocalDate DAY = LocalDate.of(2017, 3, 1);
+
+    @Test
+    public void ingest_givenSimilarArticleInWindow_shouldReportJoinedCluster() {
+        // Given:
+        SlidingWindowMonitor monitor = new SlidingWindowMonitor(0.8, 30);
+        Article original = generateArticle(1, "the council decided on the budget", DAY);
+        Article other = generateArticle(2, "a completely different story", DAY);
+        monitor.ingest(original);
+        monitor.ingest(other);
+        Article copy = generateArticle(3, "the council decided on the budget", DAY.plusDays(5));
+
+        // When:
+        IngestionResult result = monitor.ingest(copy);
+
+        // Then:
+        assertTrue(result.isIndexed());
+        assertTrue(result.hasJoinedCluster());
+        assertThat(result.getCluster(), containsInAnyOrder(original, copy));
+        assertEquals(1, result.getMatches().size());
+        assertEquals(1, monitor.getClusters().size());
+        assertEquals(3, monitor.getIngestionLatency().getCount());
+    }
+
+    @Test
+    public void ingest_givenArticleAfterWindow_shouldEvictAgedOutArticles() {
+        // Given:
+        SlidingWindowMonitor monitor = new SlidingWindowMonitor(0.8, 30);
+        monitor.ingest(generateArticle(1, "the council decided on the budget", DAY));
+
+        // When:
+        IngestionResult result = monitor.ingest(generateArticle(2,
+                "the council decided on the budget", DAY.plusDays(30)));
+
+        // Then:
+        assertEquals(1, result.getEvictedArticles());
+        assertFalse(result.hasJoinedCluster());
+        assertEquals(1, monitor.size());
+        assertEquals(DAY.plusDays(1), monitor.getWindowStart());
+    }
+
+    @Test
+    public void ingest_givenArticleBeforeWindow_shouldNotAddArticle() {
+        // Given:
+        SlidingWindowMonitor monitor = new SlidingWindowMonitor(0.8, 30);
+        monitor.advanceTo(DAY.plusDays(60));
+
+        // When:
+        IngestionResult old = monitor.ingest(generateArticle(1, "old story", DAY));
+        IngestionResult undated = monitor.ingest(generateArticle(2, "undated story", null));
+
+        // Then:
+        assertFalse(old.isIndexed());
+        assertFalse(undated.isIndexed());
+        assertEquals(0, monitor.size());
+    }
+
+    @Test
+    public void advanceTo_givenEvictedBridgeArticle_shouldSplitCluster() {
+        // Given:
+        SlidingWindowMonitor monitor = new SlidingWindowMonitor(0.6, 10);
+        Article bridge = generateArticle(1, "aaaa bbbb cccc dddd", DAY);
+        Article left = generateArticle(2, "aaaa bbbb cccc xxxx", DAY.plusDays(2));
+        Article right = generateArticle(3, "yyyy bbbb cccc dddd", DAY.plusDays(2));
+        monitor.ingest(bridge);
+        monitor.ingest(left);
+        monitor.ingest(right);
+        assertEquals(1, monitor.getClusters().size());
+
+        // When:
+        int evicted = monitor.advanceTo(DAY.plusDays(10));
+
+        // Then:
+        assertEquals(1, evicted);
+        assertTrue(monitor.getClusters().isEmpty());
+    }
+
+    @Test
+    public void ingest_givenContinuousStream_shouldKeepWindowSizeConstant() {
+        // Given:
+        Random random = new Random(5);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        SlidingWindowMonitor monitor = new SlidingWindowMonitor(0.7, 30);
+        long postingsAfterFirstWindow = 0;
+
+        // When:
+        for (int day = 0; day < 120; day++) {
+            for (int i = 0; i < 10; i++) {
+                StringBuilder content = new StringBuilder();
+                for (int j = 0; j < 6; j++) {
+                    content.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                monitor.ingest(generateArticle(day * 10 + i, content.toString(),
+                        DAY.plusDays(day)));
+            }
+            if (day == 29) {
+                postingsAfterFirstWindow = monitor.getPostingsCount();
+            }
+        }
+
+        // Then:
+        assertEquals(300, monitor.size());
+        assertTrue(monitor.getPostingsCount() < postingsAfterFirstWindow * 2);
+        assertEquals(1200, monitor.getIngestionLatency().getCount());
+    }
+
+    @Test
+    public void ingest_givenRandomStream_shouldReturnSameClustersAsSimilarityDetector() {
+        // Given:
+        Random random = new Random(9);
+        String[] words = {"price", "rise", "market", "stock", "fall", "bank", "rate"};
+        SlidingWindowMonitor monitor = new SlidingWindowMonitor(0.75, 7);
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            articles.add(generateArticle(i, content.toString(), DAY.plusDays(i / 10)));
+        }
+
+        // When:
+        articles.forEach(monitor::ingest);
+
+        // Then:
+        List<Article> window = new ArrayList<>();
+        for (Article article : articles) {
+            if (!article.getPublicationDate().isBefore(monitor.getWindowStart())) {
+                window.add(article);
+            }
+        }
+        List<Set<Article>> expected = new SimilarityDetector()
+                .detectArticlesWithSimilarContents(window, 0.75);
+        assertThat(monitor.getClusters(), containsInAnyOrder(expected.toArray()));
+    }
+
+    private Article generateArticle(int id, String content, LocalDate publicationDate) {
+        Article article = new Article(id);
+        article.setContent(content);
+        article.setPublicationDate(publicationDate);
+
+        return article;
+    }
+}
@@ -0,0 +1,45 @@
+package ch.svenstoll.similarityfinder.domain;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class StageMetricsTest {
+    @Test
+    public void getThroughput_givenProcessedItems_shouldReturnItemsPerSecond() {
+        // Given:
+        AtomicLong now = new AtomicLong(0);
+        StageMetrics metrics = new StageMetrics("stage", () -> 3, 8, now::get);
+        metrics.recordProcessed(50);
+        metrics.recordProcessed(50);
+        now.set(TimeUnit.SECONDS.toNanos(2));
+
+        // When:
+        double throughput = metrics.getThroughput();
+
+        // Then:
+        assertEquals(50, throughput, 1e-9);
+        assertEquals(3, metrics.getQueueDepth());
+        assertEquals(100, metrics.getProcessedItems());
+    }
+
+    @Test
+    public void getThroughput_givenStageFinished_shouldNotDecreaseAfterwards() {
+        // Given:
+        AtomicLong now = new AtomicLong(0);
+        StageMetrics metrics = new StageMetrics("stage", () -> 0, 0, now::get);
+        metrics.recordProcessed(10);
+        now.set(TimeUnit.SECONDS.toNanos(1));
+        metrics.finish();
+        now.set(TimeUnit.SECONDS.toNanos(10));
+
+        // When:
+        double throughput = metrics.getThroughput();
+
+        // Then:
+        assertEquals(10, throughput, 1e-9);
+    }
+}
@@ -1,6 +1,7 @@
 package ch.svenstoll.similarityfinder.ui;
 
 import ch.svenstoll.similarityfinder.dao.DatabaseAccessException;
+import ch.svenstoll.similarityfinder.domain.ExecutorRegistry;
 import ch.svenstoll.similarityfinder.domain.Filter;
 import ch.svenstoll.similarityfinder.domain.MaxArticlesException;
 import ch.svenstoll.similarityfinder.domain.Medium;
@@ -58,7 +59,8 @@ public class FilterControllerTest extends ApplicationTest {
         given(filter.relevantOnlyProperty()).willReturn(new SimpleBooleanProperty());
         given(filter.progressProperty()).willReturn(new SimpleDoubleProperty());
 
-        FilterController filterController = new FilterController(filter, configsManagerController);
+        FilterController filterController = new FilterController(filter, configsManagerController,
+                new ExecutorRegistry());
         Parent root = filterController.loadFxml();
         Scene scene = new Scene(root);
         primaryStage.setScene(scene);
@@ -1,6 +1,8 @@
 package ch.svenstoll.similarityfinder.ui;
 
 import ch.svenstoll.similarityfinder.domain.Article;
+import ch.svenstoll.similarityfinder.domain.ExecutorRegistry;
+import ch.svenstoll.similarityfinder.domain.Filter;
 import ch.svenstoll.similarityfinder.domain.FilteredSimilarities;
 import ch.svenstoll.similarityfinder.ui.FilteredSimilaritiesController;
 import javafx.beans.property.ListProperty;
@@ -28,14 +30,18 @@ import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 import static junit.framework.TestCase.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.testfx.api.FxAssert.verifyThat;
 import static org.testfx.matcher.base.NodeMatchers.*;
 
 public class FilteredSimilaritiesControllerTest extends ApplicationTest {
     private FilteredSimilaritiesController filteredSimilaritiesController;
     private FilteredSimilarities filteredSimilarities;
+    private Filter filter;
     private ObservableList<Set<Article>> similarities;
     private ListProperty<Set<Article>> similaritiesProperty;
     private FxRobot robot;
@@ -48,7 +54,10 @@ public class FilteredSimilaritiesControllerTest extends ApplicationTest {
         given(filteredSimilarities.similaritiesProperty()).willReturn(similaritiesProperty);
         given(filteredSimilarities.getSimilarities()).willReturn(similarities);
 
-        filteredSimilaritiesController = new FilteredSimilaritiesController(filteredSimilarities);
+        filter = mock(Filter.class);
+        filteredSimilaritiesController
+                = new FilteredSimilaritiesController(filteredSimilarities, filter,
+                        new ExecutorRegistry());
         Parent root = filteredSimilaritiesController.loadFxml();
         Scene scene = new Scene(root);
         primaryStage.setScene(scene);
@@ -137,6 +146,33 @@ public class FilteredSimilaritiesControllerTest extends ApplicationTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void contextMenu_givenFindSimilarIsSelected_shouldFindArticlesSimilarToArticle() {
+        // Given:
+        Article c1 = new Article(1);
+        Article c2 = new Article(2);
+        Set<Article> set1 = new HashSet<>(Arrays.asList(c1, c2));
+        List<Set<Article>> sets = Collections.singletonList(set1);
+
+        similarities = FXCollections.observableArrayList(sets);
+        given(filteredSimilarities.getSimilarities()).willReturn(similarities);
+        given(filter.findSimilarArticles(any(Article.class)))
+                .willReturn(Collections.emptyList());
+        similaritiesProperty.set(similarities);
+
+        robot.sleep(100);
+
+        // When:
+        TreeTableRow firstRow = robot.lookup(".tree-table-row-cell").nth(0).query();
+        robot.rightClickOn(firstRow);
+        Node findSimilarMenuItem = robot.lookup(".context-menu .menu-item").nth(1).query();
+        robot.clickOn(findSimilarMenuItem);
+
+        // Then:
+        Article article = (Article) firstRow.getTreeItem().getValue();
+        verify(filter, timeout(1000)).findSimilarArticles(article);
+    }
+
     @Test
     public void copyAllIds_givenSimilaritiesAreNotEmpty_shouldCopyAllIdsToSystemClipboard()
             throws IOException, UnsupportedFlavorException {